@@ -0,0 +1,31 @@
+package org.vitor.appdistribuido.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitor.appdistribuido.Alunos.Alunos;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cadastro de alunos (verificação de número duplicado, insert e invalidação do cache).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class AlunosServiceBenchmark {
+
+    @Benchmark
+    public Alunos addNewAluno(Ambiente ambiente) {
+        int numero = ambiente.proximoNumero();
+        Alunos aluno = new Alunos("Aluno " + numero, numero);
+        ambiente.alunosService.addNewAluno(aluno);
+        return aluno;
+    }
+}
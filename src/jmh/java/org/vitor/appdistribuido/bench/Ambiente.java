@@ -0,0 +1,122 @@
+package org.vitor.appdistribuido.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+import org.vitor.appdistribuido.AppDistribuidoApplication;
+import org.vitor.appdistribuido.Presenca.EstatisticasService;
+import org.vitor.appdistribuido.Presenca.IndicePresencas;
+import org.vitor.appdistribuido.Presenca.PresencaService;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aplicação sem servidor web sobre um H2 em memória (modo PostgreSQL), semeada com
+ * {@code alunos} alunos e um registro por aluno em cada dia útil de {@code dias} dias
+ * corridos a partir de 2025-01-01 (~90% de presença). A semente é fixa: toda execução
+ * parte do mesmo banco.
+ */
+@State(Scope.Benchmark)
+public class Ambiente {
+
+    static final LocalDate INICIO = LocalDate.of(2025, 1, 1);
+
+    @Param("5000")
+    public int alunos;
+
+    @Param("365")
+    public int dias;
+
+    ConfigurableApplicationContext contexto;
+    PresencaService presencaService;
+    AlunosService alunosService;
+
+    private long[] ids;
+    private LocalDate[] diasLetivos;
+    private final AtomicInteger proximoNumero = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void subir() {
+        contexto = new SpringApplicationBuilder(AppDistribuidoApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(Map.of(
+                        "spring.datasource.url", "jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "spring.datasource.driver-class-name", "org.h2.Driver",
+                        "spring.datasource.username", "sa",
+                        "spring.datasource.password", "",
+                        "spring.jpa.show-sql", "false",
+                        "spring.jpa.properties.hibernate.generate_statistics", "false",
+                        "logging.level.root", "WARN"))
+                .run();
+        presencaService = contexto.getBean(PresencaService.class);
+        alunosService = contexto.getBean(AlunosService.class);
+
+        semear(contexto.getBean(JdbcTemplate.class));
+        contexto.getBean(EstatisticasService.class).reconstruir();
+        contexto.getBean(IndicePresencas.class).reconstruir();
+    }
+
+    @TearDown(Level.Trial)
+    public void descer() {
+        contexto.close();
+    }
+
+    long alunoAleatorio() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    LocalDate diaAleatorio() {
+        return diasLetivos[ThreadLocalRandom.current().nextInt(diasLetivos.length)];
+    }
+
+    int proximoNumero() {
+        return proximoNumero.incrementAndGet();
+    }
+
+    private void semear(JdbcTemplate jdbc) {
+        List<Object[]> novosAlunos = new ArrayList<>(alunos);
+        for (int i = 1; i <= alunos; i++) {
+            novosAlunos.add(new Object[]{"Aluno " + i, i});
+        }
+        jdbc.batchUpdate("INSERT INTO alunos (id, name, number) VALUES (nextval('alunos_sequence'), ?, ?)", novosAlunos);
+        ids = jdbc.queryForList("SELECT id FROM alunos ORDER BY id", Long.class).stream().mapToLong(Long::longValue).toArray();
+        proximoNumero.set(alunos);
+
+        List<LocalDate> letivos = new ArrayList<>();
+        for (LocalDate dia = INICIO; dia.isBefore(INICIO.plusDays(dias)); dia = dia.plusDays(1)) {
+            if (dia.getDayOfWeek() != DayOfWeek.SATURDAY && dia.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                letivos.add(dia);
+            }
+        }
+        diasLetivos = letivos.toArray(LocalDate[]::new);
+
+        Random aleatorio = new Random(42);
+        for (LocalDate dia : diasLetivos) {
+            Timestamp dataHora = Timestamp.valueOf(dia.atTime(8, 0));
+            Date data = Date.valueOf(dia);
+            List<Object[]> chamada = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                chamada.add(new Object[]{id, dataHora, data, aleatorio.nextInt(10) != 0});
+            }
+            jdbc.batchUpdate("INSERT INTO presencas (id, aluno_id, data_hora, dia, presente) "
+                    + "VALUES (nextval('presencas_sequence'), ?, ?, ?, ?)", chamada);
+        }
+    }
+}
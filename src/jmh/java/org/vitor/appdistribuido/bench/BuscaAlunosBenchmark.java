@@ -0,0 +1,75 @@
+package org.vitor.appdistribuido.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitor.appdistribuido.Alunos.AlunoResumo;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosAlteradosEvent;
+import org.vitor.appdistribuido.Alunos.IndiceBuscaAlunos;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Busca de alunos no índice em memória (Alunos/IndiceBuscaAlunos), sem banco: o índice é
+ * alimentado pelos mesmos eventos do AlunosService, com nomes sorteados de listas de nomes e
+ * sobrenomes comuns (muitos termos repetidos, como num cadastro real). Cada consulta pede os
+ * 10 melhores resultados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BuscaAlunosBenchmark {
+
+    private static final String[] NOMES = {
+            "Ana", "João", "Maria", "José", "Antônio", "Francisca", "Carlos", "Paulo", "Pedro", "Lucas",
+            "Luiz", "Marcos", "Luís", "Gabriel", "Rafael", "Márcia", "Daniel", "Marcelo", "Bruno", "Eduardo",
+            "Felipe", "Raimundo", "Rodrigo", "Adriana", "Juliana", "Fernanda", "Patrícia", "Aline", "Sandra", "Camila",
+            "Amanda", "Bruna", "Jéssica", "Letícia", "Júlia", "Luciana", "Vanessa", "Mariana", "Gabriela", "Vitória",
+            "Larissa", "Cláudia", "Beatriz", "Rita", "Luana", "Sônia", "Renata", "Eliane", "Joana", "Vítor"};
+    private static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes", "Soares", "Fernandes", "Vieira", "Barbosa",
+            "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes", "Marques", "Machado", "Mendes", "Freitas",
+            "Cardoso", "Ramos", "Gonçalves", "Santana", "Teixeira", "Araújo", "Conceição", "Moura", "Correia", "Pinto"};
+
+    @Param({"50000"})
+    public int alunos;
+
+    @Param({"jo", "maria sil", "joao slva", "conceicao ar", "12"})
+    public String consulta;
+
+    private IndiceBuscaAlunos indice;
+
+    @Setup
+    public void preparar() {
+        indice = new IndiceBuscaAlunos(null, null);
+        Random aleatorio = new Random(42);
+        for (int i = 1; i <= alunos; i++) {
+            Alunos aluno = new Alunos(NOMES[aleatorio.nextInt(NOMES.length)] + " "
+                    + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)] + " "
+                    + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)], i);
+            aluno.setId((long) i);
+            indice.aoAlterarAlunos(AlunosAlteradosEvent.cadastrado(aluno));
+        }
+        System.out.println("\n" + consulta + " -> " + indice.buscar(consulta, 10));
+    }
+
+    @Benchmark
+    public List<AlunoResumo> buscar() {
+        return indice.buscar(consulta, 10);
+    }
+}
@@ -0,0 +1,48 @@
+package org.vitor.appdistribuido.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.vitor.appdistribuido.Presenca.PresencaDTO;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caminhos quentes do PresencaService, com transação e banco (H2) incluídos na medida.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class PresencaServiceBenchmark {
+
+    /* Remarcação de um aluno num dia já registrado (o caso comum: a chamada é refeita) */
+    @Benchmark
+    public PresencaDTO marcarPresenca(Ambiente ambiente) {
+        return ambiente.presencaService.marcarPresenca(
+                ambiente.alunoAleatorio(),
+                ambiente.diaAleatorio().atTime(8, 0),
+                ThreadLocalRandom.current().nextBoolean());
+    }
+
+    /* Um mês de presenças de um aluno */
+    @Benchmark
+    public List<PresencaDTO> buscarPresencasPorAlunoEPeriodo(Ambiente ambiente) {
+        LocalDate inicio = ambiente.diaAleatorio();
+        return ambiente.presencaService.buscarPresencasPorAlunoEPeriodo(
+                ambiente.alunoAleatorio(), inicio, inicio.plusDays(29));
+    }
+
+    @Benchmark
+    public boolean verificarPresencaNoDia(Ambiente ambiente) {
+        return ambiente.presencaService.verificarPresencaNoDia(ambiente.alunoAleatorio(), ambiente.diaAleatorio());
+    }
+}
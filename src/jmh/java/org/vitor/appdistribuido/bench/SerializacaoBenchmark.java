@@ -0,0 +1,126 @@
+package org.vitor.appdistribuido.bench;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosColunares;
+import org.vitor.appdistribuido.Common.Colunas;
+import org.vitor.appdistribuido.Presenca.PresencaDTO;
+import org.vitor.appdistribuido.Presenca.PresencasColunares;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialização das listas devolvidas pela API (PresencaDTO e Alunos) em cada formato negociável:
+ * JSON (ObjectMapper configurado como o do Spring Boot), CBOR e o formato colunar em JSON e em
+ * CBOR (Config/FormatosConfig). Não usa banco. O tamanho de cada resposta é impresso no início
+ * de cada fork, para comparar bytes além do tempo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacaoBenchmark {
+
+    @Param({"100", "1000"})
+    public int tamanho;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private final JsonFactory json = new JsonFactory();
+    private final CBORFactory cbor = new CBORFactory();
+    private final PresencasColunares presencasColunares = new PresencasColunares();
+    private final AlunosColunares alunosColunares = new AlunosColunares();
+    private List<PresencaDTO> presencas;
+    private List<Alunos> alunos;
+
+    @Setup
+    public void preparar() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        presencas = new ArrayList<>(tamanho);
+        alunos = new ArrayList<>(tamanho);
+        LocalDateTime inicio = Ambiente.INICIO.atTime(8, 0);
+        for (int i = 1; i <= tamanho; i++) {
+            presencas.add(new PresencaDTO((long) i, (long) (i % 50 + 1), inicio.plusDays(i / 50), i % 10 != 0));
+            Alunos aluno = new Alunos("Aluno " + i, i);
+            aluno.setId((long) i);
+            alunos.add(aluno);
+        }
+        System.out.printf("%n[tamanho=%d] bytes presencas: json=%d cbor=%d colunar=%d colunarCbor=%d"
+                        + " | alunos: json=%d cbor=%d colunar=%d colunarCbor=%d%n", tamanho,
+                presencas().length, presencasCbor().length, presencasColunar().length, presencasColunarCbor().length,
+                alunos().length, alunosCbor().length, alunosColunar().length, alunosColunarCbor().length);
+    }
+
+    @Benchmark
+    public byte[] presencas() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(presencas);
+    }
+
+    @Benchmark
+    public byte[] presencasCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(presencas);
+    }
+
+    @Benchmark
+    public byte[] presencasColunar() throws IOException {
+        return escrever(json, presencasColunares, presencas);
+    }
+
+    @Benchmark
+    public byte[] presencasColunarCbor() throws IOException {
+        return escrever(cbor, presencasColunares, presencas);
+    }
+
+    @Benchmark
+    public byte[] alunos() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(alunos);
+    }
+
+    @Benchmark
+    public byte[] alunosCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(alunos);
+    }
+
+    @Benchmark
+    public byte[] alunosColunar() throws IOException {
+        return escrever(json, alunosColunares, alunos);
+    }
+
+    @Benchmark
+    public byte[] alunosColunarCbor() throws IOException {
+        return escrever(cbor, alunosColunares, alunos);
+    }
+
+    /* Como o ColunarHttpMessageConverter, escrevendo num array em vez da resposta */
+    private static <T> byte[] escrever(JsonFactory fabrica, Colunas<T> colunas, List<T> itens) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (JsonGenerator gerador = fabrica.createGenerator(saida)) {
+            colunas.escrever(itens, gerador);
+        }
+        return saida.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package org.vitor.appdistribuido.Admissao;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Controle de admissão na frente dos controllers de presenças e alunos: cada requisição ocupa
+ * uma vaga do {@link LimiteAdaptativo} da sua classe enquanto é atendida, e quem chega com o
+ * limite ocupado recebe 429 com Retry-After na hora, em vez de esperar no Tomcat e no pool.
+ *
+ * <p>Escritas (POST, PUT, PATCH, DELETE) e leituras (GET, HEAD) têm limites separados: uma
+ * rajada de marcações esgota o limite das escritas sem tirar vagas das consultas. Ficam de fora
+ * as conexões longas e as operações em lote (transmissão ao vivo, NDJSON, CSV, reconstruções),
+ * que distorceriam a latência medida.</p>
+ */
+public class ControleAdmissaoFilter extends OncePerRequestFilter {
+
+    private static final List<String> EXCLUIDOS = List.of("/ao-vivo", "/stream", "/csv", "/reconstruir");
+
+    private final LimiteAdaptativo escritas;
+    private final LimiteAdaptativo leituras;
+    private final String retryAfterSegundos;
+
+    public ControleAdmissaoFilter(LimiteAdaptativo escritas, LimiteAdaptativo leituras, int retryAfterSegundos) {
+        this.escritas = escritas;
+        this.leituras = leituras;
+        this.retryAfterSegundos = Integer.toString(retryAfterSegundos);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        LimiteAdaptativo limite = classificar(request);
+        if (limite == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!limite.tentarAdquirir()) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSegundos);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limite.liberar(System.nanoTime() - inicio);
+        }
+    }
+
+    /* @return O limite da classe da requisição, ou null se ela não passa pelo controle */
+    private LimiteAdaptativo classificar(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        for (String excluido : EXCLUIDOS) {
+            if (uri.endsWith(excluido)) {
+                return null;
+            }
+        }
+        return switch (request.getMethod()) {
+            case "GET", "HEAD" -> leituras;
+            case "POST", "PUT", "PATCH", "DELETE" -> escritas;
+            default -> null; // OPTIONS (preflight de CORS), TRACE
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package org.vitor.appdistribuido.Admissao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (gradiente, como o
+ * Gradient2 do concurrency-limits da Netflix).
+ *
+ * <p>As latências são agrupadas em janelas (pelo menos {@code janela} e 10 amostras). Ao fechar
+ * uma janela, a média dela (RTT curto) é comparada com o RTT longo, a latência "sem fila" (a
+ * menor média de janela, que só sobe devagar): gradiente = clamp(1,5 * longo / curto, 0,5, 1).
+ * O novo limite é limite * gradiente + √limite, suavizado nas quedas. Enquanto a latência não sobe, o limite
+ * cresce em √limite por janela; quando a fila começa a se formar (o RTT curto passa de 1,5x o
+ * longo), ele encolhe até a latência voltar. Só cresce se a demanda chegou perto do limite, para
+ * não inflar durante períodos ociosos.</p>
+ *
+ * <p>Quem chega com o limite ocupado é recusado na hora, sem fila: a espera aconteceria de
+ * qualquer jeito no pool do banco, atrasando também as requisições aceitas.</p>
+ */
+public final class LimiteAdaptativo {
+
+    private static final double TOLERANCIA = 1.5;
+    private static final double SUAVIZACAO = 0.2;
+    private static final int JANELA_LONGA = 600;  // janelas na média exponencial do RTT longo
+    private static final int MIN_AMOSTRAS = 10;
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final long janelaNanos;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private volatile int limite;
+    private final Counter rejeitadas;
+
+    // Janela atual e RTT longo, sob a trava
+    private final ReentrantLock trava = new ReentrantLock();
+    private double limiteEstimado;
+    private double rttLongo;
+    private long inicioJanela = System.nanoTime();
+    private long somaRtt;
+    private int amostras;
+    private int picoEmAndamento;
+
+    /**
+     * @param classe O nome nas métricas (tag "classe").
+     * @param limiteInicial O limite antes da primeira janela.
+     * @param limiteMinimo O menor limite possível.
+     * @param limiteMaximo O maior limite possível.
+     * @param janela A duração mínima de cada janela de amostras.
+     * @param meterRegistry Onde registrar app.admissao.limite, app.admissao.em.andamento e app.admissao.rejeitadas.
+     */
+    public LimiteAdaptativo(String classe, int limiteInicial, int limiteMinimo, int limiteMaximo,
+                            Duration janela, MeterRegistry meterRegistry) {
+        if (limiteMinimo < 1 || limiteMinimo > limiteMaximo) {
+            throw new IllegalArgumentException("Limites inválidos: mínimo " + limiteMinimo + ", máximo " + limiteMaximo);
+        }
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.janelaNanos = janela.toNanos();
+        this.limite = Math.clamp(limiteInicial, limiteMinimo, limiteMaximo);
+        this.limiteEstimado = this.limite;
+
+        Gauge.builder("app.admissao.limite", this, LimiteAdaptativo::limite)
+                .description("Requisições simultâneas admitidas")
+                .tag("classe", classe)
+                .register(meterRegistry);
+        Gauge.builder("app.admissao.em.andamento", emAndamento, AtomicInteger::get)
+                .description("Requisições admitidas em andamento")
+                .tag("classe", classe)
+                .register(meterRegistry);
+        this.rejeitadas = Counter.builder("app.admissao.rejeitadas")
+                .description("Requisições recusadas com 429 por excederem o limite")
+                .tag("classe", classe)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return true se a requisição foi admitida; nesse caso é obrigatório chamar {@link #liberar}.
+     */
+    public boolean tentarAdquirir() {
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= limite) {
+                rejeitadas.increment();
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Devolve a vaga e registra a latência da requisição.
+     * @param rttNanos Quanto a requisição levou desde a admissão.
+     */
+    public void liberar(long rttNanos) {
+        int pico = emAndamento.getAndDecrement();
+        trava.lock();
+        try {
+            somaRtt += rttNanos;
+            amostras++;
+            picoEmAndamento = Math.max(picoEmAndamento, pico);
+            long agora = System.nanoTime();
+            if (amostras >= MIN_AMOSTRAS && agora - inicioJanela >= janelaNanos) {
+                atualizar(Math.max((double) somaRtt / amostras, 1));
+                inicioJanela = agora;
+                somaRtt = 0;
+                amostras = 0;
+                picoEmAndamento = 0;
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    public int limite() {
+        return limite;
+    }
+
+    public int emAndamento() {
+        return emAndamento.get();
+    }
+
+    /* Chamado com a trava, ao fechar uma janela */
+    private void atualizar(double rttCurto) {
+        // Desce na hora para uma janela mais rápida; sobe devagar (média exponencial), para que
+        // uma sobrecarga que já começa na subida não vire a referência de latência normal
+        if (rttLongo == 0 || rttCurto < rttLongo) {
+            rttLongo = rttCurto;
+        } else {
+            rttLongo += (rttCurto - rttLongo) * 2 / (JANELA_LONGA + 1);
+        }
+
+        double gradiente = Math.clamp(TOLERANCIA * rttLongo / rttCurto, 0.5, 1.0);
+        double novo = limiteEstimado * gradiente + Math.sqrt(limiteEstimado);
+        if (novo < limiteEstimado) {
+            novo = limiteEstimado * (1 - SUAVIZACAO) + novo * SUAVIZACAO;
+        } else if (picoEmAndamento < limiteEstimado / 2) {
+            return; // demanda bem abaixo do limite: não há o que aprender para crescer
+        }
+        limiteEstimado = Math.clamp(novo, limiteMinimo, limiteMaximo);
+        limite = (int) limiteEstimado;
+    }
+}
@@ -0,0 +1,11 @@
+package org.vitor.appdistribuido.Alunos;
+
+/**
+ * Aluno lido por projeção para montar o índice de busca, e devolvido por ele.
+ *
+ * @param id O ID do aluno.
+ * @param name O nome, como cadastrado.
+ * @param number O número do aluno.
+ */
+public record AlunoResumo(Long id, String name, Integer number) {
+}
@@ -0,0 +1,33 @@
+package org.vitor.appdistribuido.Alunos;
+
+/**
+ * Publicado pelo AlunosService quando um aluno é cadastrado, alterado ou removido, ou quando
+ * uma importação muda o cadastro em massa; os ouvintes transacionais só o recebem depois do commit.
+ *
+ * @param alunoId O ID do aluno, ou null numa mudança em massa (o ouvinte deve recarregar o cadastro).
+ * @param removido true se o aluno foi removido.
+ * @param name O nome gravado, ou null se não mudou (ou na remoção).
+ * @param number O número gravado, ou null se não mudou (ou na remoção).
+ */
+public record AlunosAlteradosEvent(Long alunoId, boolean removido, String name, Integer number) {
+
+    public static AlunosAlteradosEvent cadastrado(Alunos aluno) {
+        return new AlunosAlteradosEvent(aluno.getId(), false, aluno.getName(), aluno.getNumber());
+    }
+
+    public static AlunosAlteradosEvent alterado(Long alunoId, String name, Integer number) {
+        return new AlunosAlteradosEvent(alunoId, false, name, number);
+    }
+
+    public static AlunosAlteradosEvent removido(Long alunoId) {
+        return new AlunosAlteradosEvent(alunoId, true, null, null);
+    }
+
+    public static AlunosAlteradosEvent emMassa() {
+        return new AlunosAlteradosEvent(null, false, null, null);
+    }
+
+    public boolean isEmMassa() {
+        return alunoId == null;
+    }
+}
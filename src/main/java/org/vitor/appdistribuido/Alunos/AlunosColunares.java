@@ -0,0 +1,45 @@
+package org.vitor.appdistribuido.Alunos;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.vitor.appdistribuido.Common.Colunas;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Lista de {@link Alunos} no formato colunar:
+ * <pre>
+ * { "id": [1, 2], "name": ["Ana Silva", "Bruno Costa"], "number": [10, 11] }
+ * </pre>
+ */
+public class AlunosColunares implements Colunas<Alunos> {
+
+    @Override
+    public void escrever(List<? extends Alunos> alunos, JsonGenerator gerador) throws IOException {
+        int tamanho = alunos.size();
+        gerador.writeStartObject();
+
+        gerador.writeFieldName("id");
+        gerador.writeStartArray(alunos, tamanho);
+        for (Alunos aluno : alunos) {
+            gerador.writeNumber(aluno.getId());
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("name");
+        gerador.writeStartArray(alunos, tamanho);
+        for (Alunos aluno : alunos) {
+            gerador.writeString(aluno.getName());
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("number");
+        gerador.writeStartArray(alunos, tamanho);
+        for (Alunos aluno : alunos) {
+            gerador.writeNumber(aluno.getNumber());
+        }
+        gerador.writeEndArray();
+
+        gerador.writeEndObject();
+    }
+}
@@ -1,12 +1,24 @@
 package org.vitor.appdistribuido.Alunos;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.vitor.appdistribuido.Common.Csv;
+import org.vitor.appdistribuido.Common.Ndjson;
+import org.vitor.appdistribuido.Common.Pagina;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
 
+import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("api/v1/alunos")
@@ -14,23 +26,84 @@ import java.util.List;
 public class AlunosController {
 
     private final AlunosService alunosService;
+    private final IndiceBuscaAlunos indiceBuscaAlunos;
+    private final ObjectMapper objectMapper;
 
     /* ------------------ LISTAR ------------------ */
+    /* As leituras do cadastro respondem 304 Not Modified se o ETag enviado ainda for o atual, no mesmo formato */
+    /* ?turmaId=X: só os alunos da turma, por número (a lista da chamada) */
     @GetMapping
-    public List<Alunos> getAlunos() {
-        return alunosService.getAlunos();
+    public ResponseEntity<List<Alunos>> getAlunos(@RequestParam(required = false) Long turmaId) {
+        if (turmaId != null) {
+            return comETag(() -> alunosService.getAlunosDaTurma(turmaId));
+        }
+        return comETag(alunosService::getAlunos);
     }
 
     /* Ordenado por nome (poderia usar ?sort=name,asc) */
     @GetMapping("/sortedByName")
-    public List<Alunos> getAlunosSortedByName() {
-        return alunosService.getAlunosSortedByName();
+    public ResponseEntity<List<Alunos>> getAlunosSortedByName() {
+        return comETag(alunosService::getAlunosSortedByName);
+    }
+
+    /* Paginação por cursor: ?depoisDe=<último id>&limite=100 */
+    @GetMapping("/pagina")
+    public Pagina<Alunos> getAlunosPaginados(
+            @RequestParam(required = false) Long depoisDe,
+            @RequestParam(required = false) Integer limite) {
+        return alunosService.getAlunosPaginados(depoisDe, limite);
+    }
+
+    /* Exportação completa em NDJSON (um aluno por linha), em streaming */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarAlunos() {
+        StreamingResponseBody corpo = Ndjson.corpo(objectMapper, alunosService::exportarAlunos);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    /* Exportação completa em CSV (id,name,number), em streaming; o arquivo pode ser reimportado */
+    @GetMapping(value = "/csv", produces = Csv.TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarAlunosCsv() {
+        StreamingResponseBody corpo = Csv.corpo(List.of("id", "name", "number"),
+                (Alunos aluno) -> Arrays.asList(aluno.getId(), aluno.getName(), aluno.getNumber()),
+                alunosService::exportarAlunos);
+        return ResponseEntity.ok().contentType(Csv.TEXT_CSV).body(corpo);
+    }
+
+    /* ------------------ BUSCA (índice em memória, sem ir ao banco) ------------------ */
+    /* ?q=joao sil: nomes por prefixo, tolerando erros de digitação; ?q=12: números que começam com 12 */
+    @GetMapping("/busca")
+    public List<AlunoResumo> buscarAlunos(
+            @RequestParam("q") String consulta,
+            @RequestParam(required = false) Integer limite) {
+        if (!indiceBuscaAlunos.isPronto()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de busca ainda em carga");
+        }
+        return indiceBuscaAlunos.buscar(consulta, IndiceBuscaAlunos.limitar(limite));
+    }
+
+    /* Contagens e memória ocupada pelo índice de busca */
+    @GetMapping("/busca/indice")
+    public IndiceBuscaAlunos.Estado estadoIndiceBusca() {
+        return indiceBuscaAlunos.estado();
+    }
+
+    /* Remonta o índice de busca a partir do banco */
+    @PostMapping("/busca/reconstruir")
+    public IndiceBuscaAlunos.Estado reconstruirIndiceBusca() {
+        return indiceBuscaAlunos.reconstruir();
+    }
+
+    /* ------------------ IMPORTAR (CSV com cabeçalho name,number) ------------------ */
+    @PostMapping(value = "/csv", consumes = Csv.TEXT_CSV_VALUE)
+    public ResultadoImportacao importarAlunosCsv(InputStream csv) {
+        return alunosService.importarAlunos(csv);
     }
 
     /* ------------------ BUSCAR POR ID ------------------ */
     @GetMapping("{alunoId}")
-    public Alunos getAlunoById(@PathVariable Long alunoId) {
-        return alunosService.getAlunoById(alunoId);
+    public ResponseEntity<Alunos> getAlunoById(@PathVariable Long alunoId) {
+        return comETag(() -> alunosService.getAlunoById(alunoId));
     }
 
     /* ------------------ CRIAR ------------------ */
@@ -56,4 +129,16 @@ public class AlunosController {
         alunosService.updateAluno(alunoId, name, number);
         return ResponseEntity.ok().build();
     }
+
+    /*
+     * A versão é lida antes dos dados: se houver uma escrita no meio, o cliente só fica com um ETag antigo.
+     * O tipo negociado entra no ETag e o 304 é decidido depois da negociação (Common/ETagPorFormato).
+     */
+    private <T> ResponseEntity<T> comETag(Supplier<T> leitura) {
+        String etag = alunosService.getVersaoCadastro();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(leitura.get());
+    }
 }
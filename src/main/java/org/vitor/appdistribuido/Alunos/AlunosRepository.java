@@ -1,17 +1,75 @@
 package org.vitor.appdistribuido.Alunos;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface AlunosRepository extends JpaRepository<Alunos, Long> {
+public interface AlunosRepository extends JpaRepository<Alunos, Long>, AlunosRepositoryCustom {
 
     Optional<Alunos> findByNumber(Integer number);
 
     boolean existsByNumber(Integer number);
 
     List<Alunos> findAllByOrderByNameAsc();
+
+    /* Paginação por cursor: próxima página após o ID informado */
+    List<Alunos> findByIdGreaterThanOrderByIdAsc(Long depoisDe, Limit limite);
+
+    /* Alunos de uma turma, por número (ordem da chamada): varre só as matrículas da turma (PK de turmas_alunos) */
+    @Query(value = """
+            SELECT a.* FROM turmas_alunos m JOIN alunos a ON a.id = m.aluno_id
+            WHERE m.turma_id = :turmaId
+            ORDER BY a.number
+            """, nativeQuery = true)
+    List<Alunos> findDaTurma(@Param("turmaId") Long turmaId);
+
+    @Query(value = "SELECT COUNT(*) > 0 FROM turmas WHERE id = :turmaId", nativeQuery = true)
+    boolean existsTurma(@Param("turmaId") Long turmaId);
+
+    /* Exclusão num único comando (sem o SELECT do deleteById); devolve as linhas removidas */
+    @Modifying
+    @Query("delete from Alunos a where a.id = :id")
+    int excluirPorId(@Param("id") Long id);
+
+    /* Leitura em streaming (cursor do banco) – deve ser consumido dentro de uma transação */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select a from Alunos a order by a.id")
+    Stream<Alunos> streamTodos();
+
+    /* Só id, nome e número, em streaming, para o índice de busca – deve ser consumido dentro de uma transação */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "5000"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new org.vitor.appdistribuido.Alunos.AlunoResumo(a.id, a.name, a.number) from Alunos a")
+    Stream<AlunoResumo> streamResumos();
+
+    /* Só os IDs, para o conjunto em memória da ingestão assíncrona de check-ins */
+    @Query("select a.id from Alunos a")
+    List<Long> findTodosIds();
+
+    /*
+     * Retorna os IDs existentes, travando as linhas (FOR UPDATE) até o fim da transação.
+     * Uma única consulta valida a chamada inteira e serializa as escritas de presença por aluno;
+     * a ordem por ID evita deadlocks entre chamadas concorrentes.
+     */
+    @Query(value = "SELECT id FROM alunos WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> travarIdsExistentes(@Param("ids") Collection<Long> ids);
+
+    /* O próximo lote de IDs em ordem, depois de :depois: a reconstrução dos resumos trava e recalcula um lote por vez */
+    @Query(value = "SELECT id FROM alunos WHERE id > :depois ORDER BY id LIMIT :quantos", nativeQuery = true)
+    List<Long> findIdsDepois(@Param("depois") long depois, @Param("quantos") int quantos);
 }
@@ -0,0 +1,42 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Operações de AlunosRepository implementadas diretamente sobre JDBC.
+ */
+public interface AlunosRepositoryCustom {
+
+    /**
+     * Inclui alunos em massa: as linhas vão para uma tabela temporária (COPY no PostgreSQL, JDBC
+     * batch no H2) e entram em alunos com um único INSERT ... SELECT. Números repetidos no arquivo
+     * (vale a primeira linha) ou já cadastrados são recusados no próprio banco, sem consulta por linha.
+     * Deve ser chamado dentro de uma transação.
+     *
+     * @param alunos As linhas já validadas, consumidas uma vez, em ordem de linha.
+     * @param recusar Recebe cada linha recusada, com o motivo.
+     * @return Quantos alunos foram incluídos.
+     */
+    long importar(Iterator<AlunoImportado> alunos, Consumer<ResultadoImportacao.Erro> recusar);
+
+    /**
+     * Altera só as colunas informadas, num único UPDATE (sem carregar a entidade). Um número já
+     * usado por outro aluno esbarra na unique constraint (DataIntegrityViolationException).
+     *
+     * @param id O aluno.
+     * @param name O novo nome, ou null para manter.
+     * @param number O novo número, ou null para manter.
+     * @return 1 se o aluno existe, 0 se não (sem colunas a alterar, apenas verifica a existência).
+     */
+    int atualizar(Long id, String name, Integer number);
+
+    /**
+     * Uma linha do arquivo de importação.
+     * @param linha A linha do arquivo, para o relatório.
+     */
+    record AlunoImportado(long linha, String name, Integer number) {
+    }
+}
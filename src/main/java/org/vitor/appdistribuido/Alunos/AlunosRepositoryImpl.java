@@ -0,0 +1,161 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.vitor.appdistribuido.Common.Csv;
+import org.vitor.appdistribuido.Common.Dialeto;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Implementação de {@link AlunosRepositoryCustom} (descoberta pelo Spring Data pelo sufixo "Impl").
+ */
+class AlunosRepositoryImpl implements AlunosRepositoryCustom {
+
+    private static final int TAMANHO_LOTE = 1000;
+    private static final int TAMANHO_BUFFER_COPY = 64 * 1024;
+
+    private static final String CRIAR_TABELA_PG =
+            "CREATE TEMPORARY TABLE importacao_alunos (linha BIGINT, name VARCHAR(255), number INTEGER) ON COMMIT DROP";
+    private static final String CRIAR_TABELA_H2 =
+            "CREATE LOCAL TEMPORARY TABLE importacao_alunos (linha BIGINT, name VARCHAR(255), number INTEGER)";
+
+    /* A primeira linha de cada número é a candidata; as demais são repetições */
+    private static final String NUMERADOS = """
+            SELECT linha, name, number, ROW_NUMBER() OVER (PARTITION BY number ORDER BY linha) AS ordem
+            FROM importacao_alunos
+            """;
+
+    private static final String RECUSADOS_SQL = "SELECT n.linha, n.number, n.ordem,"
+            + " EXISTS (SELECT 1 FROM alunos a WHERE a.number = n.number) AS cadastrado"
+            + " FROM (" + NUMERADOS + ") n"
+            + " WHERE n.ordem > 1 OR EXISTS (SELECT 1 FROM alunos a WHERE a.number = n.number)"
+            + " ORDER BY n.linha";
+
+    private static final String INSERIR_SQL = "INSERT INTO alunos (id, name, number)"
+            + " SELECT nextval('alunos_sequence'), n.name, n.number"
+            + " FROM (" + NUMERADOS + ") n"
+            + " WHERE n.ordem = 1 AND NOT EXISTS (SELECT 1 FROM alunos a WHERE a.number = n.number)";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final Dialeto dialeto;
+
+    AlunosRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.namedJdbcTemplate = jdbcTemplate;
+        this.jdbcTemplate = jdbcTemplate.getJdbcTemplate();
+        this.dataSource = this.jdbcTemplate.getDataSource();
+        this.dialeto = Dialeto.de(dataSource);
+    }
+
+    @Override
+    public long importar(Iterator<AlunoImportado> alunos, Consumer<ResultadoImportacao.Erro> recusar) {
+        if (dialeto == Dialeto.POSTGRESQL) {
+            jdbcTemplate.execute(CRIAR_TABELA_PG);
+            copiar(alunos);
+        } else {
+            // No H2 a tabela temporária sobrevive ao commit; uma importação interrompida pode tê-la deixado na sessão
+            jdbcTemplate.execute("DROP TABLE IF EXISTS importacao_alunos");
+            jdbcTemplate.execute(CRIAR_TABELA_H2);
+            inserirEmLotes(alunos);
+        }
+
+        jdbcTemplate.query(RECUSADOS_SQL, rs -> {
+            String motivo = rs.getBoolean("cadastrado")
+                    ? "Número %d já está em uso".formatted(rs.getInt("number"))
+                    : "Número %d repetido no arquivo".formatted(rs.getInt("number"));
+            recusar.accept(new ResultadoImportacao.Erro(rs.getLong("linha"), motivo));
+        });
+
+        // Sem ON CONFLICT: uma inclusão concorrente do mesmo número aborta a importação (unique constraint)
+        long incluidos = jdbcTemplate.update(INSERIR_SQL);
+        jdbcTemplate.execute("DROP TABLE importacao_alunos");
+        return incluidos;
+    }
+
+    @Override
+    public int atualizar(Long id, String name, Integer number) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource("id", id);
+        List<String> colunas = new ArrayList<>(2);
+        if (name != null) {
+            colunas.add("name = :name");
+            parametros.addValue("name", name);
+        }
+        if (number != null) {
+            colunas.add("number = :number");
+            parametros.addValue("number", number);
+        }
+        if (colunas.isEmpty()) {
+            return namedJdbcTemplate.queryForObject("SELECT COUNT(*) FROM alunos WHERE id = :id", parametros, Integer.class);
+        }
+        return namedJdbcTemplate.update(
+                "UPDATE alunos SET " + String.join(", ", colunas) + " WHERE id = :id", parametros);
+    }
+
+    /* COPY ... FROM STDIN pela conexão da transação, enviando o CSV em blocos à medida que é gerado */
+    private void copiar(Iterator<AlunoImportado> alunos) {
+        Connection conexao = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copia = conexao.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY importacao_alunos (linha, name, number) FROM STDIN WITH (FORMAT csv)");
+            try {
+                StringBuilder bloco = new StringBuilder(TAMANHO_BUFFER_COPY + 1024);
+                while (alunos.hasNext()) {
+                    AlunoImportado aluno = alunos.next();
+                    Csv.escrever(bloco, List.of(aluno.linha(), aluno.name(), aluno.number()));
+                    if (bloco.length() >= TAMANHO_BUFFER_COPY) {
+                        enviar(copia, bloco);
+                    }
+                }
+                enviar(copia, bloco);
+                copia.endCopy();
+            } finally {
+                if (copia.isActive()) {
+                    copia.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new SQLErrorCodeSQLExceptionTranslator(dataSource).translate("COPY importacao_alunos", null, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(conexao, dataSource);
+        }
+    }
+
+    private static void enviar(CopyIn copia, StringBuilder bloco) throws SQLException {
+        if (!bloco.isEmpty()) {
+            byte[] bytes = bloco.toString().getBytes(StandardCharsets.UTF_8);
+            copia.writeToCopy(bytes, 0, bytes.length);
+            bloco.setLength(0);
+        }
+    }
+
+    private void inserirEmLotes(Iterator<AlunoImportado> alunos) {
+        List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (alunos.hasNext()) {
+            AlunoImportado aluno = alunos.next();
+            lote.add(new Object[]{aluno.linha(), aluno.name(), aluno.number()});
+            if (lote.size() == TAMANHO_LOTE || !alunos.hasNext()) {
+                jdbcTemplate.batchUpdate("INSERT INTO importacao_alunos (linha, name, number) VALUES (?, ?, ?)", lote);
+                lote.clear();
+            }
+        }
+    }
+}
@@ -1,31 +1,101 @@
 package org.vitor.appdistribuido.Alunos;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
+import org.vitor.appdistribuido.Common.Csv;
+import org.vitor.appdistribuido.Common.Pagina;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
+@Timed(value = "app.service", description = "Métodos dos serviços")
 @RequiredArgsConstructor      // injecção via construtor
 public class AlunosService {
 
     private final AlunosRepository alunosRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VersaoCadastro versaoCadastro;
 
-    /* ------------------ READ ------------------ */
+    /* ------------------ READ (em cache até a próxima escrita) ------------------ */
+    /*
+     * As chaves dos caches levam a versão do cadastro lida antes da consulta. Um leitor lento que
+     * termina depois de uma escrita guarda o resultado sob a versão antiga, que ninguém mais pede:
+     * dados antigos nunca são servidos sob o ETag novo. Os @CacheEvict só liberam a memória.
+     */
+    @Cacheable(cacheNames = "alunos", key = "#root.target.versao() + ':todos'")
     public List<Alunos> getAlunos() {
-        return alunosRepository.findAll();
+        return List.copyOf(alunosRepository.findAll());
     }
 
+    @Cacheable(cacheNames = "alunos", key = "#root.target.versao() + ':porNome'")
     public List<Alunos> getAlunosSortedByName() {
-        return alunosRepository.findAllByOrderByNameAsc();
+        return List.copyOf(alunosRepository.findAllByOrderByNameAsc());
     }
 
+    /* Lista da turma por número; 404 se a turma não existir. Em cache até mudar uma matrícula ou um aluno */
+    @Cacheable(cacheNames = "turmaAlunos", key = "#root.target.versao() + ':' + #turmaId")
+    public List<Alunos> getAlunosDaTurma(Long turmaId) {
+        List<Alunos> alunos = alunosRepository.findDaTurma(turmaId);
+        if (alunos.isEmpty() && !alunosRepository.existsTurma(turmaId)) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "Turma com id %d não encontrada".formatted(turmaId));
+        }
+        return List.copyOf(alunos);
+    }
+
+    /* ETag do cadastro: muda a cada inclusão, alteração ou exclusão confirmada, em qualquer instância */
+    public String getVersaoCadastro() {
+        return "\"" + versao() + "\"";
+    }
+
+    /* Versão do cadastro, prefixo das chaves dos caches de leitura */
+    public long versao() {
+        return versaoCadastro.atual();
+    }
+
+    /* Paginação por cursor: depoisDe = último ID recebido (null/0 na primeira página) */
+    public Pagina<Alunos> getAlunosPaginados(Long depoisDe, Integer limite) {
+        int tamanho = Pagina.limitar(limite);
+        List<Alunos> itens = alunosRepository.findByIdGreaterThanOrderByIdAsc(
+                depoisDe != null ? depoisDe : 0L, Limit.of(tamanho));
+        return Pagina.de(itens, tamanho, Alunos::getId);
+    }
+
+    /* Exportação em streaming: memória constante, independe do tamanho da tabela */
+    @Transactional(readOnly = true)
+    public void exportarAlunos(Consumer<Alunos> consumidor) {
+        try (Stream<Alunos> alunos = alunosRepository.streamTodos()) {
+            alunos.forEach(aluno -> {
+                consumidor.accept(aluno);
+                entityManager.detach(aluno);
+            });
+        }
+    }
+
+    @Cacheable(cacheNames = "aluno", key = "#root.target.versao() + ':' + #id")
     public Alunos getAlunoById(Long id) {
         return alunosRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(
@@ -33,42 +103,170 @@ public class AlunosService {
     }
 
     /* ------------------ CREATE ------------------ */
+    /* Um INSERT (mais a sequência a cada 50); número repetido esbarra na unique constraint e vira 409 */
     @Transactional
+    @CacheEvict(cacheNames = "alunos", allEntries = true)
     public void addNewAluno(Alunos aluno) {
-        if (alunosRepository.existsByNumber(aluno.getNumber())) {
-            throw new ResponseStatusException(
-                    HttpStatus.CONFLICT, "Número %d já está em uso".formatted(aluno.getNumber()));
+        aluno.setId(null); // sempre uma inclusão, nunca um merge com um ID enviado pelo cliente
+        try {
+            alunosRepository.saveAndFlush(aluno);
+        } catch (DataIntegrityViolationException e) {
+            throw numeroEmUso(aluno.getNumber());
         }
-        alunosRepository.save(aluno);
+        versaoCadastro.invalidarAposCommit();
+        eventPublisher.publishEvent(AlunosAlteradosEvent.cadastrado(aluno));
         log.info("Novo aluno adicionado: {}", aluno);
     }
 
+    /**
+     * Importação em massa de um CSV com as colunas "name" e "number" (outras, como o "id" da
+     * exportação, são ignoradas). O arquivo é lido em streaming direto para a tabela temporária
+     * da importação; linhas inválidas, números repetidos e números já cadastrados são recusados
+     * e aparecem no relatório, sem impedir as demais. Tudo numa transação.
+     *
+     * @param csv O corpo da requisição, em UTF-8.
+     * @return O relatório da importação.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = "alunos", allEntries = true)
+    public ResultadoImportacao importarAlunos(InputStream csv) {
+        ResultadoImportacao.Acumulador resultado = new ResultadoImportacao.Acumulador();
+        try {
+            Csv.Leitor leitor = Csv.leitor(csv);
+            Map<String, Integer> colunas = leitor.cabecalho();
+            Integer colunaNome = colunas.get("name");
+            Integer colunaNumero = colunas.get("number");
+            if (colunaNome == null || colunaNumero == null) {
+                throw new ResponseStatusException(
+                        HttpStatus.BAD_REQUEST, "O cabeçalho do CSV deve ter as colunas name e number");
+            }
+            long incluidos = alunosRepository.importar(
+                    new LinhasAlunos(leitor, colunaNome, colunaNumero, resultado),
+                    erro -> resultado.rejeitar(erro.linha(), erro.mensagem()));
+            resultado.importar(incluidos);
+            if (incluidos > 0) {
+                eventPublisher.publishEvent(AlunosAlteradosEvent.emMassa());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        versaoCadastro.invalidarAposCommit();
+        ResultadoImportacao importacao = resultado.resultado();
+        log.info("Importação de alunos: {} incluídos, {} recusados", importacao.importados(), importacao.rejeitados());
+        return importacao;
+    }
+
+    /* Linhas válidas do CSV, lidas sob demanda; as inválidas vão direto para o relatório */
+    private static final class LinhasAlunos implements Iterator<AlunosRepositoryCustom.AlunoImportado> {
+
+        private final Csv.Leitor leitor;
+        private final int colunaNome;
+        private final int colunaNumero;
+        private final ResultadoImportacao.Acumulador resultado;
+        private AlunosRepositoryCustom.AlunoImportado proximo;
+
+        LinhasAlunos(Csv.Leitor leitor, int colunaNome, int colunaNumero, ResultadoImportacao.Acumulador resultado) {
+            this.leitor = leitor;
+            this.colunaNome = colunaNome;
+            this.colunaNumero = colunaNumero;
+            this.resultado = resultado;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                List<String> campos;
+                while (proximo == null && (campos = leitor.proximo()) != null) {
+                    String name = campo(campos, colunaNome);
+                    String number = campo(campos, colunaNumero);
+                    if (name.isEmpty() || name.length() > 255) {
+                        resultado.rejeitar(leitor.linha(), "Nome vazio ou com mais de 255 caracteres");
+                        continue;
+                    }
+                    try {
+                        proximo = new AlunosRepositoryCustom.AlunoImportado(leitor.linha(), name, Integer.valueOf(number));
+                    } catch (NumberFormatException e) {
+                        resultado.rejeitar(leitor.linha(), "Número inválido: '%s'".formatted(number));
+                    }
+                }
+                return proximo != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public AlunosRepositoryCustom.AlunoImportado next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            AlunosRepositoryCustom.AlunoImportado atual = proximo;
+            proximo = null;
+            return atual;
+        }
+
+        private static String campo(List<String> campos, int indice) {
+            return indice < campos.size() ? campos.get(indice).trim() : "";
+        }
+    }
+
     /* ------------------ DELETE ------------------ */
+    /* Um DELETE; nenhuma linha removida = 404, aluno com presenças (FK) = 409 */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "alunos", allEntries = true),
+            @CacheEvict(cacheNames = "aluno", allEntries = true),
+            @CacheEvict(cacheNames = "turmaAlunos", allEntries = true)})
     public void deleteAluno(Long alunoId) {
-        if (!alunosRepository.existsById(alunoId)) {
+        int removidos;
+        try {
+            removidos = alunosRepository.excluirPorId(alunoId);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.CONFLICT, "Aluno com id %d tem presenças registradas".formatted(alunoId));
+        }
+        if (removidos == 0) {
             throw new ResponseStatusException(
                     HttpStatus.NOT_FOUND, "Aluno com id %d não existe".formatted(alunoId));
         }
-        alunosRepository.deleteById(alunoId);
+        versaoCadastro.invalidarAposCommit();
+        eventPublisher.publishEvent(AlunosAlteradosEvent.removido(alunoId));
         log.info("Aluno deletado: {}", alunoId);
     }
 
     /* ------------------ UPDATE ------------------ */
+    /* Um UPDATE só das colunas informadas; nenhuma linha = 404, número em uso = 409 */
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "alunos", allEntries = true),
+            @CacheEvict(cacheNames = "aluno", allEntries = true),
+            @CacheEvict(cacheNames = "turmaAlunos", allEntries = true)})
     public void updateAluno(Long alunoId, String name, Integer number) {
-        Alunos aluno = getAlunoById(alunoId); // lança 404 se não existir
-
-        if (name != null && !name.isBlank() && !Objects.equals(aluno.getName(), name)) {
-            aluno.setName(name);
+        String novoNome = (name != null && !name.isBlank()) ? name : null;
+        int alterados;
+        try {
+            alterados = alunosRepository.atualizar(alunoId, novoNome, number);
+        } catch (DataIntegrityViolationException e) {
+            throw numeroEmUso(number);
         }
-
-        if (number != null && !Objects.equals(aluno.getNumber(), number)) {
-            if (alunosRepository.existsByNumber(number)) {
-                throw new ResponseStatusException(
-                        HttpStatus.CONFLICT, "Número %d já está em uso".formatted(number));
-            }
-            aluno.setNumber(number);
+        if (alterados == 0) {
+            throw new ResponseStatusException(
+                    HttpStatus.NOT_FOUND, "Aluno com id %d não encontrado".formatted(alunoId));
         }
+        versaoCadastro.invalidarAposCommit();
+        if (novoNome != null || number != null) {
+            eventPublisher.publishEvent(AlunosAlteradosEvent.alterado(alunoId, novoNome, number));
+        }
+    }
+
+    private static ResponseStatusException numeroEmUso(Integer number) {
+        return new ResponseStatusException(HttpStatus.CONFLICT, "Número %d já está em uso".formatted(number));
+    }
+
+    /* Alterações de turmas e matrículas também mudam as leituras do cadastro (ETag) */
+    public void registrarAlteracaoCadastro() {
+        versaoCadastro.invalidarAposCommit();
     }
 }
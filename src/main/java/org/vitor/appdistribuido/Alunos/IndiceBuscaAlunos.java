@@ -0,0 +1,614 @@
+package org.vitor.appdistribuido.Alunos;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória para a busca de alunos por nome (prefixo, tolerando erros de digitação)
+ * e por prefixo do número, sem ir ao banco.
+ *
+ * <p>Os nomes são normalizados (sem acentos, em minúsculas) e quebrados em termos. Cada termo
+ * aponta para um bitmap (Roaring) dos alunos que o têm, num mapa ordenado: os termos que começam
+ * com um prefixo são uma faixa contígua do mapa. Para os erros de digitação, cada termo distinto
+ * também é indexado pelos seus trigramas; os termos que têm trigramas em comum com o termo buscado
+ * são conferidos pela distância de edição (com transposição) até algum início do termo, de modo
+ * que "joao sliva" e "joa sil" encontram "João Silva". Termos de até 2 letras não toleram erro,
+ * de 3 a 5 toleram 1 e os maiores, 2.</p>
+ *
+ * <p>Todos os termos da consulta precisam casar com algum termo do nome. Vêm primeiro os alunos
+ * em que todos casam exatamente, depois por prefixo, depois com erros; dentro de cada nível, os
+ * nomes que começam pelo primeiro termo buscado e, então, a ordem alfabética. Um mapa ordenado
+ * pelo nome normalizado dá essa ordem sem ordenar os candidatos a cada consulta.</p>
+ *
+ * <p>Números são buscados por prefixo decimal, dos menores para os maiores: "12" devolve 12,
+ * depois 120 a 129, depois 1200 a 1299...</p>
+ *
+ * <p>É montado a partir da tabela alunos quando a aplicação sobe e mantido pelos
+ * {@link AlunosAlteradosEvent} publicados pelo AlunosService após cada commit. Uma importação
+ * remonta o índice inteiro numa thread à parte, fora da requisição: até lá a busca ainda não vê
+ * os alunos importados. As escritas de outras instâncias não chegam por evento; a verificação
+ * periódica (app.busca.atualizacao-ms) compara a versão do cadastro com a da última carga e
+ * remonta o índice se ela mudou. Como no índice de presenças, os bitmaps publicados são imutáveis
+ * (copy-on-write) e as leituras não usam trava.</p>
+ */
+@Slf4j
+@Component
+public class IndiceBuscaAlunos {
+
+    public static final int LIMITE_PADRAO = 10;
+    public static final int LIMITE_MAXIMO = 50;
+
+    /* Até quantos candidatos são ordenados diretamente, em vez de filtrados na ordem do mapa de nomes */
+    private static final int ORDENACAO_DIRETA = 256;
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern DIGITOS = Pattern.compile("[0-9]+");
+    private static final RoaringBitmap VAZIO = new RoaringBitmap();
+
+    private final AlunosRepository alunosRepository;
+    private final VersaoCadastro versaoCadastro;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Dados dados = new Dados(-1);
+    private volatile boolean pronto;
+    private final AtomicBoolean reconstrucaoAgendada = new AtomicBoolean();
+
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final ReentrantLock reconstrucao = new ReentrantLock();
+    private List<AlunosAlteradosEvent> pendentes; // != null durante uma reconstrução; protegido por "escrita"
+
+    public IndiceBuscaAlunos(AlunosRepository alunosRepository, VersaoCadastro versaoCadastro,
+                             PlatformTransactionManager transactionManager) {
+        this.alunosRepository = alunosRepository;
+        this.versaoCadastro = versaoCadastro;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /* ------------------------------------------------------------------
+     * Ciclo de vida
+     * ---------------------------------------------------------------- */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    /**
+     * Aplica ao índice as escritas confirmadas pelo AlunosService.
+     * @param evento O aluno cadastrado, alterado ou removido, ou uma importação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarAlunos(AlunosAlteradosEvent evento) {
+        if (evento.isEmMassa()) {
+            reconstruirEmSegundoPlano();
+            return;
+        }
+        escrita.lock();
+        try {
+            aplicar(dados, evento);
+            if (pendentes != null) {
+                pendentes.add(evento); // reaplicado sobre o índice em construção
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Remonta o índice se a versão do cadastro mudou desde a última carga: traz as escritas
+     * feitas por outras instâncias (e, de passagem, as desta, que já estavam aplicadas).
+     */
+    @Scheduled(fixedDelayString = "${app.busca.atualizacao-ms:30000}")
+    public void atualizar() {
+        Dados atual = dados;
+        if (pronto && versaoCadastro.atual() != atual.versao) {
+            reconstruir();
+        }
+    }
+
+    /*
+     * Agenda uma reconstrução numa thread virtual. Importações seguidas se juntam: enquanto uma
+     * reconstrução agendada não começou a ler o banco, as seguintes não agendam outra.
+     */
+    private void reconstruirEmSegundoPlano() {
+        if (!reconstrucaoAgendada.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("indice-busca-alunos").start(() -> {
+            try {
+                reconstruir();
+            } catch (RuntimeException e) {
+                log.error("Falha ao reconstruir o índice de busca de alunos; a próxima verificação tenta de novo", e);
+            }
+        });
+    }
+
+    /**
+     * Remonta o índice a partir do banco e o troca atomicamente pelo atual.
+     * Escritas que chegarem durante a leitura são reaplicadas sobre o índice novo.
+     * @return O estado do índice após a reconstrução.
+     */
+    public Estado reconstruir() {
+        reconstrucao.lock();
+        try {
+            escrita.lock();
+            try {
+                pendentes = new ArrayList<>();
+            } finally {
+                escrita.unlock();
+            }
+            reconstrucaoAgendada.set(false); // uma importação confirmada daqui em diante agenda outra
+
+            long inicio = System.nanoTime();
+            Dados novo = null;
+            try {
+                novo = carregar();
+            } finally {
+                escrita.lock();
+                try {
+                    if (novo != null) {
+                        for (AlunosAlteradosEvent evento : pendentes) {
+                            aplicar(novo, evento);
+                        }
+                        dados = novo;
+                        pronto = true;
+                    }
+                    pendentes = null;
+                } finally {
+                    escrita.unlock();
+                }
+            }
+
+            Estado estado = estado();
+            log.info("Índice de busca de alunos reconstruído em {} ms: {}", (System.nanoTime() - inicio) / 1_000_000, estado);
+            return estado;
+        } finally {
+            reconstrucao.unlock();
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Consultas
+     * ---------------------------------------------------------------- */
+
+    /** @return true depois que a primeira carga terminou. */
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /* Mantém o limite pedido entre 1 e LIMITE_MAXIMO */
+    public static int limitar(Integer limite) {
+        if (limite == null) return LIMITE_PADRAO;
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+
+    /**
+     * @param consulta Só dígitos: prefixo do número; senão, termos (ou inícios de termos) do nome.
+     * @param limite Quantos alunos devolver, no máximo.
+     * @return Os alunos encontrados, do mais para o menos relevante.
+     */
+    public List<AlunoResumo> buscar(String consulta, int limite) {
+        Dados atual = dados;
+        String texto = (consulta != null) ? consulta.strip() : "";
+        if (texto.isEmpty() || limite < 1) {
+            return List.of();
+        }
+        if (DIGITOS.matcher(texto).matches()) {
+            return buscarPorNumero(atual, texto, limite);
+        }
+        String[] termos = termos(texto);
+        return (termos.length == 0) ? List.of() : buscarPorNome(atual, termos, limite);
+    }
+
+    /** @return Contagens e memória ocupada pelos bitmaps do índice. */
+    public Estado estado() {
+        Dados atual = dados;
+        long bytes = 0;
+        for (RoaringBitmap bitmap : atual.termos.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        for (RoaringBitmap bitmap : atual.trigramas.values()) {
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return new Estado(pronto, atual.alunos.size(), atual.termos.size(), atual.trigramas.size(), bytes);
+    }
+
+    /* ------------------------------------------------------------------
+     * Busca
+     * ---------------------------------------------------------------- */
+
+    private static List<AlunoResumo> buscarPorNome(Dados dados, String[] consulta, int limite) {
+        RoaringBitmap[] prefixados = new RoaringBitmap[consulta.length];
+        List<AlunoResumo> resultado = new ArrayList<>(limite);
+        RoaringBitmap vistos = new RoaringBitmap();
+
+        // Nível 0: termos exatos; 1: prefixos; 2: prefixos com erros de digitação
+        for (int nivel = 0; nivel < 3 && resultado.size() < limite; nivel++) {
+            RoaringBitmap casados = null;
+            for (int i = 0; i < consulta.length && (casados == null || !casados.isEmpty()); i++) {
+                String termo = consulta[i];
+                RoaringBitmap doTermo = switch (nivel) {
+                    case 0 -> dados.termos.getOrDefault(termo, VAZIO);
+                    case 1 -> prefixados[i] = comPrefixo(dados, termo);
+                    default -> RoaringBitmap.or(
+                            (prefixados[i] != null) ? prefixados[i] : comPrefixo(dados, termo),
+                            aproximados(dados, termo));
+                };
+                casados = (casados == null) ? doTermo : RoaringBitmap.and(casados, doTermo);
+            }
+            RoaringBitmap novos = RoaringBitmap.andNot(casados, vistos);
+            ranquear(dados, novos, consulta[0], limite - resultado.size(), resultado);
+            vistos.or(novos);
+        }
+        return resultado;
+    }
+
+    /* União dos alunos de todos os termos que começam com o prefixo (uma faixa do mapa ordenado) */
+    private static RoaringBitmap comPrefixo(Dados dados, String prefixo) {
+        return FastAggregation.or(dados.termos.subMap(prefixo, prefixo + Character.MAX_VALUE).values().iterator());
+    }
+
+    /* Alunos com algum termo cujo início está a até tolerancia(termo) edições do termo buscado */
+    private static RoaringBitmap aproximados(Dados dados, String termo) {
+        int maximo = tolerancia(termo);
+        if (maximo == 0) {
+            return VAZIO;
+        }
+        Set<String> doTermo = trigramas(termo);
+        List<RoaringBitmap> comTrigrama = new ArrayList<>();
+        for (String trigrama : doTermo) {
+            RoaringBitmap codigos = dados.trigramas.get(trigrama);
+            if (codigos != null) {
+                comTrigrama.add(codigos);
+            }
+        }
+        // Cada edição desfaz no máximo 3 trigramas
+        int minimo = Math.max(1, doTermo.size() - 3 * maximo);
+        if (comTrigrama.size() < minimo) {
+            return VAZIO;
+        }
+
+        List<RoaringBitmap> encontrados = new ArrayList<>();
+        IntIterator candidatos = FastAggregation.or(comTrigrama.iterator()).getIntIterator();
+        while (candidatos.hasNext()) {
+            int codigo = candidatos.next();
+            if (minimo > 1 && emComum(comTrigrama, codigo) < minimo) {
+                continue;
+            }
+            String candidato = dados.vocabulario.get(codigo);
+            if (distanciaAoInicio(termo, candidato, maximo) <= maximo) {
+                RoaringBitmap alunos = dados.termos.get(candidato);
+                if (alunos != null) {
+                    encontrados.add(alunos);
+                }
+            }
+        }
+        return FastAggregation.or(encontrados.iterator());
+    }
+
+    private static int emComum(List<RoaringBitmap> comTrigrama, int codigo) {
+        int total = 0;
+        for (RoaringBitmap codigos : comTrigrama) {
+            if (codigos.contains(codigo)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /*
+     * Põe em resultado os "vagas" melhores candidatos, em ordem: primeiro os nomes que começam
+     * pelo primeiro termo buscado (uma faixa do mapa de nomes, já em ordem alfabética), depois os
+     * demais. Poucos candidatos são ordenados diretamente; muitos são filtrados percorrendo o mapa
+     * de nomes em ordem, o que termina cedo justamente porque os candidatos são densos.
+     */
+    private static void ranquear(Dados dados, RoaringBitmap candidatos, String primeiroTermo,
+                                 int vagas, List<AlunoResumo> resultado) {
+        int restantes = vagas;
+        if (restantes <= 0 || candidatos.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Integer> nome : dados.nomes.subMap(primeiroTermo, primeiroTermo + Character.MAX_VALUE).entrySet()) {
+            if (candidatos.contains(nome.getValue()) && incluirResultado(dados, nome.getValue(), resultado)) {
+                if (--restantes == 0) {
+                    return;
+                }
+            }
+        }
+
+        if (candidatos.getCardinality() <= ORDENACAO_DIRETA) {
+            List<Registro> demais = new ArrayList<>();
+            candidatos.forEach((int bit) -> {
+                Registro registro = dados.alunos.get(bit);
+                if (registro != null && !registro.normalizado().startsWith(primeiroTermo)) {
+                    demais.add(registro);
+                }
+            });
+            demais.sort(Comparator.comparing(Registro::chave));
+            for (int i = 0; i < demais.size() && i < restantes; i++) {
+                resultado.add(demais.get(i).aluno());
+            }
+            return;
+        }
+        for (Map.Entry<String, Integer> nome : dados.nomes.entrySet()) {
+            if (candidatos.contains(nome.getValue()) && !nome.getKey().startsWith(primeiroTermo)
+                    && incluirResultado(dados, nome.getValue(), resultado)) {
+                if (--restantes == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean incluirResultado(Dados dados, int bit, List<AlunoResumo> resultado) {
+        Registro registro = dados.alunos.get(bit);
+        if (registro == null) {
+            return false; // removido depois que o bitmap foi lido
+        }
+        resultado.add(registro.aluno());
+        return true;
+    }
+
+    /* Números que começam com os dígitos: primeiro o próprio, depois 1 dígito a mais, 2 a mais... */
+    private static List<AlunoResumo> buscarPorNumero(Dados dados, String digitos, int limite) {
+        List<AlunoResumo> resultado = new ArrayList<>(limite);
+        if (digitos.length() > 10) {
+            return resultado;
+        }
+        long prefixo = Long.parseLong(digitos);
+        boolean zeroAEsquerda = digitos.charAt(0) == '0';
+        if (zeroAEsquerda && prefixo != 0) {
+            return resultado; // nenhum número começa com 0, a não ser o próprio 0
+        }
+        long maiorEscala = zeroAEsquerda ? 1 : Long.MAX_VALUE;
+        for (long escala = 1; escala <= maiorEscala && prefixo * escala <= Integer.MAX_VALUE; escala *= 10) {
+            int de = (int) (prefixo * escala);
+            int ate = (int) Math.min((prefixo + 1) * escala - 1, Integer.MAX_VALUE);
+            for (Integer bit : dados.numeros.subMap(de, true, ate, true).values()) {
+                Registro registro = dados.alunos.get(bit);
+                if (registro != null) {
+                    resultado.add(registro.aluno());
+                    if (resultado.size() == limite) {
+                        return resultado;
+                    }
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /* ------------------------------------------------------------------
+     * Texto
+     * ---------------------------------------------------------------- */
+
+    /* Sem acentos e em minúsculas: "João" -> "joao" */
+    static String normalizar(String texto) {
+        return MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /* Termos distintos do texto normalizado, na ordem em que aparecem */
+    static String[] termos(String texto) {
+        Set<String> termos = new LinkedHashSet<>();
+        for (String termo : SEPARADORES.split(normalizar(texto))) {
+            if (!termo.isEmpty()) {
+                termos.add(termo);
+            }
+        }
+        return termos.toArray(new String[0]);
+    }
+
+    /* Trigramas com duas marcas de início ("^^j", "^jo", "joa"...): casam também com os inícios dos termos */
+    static Set<String> trigramas(String termo) {
+        String marcado = "^^" + termo;
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= marcado.length(); i++) {
+            trigramas.add(marcado.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    static int tolerancia(String termo) {
+        if (termo.length() < 3) return 0;
+        return (termo.length() <= 5) ? 1 : 2;
+    }
+
+    /**
+     * Distância de edição (inserção, remoção, troca e transposição de vizinhos) entre o termo
+     * buscado e o início mais parecido do candidato.
+     * @return A distância, ou maximo + 1 se passar de maximo.
+     */
+    static int distanciaAoInicio(String termo, String candidato, int maximo) {
+        int n = termo.length();
+        int m = Math.min(candidato.length(), n + maximo);
+        int[] antepenultima = new int[m + 1];
+        int[] anterior = new int[m + 1];
+        int[] atual = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            char c = termo.charAt(i - 1);
+            atual[0] = i;
+            int menor = i;
+            for (int j = 1; j <= m; j++) {
+                int custo = (c == candidato.charAt(j - 1)) ? 0 : 1;
+                int d = Math.min(Math.min(anterior[j] + 1, atual[j - 1] + 1), anterior[j - 1] + custo);
+                if (i > 1 && j > 1 && c == candidato.charAt(j - 2) && termo.charAt(i - 2) == candidato.charAt(j - 1)) {
+                    d = Math.min(d, antepenultima[j - 2] + 1);
+                }
+                atual[j] = d;
+                menor = Math.min(menor, d);
+            }
+            if (menor > maximo) {
+                return maximo + 1;
+            }
+            int[] livre = antepenultima;
+            antepenultima = anterior;
+            anterior = atual;
+            atual = livre;
+        }
+        int melhor = maximo + 1;
+        for (int j = 0; j <= m; j++) {
+            melhor = Math.min(melhor, anterior[j]);
+        }
+        return melhor;
+    }
+
+    /* ------------------------------------------------------------------
+     * Internos
+     * ---------------------------------------------------------------- */
+
+    private Dados carregar() {
+        return transactionTemplate.execute(status -> {
+            // Lida antes dos alunos: uma escrita confirmada durante a leitura muda a versão e
+            // a próxima verificação remonta o índice de novo
+            Dados novo = new Dados(versaoCadastro.ler());
+            try (Stream<AlunoResumo> alunos = alunosRepository.streamResumos()) {
+                alunos.forEach(aluno -> incluir(novo, aluno, false));
+            }
+            novo.termos.values().forEach(RoaringBitmap::runOptimize);
+            novo.trigramas.values().forEach(RoaringBitmap::runOptimize);
+            return novo;
+        });
+    }
+
+    /* Chamado com a trava de escrita */
+    private static void aplicar(Dados dados, AlunosAlteradosEvent evento) {
+        int bit = bit(evento.alunoId());
+        Registro atual = dados.alunos.get(bit);
+        if (evento.removido()) {
+            remover(dados, bit);
+            return;
+        }
+        String name = (evento.name() != null) ? evento.name() : (atual != null) ? atual.aluno().name() : null;
+        Integer number = (evento.number() != null) ? evento.number() : (atual != null) ? atual.aluno().number() : null;
+        if (name == null || number == null) {
+            return; // alteração parcial de um aluno ainda desconhecido: a próxima reconstrução o traz
+        }
+        remover(dados, bit);
+        incluir(dados, new AlunoResumo(evento.alunoId(), name, number), true);
+    }
+
+    /* Com publicar = true, copy-on-write: os bitmaps já publicados nunca são alterados */
+    private static void incluir(Dados dados, AlunoResumo aluno, boolean publicar) {
+        int bit = bit(aluno.id());
+        String[] termos = termos(aluno.name());
+        Registro registro = new Registro(aluno, String.join(" ", termos), termos);
+        dados.alunos.put(bit, registro);
+        dados.nomes.put(registro.chave(), bit);
+        for (String termo : termos) {
+            adicionar(dados.termos, termo, bit, publicar);
+            dados.codigos.computeIfAbsent(termo, t -> {
+                int codigo = dados.vocabulario.size();
+                dados.vocabulario.put(codigo, t);
+                for (String trigrama : trigramas(t)) {
+                    adicionar(dados.trigramas, trigrama, codigo, publicar);
+                }
+                return codigo;
+            });
+        }
+        dados.numeros.put(aluno.number(), bit);
+    }
+
+    private static void remover(Dados dados, int bit) {
+        Registro registro = dados.alunos.remove(bit);
+        if (registro == null) {
+            return;
+        }
+        for (String termo : registro.termos()) {
+            dados.termos.computeIfPresent(termo, (t, atual) -> {
+                RoaringBitmap novo = atual.clone();
+                novo.remove(bit);
+                return novo.isEmpty() ? null : novo;
+            });
+        }
+        dados.nomes.remove(registro.chave());
+        dados.numeros.remove(registro.aluno().number(), bit);
+    }
+
+    private static <K> void adicionar(ConcurrentMap<K, RoaringBitmap> mapa, K chave, int bit, boolean publicar) {
+        if (!publicar) {
+            mapa.computeIfAbsent(chave, c -> new RoaringBitmap()).add(bit);
+            return;
+        }
+        mapa.compute(chave, (c, atual) -> {
+            RoaringBitmap novo = (atual != null) ? atual.clone() : new RoaringBitmap();
+            novo.add(bit);
+            return novo;
+        });
+    }
+
+    private static int bit(Long alunoId) {
+        return Math.toIntExact(alunoId);
+    }
+
+    /*
+     * Estruturas de uma geração do índice, trocadas de uma vez na reconstrução. O vocabulário
+     * (termo <-> código, indexado por trigramas) só cresce: termos que deixaram de existir
+     * continuam nele, mas não apontam mais para nenhum aluno.
+     */
+    private static final class Dados {
+        final long versao; // versão do cadastro lida na carga
+        final ConcurrentHashMap<Integer, Registro> alunos = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<String, Integer> nomes = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<String, RoaringBitmap> termos = new ConcurrentSkipListMap<>();
+        final ConcurrentSkipListMap<Integer, Integer> numeros = new ConcurrentSkipListMap<>();
+        final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, String> vocabulario = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, RoaringBitmap> trigramas = new ConcurrentHashMap<>();
+
+        Dados(long versao) {
+            this.versao = versao;
+        }
+    }
+
+    /* O aluno com o nome já normalizado (termos separados por espaço) */
+    private record Registro(AlunoResumo aluno, String normalizado, String[] termos) {
+
+        /* Chave no mapa de nomes: nome normalizado e, para desempatar homônimos, o ID */
+        String chave() {
+            return normalizado + '\u0000' + aluno.id();
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Respostas
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @param pronto Se a primeira carga já terminou.
+     * @param alunos Quantos alunos estão no índice.
+     * @param termos Quantos termos distintos há nos nomes.
+     * @param trigramas Quantos trigramas distintos há no vocabulário.
+     * @param bytesBitmaps Memória ocupada pelos bitmaps.
+     */
+    public record Estado(boolean pronto, int alunos, int termos, int trigramas, long bytesBitmaps) {
+    }
+}
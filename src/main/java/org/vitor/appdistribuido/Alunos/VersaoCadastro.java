@@ -0,0 +1,94 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão do cadastro de alunos e matrículas, base do ETag das leituras do AlunosController.
+ * Vem de cadastro_versao (migração V6), que gatilhos no banco incrementam a cada comando em
+ * alunos ou turmas_alunos: todas as instâncias chegam ao mesmo número, e as escritas continuam
+ * com um comando só.
+ *
+ * <p>A versão fica em memória. Depois de uma escrita confirmada nesta instância, a próxima leitura
+ * a busca de novo. As escritas de outras instâncias aparecem na verificação periódica
+ * (app.cadastro.verificacao-versao-ms), que também esvazia os caches do cadastro desta
+ * instância: uma lista vista em outro nó fica desatualizada aqui por no máximo esse intervalo.</p>
+ */
+@Component
+public class VersaoCadastro {
+
+    private static final String[] CACHES = {"alunos", "aluno", "turmaAlunos"};
+
+    private static final long DESCONHECIDA = -1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final AtomicLong versao = new AtomicLong(DESCONHECIDA);
+
+    public VersaoCadastro(JdbcTemplate jdbcTemplate, CacheManager cacheManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @return A versão atual do cadastro; só vai ao banco na primeira leitura depois de uma escrita local.
+     */
+    public long atual() {
+        long conhecida = versao.get();
+        if (conhecida != DESCONHECIDA) {
+            return conhecida;
+        }
+        long lida = ler();
+        versao.compareAndSet(DESCONHECIDA, lida);
+        return lida;
+    }
+
+    /* Escrita nesta instância: a versão é relida depois do commit (o gatilho já a incrementou) */
+    void invalidarAposCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versao.set(DESCONHECIDA);
+                }
+            });
+        } else {
+            versao.set(DESCONHECIDA);
+        }
+    }
+
+    /**
+     * Confere a versão no banco. Se outra instância escreveu, esvazia os caches desta, cujas
+     * entradas ficaram sem uso, e publica a nova versão, que muda as chaves do AlunosService.
+     */
+    @Scheduled(fixedDelayString = "${app.cadastro.verificacao-versao-ms:1000}")
+    public void verificar() {
+        long conhecida = versao.get();
+        long lida = ler();
+        if (lida == conhecida) {
+            return;
+        }
+        if (conhecida != DESCONHECIDA) {
+            for (String nome : CACHES) {
+                Cache cache = cacheManager.getCache(nome);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        }
+        versao.compareAndSet(conhecida, lida);
+    }
+
+    /* Sempre vai ao banco; dentro de uma transação, lê a versão da mesma transação */
+    long ler() {
+        Long lida = jdbcTemplate.queryForObject("SELECT versao FROM cadastro_versao WHERE id = 1", Long.class);
+        return (lida != null) ? lida : 0L;
+    }
+}
@@ -0,0 +1,104 @@
+package org.vitor.appdistribuido.Common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Respostas do tipo List&lt;T&gt; no formato colunar, para os tipos com um {@link Colunas}
+ * registrado (presenças e alunos, ver Config/FormatosConfig). Negociado pelo Accept:
+ * {@link #JSON} ou {@link #CBOR}, o mesmo formato em binário. Só escrita.
+ *
+ * <p>Os nomes dos campos aparecem uma vez por resposta, não uma vez por item, e cada coluna é um
+ * array de números ou textos; o gerador Jackson escreve direto na resposta, sem árvore
+ * intermediária.</p>
+ */
+public class ColunarHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType JSON = new MediaType("application", "vnd.appdistribuido.colunar+json");
+    public static final MediaType CBOR = new MediaType("application", "vnd.appdistribuido.colunar+cbor");
+
+    private final JsonFactory fabrica;
+    private final Map<Class<?>, Colunas<?>> colunas;
+    private final boolean sobDemanda;
+
+    /**
+     * @param fabrica JsonFactory para JSON, CBORFactory para CBOR.
+     * @param mediaType O tipo de mídia correspondente.
+     * @param colunas O escritor de cada tipo de item.
+     * @param sobDemanda true para só atender quem pede o tipo no Accept, sem entrar nos tipos que
+     *                   o Spring oferece a um Accept genérico. É o caso do +json, que precisa ficar
+     *                   antes do conversor JSON padrão (este aceita application/*+json).
+     */
+    public ColunarHttpMessageConverter(JsonFactory fabrica, MediaType mediaType, Map<Class<?>, Colunas<?>> colunas,
+                                       boolean sobDemanda) {
+        super(mediaType);
+        this.fabrica = fabrica.copy().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.colunas = Map.copyOf(colunas);
+        this.sobDemanda = sobDemanda;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (mediaType == null && sobDemanda) {
+            return false;
+        }
+        return escritor(type) != null && canWrite(mediaType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object lista, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Colunas<Object> escritor = (Colunas<Object>) escritor(type);
+        try (JsonGenerator gerador = fabrica.createGenerator(outputMessage.getBody())) {
+            escritor.escrever((List<Object>) lista, gerador);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Formato colunar só é usado em respostas", inputMessage);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        return readInternal(null, inputMessage);
+    }
+
+    /* Escritor do tipo do item, pelo tipo genérico declarado no controller (List<PresencaDTO>...) */
+    private Colunas<?> escritor(Type type) {
+        if (type instanceof ParameterizedType parametrizado
+                && parametrizado.getRawType() instanceof Class<?> bruto
+                && Collection.class.isAssignableFrom(bruto)
+                && parametrizado.getActualTypeArguments()[0] instanceof Class<?> item) {
+            return colunas.get(item);
+        }
+        return null;
+    }
+}
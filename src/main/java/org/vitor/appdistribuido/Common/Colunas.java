@@ -0,0 +1,18 @@
+package org.vitor.appdistribuido.Common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Escreve uma lista no formato colunar ({@link ColunarHttpMessageConverter}): um objeto com um
+ * array por campo, em vez de um objeto por item.
+ *
+ * @param <T> O tipo dos itens.
+ */
+@FunctionalInterface
+public interface Colunas<T> {
+
+    void escrever(List<? extends T> itens, JsonGenerator gerador) throws IOException;
+}
@@ -0,0 +1,191 @@
+package org.vitor.appdistribuido.Common;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * CSV (RFC 4180, UTF-8, separador vírgula) lido e escrito registro a registro, sem montar o
+ * arquivo em memória. Usado pela importação e exportação em lote de alunos e presenças.
+ */
+public final class Csv {
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    private Csv() {
+    }
+
+    /**
+     * @param entrada O corpo da requisição (UTF-8, com ou sem BOM).
+     * @return Um leitor que devolve um registro por vez.
+     */
+    public static Leitor leitor(InputStream entrada) {
+        return new Leitor(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 64 * 1024));
+    }
+
+    /**
+     * Corpo de resposta CSV escrito à medida que os itens são lidos (ver {@link Ndjson#corpo}).
+     * @param cabecalho Os nomes das colunas.
+     * @param colunas Os valores de cada coluna de um item (null vira campo vazio).
+     * @param produtor Percorre os itens, entregando cada um ao consumidor recebido.
+     * @return O corpo a ser devolvido pelo controller.
+     */
+    public static <T> StreamingResponseBody corpo(List<String> cabecalho, Function<T, List<?>> colunas,
+                                                  Consumer<Consumer<T>> produtor) {
+        return out -> {
+            Writer saida = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+            escrever(saida, cabecalho);
+            produtor.accept(item -> {
+                try {
+                    escrever(saida, colunas.apply(item));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            saida.flush();
+        };
+    }
+
+    /**
+     * Escreve um registro, com aspas só nos campos que precisam (vírgula, aspas ou quebra de linha).
+     * @param saida Onde escrever.
+     * @param campos Os valores; null vira campo vazio.
+     */
+    public static void escrever(Appendable saida, List<?> campos) throws IOException {
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                saida.append(',');
+            }
+            Object campo = campos.get(i);
+            if (campo == null) {
+                continue;
+            }
+            String texto = campo.toString();
+            if (texto.indexOf(',') >= 0 || texto.indexOf('"') >= 0 || texto.indexOf('\n') >= 0 || texto.indexOf('\r') >= 0) {
+                saida.append('"').append(texto.replace("\"", "\"\"")).append('"');
+            } else {
+                saida.append(texto);
+            }
+        }
+        saida.append('\n');
+    }
+
+    /**
+     * Leitor de registros CSV. Linhas em branco são ignoradas; campos entre aspas podem conter
+     * vírgulas, aspas duplicadas e quebras de linha.
+     */
+    public static final class Leitor {
+
+        private final Reader entrada;
+        private long linha = 1;          // linha física atual
+        private long linhaDoRegistro;    // linha em que começou o último registro lido
+        private boolean primeiro = true;
+
+        private Leitor(Reader entrada) {
+            this.entrada = entrada;
+        }
+
+        /**
+         * @return Os campos do próximo registro, ou null no fim do arquivo.
+         * @throws IllegalArgumentException se um campo entre aspas não for fechado.
+         */
+        public List<String> proximo() throws IOException {
+            while (true) {
+                int c = entrada.read();
+                if (primeiro) {
+                    primeiro = false;
+                    if (c == '\uFEFF') { // BOM
+                        c = entrada.read();
+                    }
+                }
+                if (c == -1) {
+                    return null;
+                }
+                linhaDoRegistro = linha;
+                List<String> campos = lerRegistro(c);
+                if (campos.size() > 1 || !campos.get(0).isBlank()) {
+                    return campos;
+                }
+            }
+        }
+
+        /**
+         * @return A linha do arquivo (a partir de 1) em que começou o último registro lido.
+         */
+        public long linha() {
+            return linhaDoRegistro;
+        }
+
+        /**
+         * Lê o cabeçalho e devolve a posição de cada coluna, pelo nome sem diferenciar maiúsculas.
+         * @return Nome da coluna (em minúsculas) → índice.
+         * @throws IllegalArgumentException se o arquivo estiver vazio.
+         */
+        public Map<String, Integer> cabecalho() throws IOException {
+            List<String> nomes = proximo();
+            if (nomes == null) {
+                throw new IllegalArgumentException("Arquivo CSV vazio: falta o cabeçalho.");
+            }
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < nomes.size(); i++) {
+                indices.putIfAbsent(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            return indices;
+        }
+
+        private List<String> lerRegistro(int c) throws IOException {
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+            while (true) {
+                if (entreAspas) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Aspas não fechadas no registro da linha " + linhaDoRegistro);
+                    }
+                    if (c == '"') {
+                        c = entrada.read();
+                        if (c != '"') {
+                            entreAspas = false;
+                            continue; // reprocessa o caractere depois das aspas de fechamento
+                        }
+                    } else if (c == '\n') {
+                        linha++;
+                    }
+                    campo.append((char) c);
+                } else if (c == -1 || c == '\n') {
+                    if (c == '\n') {
+                        linha++;
+                    }
+                    campos.add(campo.toString());
+                    return campos;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreAspas = true;
+                } else if (c != '\r') {
+                    campo.append((char) c);
+                }
+                c = entrada.read();
+            }
+        }
+    }
+}
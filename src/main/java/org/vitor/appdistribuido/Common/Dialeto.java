@@ -0,0 +1,26 @@
+package org.vitor.appdistribuido.Common;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Banco por trás de um DataSource, para os poucos comandos SQL nativos que não são portáveis
+ * entre o PostgreSQL (produção) e o H2 (testes e benchmarks).
+ */
+public enum Dialeto {
+    POSTGRESQL,
+    H2;
+
+    public static Dialeto de(DataSource dataSource) {
+        try {
+            String produto = JdbcUtils.commonDatabaseName(
+                    JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+            return "H2".equals(produto) ? H2 : POSTGRESQL;
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Não foi possível identificar o banco de dados", e);
+        }
+    }
+}
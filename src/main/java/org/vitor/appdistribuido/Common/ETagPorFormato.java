@@ -0,0 +1,59 @@
+package org.vitor.appdistribuido.Common;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * ETag por representação: o mesmo recurso em JSON, CBOR ou colunar tem corpos diferentes, então
+ * o ETag que o controller define (a versão dos dados) ganha o tipo escolhido pela negociação de
+ * conteúdo, e a resposta leva Vary: Accept. A comparação com If-None-Match fica aqui, depois da
+ * negociação: 304 só para o ETag do mesmo formato.
+ */
+@ControllerAdvice
+public class ETagPorFormato implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        HttpHeaders headers = response.getHeaders();
+        String versao = headers.getETag();
+        if (versao == null || versao.startsWith("W/")) {
+            return body;
+        }
+        String etag = versao.substring(0, versao.length() - 1)
+                + "-" + selectedContentType.getType() + "/" + selectedContentType.getSubtype() + "\"";
+        // O HttpEntityMethodProcessor já copiou o ETag da versão para a resposta do servlet
+        headers.remove(HttpHeaders.ETAG);
+        if (response instanceof ServletServerHttpResponse servlet) {
+            servlet.getServletResponse().setHeader(HttpHeaders.ETAG, etag);
+        } else {
+            headers.setETag(etag);
+        }
+        if (!headers.getVary().contains(HttpHeaders.ACCEPT)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+
+        for (String enviado : request.getHeaders().getIfNoneMatch()) {
+            String semPrefixo = enviado.startsWith("W/") ? enviado.substring(2) : enviado;
+            if (semPrefixo.equals(etag) || semPrefixo.equals("*")) {
+                response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                return null;
+            }
+        }
+        return body;
+    }
+}
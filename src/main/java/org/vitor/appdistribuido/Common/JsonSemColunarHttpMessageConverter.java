@@ -0,0 +1,22 @@
+package org.vitor.appdistribuido.Common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+/**
+ * O conversor JSON do Jackson sem o tipo colunar: o application/*+json dele casa com
+ * {@link ColunarHttpMessageConverter#JSON} e escreveria JSON comum com esse rótulo. Sem isso, um
+ * Accept colunar num endpoint que não devolve uma lista com colunas recebe 406.
+ */
+public class JsonSemColunarHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public JsonSemColunarHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+        return !ColunarHttpMessageConverter.JSON.equalsTypeAndSubtype(mediaType) && super.canWrite(mediaType);
+    }
+}
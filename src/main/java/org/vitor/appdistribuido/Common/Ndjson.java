@@ -0,0 +1,34 @@
+package org.vitor.appdistribuido.Common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Corpo de resposta NDJSON (um objeto JSON por linha) escrito à medida que os itens são lidos,
+ * sem montar a lista inteira em memória.
+ */
+public final class Ndjson {
+
+    private Ndjson() {
+    }
+
+    /**
+     * @param objectMapper O ObjectMapper da aplicação.
+     * @param produtor Percorre os itens, entregando cada um ao consumidor recebido.
+     * @return O corpo a ser devolvido pelo controller.
+     */
+    public static <T> StreamingResponseBody corpo(ObjectMapper objectMapper, Consumer<Consumer<T>> produtor) {
+        return out -> produtor.accept(item -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
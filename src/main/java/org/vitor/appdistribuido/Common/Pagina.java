@@ -0,0 +1,29 @@
+package org.vitor.appdistribuido.Common;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de uma listagem paginada por cursor (keyset).
+ * O cliente pede a próxima página enviando proximoCursor como "depoisDe";
+ * quando proximoCursor é null, não há mais itens.
+ *
+ * @param itens Os itens desta página, em ordem crescente de ID.
+ * @param proximoCursor O ID do último item, ou null se esta for a última página.
+ */
+public record Pagina<T>(List<T> itens, Long proximoCursor) {
+
+    public static final int LIMITE_PADRAO = 100;
+    public static final int LIMITE_MAXIMO = 1000;
+
+    public static <T> Pagina<T> de(List<T> itens, int limite, Function<T, Long> id) {
+        Long cursor = (itens.size() == limite) ? id.apply(itens.get(itens.size() - 1)) : null;
+        return new Pagina<>(itens, cursor);
+    }
+
+    /* Mantém o limite pedido entre 1 e LIMITE_MAXIMO */
+    public static int limitar(Integer limite) {
+        if (limite == null) return LIMITE_PADRAO;
+        return Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+    }
+}
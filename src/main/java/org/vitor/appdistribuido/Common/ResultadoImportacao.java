@@ -0,0 +1,52 @@
+package org.vitor.appdistribuido.Common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relatório de uma importação em lote (CSV): quantas linhas entraram, quantas foram recusadas
+ * e o motivo de cada recusa. Só as primeiras {@link #MAX_ERROS} recusas são detalhadas, para que
+ * um arquivo inteiro inválido não vire um relatório do mesmo tamanho.
+ *
+ * @param importados As linhas gravadas.
+ * @param rejeitados As linhas recusadas.
+ * @param erros As recusas detalhadas, em ordem de linha.
+ */
+public record ResultadoImportacao(long importados, long rejeitados, List<Erro> erros) {
+
+    public static final int MAX_ERROS = 1000;
+
+    /**
+     * @param linha A linha do arquivo (o cabeçalho é a linha 1).
+     * @param mensagem O motivo da recusa.
+     */
+    public record Erro(long linha, String mensagem) {
+    }
+
+    /**
+     * Acumula o resultado durante a leitura do arquivo.
+     */
+    public static final class Acumulador {
+
+        private long importados;
+        private long rejeitados;
+        private final List<Erro> erros = new ArrayList<>();
+
+        public void importar(long quantidade) {
+            importados += quantidade;
+        }
+
+        public void rejeitar(long linha, String mensagem) {
+            rejeitados++;
+            if (erros.size() < MAX_ERROS) {
+                erros.add(new Erro(linha, mensagem));
+            }
+        }
+
+        public ResultadoImportacao resultado() {
+            List<Erro> ordenados = new ArrayList<>(erros);
+            ordenados.sort((a, b) -> Long.compare(a.linha(), b.linha()));
+            return new ResultadoImportacao(importados, rejeitados, List.copyOf(ordenados));
+        }
+    }
+}
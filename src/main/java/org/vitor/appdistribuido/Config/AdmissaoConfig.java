@@ -0,0 +1,57 @@
+package org.vitor.appdistribuido.Config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.vitor.appdistribuido.Admissao.ControleAdmissaoFilter;
+import org.vitor.appdistribuido.Admissao.LimiteAdaptativo;
+
+import java.time.Duration;
+
+/*
+ * Controle de admissão (Admissao/ControleAdmissaoFilter) em /api/presencas/** e /api/v1/alunos/**,
+ * antes dos demais filtros: requisição recusada não passa nem pela contagem de SQL.
+ * Desligado com app.admissao.habilitado=false, que só deixa de instalar o filtro no Tomcat
+ * e por isso vale também para o jar com AOT.
+ * Métricas, com a tag classe=escrita|leitura:
+ *   app.admissao.limite         – limite atual
+ *   app.admissao.em.andamento   – requisições admitidas em andamento
+ *   app.admissao.rejeitadas     – recusadas com 429
+ */
+@Configuration
+public class AdmissaoConfig {
+
+    @Bean
+    public FilterRegistrationBean<ControleAdmissaoFilter> controleAdmissaoFilter(
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${app.admissao.habilitado:true}") boolean habilitado,
+            @Value("${app.admissao.janela-ms:100}") long janelaMs,
+            @Value("${app.admissao.retry-after-s:1}") int retryAfterSegundos) {
+        Duration janela = Duration.ofMillis(janelaMs);
+        ControleAdmissaoFilter filtro = new ControleAdmissaoFilter(
+                limite("escrita", 20, 4, 200, environment, janela, meterRegistry),
+                limite("leitura", 50, 10, 1000, environment, janela, meterRegistry),
+                retryAfterSegundos);
+        FilterRegistrationBean<ControleAdmissaoFilter> registro = new FilterRegistrationBean<>(filtro);
+        registro.addUrlPatterns("/api/presencas/*", "/api/v1/alunos/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        registro.setEnabled(habilitado);
+        return registro;
+    }
+
+    /* app.admissao.<classe>.limite-inicial, limite-minimo e limite-maximo */
+    private static LimiteAdaptativo limite(String classe, int inicial, int minimo, int maximo,
+                                           Environment environment, Duration janela, MeterRegistry meterRegistry) {
+        String prefixo = "app.admissao." + classe + ".";
+        return new LimiteAdaptativo(classe,
+                environment.getProperty(prefixo + "limite-inicial", Integer.class, inicial),
+                environment.getProperty(prefixo + "limite-minimo", Integer.class, minimo),
+                environment.getProperty(prefixo + "limite-maximo", Integer.class, maximo),
+                janela, meterRegistry);
+    }
+}
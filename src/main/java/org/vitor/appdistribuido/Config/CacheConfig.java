@@ -0,0 +1,16 @@
+package org.vitor.appdistribuido.Config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/*
+ * O interceptor de cache fica por fora do transacional (ordem menor que a do @Transactional,
+ * que é LOWEST_PRECEDENCE): os @CacheEvict só rodam depois do commit. Isso não impede um leitor
+ * concorrente de recolocar dados antigos depois da remoção; quem garante as leituras do cadastro
+ * é a versão nas chaves dos caches (ver Alunos/AlunosService).
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+}
@@ -0,0 +1,57 @@
+package org.vitor.appdistribuido.Config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosColunares;
+import org.vitor.appdistribuido.Common.ColunarHttpMessageConverter;
+import org.vitor.appdistribuido.Common.Colunas;
+import org.vitor.appdistribuido.Common.JsonSemColunarHttpMessageConverter;
+import org.vitor.appdistribuido.Presenca.PresencaDTO;
+import org.vitor.appdistribuido.Presenca.PresencasColunares;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Formatos de resposta além do JSON, escolhidos pelo cabeçalho Accept:
+ *   application/cbor                                – o mesmo JSON, em CBOR
+ *   application/vnd.appdistribuido.colunar+json     – listas de presenças e alunos em colunas
+ *   application/vnd.appdistribuido.colunar+cbor     – o formato colunar em CBOR
+ * Accept ausente ou *\/* continua recebendo JSON: os conversores CBOR ficam no fim da lista, e o
+ * colunar em JSON, que precisa vir antes do JSON padrão, só atende quem pede o tipo. Os conversores
+ * JSON não atendem o tipo colunar (ver Common/JsonSemColunarHttpMessageConverter): um endpoint que
+ * não devolve uma lista com colunas responde 406, e não JSON comum com o rótulo colunar.
+ */
+@Configuration
+public class FormatosConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        Map<Class<?>, Colunas<?>> colunas = Map.of(
+                PresencaDTO.class, new PresencasColunares(),
+                Alunos.class, new AlunosColunares());
+        int json = 0;
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+        // O Spring Boot registra o seu (JsonComMetricasHttpMessageConverter, já sem o colunar) e
+        // mantém o padrão do Spring MVC, que só é usado quando o primeiro recusa: troca o segundo
+        for (int i = json; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                MappingJackson2HttpMessageConverter padrao = (MappingJackson2HttpMessageConverter) converters.get(i);
+                converters.set(i, new JsonSemColunarHttpMessageConverter(padrao.getObjectMapper()));
+            }
+        }
+        converters.add(Math.min(json, converters.size()), new ColunarHttpMessageConverter(
+                new JsonFactory(), ColunarHttpMessageConverter.JSON, colunas, true));
+        converters.add(new ColunarHttpMessageConverter(
+                new CBORFactory(), ColunarHttpMessageConverter.CBOR, colunas, false));
+        converters.add(new MappingJackson2CborHttpMessageConverter());
+    }
+}
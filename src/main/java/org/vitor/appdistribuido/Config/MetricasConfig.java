@@ -0,0 +1,74 @@
+package org.vitor.appdistribuido.Config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.vitor.appdistribuido.Metricas.ContadorSqlFilter;
+import org.vitor.appdistribuido.Metricas.JsonComMetricasHttpMessageConverter;
+import org.vitor.appdistribuido.Metricas.MetricasSqlListener;
+
+import javax.sql.DataSource;
+
+/*
+ * Métricas expostas em /actuator/metrics e /actuator/prometheus, além das do Spring Boot
+ * (http.server.requests por endpoint, hikaricp.connections.* do pool):
+ *   app.service             – cada método público dos serviços anotados com @Timed
+ *   app.sql                 – cada comando SQL, por tipo; app.sql.lentas acima do limite
+ *   app.sql.por.requisicao  – comandos SQL por requisição, por endpoint
+ *   app.json.serializacao   – escrita das respostas JSON
+ *   app.admissao.*          – limites e recusas do controle de admissão (ver AdmissaoConfig)
+ */
+@Configuration
+public class MetricasConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /* Envolve o DataSource (Hikari) num proxy que observa cada comando executado */
+    @Bean
+    public static BeanPostProcessor dataSourceComMetricas(
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${app.metricas.consulta-lenta-ms:200}") long limiteConsultaLentaMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new MetricasSqlListener(meterRegistry, limiteConsultaLentaMs))
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<ContadorSqlFilter> contadorSqlFilter(
+            MeterRegistry meterRegistry,
+            @Value("${app.metricas.comandos-por-requisicao-alerta:20}") int limiteComandos) {
+        FilterRegistrationBean<ContadorSqlFilter> registro =
+                new FilterRegistrationBean<>(new ContadorSqlFilter(meterRegistry, limiteComandos));
+        registro.addUrlPatterns("/api/*");
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+
+    /* Substitui o conversor JSON padrão do Spring Boot (mesmo ObjectMapper) */
+    @Bean
+    public JsonComMetricasHttpMessageConverter mappingJackson2HttpMessageConverter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new JsonComMetricasHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
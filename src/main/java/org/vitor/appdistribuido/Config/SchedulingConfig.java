@@ -0,0 +1,12 @@
+package org.vitor.appdistribuido.Config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+ * Tarefas periódicas (ex.: reconstrução do resumo mensal de presenças).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
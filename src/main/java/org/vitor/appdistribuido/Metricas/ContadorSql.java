@@ -0,0 +1,80 @@
+package org.vitor.appdistribuido.Metricas;
+
+/**
+ * Conta os comandos SQL executados pela thread atual dentro de um trecho de código
+ * (tipicamente uma requisição HTTP). Alimentado pelo {@link MetricasSqlListener}, que vê
+ * tudo o que passa pelo DataSource: Hibernate, Spring Data e JdbcTemplate.
+ */
+public final class ContadorSql {
+
+    private static final ThreadLocal<int[]> ATUAL = new ThreadLocal<>();
+
+    private ContadorSql() {
+    }
+
+    /**
+     * Executa a ação contando os comandos SQL que ela dispara nesta thread.
+     * Medições aninhadas também somam na medição de fora.
+     * @param acao O trecho a medir.
+     * @return Quantos comandos foram executados (um lote JDBC conta como um).
+     */
+    public static <E extends Exception> int medir(Acao<E> acao) throws E {
+        Medicao medicao = iniciar();
+        try {
+            acao.executar();
+        } finally {
+            medicao.encerrar();
+        }
+        return medicao.comandos();
+    }
+
+    /**
+     * Começa a contar nesta thread; {@link Medicao#encerrar()} deve ser chamado num finally.
+     * @return A medição em andamento.
+     */
+    public static Medicao iniciar() {
+        Medicao medicao = new Medicao(ATUAL.get());
+        ATUAL.set(medicao.contagem);
+        return medicao;
+    }
+
+    static void registrar() {
+        int[] contagem = ATUAL.get();
+        if (contagem != null) {
+            contagem[0]++;
+        }
+    }
+
+    public static final class Medicao {
+        private final int[] anterior;
+        private final int[] contagem = new int[1];
+
+        private Medicao(int[] anterior) {
+            this.anterior = anterior;
+        }
+
+        /** @return Quantos comandos foram executados até agora. */
+        public int comandos() {
+            return contagem[0];
+        }
+
+        /**
+         * Para de contar e devolve a thread à medição de fora, se houver.
+         * @return Quantos comandos foram executados.
+         */
+        public int encerrar() {
+            if (anterior != null) {
+                anterior[0] += contagem[0];
+                ATUAL.set(anterior);
+            } else {
+                ATUAL.remove();
+            }
+            return contagem[0];
+        }
+    }
+
+    @FunctionalInterface
+    public interface Acao<E extends Exception> {
+        void executar() throws E;
+    }
+}
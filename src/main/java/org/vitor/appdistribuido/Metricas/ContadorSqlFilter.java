@@ -0,0 +1,55 @@
+package org.vitor.appdistribuido.Metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Registra quantos comandos SQL cada requisição executou (app.sql.por.requisicao, por
+ * endpoint) e avisa no log quando passa do limite – o sintoma típico de N+1.
+ */
+@Slf4j
+public class ContadorSqlFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int limiteComandosPorRequisicao;
+
+    public ContadorSqlFilter(MeterRegistry meterRegistry, int limiteComandosPorRequisicao) {
+        this.meterRegistry = meterRegistry;
+        this.limiteComandosPorRequisicao = limiteComandosPorRequisicao;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContadorSql.Medicao medicao = ContadorSql.iniciar();
+        int comandos;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            comandos = medicao.encerrar();
+        }
+
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = (padrao != null) ? padrao.toString() : "UNKNOWN";
+        DistributionSummary.builder("app.sql.por.requisicao")
+                .description("Comandos SQL executados por requisição")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(comandos);
+
+        if (comandos > limiteComandosPorRequisicao) {
+            log.warn("{} {} executou {} comandos SQL (limite {})",
+                    request.getMethod(), request.getRequestURI(), comandos, limiteComandosPorRequisicao);
+        }
+    }
+}
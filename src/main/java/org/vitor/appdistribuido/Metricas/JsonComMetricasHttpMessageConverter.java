@@ -0,0 +1,39 @@
+package org.vitor.appdistribuido.Metricas;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.vitor.appdistribuido.Common.JsonSemColunarHttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * O conversor JSON padrão do Spring MVC (sem o tipo colunar), cronometrando a escrita das respostas
+ * (app.json.serializacao), para separar o tempo de serialização do resto da requisição.
+ */
+public class JsonComMetricasHttpMessageConverter extends JsonSemColunarHttpMessageConverter {
+
+    private final Timer serializacao;
+
+    public JsonComMetricasHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.serializacao = Timer.builder("app.json.serializacao")
+                .description("Escrita de respostas JSON (inclui o envio ao cliente)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long inicio = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            serializacao.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.vitor.appdistribuido.Metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recebe cada execução de comando no DataSource: registra o timer app.sql (por tipo de
+ * comando), alimenta o {@link ContadorSql} e escreve no log as consultas acima do limite.
+ */
+@Slf4j
+public class MetricasSqlListener implements QueryExecutionListener {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long limiteConsultaLentaMs;
+
+    /* Criados na primeira execução: o DataSource sobe antes do MeterRegistry */
+    private volatile Map<QueryType, Timer> timers;
+    private volatile Map<QueryType, Timer> timersLentas;
+
+    public MetricasSqlListener(ObjectProvider<MeterRegistry> meterRegistry, long limiteConsultaLentaMs) {
+        this.meterRegistry = meterRegistry;
+        this.limiteConsultaLentaMs = limiteConsultaLentaMs;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        ContadorSql.registrar();
+
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        QueryType tipo = QueryUtils.getQueryType(sql);
+        long ms = execInfo.getElapsedTime();
+
+        if (timers == null) {
+            criarTimers();
+        }
+        if (timers != null) {
+            timers.get(tipo).record(ms, TimeUnit.MILLISECONDS);
+        }
+
+        if (ms >= limiteConsultaLentaMs) {
+            if (timersLentas != null) {
+                timersLentas.get(tipo).record(ms, TimeUnit.MILLISECONDS);
+            }
+            log.warn("Consulta lenta ({} ms{}): {}", ms,
+                    execInfo.isBatch() ? ", lote de " + execInfo.getBatchSize() : "",
+                    sql.replaceAll("\\s+", " ").trim());
+        }
+    }
+
+    private synchronized void criarTimers() {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (timers != null || registry == null) {
+            return;
+        }
+        Map<QueryType, Timer> todas = new EnumMap<>(QueryType.class);
+        Map<QueryType, Timer> lentas = new EnumMap<>(QueryType.class);
+        for (QueryType tipo : QueryType.values()) {
+            String nome = tipo.name().toLowerCase();
+            todas.put(tipo, Timer.builder("app.sql")
+                    .description("Comandos SQL executados")
+                    .tag("tipo", nome)
+                    .register(registry));
+            lentas.put(tipo, Timer.builder("app.sql.lentas")
+                    .description("Comandos SQL acima de app.metricas.consulta-lenta-ms")
+                    .tag("tipo", nome)
+                    .register(registry));
+        }
+        timersLentas = lentas;
+        timers = todas;
+    }
+}
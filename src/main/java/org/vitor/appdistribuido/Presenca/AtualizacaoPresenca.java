@@ -0,0 +1,24 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma alteração de presença enviada pela transmissão ao vivo ({@link TransmissaoPresencas}).
+ *
+ * @param presencaId O ID do registro de presença.
+ * @param alunoId O ID do aluno.
+ * @param dataHora A data e hora do registro.
+ * @param presente true para presença, false para falta.
+ * @param removida true se o registro foi excluído.
+ */
+public record AtualizacaoPresenca(Long presencaId, Long alunoId, LocalDateTime dataHora, Boolean presente,
+                                  boolean removida) {
+
+    static AtualizacaoPresenca gravada(PresencaDTO presenca) {
+        return new AtualizacaoPresenca(presenca.id(), presenca.alunoId(), presenca.dataHora(), presenca.presente(), false);
+    }
+
+    static AtualizacaoPresenca removida(PresencaDTO presenca) {
+        return new AtualizacaoPresenca(presenca.id(), presenca.alunoId(), presenca.dataHora(), presenca.presente(), true);
+    }
+}
@@ -0,0 +1,291 @@
+package org.vitor.appdistribuido.Presenca;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.vitor.appdistribuido.Alunos.AlunosAlteradosEvent;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ingestão assíncrona de check-ins (ativada com app.checkin.assincrono=true).
+ *
+ * <p>O check-in é validado contra um conjunto em memória dos IDs de alunos, acrescentado ao
+ * {@link LogCheckin} (com fsync) e colocado num buffer circular de tamanho fixo; a requisição
+ * responde 202 sem tocar no banco. Uma thread gravadora esvazia o buffer em lotes de até
+ * app.checkin.lote-maximo pelo mesmo caminho de escrita do PresencaService (upsert em lote,
+ * resumo mensal, índice), e só então avança o checkpoint do log.</p>
+ *
+ * <p>Contrapressão: cada check-in reserva uma vaga do buffer antes de ir para o log. Com o
+ * buffer cheio (banco lento ou fora do ar), a reserva espera até app.checkin.espera-buffer-ms
+ * e então falha com {@link RejectedExecutionException}, que o controller traduz em 503.</p>
+ *
+ * <p>Ao subir, os registros do log posteriores ao checkpoint são regravados antes de aceitar
+ * novos check-ins. Regravar é idempotente: o upsert mantém um registro por (aluno, dia).</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.checkin.assincrono", havingValue = "true")
+public class CheckinAssincrono implements SmartLifecycle {
+
+    private final PresencaService presencaService;
+    private final AlunosRepository alunosRepository;
+    private final LogCheckin logCheckin;
+
+    private final int loteMaximo;
+    private final long intervaloGravacaoMs;
+    private final long esperaBufferMs;
+    private final long tamanhoSegmento;
+
+    /* A fila só recebe registros com vaga reservada no semáforo, então add() nunca falha */
+    private final ArrayBlockingQueue<RegistroCheckin> buffer;
+    private final Semaphore vagas;
+    private final Set<Long> alunos = ConcurrentHashMap.newKeySet();
+
+    private final Counter aceitos;
+    private final Counter rejeitados;
+
+    private volatile boolean rodando;
+    private Thread gravador;
+
+    public CheckinAssincrono(PresencaService presencaService,
+                             AlunosRepository alunosRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.checkin.diretorio-log:./data/checkin}") Path diretorioLog,
+                             @Value("${app.checkin.capacidade-buffer:65536}") int capacidadeBuffer,
+                             @Value("${app.checkin.lote-maximo:2000}") int loteMaximo,
+                             @Value("${app.checkin.intervalo-gravacao-ms:20}") long intervaloGravacaoMs,
+                             @Value("${app.checkin.espera-buffer-ms:50}") long esperaBufferMs,
+                             @Value("${app.checkin.tamanho-segmento-mb:64}") long tamanhoSegmentoMb) {
+        this.presencaService = presencaService;
+        this.alunosRepository = alunosRepository;
+        this.logCheckin = new LogCheckin(diretorioLog);
+        this.loteMaximo = loteMaximo;
+        this.intervaloGravacaoMs = intervaloGravacaoMs;
+        this.esperaBufferMs = esperaBufferMs;
+        this.tamanhoSegmento = tamanhoSegmentoMb * 1024 * 1024;
+        this.buffer = new ArrayBlockingQueue<>(capacidadeBuffer);
+        this.vagas = new Semaphore(capacidadeBuffer);
+
+        Gauge.builder("app.checkin.pendentes", buffer, ArrayBlockingQueue::size)
+                .description("Check-ins aceitos ainda não gravados no banco")
+                .register(meterRegistry);
+        this.aceitos = Counter.builder("app.checkin.aceitos")
+                .description("Check-ins aceitos pela ingestão assíncrona")
+                .register(meterRegistry);
+        this.rejeitados = Counter.builder("app.checkin.rejeitados")
+                .description("Check-ins recusados por buffer cheio")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Aceita um check-in: valida o aluno, grava no log local e enfileira para o banco.
+     * @param alunoId O ID do aluno.
+     * @param dataHora A data e hora do check-in.
+     * @param presente true para presença, false para falta.
+     * @return O registro aceito, com sua sequência no log.
+     * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
+     * @throws RejectedExecutionException se o buffer continuar cheio após a espera, ou se a ingestão estiver parada.
+     */
+    public RegistroCheckin registrar(Long alunoId, LocalDateTime dataHora, boolean presente) {
+        if (!rodando) {
+            throw new RejectedExecutionException("A ingestão de check-ins não está ativa.");
+        }
+        if (!alunoExiste(alunoId)) {
+            throw new NoSuchElementException("Aluno não encontrado com ID: " + alunoId);
+        }
+        try {
+            if (!vagas.tryAcquire(esperaBufferMs, TimeUnit.MILLISECONDS)) {
+                rejeitados.increment();
+                throw new RejectedExecutionException("Buffer de check-ins cheio.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrompido aguardando o buffer de check-ins.", e);
+        }
+        AtomicBoolean enfileirado = new AtomicBoolean();
+        try {
+            RegistroCheckin registro = logCheckin.acrescentar(alunoId, dataHora, presente, r -> {
+                buffer.add(r);
+                enfileirado.set(true);
+            });
+            aceitos.increment();
+            return registro;
+        } catch (IOException e) {
+            // Se só o fsync falhou o registro já está no buffer e a vaga é dele
+            if (!enfileirado.get()) {
+                vagas.release();
+            }
+            throw new UncheckedIOException("Falha ao gravar o check-in no log local", e);
+        }
+    }
+
+    /**
+     * @return Quantos check-ins aguardam gravação e até onde o log já foi confirmado.
+     */
+    public Estado estado() {
+        return new Estado(buffer.size(), logCheckin.ultimaSequencia(), logCheckin.confirmada(),
+                (long) aceitos.count(), (long) rejeitados.count());
+    }
+
+    /**
+     * Mantém o conjunto de alunos em memória em dia com cadastros, importações e remoções.
+     * @param evento O aluno alterado.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarAlunos(AlunosAlteradosEvent evento) {
+        if (evento.isEmMassa()) {
+            alunos.addAll(alunosRepository.findTodosIds());
+        } else if (evento.removido()) {
+            alunos.remove(evento.alunoId());
+        } else {
+            alunos.add(evento.alunoId());
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Ciclo de vida
+     * ---------------------------------------------------------------- */
+
+    @Override
+    public void start() {
+        alunos.addAll(alunosRepository.findTodosIds());
+
+        List<RegistroCheckin> pendentes = logCheckin.abrir();
+        if (!pendentes.isEmpty()) {
+            log.info("Regravando {} check-ins do log local (sequências {} a {})", pendentes.size(),
+                    pendentes.get(0).sequencia(), pendentes.get(pendentes.size() - 1).sequencia());
+            for (int i = 0; i < pendentes.size(); i += loteMaximo) {
+                gravar(pendentes.subList(i, Math.min(i + loteMaximo, pendentes.size())), false);
+            }
+        }
+
+        rodando = true;
+        gravador = Thread.ofPlatform().name("checkin-gravador").daemon().start(this::gravarContinuamente);
+    }
+
+    /* Para depois do servidor web (fase maior para antes), então não chegam check-ins durante o esvaziamento */
+    @Override
+    public void stop() {
+        rodando = false;
+        try {
+            gravador.join();
+            logCheckin.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar o log de check-ins", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return rodando;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0; // antes do servidor web ao subir, depois dele ao parar
+    }
+
+    /* ------------------------------------------------------------------
+     * Gravação em lote
+     * ---------------------------------------------------------------- */
+
+    private void gravarContinuamente() {
+        List<RegistroCheckin> lote = new ArrayList<>(loteMaximo);
+        while (rodando || !buffer.isEmpty()) {
+            try {
+                RegistroCheckin primeiro = buffer.poll(intervaloGravacaoMs, TimeUnit.MILLISECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                lote.add(primeiro);
+                buffer.drainTo(lote, loteMaximo - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!gravar(lote, true)) {
+                return; // parando com o banco fora do ar: o restante fica no log para a próxima subida
+            }
+            vagas.release(lote.size());
+            lote.clear();
+        }
+    }
+
+    /**
+     * Grava o lote e avança o checkpoint. Em caso de erro tenta de novo com espera crescente;
+     * enquanto o lote não sai, o buffer enche e os novos check-ins passam a ser recusados.
+     * @param podeDesistir false na regravação da subida, que insiste até o banco responder.
+     * @return false se desistiu porque a aplicação está parando.
+     */
+    private boolean gravar(List<RegistroCheckin> lote, boolean podeDesistir) {
+        List<Marcacao> marcacoes = lote.stream().map(RegistroCheckin::marcacao).toList();
+        long ultima = lote.get(lote.size() - 1).sequencia(); // fila em ordem de sequência
+        long espera = Math.max(intervaloGravacaoMs, 10);
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                presencaService.registrarMarcacoes(marcacoes);
+                logCheckin.confirmar(ultima, tamanhoSegmento);
+                return true;
+            } catch (Exception e) {
+                if (podeDesistir && !rodando && tentativa >= 3) {
+                    log.error("Desistindo de gravar {} check-ins ao parar; ficam no log local", lote.size(), e);
+                    return false;
+                }
+                log.warn("Falha ao gravar {} check-ins (tentativa {}); nova tentativa em {} ms",
+                        lote.size(), tentativa, espera, e);
+                try {
+                    Thread.sleep(espera);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                espera = Math.min(espera * 2, 5_000);
+            }
+        }
+    }
+
+    private boolean alunoExiste(Long alunoId) {
+        if (alunos.contains(alunoId)) {
+            return true;
+        }
+        // Cadastro ainda não visto pelo evento (ou de outra instância): confirma no banco
+        if (alunosRepository.existsById(alunoId)) {
+            alunos.add(alunoId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param pendentes Check-ins no buffer aguardando gravação.
+     * @param ultimaSequencia A última sequência escrita no log.
+     * @param confirmada A última sequência gravada no banco.
+     * @param aceitos Check-ins aceitos desde a subida.
+     * @param rejeitados Check-ins recusados por buffer cheio desde a subida.
+     */
+    public record Estado(int pendentes, long ultimaSequencia, long confirmada, long aceitos, long rejeitados) {
+    }
+}
@@ -0,0 +1,172 @@
+package org.vitor.appdistribuido.Presenca;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Move as presenças dos períodos encerrados de presencas para presencas_compactadas
+ * ({@link PresencasCompactadas}): cerca de cem linhas de um aluno num semestre viram uma só,
+ * com dois bitsets de poucas dezenas de bytes. Roda diariamente (app.compactacao.cron;
+ * "-" desliga) e compacta todo período que terminou há mais de app.compactacao.carencia-dias.
+ *
+ * <p>Trabalha em lotes de app.compactacao.alunos-por-lote alunos, um por transação: trava os
+ * alunos do lote (na mesma ordem das escritas de presença), junta as linhas do período ao que
+ * já estiver compactado e as exclui de presencas. Rodar de novo só recolhe o que tiver sido
+ * escrito no período depois da última compactação. Antes do primeiro lote de um período novo,
+ * eleva o fim do que está compactado ({@link PresencasCompactadas#elevarFim}) e espera um
+ * intervalo de verificação, para que as outras instâncias procurem os dias do período nas duas
+ * tabelas antes de eles saírem de presencas.</p>
+ *
+ * <p>Os dados continuam os mesmos (só sem ID e hora), então o resumo mensal e o índice em
+ * memória não mudam. As consultas do PresencaService por aluno, por dia, a matriz e as
+ * exportações juntam as duas tabelas; as listagens por ID mostram só presencas. No
+ * PostgreSQL o espaço das linhas excluídas volta com o VACUUM e as partições mensais dos
+ * períodos compactados ficam vazias.</p>
+ */
+@Slf4j
+@Component
+public class CompactacaoPresencas {
+
+    private final PresencasCompactadas presencasCompactadas;
+    private final AlunosRepository alunosRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int alunosPorLote;
+    private final long verificacaoFimMs;
+    private final ReentrantLock execucao = new ReentrantLock();
+
+    public CompactacaoPresencas(PresencasCompactadas presencasCompactadas,
+                                AlunosRepository alunosRepository,
+                                NamedParameterJdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.compactacao.alunos-por-lote:500}") int alunosPorLote,
+                                @Value("${app.compactacao.verificacao-fim-ms:1000}") long verificacaoFimMs) {
+        this.presencasCompactadas = presencasCompactadas;
+        this.alunosRepository = alunosRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.alunosPorLote = alunosPorLote;
+        this.verificacaoFimMs = verificacaoFimMs;
+    }
+
+    @Scheduled(cron = "${app.compactacao.cron:0 0 4 * * *}")
+    public void compactarPeriodicamente() {
+        compactar();
+    }
+
+    /**
+     * Compacta os períodos encerrados que ainda têm linhas em presencas.
+     * @return Os períodos processados e quanto foi movido.
+     */
+    public Resultado compactar() {
+        execucao.lock();
+        try {
+            long inicioExecucao = System.nanoTime();
+            LocalDate limite = presencasCompactadas.limite();
+            LocalDate maisAntigo = jdbcTemplate.queryForObject("SELECT MIN(dia) FROM presencas",
+                    new MapSqlParameterSource(), LocalDate.class);
+
+            List<LocalDate> periodos = new ArrayList<>();
+            int alunos = 0;
+            long registros = 0;
+            if (maisAntigo != null) {
+                for (LocalDate inicio = presencasCompactadas.inicioDoPeriodo(maisAntigo);
+                     !presencasCompactadas.fimDoPeriodo(inicio).isAfter(limite);
+                     inicio = presencasCompactadas.fimDoPeriodo(inicio)) {
+                    long[] movidos = compactarPeriodo(inicio);
+                    if (movidos[1] > 0) {
+                        periodos.add(inicio);
+                        alunos += (int) movidos[0];
+                        registros += movidos[1];
+                    }
+                }
+            }
+
+            Resultado resultado = new Resultado(periodos, alunos, registros);
+            if (!periodos.isEmpty()) {
+                log.info("Presenças compactadas em {} ms: {}", (System.nanoTime() - inicioExecucao) / 1_000_000, resultado);
+            }
+            return resultado;
+        } finally {
+            execucao.unlock();
+        }
+    }
+
+    /* Um período, em lotes de alunos; devolve {alunos, registros movidos} */
+    private long[] compactarPeriodo(LocalDate inicio) {
+        MapSqlParameterSource periodo = new MapSqlParameterSource()
+                .addValue("inicio", inicio)
+                .addValue("fim", presencasCompactadas.fimDoPeriodo(inicio));
+        List<Long> alunoIds = jdbcTemplate.queryForList(
+                "SELECT DISTINCT aluno_id FROM presencas WHERE dia >= :inicio AND dia < :fim ORDER BY aluno_id",
+                periodo, Long.class);
+        if (!alunoIds.isEmpty() && presencasCompactadas.elevarFim(presencasCompactadas.fimDoPeriodo(inicio))) {
+            aguardarOutrasInstancias();
+        }
+
+        long registros = 0;
+        for (int i = 0; i < alunoIds.size(); i += alunosPorLote) {
+            List<Long> lote = alunoIds.subList(i, Math.min(i + alunosPorLote, alunoIds.size()));
+            Integer movidos = transactionTemplate.execute(status -> compactarLote(inicio, periodo, lote));
+            registros += (movidos != null) ? movidos : 0;
+        }
+        return new long[]{alunoIds.size(), registros};
+    }
+
+    private void aguardarOutrasInstancias() {
+        try {
+            Thread.sleep(verificacaoFimMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Compactação interrompida", e);
+        }
+    }
+
+    private int compactarLote(LocalDate inicio, MapSqlParameterSource periodo, List<Long> alunoIds) {
+        alunosRepository.travarIdsExistentes(alunoIds);
+        MapSqlParameterSource parametros = new MapSqlParameterSource(periodo.getValues()).addValue("alunoIds", alunoIds);
+
+        Map<Long, PeriodoCompactado> porAluno = new HashMap<>();
+        for (PeriodoCompactado existente : presencasCompactadas.noPeriodo(inicio, inicio, alunoIds)) {
+            if (existente.inicio().equals(inicio)) {
+                porAluno.put(existente.alunoId(), existente);
+            }
+        }
+        jdbcTemplate.query("""
+                        SELECT aluno_id, dia, presente FROM presencas
+                        WHERE dia >= :inicio AND dia < :fim AND aluno_id IN (:alunoIds)
+                        """, parametros,
+                rs -> {
+                    long alunoId = rs.getLong("aluno_id");
+                    // presente nulo conta como falta, como no resumo mensal
+                    porAluno.computeIfAbsent(alunoId, id -> PeriodoCompactado.vazio(id, inicio))
+                            .marcar(rs.getObject("dia", LocalDate.class), rs.getBoolean("presente"));
+                });
+
+        presencasCompactadas.gravar(porAluno.values());
+        return jdbcTemplate.update(
+                "DELETE FROM presencas WHERE dia >= :inicio AND dia < :fim AND aluno_id IN (:alunoIds)", parametros);
+    }
+
+    /**
+     * @param periodos O primeiro dia de cada período compactado nesta execução.
+     * @param alunos Quantos pares (aluno, período) foram compactados.
+     * @param registros Quantas linhas saíram de presencas.
+     */
+    public record Resultado(List<LocalDate> periodos, int alunos, long registros) {
+    }
+}
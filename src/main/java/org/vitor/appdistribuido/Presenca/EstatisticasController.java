@@ -0,0 +1,71 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+import java.util.List;
+
+
+@RestController
+@RequestMapping("/api/presencas/estatisticas")
+public class EstatisticasController {
+
+    private final EstatisticasService estatisticasService;
+
+    @Autowired
+    public EstatisticasController(EstatisticasService estatisticasService) {
+        this.estatisticasService = estatisticasService;
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /aluno/{id}?inicio=AAAA-MM&fim=AAAA-MM – frequência do aluno por mês
+     * -------------------------------------------------------------- */
+    @GetMapping("/aluno/{alunoId}")
+    public ResponseEntity<EstatisticasService.FrequenciaPeriodo> buscarFrequenciaDoAluno(
+            @PathVariable Long alunoId,
+            @RequestParam("inicio") @DateTimeFormat(pattern = "yyyy-MM") YearMonth inicio,
+            @RequestParam("fim")    @DateTimeFormat(pattern = "yyyy-MM") YearMonth fim) {
+        try {
+            return new ResponseEntity<>(estatisticasService.buscarFrequenciaDoAluno(alunoId, inicio, fim), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /mes/{AAAA-MM} – presenças e faltas de cada aluno no mês
+     * -------------------------------------------------------------- */
+    @GetMapping("/mes/{mes}")
+    public ResponseEntity<List<FrequenciaAluno>> buscarFrequenciasDoMes(
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM") YearMonth mes) {
+        return new ResponseEntity<>(estatisticasService.buscarFrequenciasDoMes(mes), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /abaixo-do-limite?inicio=AAAA-MM&fim=AAAA-MM&limite=0.75
+     * – alunos com frequência abaixo do limite no período
+     * -------------------------------------------------------------- */
+    @GetMapping("/abaixo-do-limite")
+    public ResponseEntity<List<FrequenciaAluno>> buscarAbaixoDoLimite(
+            @RequestParam("inicio") @DateTimeFormat(pattern = "yyyy-MM") YearMonth inicio,
+            @RequestParam("fim")    @DateTimeFormat(pattern = "yyyy-MM") YearMonth fim,
+            @RequestParam(value = "limite", defaultValue = "0.75") double limite) {
+        try {
+            return new ResponseEntity<>(estatisticasService.buscarAbaixoDoLimite(inicio, fim, limite), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /reconstruir – refaz o resumo mensal a partir das presenças
+     * -------------------------------------------------------------- */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Integer> reconstruir() {
+        return new ResponseEntity<>(estatisticasService.reconstruir(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,158 @@
+package org.vitor.appdistribuido.Presenca;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estatísticas de frequência (taxa por aluno, faltas por mês, alunos abaixo do limite).
+ * Lê apenas o resumo mensal, de modo que o custo depende do número de alunos e de meses
+ * consultados, e não do volume de presenças acumulado.
+ */
+@Slf4j
+@Service
+@Timed(value = "app.service", description = "Métodos dos serviços")
+public class EstatisticasService {
+
+    /* Alunos reconstruídos (e travados) por transação */
+    private static final int ALUNOS_POR_LOTE = 500;
+
+    private final ResumoMensalRepository resumoMensalRepository;
+    private final AlunosRepository alunosRepository;
+    private final PresencasCompactadas presencasCompactadas;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public EstatisticasService(ResumoMensalRepository resumoMensalRepository, AlunosRepository alunosRepository,
+                               PresencasCompactadas presencasCompactadas,
+                               PlatformTransactionManager transactionManager) {
+        this.resumoMensalRepository = resumoMensalRepository;
+        this.alunosRepository = alunosRepository;
+        this.presencasCompactadas = presencasCompactadas;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Frequência de um aluno no período, com o detalhe de cada mês.
+     * @param alunoId O ID do aluno.
+     * @param inicio O primeiro mês (inclusive).
+     * @param fim O último mês (inclusive).
+     * @return O total do período e os meses com registros.
+     * @throws IllegalArgumentException Se o fim for anterior ao início.
+     */
+    @Transactional(readOnly = true)
+    public FrequenciaPeriodo buscarFrequenciaDoAluno(Long alunoId, YearMonth inicio, YearMonth fim) {
+        validarPeriodo(inicio, fim);
+        List<ResumoMensal> meses = resumoMensalRepository.findPorAluno(alunoId, inicio.atDay(1), fim.atDay(1));
+        long presentes = 0;
+        long ausentes = 0;
+        for (ResumoMensal mes : meses) {
+            presentes += mes.getPresentes();
+            ausentes += mes.getAusentes();
+        }
+        return new FrequenciaPeriodo(new FrequenciaAluno(alunoId, presentes, ausentes), meses);
+    }
+
+    /**
+     * Presenças e faltas de cada aluno em um mês.
+     * @param mes O mês.
+     * @return Uma linha por aluno com registros no mês, em ordem de ID.
+     */
+    @Transactional(readOnly = true)
+    public List<FrequenciaAluno> buscarFrequenciasDoMes(YearMonth mes) {
+        return resumoMensalRepository.findFrequencias(mes.atDay(1), mes.atDay(1));
+    }
+
+    /**
+     * Alunos com frequência abaixo do limite no período.
+     * @param inicio O primeiro mês (inclusive).
+     * @param fim O último mês (inclusive).
+     * @param limite A frequência mínima, entre 0 e 1.
+     * @return Os alunos abaixo do limite, da menor para a maior frequência.
+     * @throws IllegalArgumentException Se o período ou o limite forem inválidos.
+     */
+    @Transactional(readOnly = true)
+    public List<FrequenciaAluno> buscarAbaixoDoLimite(YearMonth inicio, YearMonth fim, double limite) {
+        validarPeriodo(inicio, fim);
+        if (limite < 0 || limite > 1) {
+            throw new IllegalArgumentException("O limite deve estar entre 0 e 1.");
+        }
+        return resumoMensalRepository.findAbaixoDoLimite(inicio.atDay(1), fim.atDay(1), limite);
+    }
+
+    /**
+     * Reconstrói o resumo mensal a partir de presencas e presencas_compactadas, em lotes de
+     * alunos, um por transação: trava os alunos do lote (mesma ordem usada pelas escritas de
+     * presença), apaga os resumos deles e os recalcula. Só as escritas de presença dos alunos
+     * do lote em andamento esperam, e nenhuma aplica deltas sobre um resumo pela metade.
+     * @return Quantas linhas (aluno, mês) foram geradas.
+     */
+    public int reconstruir() {
+        long inicio = System.nanoTime();
+        int linhas = 0;
+        long depois = Long.MIN_VALUE;
+        List<Long> lote;
+        do {
+            lote = alunosRepository.findIdsDepois(depois, ALUNOS_POR_LOTE);
+            if (!lote.isEmpty()) {
+                List<Long> alunoIds = lote;
+                Integer geradas = transactionTemplate.execute(status -> reconstruirLote(alunoIds));
+                linhas += (geradas != null) ? geradas : 0;
+                depois = lote.getLast();
+            }
+        } while (lote.size() == ALUNOS_POR_LOTE);
+        log.info("Resumo mensal de presenças reconstruído em {} ms: {} linhas",
+                (System.nanoTime() - inicio) / 1_000_000, linhas);
+        return linhas;
+    }
+
+    /* Rede de segurança contra divergências (ex.: escritas feitas direto no banco) */
+    @Scheduled(cron = "${app.estatisticas.reconstrucao-cron:0 0 3 * * *}")
+    public void reconstruirPeriodicamente() {
+        reconstruir();
+    }
+
+    /* Os dias de um aluno não se repetem entre presencas e presencas_compactadas, então os totais só se somam */
+    private int reconstruirLote(List<Long> alunoIds) {
+        alunosRepository.travarIdsExistentes(alunoIds);
+        resumoMensalRepository.limpar(alunoIds);
+        resumoMensalRepository.preencherAPartirDasPresencas(alunoIds);
+
+        List<ResumoMensalRepositoryCustom.Delta> deltas = new ArrayList<>();
+        for (PeriodoCompactado periodo : presencasCompactadas.noPeriodo(null, null, alunoIds)) {
+            Map<LocalDate, int[]> porMes = new TreeMap<>();
+            periodo.paraCada(null, null, (dia, presente) ->
+                    porMes.computeIfAbsent(dia.withDayOfMonth(1), m -> new int[2])[presente ? 0 : 1]++);
+            porMes.forEach((mes, total) ->
+                    deltas.add(new ResumoMensalRepositoryCustom.Delta(periodo.alunoId(), mes, total[0], total[1])));
+        }
+        resumoMensalRepository.aplicarDeltas(deltas);
+        return resumoMensalRepository.contarDosAlunos(alunoIds);
+    }
+
+    private static void validarPeriodo(YearMonth inicio, YearMonth fim) {
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("O fim do período é anterior ao início.");
+        }
+    }
+
+    /**
+     * @param total A frequência somada no período.
+     * @param meses Os resumos de cada mês com registros.
+     */
+    public record FrequenciaPeriodo(FrequenciaAluno total, List<ResumoMensal> meses) {
+    }
+}
@@ -0,0 +1,16 @@
+package org.vitor.appdistribuido.Presenca;
+
+/**
+ * Frequência de um aluno num período, calculada a partir do resumo mensal.
+ *
+ * @param alunoId O ID do aluno.
+ * @param presentes Dias com presença.
+ * @param ausentes Dias com falta.
+ * @param frequencia presentes / (presentes + ausentes), entre 0 e 1.
+ */
+public record FrequenciaAluno(Long alunoId, long presentes, long ausentes, double frequencia) {
+
+    public FrequenciaAluno(Long alunoId, Long presentes, Long ausentes) {
+        this(alunoId, presentes, ausentes, presentes + ausentes == 0 ? 0.0 : (double) presentes / (presentes + ausentes));
+    }
+}
@@ -0,0 +1,121 @@
+package org.vitor.appdistribuido.Presenca;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.vitor.appdistribuido.Common.Csv;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importação em massa de presenças a partir de um CSV com as colunas "alunoId", "dataHora"
+ * (ISO-8601) e, opcional, "presente" (true/false, padrão true). Outras colunas, como o "id" da
+ * exportação, são ignoradas.
+ *
+ * <p>O arquivo é lido em streaming e gravado em lotes de {@value #TAMANHO_LOTE} linhas pelo
+ * {@link PresencaService#registrarMarcacoes}, o mesmo caminho do check-in em lote: upsert em JDBC
+ * batch, resumo mensal por variação e {@link PresencasAlteradasEvent} para o índice e a
+ * transmissão ao vivo. Cada lote é uma transação; se a importação falhar no meio, os lotes
+ * anteriores permanecem e o relatório não é devolvido. Reimportar o mesmo arquivo é seguro
+ * (mesmo (aluno, dia) sobrescreve).</p>
+ */
+@Slf4j
+@Component
+public class ImportacaoPresencas {
+
+    static final int TAMANHO_LOTE = 1000;
+
+    private final PresencaService presencaService;
+
+    public ImportacaoPresencas(PresencaService presencaService) {
+        this.presencaService = presencaService;
+    }
+
+    /**
+     * @param csv O corpo da requisição, em UTF-8.
+     * @return O relatório: linhas inválidas e de alunos inexistentes são recusadas.
+     * @throws IllegalArgumentException se faltar uma coluna obrigatória ou o CSV estiver malformado.
+     */
+    public ResultadoImportacao importar(InputStream csv) {
+        ResultadoImportacao.Acumulador resultado = new ResultadoImportacao.Acumulador();
+        try {
+            Csv.Leitor leitor = Csv.leitor(csv);
+            Map<String, Integer> colunas = leitor.cabecalho();
+            Integer colunaAluno = colunas.get("alunoid");
+            Integer colunaDataHora = colunas.get("datahora");
+            Integer colunaPresente = colunas.get("presente");
+            if (colunaAluno == null || colunaDataHora == null) {
+                throw new IllegalArgumentException("O cabeçalho do CSV deve ter as colunas alunoId e dataHora");
+            }
+
+            List<Marcacao> lote = new ArrayList<>(TAMANHO_LOTE);
+            List<Long> linhas = new ArrayList<>(TAMANHO_LOTE);
+            List<String> campos;
+            while ((campos = leitor.proximo()) != null) {
+                Marcacao marcacao;
+                try {
+                    marcacao = new Marcacao(
+                            Long.valueOf(campo(campos, colunaAluno)),
+                            LocalDateTime.parse(campo(campos, colunaDataHora)),
+                            presente(colunaPresente == null ? "" : campo(campos, colunaPresente)));
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    resultado.rejeitar(leitor.linha(), "Linha inválida: " + String.join(",", campos));
+                    continue;
+                }
+                lote.add(marcacao);
+                linhas.add(leitor.linha());
+                if (lote.size() == TAMANHO_LOTE) {
+                    gravar(lote, linhas, resultado);
+                }
+            }
+            gravar(lote, linhas, resultado);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ResultadoImportacao importacao = resultado.resultado();
+        log.info("Importação de presenças: {} gravadas, {} recusadas", importacao.importados(), importacao.rejeitados());
+        return importacao;
+    }
+
+    private void gravar(List<Marcacao> lote, List<Long> linhas, ResultadoImportacao.Acumulador resultado) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        Set<Long> gravados = new HashSet<>();
+        for (PresencaDTO presenca : presencaService.registrarMarcacoes(lote)) {
+            gravados.add(presenca.alunoId());
+        }
+        for (int i = 0; i < lote.size(); i++) {
+            if (gravados.contains(lote.get(i).alunoId())) {
+                resultado.importar(1);
+            } else {
+                resultado.rejeitar(linhas.get(i), "Aluno %d não encontrado".formatted(lote.get(i).alunoId()));
+            }
+        }
+        lote.clear();
+        linhas.clear();
+    }
+
+    private static String campo(List<String> campos, int indice) {
+        return indice < campos.size() ? campos.get(indice).trim() : "";
+    }
+
+    /* Vazio = presente; aceita true/false e 1/0 */
+    private static boolean presente(String valor) {
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "", "true", "1" -> true;
+            case "false", "0" -> false;
+            default -> throw new NumberFormatException(valor);
+        };
+    }
+}
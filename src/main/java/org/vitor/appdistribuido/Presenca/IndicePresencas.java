@@ -0,0 +1,350 @@
+package org.vitor.appdistribuido.Presenca;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória das presenças: um bitmap comprimido (Roaring) por dia, com um bit
+ * por aluno presente. Responde "X esteve presente em D?", "quem esteve presente em D?"
+ * e "em quantos dias X esteve presente em [A, B]?" sem ir ao banco.
+ *
+ * <p>É montado a partir de presencas e presencas_compactadas quando a aplicação sobe e
+ * mantido atualizado pelos {@link PresencasAlteradasEvent} publicados pelo PresencaService
+ * após cada commit (a compactação não muda o conteúdo e não publica eventos).
+ * Cada bitmap publicado é imutável: uma escrita clona o bitmap do dia, altera a cópia e a
+ * troca no mapa, de modo que as leituras não precisam de trava.</p>
+ *
+ * <p>Os eventos podem chegar fora da ordem dos commits. Por isso o índice guarda, por alguns
+ * minutos, a numeração do último evento aplicado a cada (aluno, dia) e descarta os registros
+ * de eventos mais antigos: uma presença confirmada antes de uma falta não volta a aparecer se
+ * o seu evento chegar depois. As escritas de outras instâncias não chegam por evento, e a
+ * reconstrução periódica (app.indice.reconstrucao-ms) as traz e corrige qualquer divergência.
+ * Esse intervalo é o máximo que o índice fica desatualizado em relação ao banco.</p>
+ *
+ * <p>Custo: com IDs de aluno contíguos, um dia com 10 mil alunos ocupa no máximo um
+ * container de 8 KB (menos depois de runOptimize), ou seja ~1,6 MB para 200 dias letivos.
+ * O valor real é exposto por {@link #estado()}.</p>
+ */
+@Slf4j
+@Component
+public class IndicePresencas {
+
+    /* Estimativa do custo de cada entrada do mapa (nó da skip list + LocalDate + objeto RoaringBitmap) */
+    private static final long BYTES_POR_DIA = 128;
+
+    /* Por quanto tempo a numeração do último evento de um (aluno, dia) é lembrada */
+    private static final Duration MEMORIA_DA_ORDEM = Duration.ofMinutes(5);
+
+    private final PresencaRepository presencaRepository;
+    private final PresencasCompactadas presencasCompactadas;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile ConcurrentSkipListMap<LocalDate, RoaringBitmap> dias = new ConcurrentSkipListMap<>();
+    private volatile boolean pronto;
+
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final ReentrantLock reconstrucao = new ReentrantLock();
+    private List<PresencasAlteradasEvent> pendentes; // != null durante uma reconstrução; protegido por "escrita"
+    private final Cache<PresencaDia, Long> ultimosEventos = Caffeine.newBuilder() // alterado com "escrita"
+            .expireAfterWrite(MEMORIA_DA_ORDEM)
+            .build();
+
+    public IndicePresencas(PresencaRepository presencaRepository, PresencasCompactadas presencasCompactadas,
+                           PlatformTransactionManager transactionManager) {
+        this.presencaRepository = presencaRepository;
+        this.presencasCompactadas = presencasCompactadas;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /* ------------------------------------------------------------------
+     * Ciclo de vida
+     * ---------------------------------------------------------------- */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        reconstruir();
+    }
+
+    /**
+     * Aplica ao índice as escritas confirmadas pelo PresencaService, menos os registros de
+     * (aluno, dia) que já receberam um evento mais novo.
+     * @param evento As presenças gravadas e removidas na transação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarPresencas(PresencasAlteradasEvent evento) {
+        escrita.lock();
+        try {
+            PresencasAlteradasEvent atuais = semRegistrosAntigos(evento);
+            aplicar(dias, atuais);
+            if (pendentes != null) {
+                pendentes.add(atuais); // reaplicado sobre o índice em construção
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /* Rede de segurança: escritas de outras instâncias e divergências de qualquer origem */
+    @Scheduled(fixedDelayString = "${app.indice.reconstrucao-ms:300000}")
+    public void reconstruirPeriodicamente() {
+        if (pronto) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Remonta o índice a partir do banco e o troca atomicamente pelo atual.
+     * Escritas que chegarem durante a leitura são reaplicadas sobre o índice novo.
+     * @return O estado do índice após a reconstrução.
+     */
+    public Estado reconstruir() {
+        reconstrucao.lock();
+        try {
+            escrita.lock();
+            try {
+                pendentes = new ArrayList<>();
+            } finally {
+                escrita.unlock();
+            }
+
+            long inicio = System.nanoTime();
+            ConcurrentSkipListMap<LocalDate, RoaringBitmap> novo = null;
+            try {
+                novo = carregar();
+            } finally {
+                escrita.lock();
+                try {
+                    if (novo != null) {
+                        for (PresencasAlteradasEvent evento : pendentes) {
+                            aplicar(novo, evento);
+                        }
+                        dias = novo;
+                        pronto = true;
+                    }
+                    pendentes = null;
+                } finally {
+                    escrita.unlock();
+                }
+            }
+
+            Estado estado = estado();
+            log.info("Índice de presenças reconstruído em {} ms: {}", (System.nanoTime() - inicio) / 1_000_000, estado);
+            return estado;
+        } finally {
+            reconstrucao.unlock();
+        }
+    }
+
+    /**
+     * Compara o índice com o banco, dia a dia. Escritas concorrentes podem aparecer como
+     * divergências transitórias.
+     * @return Os dias em que índice e banco discordam (lista vazia se estiverem consistentes).
+     */
+    public List<Divergencia> verificar() {
+        NavigableMap<LocalDate, RoaringBitmap> banco = carregar();
+        NavigableMap<LocalDate, RoaringBitmap> indice = dias;
+
+        TreeSet<LocalDate> todosOsDias = new TreeSet<>(banco.keySet());
+        todosOsDias.addAll(indice.keySet());
+
+        List<Divergencia> divergencias = new ArrayList<>();
+        for (LocalDate dia : todosOsDias) {
+            RoaringBitmap noBanco = banco.getOrDefault(dia, new RoaringBitmap());
+            RoaringBitmap noIndice = indice.getOrDefault(dia, new RoaringBitmap());
+            int somenteNoBanco = RoaringBitmap.andNotCardinality(noBanco, noIndice);
+            int somenteNoIndice = RoaringBitmap.andNotCardinality(noIndice, noBanco);
+            if (somenteNoBanco > 0 || somenteNoIndice > 0) {
+                divergencias.add(new Divergencia(dia, somenteNoBanco, somenteNoIndice));
+            }
+        }
+        return divergencias;
+    }
+
+    /* ------------------------------------------------------------------
+     * Consultas
+     * ---------------------------------------------------------------- */
+
+    /** @return true depois que a primeira carga terminou. */
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * @param alunoId O ID do aluno.
+     * @param dia O dia da aula.
+     * @return true se o aluno está marcado como presente no dia.
+     */
+    public boolean presente(Long alunoId, LocalDate dia) {
+        RoaringBitmap bitmap = dias.get(dia);
+        return bitmap != null && bitmap.contains(bit(alunoId));
+    }
+
+    /**
+     * @param dia O dia da aula.
+     * @return Os IDs dos alunos presentes no dia, em ordem crescente.
+     */
+    public long[] presentesNoDia(LocalDate dia) {
+        RoaringBitmap bitmap = dias.get(dia);
+        if (bitmap == null) {
+            return new long[0];
+        }
+        return bitmap.stream().asLongStream().toArray();
+    }
+
+    /**
+     * @param alunoId O ID do aluno.
+     * @param inicio O primeiro dia do intervalo (inclusive).
+     * @param fim O último dia do intervalo (inclusive).
+     * @return Em quantos dias do intervalo o aluno esteve presente.
+     */
+    public int diasPresente(Long alunoId, LocalDate inicio, LocalDate fim) {
+        int bit = bit(alunoId);
+        int total = 0;
+        for (RoaringBitmap bitmap : dias.subMap(inicio, true, fim, true).values()) {
+            if (bitmap.contains(bit)) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /** @return Contagens e memória ocupada pelo índice. */
+    public Estado estado() {
+        NavigableMap<LocalDate, RoaringBitmap> atual = dias;
+        long registros = 0;
+        long bytes = 0;
+        for (RoaringBitmap bitmap : atual.values()) {
+            registros += bitmap.getLongCardinality();
+            bytes += bitmap.getLongSizeInBytes();
+        }
+        return new Estado(pronto, atual.size(), registros, bytes, bytes + BYTES_POR_DIA * atual.size());
+    }
+
+    /* ------------------------------------------------------------------
+     * Internos
+     * ---------------------------------------------------------------- */
+
+    private ConcurrentSkipListMap<LocalDate, RoaringBitmap> carregar() {
+        Map<LocalDate, RoaringBitmap> porDia = transactionTemplate.execute(status -> {
+            Map<LocalDate, RoaringBitmap> lidos = new HashMap<>();
+            try (Stream<PresencaDia> presentes = presencaRepository.streamPresentes()) {
+                presentes.forEach(p -> lidos.computeIfAbsent(p.dia(), d -> new RoaringBitmap()).add(bit(p.alunoId())));
+            }
+            presencasCompactadas.paraCada(periodo -> periodo.paraCada(null, null, (dia, presente) -> {
+                if (presente) {
+                    lidos.computeIfAbsent(dia, d -> new RoaringBitmap()).add(bit(periodo.alunoId()));
+                }
+            }));
+            return lidos;
+        });
+
+        ConcurrentSkipListMap<LocalDate, RoaringBitmap> resultado = new ConcurrentSkipListMap<>();
+        porDia.forEach((dia, bitmap) -> {
+            bitmap.runOptimize();
+            resultado.put(dia, bitmap);
+        });
+        return resultado;
+    }
+
+    /* Chamado com a trava de escrita */
+    private PresencasAlteradasEvent semRegistrosAntigos(PresencasAlteradasEvent evento) {
+        List<PresencaDTO> gravadas = new ArrayList<>(evento.gravadas().size());
+        for (PresencaDTO gravada : evento.gravadas()) {
+            if (maisNovo(gravada, evento.sequencia())) {
+                gravadas.add(gravada);
+            }
+        }
+        List<PresencaDTO> removidas = new ArrayList<>(evento.removidas().size());
+        for (PresencaDTO removida : evento.removidas()) {
+            if (maisNovo(removida, evento.sequencia())) {
+                removidas.add(removida);
+            }
+        }
+        return new PresencasAlteradasEvent(gravadas, removidas, evento.sequencia());
+    }
+
+    private boolean maisNovo(PresencaDTO registro, long sequencia) {
+        PresencaDia chave = new PresencaDia(registro.alunoId(), registro.dataHora().toLocalDate());
+        Long ultima = ultimosEventos.getIfPresent(chave);
+        if (ultima != null && ultima > sequencia) {
+            return false;
+        }
+        ultimosEventos.put(chave, sequencia);
+        return true;
+    }
+
+    /* Copy-on-write por dia: o bitmap publicado nunca é alterado */
+    private static void aplicar(ConcurrentSkipListMap<LocalDate, RoaringBitmap> indice, PresencasAlteradasEvent evento) {
+        Map<LocalDate, RoaringBitmap> adicionar = new HashMap<>();
+        Map<LocalDate, RoaringBitmap> remover = new HashMap<>();
+        for (PresencaDTO gravada : evento.gravadas()) {
+            Map<LocalDate, RoaringBitmap> alvo = Boolean.TRUE.equals(gravada.presente()) ? adicionar : remover;
+            alvo.computeIfAbsent(gravada.dataHora().toLocalDate(), d -> new RoaringBitmap()).add(bit(gravada.alunoId()));
+        }
+        for (PresencaDTO removida : evento.removidas()) {
+            remover.computeIfAbsent(removida.dataHora().toLocalDate(), d -> new RoaringBitmap()).add(bit(removida.alunoId()));
+        }
+
+        TreeSet<LocalDate> afetados = new TreeSet<>(adicionar.keySet());
+        afetados.addAll(remover.keySet());
+        for (LocalDate dia : afetados) {
+            indice.compute(dia, (d, atual) -> {
+                RoaringBitmap novo = (atual != null) ? atual.clone() : new RoaringBitmap();
+                RoaringBitmap saem = remover.get(d);
+                RoaringBitmap entram = adicionar.get(d);
+                if (saem != null) novo.andNot(saem);
+                if (entram != null) novo.or(entram);
+                novo.runOptimize();
+                return novo.isEmpty() ? null : novo;
+            });
+        }
+    }
+
+    private static int bit(Long alunoId) {
+        return Math.toIntExact(alunoId);
+    }
+
+    /* ------------------------------------------------------------------
+     * Respostas
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @param pronto Se a primeira carga já terminou.
+     * @param dias Quantos dias têm ao menos uma presença.
+     * @param registros Total de bits ligados (pares aluno/dia presentes).
+     * @param bytesBitmaps Memória ocupada pelos bitmaps.
+     * @param bytesEstimados Memória total estimada, incluindo a estrutura do mapa.
+     */
+    public record Estado(boolean pronto, int dias, long registros, long bytesBitmaps, long bytesEstimados) {
+    }
+
+    /**
+     * @param dia O dia divergente.
+     * @param somenteNoBanco Alunos presentes no banco e ausentes do índice.
+     * @param somenteNoIndice Alunos presentes no índice e ausentes do banco.
+     */
+    public record Divergencia(LocalDate dia, int somenteNoBanco, int somenteNoIndice) {
+    }
+}
@@ -0,0 +1,335 @@
+package org.vitor.appdistribuido.Presenca;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log local, só de acréscimo, dos check-ins aceitos pela ingestão assíncrona.
+ *
+ * <p>Cada registro tem tamanho fixo (sequência, aluno, data/hora, presente e CRC32C) e fica
+ * num segmento "checkin-&lt;primeira sequência&gt;.log". O arquivo "checkpoint" guarda a maior
+ * sequência já gravada no banco; segmentos inteiramente abaixo dela são apagados. O checkpoint
+ * é trocado por rename atômico, com fsync do arquivo novo e do diretório; se mesmo assim estiver
+ * ilegível, a abertura parte da sequência 0 e reenvia tudo o que ainda está no log: melhor
+ * repetir upserts já gravados do que perder check-ins.</p>
+ *
+ * <p>Durabilidade com commit em grupo: cada {@link #acrescentar} escreve sob uma trava curta e
+ * depois espera um fsync; quem chega enquanto outro fsync está em andamento é coberto pelo
+ * próximo, de modo que uma rajada custa poucos fsyncs.</p>
+ */
+@Slf4j
+class LogCheckin implements Closeable {
+
+    static final int TAMANHO_REGISTRO = 8 + 8 + 8 + 4 + 1 + 4;
+
+    private static final String PREFIXO = "checkin-";
+    private static final String SUFIXO = ".log";
+
+    private final Path diretorio;
+    private final Path checkpoint;
+
+    /* escrita: posição e canal atuais; sincronizacao: um fsync por vez (sempre adquirida antes de escrita) */
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final ReentrantLock sincronizacao = new ReentrantLock();
+
+    private FileChannel canal;
+    private Path segmentoAtual;
+    private long ultimaSequencia;
+    private long escritos;              // registros escritos desde a abertura
+    private volatile long duraveis;     // registros já cobertos por fsync
+    private volatile long confirmada;   // maior sequência já gravada no banco
+
+    LogCheckin(Path diretorio) {
+        this.diretorio = diretorio;
+        this.checkpoint = diretorio.resolve("checkpoint");
+    }
+
+    /**
+     * Lê o log do disco e abre um segmento novo para os próximos registros. Um registro
+     * incompleto ou corrompido no fim do último segmento (queda no meio de uma escrita) é descartado.
+     * @return Os registros ainda não confirmados, em ordem de sequência.
+     */
+    List<RegistroCheckin> abrir() {
+        try {
+            Files.createDirectories(diretorio);
+            confirmada = lerCheckpoint();
+            ultimaSequencia = confirmada;
+
+            List<RegistroCheckin> pendentes = new ArrayList<>();
+            List<Path> segmentos = segmentos();
+            for (int i = 0; i < segmentos.size(); i++) {
+                ler(segmentos.get(i), i == segmentos.size() - 1, registro -> {
+                    ultimaSequencia = Math.max(ultimaSequencia, registro.sequencia());
+                    if (registro.sequencia() > confirmada) {
+                        pendentes.add(registro);
+                    }
+                });
+            }
+            novoSegmento();
+            return pendentes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível abrir o log de check-ins em " + diretorio, e);
+        }
+    }
+
+    /**
+     * Acrescenta um check-in ao log e só retorna depois que ele estiver em disco (fsync).
+     * @param aoEscrever Chamado com o registro ainda sob a trava de escrita, ou seja, na ordem das sequências.
+     * @return O registro gravado.
+     */
+    RegistroCheckin acrescentar(Long alunoId, LocalDateTime dataHora, boolean presente,
+                                Consumer<RegistroCheckin> aoEscrever) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_REGISTRO);
+        RegistroCheckin registro;
+        long posicao;
+        escrita.lock();
+        try {
+            registro = new RegistroCheckin(ultimaSequencia + 1, alunoId, dataHora, presente);
+            codificar(registro, buffer);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            ultimaSequencia = registro.sequencia();
+            posicao = ++escritos;
+            aoEscrever.accept(registro);
+        } finally {
+            escrita.unlock();
+        }
+        sincronizar(posicao);
+        return registro;
+    }
+
+    /**
+     * Registra que todas as sequências até a informada já estão no banco: atualiza o
+     * checkpoint, troca de segmento se o atual passou do tamanho e apaga os segmentos antigos.
+     */
+    void confirmar(long sequencia, long tamanhoMaximoSegmento) throws IOException {
+        if (sequencia <= confirmada) {
+            return;
+        }
+        // O conteúdo chega ao disco antes do rename, e o rename antes de apagar os segmentos
+        Path temporario = diretorio.resolve("checkpoint.tmp");
+        try (FileChannel arquivo = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer conteudo = ByteBuffer.wrap(Long.toString(sequencia).getBytes(StandardCharsets.US_ASCII));
+            while (conteudo.hasRemaining()) {
+                arquivo.write(conteudo);
+            }
+            arquivo.force(true);
+        }
+        Files.move(temporario, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarDiretorio();
+        confirmada = sequencia;
+
+        sincronizacao.lock();
+        try {
+            escrita.lock();
+            try {
+                if (canal.size() >= tamanhoMaximoSegmento) {
+                    canal.force(false);
+                    duraveis = escritos;
+                    canal.close();
+                    novoSegmento();
+                }
+            } finally {
+                escrita.unlock();
+            }
+        } finally {
+            sincronizacao.unlock();
+        }
+        apagarSegmentosConfirmados();
+    }
+
+    long ultimaSequencia() {
+        escrita.lock();
+        try {
+            return ultimaSequencia;
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    long confirmada() {
+        return confirmada;
+    }
+
+    @Override
+    public void close() throws IOException {
+        sincronizacao.lock();
+        try {
+            escrita.lock();
+            try {
+                if (canal != null && canal.isOpen()) {
+                    canal.force(false);
+                    canal.close();
+                }
+            } finally {
+                escrita.unlock();
+            }
+        } finally {
+            sincronizacao.unlock();
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Internos
+     * ---------------------------------------------------------------- */
+
+    /* Commit em grupo: um fsync cobre tudo o que foi escrito até o momento em que começou */
+    private void sincronizar(long posicao) throws IOException {
+        if (duraveis >= posicao) {
+            return;
+        }
+        sincronizacao.lock();
+        try {
+            if (duraveis >= posicao) {
+                return;
+            }
+            long alvo;
+            FileChannel atual;
+            escrita.lock();
+            try {
+                alvo = escritos;
+                atual = canal;
+            } finally {
+                escrita.unlock();
+            }
+            atual.force(false);
+            duraveis = alvo;
+        } finally {
+            sincronizacao.unlock();
+        }
+    }
+
+    /* @return A sequência do checkpoint; 0 (reenviar tudo) se não existe ou está ilegível */
+    private long lerCheckpoint() throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        String conteudo = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim();
+        try {
+            return Long.parseLong(conteudo);
+        } catch (NumberFormatException e) {
+            log.warn("Checkpoint ilegível em {} (\"{}\"); reenviando todo o log", checkpoint, conteudo);
+            return 0;
+        }
+    }
+
+    private void novoSegmento() throws IOException {
+        segmentoAtual = diretorio.resolve(PREFIXO + "%020d".formatted(ultimaSequencia + 1) + SUFIXO);
+        canal = FileChannel.open(segmentoAtual, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        sincronizarDiretorio(); // a entrada do arquivo novo, sem a qual o fsync dos registros não basta
+    }
+
+    /* fsync do diretório, para que criações e renames sobrevivam a uma queda; nem todo sistema permite */
+    private void sincronizarDiretorio() {
+        try (FileChannel canalDiretorio = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canalDiretorio.force(true);
+        } catch (IOException e) {
+            log.debug("fsync do diretório {} não suportado: {}", diretorio, e.getMessage());
+        }
+    }
+
+    private void apagarSegmentosConfirmados() throws IOException {
+        List<Path> segmentos = segmentos();
+        // Um segmento está todo confirmado se o seguinte começa até confirmada + 1
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            if (segmentos.get(i).equals(segmentoAtual)) {
+                break;
+            }
+            if (primeiraSequencia(segmentos.get(i + 1)) <= confirmada + 1) {
+                Files.deleteIfExists(segmentos.get(i));
+            }
+        }
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO);
+                    })
+                    .sorted() // nomes com a sequência em 20 dígitos: ordem lexicográfica = numérica
+                    .toList();
+        }
+    }
+
+    private static long primeiraSequencia(Path segmento) {
+        String nome = segmento.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    private static void ler(Path segmento, boolean ultimo, Consumer<RegistroCheckin> consumidor) throws IOException {
+        try (FileChannel leitura = FileChannel.open(segmento, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_REGISTRO);
+            long posicao = 0;
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining() && leitura.read(buffer, posicao + buffer.position()) > 0) {
+                    // lê o registro inteiro
+                }
+                if (buffer.position() == 0) {
+                    return;
+                }
+                buffer.flip();
+                RegistroCheckin registro = (buffer.remaining() == TAMANHO_REGISTRO) ? decodificar(buffer) : null;
+                if (registro == null) {
+                    log.warn("Registro inválido em {} na posição {}; {}", segmento, posicao,
+                            ultimo ? "descartando o restante do arquivo" : "ignorando o restante do segmento");
+                    if (ultimo) {
+                        leitura.truncate(posicao);
+                    }
+                    return;
+                }
+                consumidor.accept(registro);
+                posicao += TAMANHO_REGISTRO;
+            }
+        }
+    }
+
+    private static void codificar(RegistroCheckin registro, ByteBuffer buffer) {
+        buffer.putLong(registro.sequencia())
+                .putLong(registro.alunoId())
+                .putLong(registro.dataHora().toEpochSecond(ZoneOffset.UTC))
+                .putInt(registro.dataHora().getNano())
+                .put((byte) (registro.presente() ? 1 : 0));
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+    }
+
+    /* @return O registro, ou null se o CRC não confere */
+    private static RegistroCheckin decodificar(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, TAMANHO_REGISTRO - 4);
+        if ((int) crc.getValue() != buffer.getInt(TAMANHO_REGISTRO - 4)) {
+            return null;
+        }
+        long sequencia = buffer.getLong();
+        long alunoId = buffer.getLong();
+        LocalDateTime dataHora = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        boolean presente = buffer.get() == 1;
+        return new RegistroCheckin(sequencia, alunoId, dataHora, presente);
+    }
+}
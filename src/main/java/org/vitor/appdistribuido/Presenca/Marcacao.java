@@ -0,0 +1,13 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma presença (ou falta) a gravar: a unidade do caminho de escrita em lote do PresencaService.
+ *
+ * @param alunoId O ID do aluno.
+ * @param dataHora A data e hora do registro; o dia define a chave (aluno, dia).
+ * @param presente true para presença, false para falta.
+ */
+public record Marcacao(Long alunoId, LocalDateTime dataHora, boolean presente) {
+}
@@ -0,0 +1,30 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Matriz de presença alunos × dias letivos de um período, em codificação densa:
+ * cada linha traz uma string com um caractere por coluna de {@link #dias()}.
+ * <ul>
+ *     <li>{@code '1'} – presente</li>
+ *     <li>{@code '0'} – falta registrada</li>
+ *     <li>{@code '-'} – sem registro nesse dia</li>
+ * </ul>
+ *
+ * @param dias Os dias letivos do período (dias com ao menos um registro), em ordem.
+ * @param alunos Uma linha por aluno, em ordem de ID.
+ */
+public record MatrizPresencas(List<LocalDate> dias, List<Linha> alunos) {
+
+    public static final char PRESENTE = '1';
+    public static final char FALTA = '0';
+    public static final char SEM_REGISTRO = '-';
+
+    /**
+     * @param alunoId O ID do aluno.
+     * @param presencas Um caractere por dia letivo (ver {@link MatrizPresencas}).
+     */
+    public record Linha(Long alunoId, String presencas) {
+    }
+}
@@ -0,0 +1,134 @@
+package org.vitor.appdistribuido.Presenca;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.vitor.appdistribuido.Common.Dialeto;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mantém as partições mensais de presencas no PostgreSQL (no H2 a tabela não é particionada
+ * e o job não faz nada):
+ * <ul>
+ *     <li>cria as partições do mês atual e dos app.particoes.meses-a-frente seguintes, para que
+ *     as escritas não caiam na partição padrão, e as dos meses que já têm linhas nela;</li>
+ *     <li>com app.particoes.retencao-meses &gt; 0, arquiva (desanexa e move para o schema
+ *     "arquivo") as partições mais antigas que isso.</li>
+ * </ul>
+ * O trabalho em si está nas funções presencas_criar_particao e presencas_arquivar_particao
+ * (migração V2). Roda ao subir e diariamente (app.particoes.cron).
+ *
+ * <p>Depois de um arquivamento o índice em memória é remontado, e as linhas arquivadas saem
+ * dele; do resumo mensal elas saem na próxima reconstrução. Por isso a retenção vem desligada.</p>
+ */
+@Slf4j
+@Component
+public class ParticoesPresencas {
+
+    private static final DateTimeFormatter SUFIXO = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IndicePresencas indicePresencas;
+    private final boolean particionado;
+    private final int mesesAFrente;
+    private final int retencaoMeses;
+
+    public ParticoesPresencas(JdbcTemplate jdbcTemplate,
+                              DataSource dataSource,
+                              IndicePresencas indicePresencas,
+                              @Value("${app.particoes.meses-a-frente:3}") int mesesAFrente,
+                              @Value("${app.particoes.retencao-meses:0}") int retencaoMeses) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.indicePresencas = indicePresencas;
+        this.particionado = Dialeto.de(dataSource) == Dialeto.POSTGRESQL;
+        this.mesesAFrente = mesesAFrente;
+        this.retencaoMeses = retencaoMeses;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        manter();
+    }
+
+    @Scheduled(cron = "${app.particoes.cron:0 30 2 * * *}")
+    public void manterPeriodicamente() {
+        manter();
+    }
+
+    /**
+     * Cria as partições que faltam e arquiva as vencidas, remontando o índice de presenças se
+     * algum mês foi arquivado.
+     * @return O resultado, ou vazio se o banco não tem partições.
+     */
+    public Manutencao manter() {
+        if (!particionado) {
+            return new Manutencao(List.of(), List.of());
+        }
+        YearMonth atual = YearMonth.now();
+        // Meses à frente e meses passados que caíram na partição padrão (importações, lançamentos retroativos)
+        Set<YearMonth> meses = new TreeSet<>();
+        for (int i = 0; i <= mesesAFrente; i++) {
+            meses.add(atual.plusMonths(i));
+        }
+        jdbcTemplate.queryForList("SELECT DISTINCT CAST(date_trunc('month', dia) AS DATE) FROM presencas_padrao",
+                LocalDate.class).forEach(dia -> meses.add(YearMonth.from(dia)));
+
+        List<YearMonth> criadas = new ArrayList<>();
+        for (YearMonth mes : meses) {
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT presencas_criar_particao(?)", Boolean.class, mes.atDay(1)))) {
+                criadas.add(mes);
+            }
+        }
+
+        List<YearMonth> arquivadas = new ArrayList<>();
+        if (retencaoMeses > 0) {
+            YearMonth corte = atual.minusMonths(retencaoMeses);
+            for (YearMonth mes : mesesParticionados()) {
+                if (mes.isBefore(corte) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                        "SELECT presencas_arquivar_particao(?)", Boolean.class, mes.atDay(1)))) {
+                    arquivadas.add(mes);
+                }
+            }
+        }
+
+        if (!criadas.isEmpty() || !arquivadas.isEmpty()) {
+            log.info("Partições de presencas: criadas {}, arquivadas {}", criadas, arquivadas);
+        }
+        if (!arquivadas.isEmpty()) {
+            indicePresencas.reconstruir();
+        }
+        return new Manutencao(criadas, arquivadas);
+    }
+
+    /* Meses com partição própria anexada a presencas (a padrão fica de fora) */
+    private List<YearMonth> mesesParticionados() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                        FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'presencas'::regclass AND c.relname ~ '^presencas_[0-9]{4}_[0-9]{2}$'
+                        ORDER BY c.relname
+                        """, String.class).stream()
+                .map(nome -> YearMonth.parse(nome.substring("presencas_".length()), SUFIXO))
+                .toList();
+    }
+
+    /**
+     * @param criadas Os meses cujas partições foram criadas.
+     * @param arquivadas Os meses cujas partições foram arquivadas.
+     */
+    public record Manutencao(List<YearMonth> criadas, List<YearMonth> arquivadas) {
+    }
+}
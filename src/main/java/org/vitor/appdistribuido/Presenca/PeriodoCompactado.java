@@ -0,0 +1,101 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * As presenças de um aluno em um período encerrado, como guardadas em presencas_compactadas:
+ * dois bitsets sobre os dias corridos do período, com o bit i para o dia inicio + i.
+ * Os registros compactados guardam só o dia: não têm ID nem hora.
+ *
+ * @param alunoId O ID do aluno.
+ * @param inicio O primeiro dia do período.
+ * @param registrados Os dias com registro (presença ou falta).
+ * @param presentes Os dias de presença; sempre contido em registrados.
+ */
+record PeriodoCompactado(Long alunoId, LocalDate inicio, BitSet registrados, BitSet presentes) {
+
+    static PeriodoCompactado vazio(Long alunoId, LocalDate inicio) {
+        return new PeriodoCompactado(alunoId, inicio, new BitSet(), new BitSet());
+    }
+
+    static PeriodoCompactado de(Long alunoId, LocalDate inicio, byte[] registrados, byte[] presentes) {
+        return new PeriodoCompactado(alunoId, inicio, BitSet.valueOf(registrados), BitSet.valueOf(presentes));
+    }
+
+    /**
+     * @param dia O dia.
+     * @return true para presença, false para falta, null se não há registro no dia.
+     */
+    Boolean estado(LocalDate dia) {
+        int bit = bit(dia);
+        if (bit < 0 || !registrados.get(bit)) {
+            return null;
+        }
+        return presentes.get(bit);
+    }
+
+    void marcar(LocalDate dia, boolean presente) {
+        int bit = bit(dia);
+        if (bit < 0) {
+            throw new IllegalArgumentException("Dia " + dia + " anterior ao período " + inicio);
+        }
+        registrados.set(bit);
+        presentes.set(bit, presente);
+    }
+
+    /**
+     * Tira o dia do período (o registro volta para presencas).
+     * @param dia O dia.
+     * @return O estado anterior, como em {@link #estado(LocalDate)}.
+     */
+    Boolean retirar(LocalDate dia) {
+        Boolean anterior = estado(dia);
+        if (anterior != null) {
+            int bit = bit(dia);
+            registrados.clear(bit);
+            presentes.clear(bit);
+        }
+        return anterior;
+    }
+
+    boolean isVazio() {
+        return registrados.isEmpty();
+    }
+
+    /**
+     * Percorre os registros do período dentro de [de, ate], em ordem de dia.
+     * @param de O primeiro dia (inclusive); null para o início do período.
+     * @param ate O último dia (inclusive); null para o fim do período.
+     * @param acao Recebe o dia e true/false para presença/falta.
+     */
+    void paraCada(LocalDate de, LocalDate ate, BiConsumer<LocalDate, Boolean> acao) {
+        int primeiro = (de == null) ? 0 : Math.max(0, bit(de));
+        for (int i = registrados.nextSetBit(primeiro); i >= 0; i = registrados.nextSetBit(i + 1)) {
+            LocalDate dia = inicio.plusDays(i);
+            if (ate != null && dia.isAfter(ate)) {
+                return;
+            }
+            acao.accept(dia, presentes.get(i));
+        }
+    }
+
+    /**
+     * Os registros do período dentro de [de, ate] como PresencaDTO: sem ID e com a hora 00:00.
+     */
+    List<PresencaDTO> registros(LocalDate de, LocalDate ate) {
+        List<PresencaDTO> registros = new ArrayList<>();
+        paraCada(de, ate, (dia, presente) -> registros.add(new PresencaDTO(null, alunoId, dia.atStartOfDay(), presente)));
+        return registros;
+    }
+
+    /* Dias antes do início dão negativo; o fim do período não precisa ser conhecido */
+    private int bit(LocalDate dia) {
+        long dias = ChronoUnit.DAYS.between(inicio, dia);
+        return dias < 0 ? -1 : Math.toIntExact(dias);
+    }
+}
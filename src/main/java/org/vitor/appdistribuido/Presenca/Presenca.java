@@ -5,29 +5,51 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.vitor.appdistribuido.Alunos.Alunos; // Importa a entidade Alunos
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "presencas")
+// Esquema nas migrações (db/migration): no PostgreSQL a tabela é particionada por mês em "dia"
+@Table(name = "presencas",
+        uniqueConstraints = @UniqueConstraint(name = "uk_presencas_aluno_dia", columnNames = {"aluno_id", "dia"}),
+        indexes = {@Index(name = "idx_presencas_aluno_data_hora", columnList = "aluno_id, data_hora"),
+                   @Index(name = "idx_presencas_dia", columnList = "dia")})
 @Data
 @NoArgsConstructor
 public class Presenca {
 
+    // SEQUENCE (e não IDENTITY) para permitir inserts em lote via JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "presencas_seq")
+    @SequenceGenerator(name = "presencas_seq",
+            sequenceName = "presencas_sequence",
+            allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "aluno_id", nullable = false)
     private Alunos aluno;
 
     private LocalDateTime dataHora;
     private Boolean presente;
 
+    // Dia da aula: chave natural (aluno, dia) – no máximo um registro por aluno por dia
+    @Column(nullable = false)
+    private LocalDate dia;
+
     // >>> novo construtor
     public Presenca(Alunos aluno, LocalDateTime dataHora, Boolean presente) {
         this.aluno    = aluno;
         this.dataHora = dataHora;
         this.presente = presente;
+        this.dia      = dataHora.toLocalDate();
+    }
+
+    @PrePersist
+    @PreUpdate
+    void sincronizarDia() {
+        if (dataHora != null) {
+            this.dia = dataHora.toLocalDate();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,18 +1,40 @@
 package org.vitor.appdistribuido.Presenca;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+import org.vitor.appdistribuido.Common.Csv;
+import org.vitor.appdistribuido.Common.Ndjson;
+import org.vitor.appdistribuido.Common.Pagina;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @RestController
@@ -20,19 +42,44 @@ import java.util.NoSuchElementException;
 public class PresencaController {
 
     private final PresencaService presencaService;
+    private final AlunosService alunosService;       // lista (em cache) dos alunos de uma turma
+    private final IndicePresencas indicePresencas;
+    private final TransmissaoPresencas transmissaoPresencas;
+    private final ImportacaoPresencas importacaoPresencas;
+    private final CompactacaoPresencas compactacaoPresencas;
+    private final ObjectMapper objectMapper;
+    private final CheckinAssincrono checkinAssincrono; // null fora do modo app.checkin.assincrono
+    private final SessoesCheckin sessoesCheckin;       // idem
 
     @Autowired
-    public PresencaController(PresencaService presencaService) {
+    public PresencaController(PresencaService presencaService, AlunosService alunosService,
+                              IndicePresencas indicePresencas,
+                              TransmissaoPresencas transmissaoPresencas, ImportacaoPresencas importacaoPresencas,
+                              CompactacaoPresencas compactacaoPresencas, ObjectMapper objectMapper,
+                              ObjectProvider<CheckinAssincrono> checkinAssincrono,
+                              ObjectProvider<SessoesCheckin> sessoesCheckin) {
         this.presencaService = presencaService;
+        this.alunosService = alunosService;
+        this.indicePresencas = indicePresencas;
+        this.transmissaoPresencas = transmissaoPresencas;
+        this.importacaoPresencas = importacaoPresencas;
+        this.compactacaoPresencas = compactacaoPresencas;
+        this.objectMapper = objectMapper;
+        this.checkinAssincrono = checkinAssincrono.getIfAvailable();
+        this.sessoesCheckin = sessoesCheckin.getIfAvailable();
     }
 
     /* ----------------------------------------------------------------
      * POST /marcar/{alunoId} – marca presença agora
+     * (202 + RegistroCheckin no modo assíncrono)
      * -------------------------------------------------------------- */
     @PostMapping("/marcar/{alunoId}")
-    public ResponseEntity<Presenca> marcarPresenca(@PathVariable Long alunoId) {
+    public ResponseEntity<?> marcarPresenca(@PathVariable Long alunoId) {
+        if (checkinAssincrono != null) {
+            return aceitarCheckin(alunoId, LocalDateTime.now(), true);
+        }
         try {
-            Presenca novaPresenca = presencaService.marcarPresenca(alunoId);
+            PresencaDTO novaPresenca = presencaService.marcarPresenca(alunoId);
             return new ResponseEntity<>(novaPresenca, HttpStatus.CREATED);
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -40,14 +87,21 @@ public class PresencaController {
     }
 
     /* ----------------------------------------------------------------
-     * POST /marcar-data – marca presença em data/hora específica
+     * POST /marcar-data – marca presença (ou falta) em data/hora específica
      * -------------------------------------------------------------- */
     @PostMapping("/marcar-data")
-    public ResponseEntity<Presenca> marcarPresencaComData(@RequestBody MarcarPresencaRequest request) {
+    public ResponseEntity<?> marcarPresencaComData(@RequestBody MarcarPresencaRequest request) {
+        if (checkinAssincrono != null) {
+            if (request.getAlunoId() == null || request.getDataHora() == null) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return aceitarCheckin(request.getAlunoId(), request.getDataHora(), !Boolean.FALSE.equals(request.getPresente()));
+        }
         try {
-            Presenca novaPresenca = presencaService.marcarPresenca(
+            PresencaDTO novaPresenca = presencaService.marcarPresenca(
                     request.getAlunoId(),
-                    request.getDataHora());
+                    request.getDataHora(),
+                    !Boolean.FALSE.equals(request.getPresente()));
             return new ResponseEntity<>(novaPresenca, HttpStatus.CREATED);
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -56,13 +110,111 @@ public class PresencaController {
         }
     }
 
+    /* ----------------------------------------------------------------
+     * GET /checkin/estado – buffer e log da ingestão assíncrona
+     * -------------------------------------------------------------- */
+    @GetMapping("/checkin/estado")
+    public ResponseEntity<CheckinAssincrono.Estado> estadoCheckin() {
+        if (checkinAssincrono == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(checkinAssincrono.estado(), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /checkin/sessoes – abre uma sessão de check-in por QR code
+     * para a turma (corpo: turmaId e, opcional, duracaoMinutos)
+     * -------------------------------------------------------------- */
+    @PostMapping("/checkin/sessoes")
+    public ResponseEntity<SessoesCheckin.SessaoCheckin> abrirSessaoCheckin(@RequestBody AbrirSessaoRequest request) {
+        if (sessoesCheckin == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (request.getTurmaId() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            Duration duracao = (request.getDuracaoMinutos() != null) ? Duration.ofMinutes(request.getDuracaoMinutos()) : null;
+            return new ResponseEntity<>(sessoesCheckin.abrir(request.getTurmaId(), duracao), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /checkin/sessoes/{id}/token – token atual, para a tela mostrar
+     * como QR code (pedir de novo em validoAte)
+     * -------------------------------------------------------------- */
+    @GetMapping("/checkin/sessoes/{sessaoId}/token")
+    public ResponseEntity<SessoesCheckin.TokenCheckin> tokenSessaoCheckin(@PathVariable long sessaoId) {
+        if (sessoesCheckin == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return sessoesCheckin.token(sessaoId)
+                .map(token -> ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(token))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    /* ----------------------------------------------------------------
+     * DELETE /checkin/sessoes/{id} – encerra a sessão antes do prazo
+     * -------------------------------------------------------------- */
+    @DeleteMapping("/checkin/sessoes/{sessaoId}")
+    public ResponseEntity<Void> encerrarSessaoCheckin(@PathVariable long sessaoId) {
+        if (sessoesCheckin == null || !sessoesCheckin.encerrar(sessaoId)) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /checkin/qr – leitura do QR code pelo aluno (corpo: token e alunoId).
+     * 202 + RegistroCheckin na primeira leitura, 200 nas repetidas,
+     * 403 token inválido ou aluno fora da turma, 410 token antigo ou sessão encerrada
+     * -------------------------------------------------------------- */
+    @PostMapping("/checkin/qr")
+    public ResponseEntity<?> lerQrCheckin(@RequestBody LeituraQrRequest request) {
+        if (sessoesCheckin == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        if (request.getToken() == null || request.getAlunoId() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            SessoesCheckin.Leitura leitura = sessoesCheckin.registrar(request.getToken(), request.getAlunoId());
+            return switch (leitura.resultado()) {
+                case ACEITO -> new ResponseEntity<>(leitura.registro(), HttpStatus.ACCEPTED);
+                case REPETIDO -> new ResponseEntity<>(HttpStatus.OK);
+                case TOKEN_INVALIDO, FORA_DA_TURMA -> new ResponseEntity<>(HttpStatus.FORBIDDEN);
+                case TOKEN_EXPIRADO, SESSAO_ENCERRADA -> new ResponseEntity<>(HttpStatus.GONE);
+            };
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /chamada – registra a chamada da turma inteira em lote
+     * -------------------------------------------------------------- */
+    @PostMapping("/chamada")
+    public ResponseEntity<List<ResultadoChamada>> registrarChamada(@RequestBody ChamadaRequest request) {
+        try {
+            List<ResultadoChamada> resultados = presencaService.registrarChamada(
+                    request.getDataHora(),
+                    request.getPresentes(),
+                    request.getAusentes());
+            return new ResponseEntity<>(resultados, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     /* ----------------------------------------------------------------
      * GET /aluno/{id} – todas as presenças do aluno
      * -------------------------------------------------------------- */
     @GetMapping("/aluno/{alunoId}")
-    public ResponseEntity<List<Presenca>> buscarPresencasPorAluno(@PathVariable Long alunoId) {
+    public ResponseEntity<List<PresencaDTO>> buscarPresencasPorAluno(@PathVariable Long alunoId) {
         try {
-            List<Presenca> presencas = presencaService.buscarPresencasPorAluno(alunoId);
+            List<PresencaDTO> presencas = presencaService.buscarPresencasPorAluno(alunoId);
             return new ResponseEntity<>(presencas, HttpStatus.OK);
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -73,18 +225,96 @@ public class PresencaController {
      * GET /aluno/{id}/periodo?startDate=AAAA-MM-DD&endDate=AAAA-MM-DD
      * -------------------------------------------------------------- */
     @GetMapping("/aluno/{alunoId}/periodo")
-    public ResponseEntity<List<Presenca>> buscarPresencasPorAlunoEPeriodo(
+    public ResponseEntity<List<PresencaDTO>> buscarPresencasPorAlunoEPeriodo(
             @PathVariable Long alunoId,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam("endDate")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
         try {
-            List<Presenca> presencas = presencaService.buscarPresencasPorAlunoEPeriodo(alunoId, startDate, endDate);
+            List<PresencaDTO> presencas = presencaService.buscarPresencasPorAlunoEPeriodo(alunoId, startDate, endDate);
             return new ResponseEntity<>(presencas, HttpStatus.OK);
         } catch (NoSuchElementException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
+    /* ----------------------------------------------------------------
+     * GET /matriz?startDate=AAAA-MM-DD&endDate=AAAA-MM-DD&(alunoIds=1,2,3 | turmaId=X)
+     * – presença de vários alunos × dias letivos numa única requisição
+     * -------------------------------------------------------------- */
+    @GetMapping("/matriz")
+    public ResponseEntity<MatrizPresencas> buscarMatriz(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "alunoIds", required = false) List<Long> alunoIds,
+            @RequestParam(value = "turmaId", required = false) Long turmaId) {
+        try {
+            if (turmaId != null) {
+                alunoIds = idsDaTurma(turmaId);
+                if (alunoIds.isEmpty()) { // lista vazia significaria "todos"
+                    return new ResponseEntity<>(new MatrizPresencas(List.of(), List.of()), HttpStatus.OK);
+                }
+            }
+            MatrizPresencas matriz = presencaService.buscarMatriz(startDate, endDate, alunoIds);
+            return new ResponseEntity<>(matriz, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /matriz?startDate=AAAA-MM-DD&endDate=AAAA-MM-DD – todos os alunos com registros:
+     * período limitado (app.matriz.max-dias-sem-filtro) e JSON enviado à medida
+     * que os lotes de alunos são lidos (streaming)
+     * -------------------------------------------------------------- */
+    @GetMapping(value = "/matriz", params = {"!alunoIds", "!turmaId"})
+    public ResponseEntity<StreamingResponseBody> buscarMatrizDeTodos(
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            presencaService.validarPeriodoDaMatriz(startDate, endDate, null); // antes de a resposta começar
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(corpoDaMatriz(startDate, endDate));
+    }
+
+    /* O mesmo JSON de MatrizPresencas ({"dias": [...], "alunos": [...]}), escrito linha a linha */
+    private StreamingResponseBody corpoDaMatriz(LocalDate startDate, LocalDate endDate) {
+        return out -> {
+            JsonGenerator gerador = objectMapper.getFactory().createGenerator(out);
+            presencaService.percorrerMatriz(startDate, endDate, dias -> {
+                try {
+                    gerador.writeStartObject();
+                    gerador.writeObjectField("dias", dias);
+                    gerador.writeArrayFieldStart("alunos");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, linha -> {
+                try {
+                    gerador.writeObject(linha);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gerador.writeEndArray();
+            gerador.writeEndObject();
+            gerador.flush();
+        };
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /turma/{turmaId}/dia/{date} – registros da turma no dia
+     * (uma consulta, proporcional ao tamanho da turma)
+     * -------------------------------------------------------------- */
+    @GetMapping("/turma/{turmaId}/dia/{date}")
+    public ResponseEntity<List<PresencaDTO>> buscarPresencasDaTurmaNoDia(
+            @PathVariable Long turmaId,
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        List<PresencaDTO> presencas = presencaService.buscarPresencasNoDia(date, idsDaTurma(turmaId));
+        return new ResponseEntity<>(presencas, HttpStatus.OK);
+    }
+
     /* ----------------------------------------------------------------
      * GET /verificar/{id}/{date} – presente nesse dia?
      * -------------------------------------------------------------- */
@@ -104,11 +334,135 @@ public class PresencaController {
      * GET /api/presencas – todas as presenças
      * -------------------------------------------------------------- */
     @GetMapping
-    public ResponseEntity<List<Presenca>> buscarTodasPresencas() {
-        List<Presenca> presencas = presencaService.buscarTodasPresencas();
+    public ResponseEntity<List<PresencaDTO>> buscarTodasPresencas() {
+        List<PresencaDTO> presencas = presencaService.buscarTodasPresencas();
         return new ResponseEntity<>(presencas, HttpStatus.OK);
     }
 
+    /* ----------------------------------------------------------------
+     * GET /pagina?depoisDe=<último id>&limite=100 – paginação por cursor
+     * -------------------------------------------------------------- */
+    @GetMapping("/pagina")
+    public ResponseEntity<Pagina<PresencaDTO>> buscarPresencasPaginadas(
+            @RequestParam(required = false) Long depoisDe,
+            @RequestParam(required = false) Integer limite) {
+        Pagina<PresencaDTO> pagina = presencaService.buscarPresencasPaginadas(depoisDe, limite);
+        return new ResponseEntity<>(pagina, HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /stream – exporta todas as presenças em NDJSON (streaming)
+     * -------------------------------------------------------------- */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPresencas() {
+        StreamingResponseBody corpo = Ndjson.corpo(objectMapper, presencaService::exportarPresencas);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(corpo);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /csv – exporta todas as presenças em CSV (streaming)
+     * -------------------------------------------------------------- */
+    @GetMapping(value = "/csv", produces = Csv.TEXT_CSV_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportarPresencasCsv() {
+        StreamingResponseBody corpo = Csv.corpo(List.of("id", "alunoId", "dataHora", "presente"),
+                (PresencaDTO p) -> Arrays.asList(p.id(), p.alunoId(), p.dataHora(), p.presente()),
+                presencaService::exportarPresencas);
+        return ResponseEntity.ok().contentType(Csv.TEXT_CSV).body(corpo);
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /csv – importa presenças (cabeçalho alunoId,dataHora[,presente])
+     * -------------------------------------------------------------- */
+    @PostMapping(value = "/csv", consumes = Csv.TEXT_CSV_VALUE)
+    public ResponseEntity<ResultadoImportacao> importarPresencasCsv(InputStream csv) {
+        try {
+            return new ResponseEntity<>(importacaoPresencas.importar(csv), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /ao-vivo?dia=AAAA-MM-DD[&alunoIds=1,2,3 | &turmaId=X] – presenças
+     * do dia à medida que são gravadas (Server-Sent Events)
+     * -------------------------------------------------------------- */
+    @GetMapping(value = "/ao-vivo", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> transmitirPresencas(
+            @RequestParam(value = "dia", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dia,
+            @RequestParam(value = "alunoIds", required = false) List<Long> alunoIds,
+            @RequestParam(value = "turmaId", required = false) Long turmaId) {
+        if (turmaId != null) {
+            alunoIds = idsDaTurma(turmaId); // matrículas na hora da inscrição
+        }
+        try {
+            SseEmitter emitter = transmissaoPresencas.assinar(dia != null ? dia : LocalDate.now(),
+                    alunoIds != null ? new HashSet<>(alunoIds) : null);
+            return new ResponseEntity<>(emitter, HttpStatus.OK);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /indice/dia/{date} – alunos presentes no dia (índice em memória)
+     * -------------------------------------------------------------- */
+    @GetMapping("/indice/dia/{date}")
+    public ResponseEntity<long[]> buscarPresentesNoDia(
+            @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (!indicePresencas.isPronto()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de presenças ainda em carga");
+        }
+        return new ResponseEntity<>(indicePresencas.presentesNoDia(date), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /indice/aluno/{id}/dias?startDate=AAAA-MM-DD&endDate=AAAA-MM-DD
+     * – em quantos dias do período o aluno esteve presente
+     * -------------------------------------------------------------- */
+    @GetMapping("/indice/aluno/{alunoId}/dias")
+    public ResponseEntity<Integer> contarDiasPresente(
+            @PathVariable Long alunoId,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate")   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        if (!indicePresencas.isPronto()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de presenças ainda em carga");
+        }
+        return new ResponseEntity<>(indicePresencas.diasPresente(alunoId, startDate, endDate), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /indice – contagens e memória ocupada pelo índice
+     * -------------------------------------------------------------- */
+    @GetMapping("/indice")
+    public ResponseEntity<IndicePresencas.Estado> estadoIndice() {
+        return new ResponseEntity<>(indicePresencas.estado(), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /indice/reconstruir – remonta o índice a partir do banco
+     * -------------------------------------------------------------- */
+    @PostMapping("/indice/reconstruir")
+    public ResponseEntity<IndicePresencas.Estado> reconstruirIndice() {
+        return new ResponseEntity<>(indicePresencas.reconstruir(), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * GET /indice/verificacao – dias em que índice e banco divergem
+     * -------------------------------------------------------------- */
+    @GetMapping("/indice/verificacao")
+    public ResponseEntity<List<IndicePresencas.Divergencia>> verificarIndice() {
+        return new ResponseEntity<>(indicePresencas.verificar(), HttpStatus.OK);
+    }
+
+    /* ----------------------------------------------------------------
+     * POST /compactacao – compacta agora os períodos encerrados
+     * (o job diário faz o mesmo; ver CompactacaoPresencas)
+     * -------------------------------------------------------------- */
+    @PostMapping("/compactacao")
+    public ResponseEntity<CompactacaoPresencas.Resultado> compactar() {
+        return new ResponseEntity<>(compactacaoPresencas.compactar(), HttpStatus.OK);
+    }
+
     /* ----------------------------------------------------------------
      * DELETE /{presencaId} – remove uma presença
      * -------------------------------------------------------------- */
@@ -122,6 +476,23 @@ public class PresencaController {
         }
     }
 
+    /* Buffer cheio responde 503 com Retry-After para o cliente tentar de novo logo */
+    private ResponseEntity<?> aceitarCheckin(Long alunoId, LocalDateTime dataHora, boolean presente) {
+        try {
+            RegistroCheckin registro = checkinAssincrono.registrar(alunoId, dataHora, presente);
+            return new ResponseEntity<>(registro, HttpStatus.ACCEPTED);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+    }
+
+    /* IDs dos alunos da turma, da lista em cache; 404 (ResponseStatusException) se a turma não existir */
+    private List<Long> idsDaTurma(Long turmaId) {
+        return alunosService.getAlunosDaTurma(turmaId).stream().map(Alunos::getId).toList();
+    }
+
     /* ================================================================
      * DTO para o POST /marcar-data
      * ================================================================ */
@@ -133,5 +504,40 @@ public class PresencaController {
 
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
         private LocalDateTime dataHora;   // ISO-8601, ex.: 2025-06-01T14:30:00
+
+        private Boolean presente;         // opcional; false registra falta (padrão: true)
+    }
+
+    /* ================================================================
+     * DTOs das sessões de check-in por QR code
+     * ================================================================ */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class AbrirSessaoRequest {
+        private Long turmaId;
+        private Long duracaoMinutos;      // opcional; padrão app.checkin.sessoes.duracao-padrao-min
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class LeituraQrRequest {
+        private String token;             // conteúdo do QR code
+        private Long alunoId;
+    }
+
+    /* ================================================================
+     * DTO para o POST /chamada
+     * ================================================================ */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ChamadaRequest {
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private LocalDateTime dataHora;   // opcional; se ausente usa o momento atual
+
+        private List<Long> presentes;
+        private List<Long> ausentes;
     }
 }
@@ -0,0 +1,15 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDateTime;
+
+/**
+ * Visão plana de um registro de presença, montada direto na consulta (projeção ou linhas
+ * nativas), sem carregar nem serializar a entidade Alunos.
+ *
+ * @param id O ID do registro de presença, ou null para um dia de período compactado.
+ * @param alunoId O ID do aluno.
+ * @param dataHora A data e hora do registro.
+ * @param presente true para presença, false para falta.
+ */
+public record PresencaDTO(Long id, Long alunoId, LocalDateTime dataHora, Boolean presente) {
+}
@@ -0,0 +1,13 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDate;
+
+/**
+ * Par (aluno, dia): lido por projeção para montar o índice de presenças e usado como
+ * chave natural de um registro no caminho de escrita.
+ *
+ * @param alunoId O ID do aluno.
+ * @param dia O dia da aula.
+ */
+public record PresencaDia(Long alunoId, LocalDate dia) {
+}
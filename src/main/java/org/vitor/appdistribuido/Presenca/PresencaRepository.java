@@ -1,41 +1,228 @@
 package org.vitor.appdistribuido.Presenca;
 
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.vitor.appdistribuido.Alunos.Alunos;
 
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repositório para a entidade Presenca.
  * Fornece métodos para operações CRUD e consultas personalizadas.
  */
 @Repository
-public interface PresencaRepository extends JpaRepository<Presenca, Long> {
+public interface PresencaRepository extends JpaRepository<Presenca, Long>, PresencaRepositoryCustom {
+
+    /**
+     * Upsert pela chave natural (aluno, dia): insere o registro ou, se já existir
+     * um registro do aluno naquele dia, atualiza a data/hora e o status.
+     * Reenvios da mesma chamada não criam linhas novas. O ID vem do mesmo gerador da entidade
+     * ({@link PresencaRepositoryCustom#proximoId()}) e só é usado se o registro for novo.
+     */
+    String UPSERT_SQL = """
+            INSERT INTO presencas (id, aluno_id, data_hora, dia, presente)
+            VALUES (:id, :alunoId, :dataHora, :dia, :presente)
+            ON CONFLICT (aluno_id, dia)
+            DO UPDATE SET data_hora = EXCLUDED.data_hora, presente = EXCLUDED.presente
+            """;
+
+    /**
+     * {@link #UPSERT_SQL} como MERGE, para o H2 (que não tem ON CONFLICT ... DO UPDATE).
+     * Sem a garantia atômica do ON CONFLICT, mas o PresencaService já trava o aluno antes de gravar.
+     */
+    String UPSERT_SQL_H2 = """
+            MERGE INTO presencas p
+            USING (VALUES (CAST(:id AS BIGINT), CAST(:alunoId AS BIGINT), CAST(:dataHora AS TIMESTAMP),
+                           CAST(:dia AS DATE), CAST(:presente AS BOOLEAN)))
+                  AS v (id, aluno_id, data_hora, dia, presente)
+            ON p.aluno_id = v.aluno_id AND p.dia = v.dia
+            WHEN MATCHED THEN UPDATE SET data_hora = v.data_hora, presente = v.presente
+            WHEN NOT MATCHED THEN INSERT (id, aluno_id, data_hora, dia, presente)
+                 VALUES (v.id, v.aluno_id, v.data_hora, v.dia, v.presente)
+            """;
+
+    /**
+     * Os registros de um dia para os alunos informados, como DTO.
+     * @param dia O dia da aula.
+     * @param alunoIds Os IDs dos alunos.
+     * @return Uma lista de PresencaDTO (no máximo um por aluno).
+     */
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p where p.dia = :dia and p.aluno.id in :alunoIds")
+    List<PresencaDTO> findDTOsPorDia(@Param("dia") LocalDate dia, @Param("alunoIds") Collection<Long> alunoIds);
+
+    /**
+     * Todos os registros de um dia, como DTO (estado inicial da transmissão ao vivo).
+     * @param dia O dia da aula.
+     * @return Uma lista de PresencaDTO em ordem de aluno.
+     */
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p where p.dia = :dia order by p.aluno.id")
+    List<PresencaDTO> findDTOsDoDia(@Param("dia") LocalDate dia);
+
+    /**
+     * Todas as presenças de um aluno, com os períodos compactados, numa única consulta (UNION
+     * ALL) que também verifica a existência do aluno: aluno inexistente devolve lista vazia;
+     * aluno sem presenças em presencas devolve uma linha com id null. As linhas de presencas
+     * trazem id, data/hora e presente; as de presencas_compactadas, início e bitsets.
+     * @param alunoId O ID do aluno.
+     * @return Linhas [id, alunoId, dataHora, presente, inicio, registrados, presentes], sem ordem.
+     */
+    @Query(value = """
+            SELECT p.id, a.id AS aluno_id, p.data_hora, p.presente,
+                   CAST(NULL AS DATE) AS inicio, CAST(NULL AS BYTEA) AS registrados, CAST(NULL AS BYTEA) AS presentes
+            FROM alunos a LEFT JOIN presencas p ON p.aluno_id = a.id
+            WHERE a.id = :alunoId
+            UNION ALL
+            SELECT NULL, c.aluno_id, NULL, NULL, c.inicio, c.registrados, c.presentes
+            FROM presencas_compactadas c
+            WHERE c.aluno_id = :alunoId
+            """, nativeQuery = true)
+    List<Object[]> findTodasPorAluno(@Param("alunoId") Long alunoId);
+
+    /**
+     * As presenças de um aluno nos dias [inicio, fim], numa única consulta que também verifica a
+     * existência do aluno: aluno inexistente devolve lista vazia; aluno sem presenças no período
+     * devolve uma única linha com id null. O filtro é pela coluna dia, chave de partição de
+     * presencas: só as partições dos meses do período são lidas.
+     * @param alunoId O ID do aluno.
+     * @param inicio O primeiro dia (inclusive).
+     * @param fim O último dia (inclusive).
+     * @return Uma lista de PresencaDTO.
+     */
+    @Query("""
+            select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, a.id, p.dataHora, p.presente)
+            from Alunos a left join Presenca p on p.aluno = a and p.dia between :inicio and :fim
+            where a.id = :alunoId
+            order by p.dataHora
+            """)
+    List<PresencaDTO> findDTOsPorAlunoEPeriodo(@Param("alunoId") Long alunoId,
+                                               @Param("inicio") LocalDate inicio,
+                                               @Param("fim") LocalDate fim);
+
+    /**
+     * Conta os registros de presença (presente = true) do aluno no dia, verificando na
+     * mesma consulta se o aluno existe.
+     * @param alunoId O ID do aluno.
+     * @param dia O dia da aula.
+     * @return Vazio se o aluno não existir; caso contrário 0 ou 1.
+     */
+    @Query("""
+            select count(p.id)
+            from Alunos a left join Presenca p on p.aluno = a and p.dia = :dia and p.presente = true
+            where a.id = :alunoId
+            group by a.id
+            """)
+    Optional<Long> contarPresencasNoDia(@Param("alunoId") Long alunoId, @Param("dia") LocalDate dia);
+
+    /**
+     * O registro de um aluno em um dia (chave natural), como DTO.
+     * @param alunoId O ID do aluno.
+     * @param dia O dia da aula.
+     * @return Um Optional contendo o PresencaDTO, se encontrado.
+     */
+    @Query("""
+            select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente)
+            from Presenca p
+            where p.aluno.id = :alunoId and p.dia = :dia
+            """)
+    Optional<PresencaDTO> findDTOPorAlunoEDia(@Param("alunoId") Long alunoId, @Param("dia") LocalDate dia);
+
+    /**
+     * Um registro pelo ID, como DTO.
+     * @param id O ID do registro de presença.
+     * @return Um Optional contendo o PresencaDTO, se encontrado.
+     */
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p where p.id = :id")
+    Optional<PresencaDTO> findDTOPorId(@Param("id") Long id);
+
+    /**
+     * Exclui um registro sem carregá-lo antes. O dia (chave de partição) restringe o DELETE
+     * à partição do mês, em vez de procurar o ID em todas.
+     * @param id O ID do registro de presença.
+     * @param dia O dia do registro.
+     * @return O número de linhas excluídas.
+     */
+    @Modifying
+    @Query("delete from Presenca p where p.id = :id and p.dia = :dia")
+    int excluirPorId(@Param("id") Long id, @Param("dia") LocalDate dia);
+
+    /**
+     * Todos os registros, como DTO.
+     * @return Uma lista de PresencaDTO em ordem de ID.
+     */
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p order by p.id")
+    List<PresencaDTO> findAllDTOs();
+
+    /**
+     * Paginação por cursor (keyset): registros com ID maior que depoisDe, em ordem de ID.
+     * @param depoisDe O último ID já recebido pelo cliente (0 para a primeira página).
+     * @param limite O tamanho máximo da página.
+     * @return Uma lista de PresencaDTO.
+     */
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p where p.id > :depoisDe order by p.id")
+    List<PresencaDTO> findPagina(@Param("depoisDe") Long depoisDe, Limit limite);
+
+    /**
+     * Lê todos os registros em streaming, usando um cursor do banco com fetch size limitado.
+     * Deve ser consumido dentro de uma transação e o Stream deve ser fechado.
+     * @return Um Stream de PresencaDTO, em ordem de ID.
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDTO(p.id, p.aluno.id, p.dataHora, p.presente) "
+            + "from Presenca p order by p.id")
+    Stream<PresencaDTO> streamTodas();
+
     /**
-     * Encontra todos os registros de presença para um aluno específico.
-     * @param aluno O objeto Alunos para o qual buscar as presenças.
-     * @return Uma lista de objetos Presenca.
+     * Os dias do período com ao menos um registro, de qualquer aluno: as colunas da matriz sem filtro de alunos.
+     * @param inicio O primeiro dia (inclusive).
+     * @param fim O último dia (inclusive).
+     * @return Os dias, em ordem.
      */
-    List<Presenca> findByAluno(Alunos aluno);
+    @Query("select distinct p.dia from Presenca p where p.dia between :inicio and :fim order by p.dia")
+    List<LocalDate> findDiasComRegistro(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
 
     /**
-     * Encontra registros de presença para um aluno específico dentro de um intervalo de datas e horas.
-     * @param aluno O objeto Alunos.
-     * @param start O início do intervalo de data e hora (inclusive).
-     * @param end O fim do intervalo de data e hora (inclusive).
-     * @return Uma lista de objetos Presenca.
+     * Presença agregada por aluno e dia no período, dos alunos informados, numa única consulta agrupada.
+     * @param inicio O primeiro dia (inclusive).
+     * @param fim O último dia (inclusive).
+     * @param alunoIds Os IDs dos alunos.
+     * @return Linhas [alunoId, dia, presente (1/0)] em ordem de aluno e dia.
      */
-    List<Presenca> findByAlunoAndDataHoraBetween(Alunos aluno, LocalDateTime start, LocalDateTime end);
+    @Query("""
+            select p.aluno.id, p.dia, max(case when p.presente = true then 1 else 0 end)
+            from Presenca p
+            where p.dia between :inicio and :fim and p.aluno.id in :alunoIds
+            group by p.aluno.id, p.dia
+            order by p.aluno.id, p.dia
+            """)
+    List<Object[]> findMatriz(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim,
+                              @Param("alunoIds") Collection<Long> alunoIds);
 
     /**
-     * Encontra um registro de presença específico para um aluno em uma determinada data e hora.
-     * Útil para verificar se um aluno já registrou presença em um momento exato.
-     * @param aluno O objeto Alunos.
-     * @param dataHora A data e hora exata da presença.
-     * @return Um Optional contendo o objeto Presenca, se encontrado.
+     * Todos os pares (aluno, dia) com presente = true, em streaming, para montar o índice em memória.
+     * Deve ser consumido dentro de uma transação e o Stream deve ser fechado.
+     * @return Um Stream de PresencaDia.
      */
-    Optional<Presenca> findByAlunoAndDataHora(Alunos aluno, LocalDateTime dataHora);
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "5000"),
+                 @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new org.vitor.appdistribuido.Presenca.PresencaDia(p.aluno.id, p.dia) "
+            + "from Presenca p where p.presente = true")
+    Stream<PresencaDia> streamPresentes();
 }
@@ -0,0 +1,24 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.util.Collection;
+
+/**
+ * Operações de PresencaRepository implementadas diretamente sobre JDBC.
+ */
+public interface PresencaRepositoryCustom {
+
+    /**
+     * Reserva o ID de um registro novo no gerador que o Hibernate usa para a entidade Presenca:
+     * blocos de 50 da presencas_sequence, com uma ida à sequência a cada 50 IDs. Assim o upsert
+     * e as inclusões pelo JPA nunca disputam os mesmos IDs.
+     * @return O próximo ID.
+     */
+    long proximoId();
+
+    /**
+     * Executa o upsert de vários registros numa única ida ao banco (JDBC batch).
+     * @param presencas Os registros, de alunos já validados e no máximo um por (aluno, dia); o ID
+     *                  de cada um só é gravado se o registro for novo.
+     */
+    void upsertEmLote(Collection<PresencaDTO> presencas);
+}
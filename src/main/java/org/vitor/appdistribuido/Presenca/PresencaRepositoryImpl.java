@@ -0,0 +1,56 @@
+package org.vitor.appdistribuido.Presenca;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.vitor.appdistribuido.Common.Dialeto;
+
+import java.util.Collection;
+
+/**
+ * Implementação de {@link PresencaRepositoryCustom} (descoberta pelo Spring Data pelo sufixo "Impl").
+ */
+class PresencaRepositoryImpl implements PresencaRepositoryCustom {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final BeforeExecutionGenerator geradorIds;
+    private final String upsertSql;
+
+    PresencaRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.geradorIds = (BeforeExecutionGenerator) entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Presenca.class)
+                .getGenerator();
+        this.upsertSql = Dialeto.de(jdbcTemplate.getJdbcTemplate().getDataSource()) == Dialeto.H2
+                ? PresencaRepository.UPSERT_SQL_H2
+                : PresencaRepository.UPSERT_SQL;
+    }
+
+    @Override
+    public long proximoId() {
+        SharedSessionContractImplementor sessao = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Long) geradorIds.generate(sessao, null, null, EventType.INSERT);
+    }
+
+    @Override
+    public void upsertEmLote(Collection<PresencaDTO> presencas) {
+        SqlParameterSource[] lote = presencas.stream()
+                .map(presenca -> new MapSqlParameterSource()
+                        .addValue("id", presenca.id())
+                        .addValue("alunoId", presenca.alunoId())
+                        .addValue("dataHora", presenca.dataHora())
+                        .addValue("dia", presenca.dataHora().toLocalDate())
+                        .addValue("presente", presenca.presente()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(upsertSql, lote);
+    }
+}
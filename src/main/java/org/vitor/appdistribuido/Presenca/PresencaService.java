@@ -1,53 +1,92 @@
 package org.vitor.appdistribuido.Presenca;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.vitor.appdistribuido.Alunos.Alunos;
+import org.springframework.transaction.annotation.Transactional;
 import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.Common.Pagina;
 
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Serviço responsável pela lógica de negócios relacionada à presença dos alunos.
  * Gerencia operações como marcar presença, buscar registros de presença e verificar status.
  */
 @Service
+@Timed(value = "app.service", description = "Métodos dos serviços")
 public class PresencaService {
 
+    /* Alunos por consulta na matriz sem filtro de alunos */
+    private static final int ALUNOS_POR_LOTE_MATRIZ = 500;
+
     private final PresencaRepository presencaRepository;
     private final AlunosRepository alunosRepository; // Usado para buscar informações do aluno
+    private final ResumoMensalRepository resumoMensalRepository; // Resumo mensal, mantido a cada escrita
+    private final IndicePresencas indicePresencas;   // Índice em memória (bitmaps por dia)
+    private final PresencasCompactadas presencasCompactadas; // Períodos encerrados, fora de presencas
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxDiasMatrizSemFiltro;
 
     /**
      * Construtor para injeção de dependências.
      * @param presencaRepository O repositório para operações de presença.
      * @param alunosRepository O repositório para operações de aluno.
+     * @param resumoMensalRepository O repositório do resumo mensal de presenças.
+     * @param indicePresencas O índice de presenças em memória.
+     * @param presencasCompactadas As presenças dos períodos encerrados, compactadas.
+     * @param eventPublisher Publica {@link PresencasAlteradasEvent} a cada escrita.
+     * @param maxDiasMatrizSemFiltro Maior período da matriz de presença pedida sem filtro de alunos.
      */
     @Autowired
-    public PresencaService(PresencaRepository presencaRepository, AlunosRepository alunosRepository) {
+    public PresencaService(PresencaRepository presencaRepository, AlunosRepository alunosRepository,
+                           ResumoMensalRepository resumoMensalRepository,
+                           IndicePresencas indicePresencas, PresencasCompactadas presencasCompactadas,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${app.matriz.max-dias-sem-filtro:366}") int maxDiasMatrizSemFiltro) {
         this.presencaRepository = presencaRepository;
         this.alunosRepository = alunosRepository;
+        this.resumoMensalRepository = resumoMensalRepository;
+        this.indicePresencas = indicePresencas;
+        this.presencasCompactadas = presencasCompactadas;
+        this.eventPublisher = eventPublisher;
+        this.maxDiasMatrizSemFiltro = maxDiasMatrizSemFiltro;
     }
 
     /**
      * Marca a presença de um aluno no momento atual.
      *
      * @param alunoId O ID do aluno a ser marcado como presente.
-     * @return O objeto Presenca salvo.
+     * @return O registro de presença salvo.
      * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
      */
-    public Presenca marcarPresenca(Long alunoId) {
-        // Busca o aluno pelo ID, lançando uma exceção se não for encontrado
-        Alunos aluno = alunosRepository.findById(alunoId)
-                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId));
-
-        // Cria um novo registro de presença com a data/hora atual e status 'presente'
-        Presenca presenca = new Presenca(aluno, LocalDateTime.now(), true);
-        return presencaRepository.save(presenca); // Salva o registro no banco de dados
+    @Transactional
+    public PresencaDTO marcarPresenca(Long alunoId) {
+        return marcarPresenca(alunoId, LocalDateTime.now(), true);
     }
 
     /**
@@ -55,84 +94,445 @@ public class PresencaService {
      *
      * @param alunoId O ID do aluno a ser marcado como presente.
      * @param dataHora A data e hora específicas para o registro de presença.
-     * @return O objeto Presenca salvo.
+     * @return O registro de presença salvo.
+     * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
+     */
+    @Transactional
+    public PresencaDTO marcarPresenca(Long alunoId, LocalDateTime dataHora) {
+        return marcarPresenca(alunoId, dataHora, true);
+    }
+
+    /**
+     * Registra presença ou falta de um aluno no dia de dataHora.
+     * Operação idempotente: já existindo um registro do aluno nesse dia, ele é atualizado
+     * (INSERT ... ON CONFLICT) em vez de duplicado.
+     *
+     * @param alunoId O ID do aluno.
+     * @param dataHora A data e hora do registro.
+     * @param presente true para presença, false para falta.
+     * @return O registro de presença gravado.
      * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
      */
-    public Presenca marcarPresenca(Long alunoId, LocalDateTime dataHora) {
-        // Busca o aluno pelo ID
-        Alunos aluno = alunosRepository.findById(alunoId)
-                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId));
+    @Transactional
+    public PresencaDTO marcarPresenca(Long alunoId, LocalDateTime dataHora, boolean presente) {
+        List<PresencaDTO> gravadas = gravar(List.of(new Marcacao(alunoId, dataHora, presente)));
+        if (gravadas.isEmpty()) {
+            throw new NoSuchElementException("Aluno não encontrado com ID: " + alunoId);
+        }
+        return gravadas.get(0);
+    }
+
+    /**
+     * Registra a chamada de uma turma inteira numa única transação.
+     * Os IDs são verificados com uma só consulta e os registros (presentes e ausentes)
+     * são gravados em lote via JDBC batching, com o mesmo upsert idempotente de
+     * {@link #marcarPresenca(Long, LocalDateTime, boolean)}.
+     *
+     * @param dataHora A data e hora da chamada; se null, usa o momento atual.
+     * @param presentes Os IDs dos alunos presentes.
+     * @param ausentes Os IDs dos alunos ausentes.
+     * @return O resultado por aluno, na ordem em que foram enviados (presentes e depois ausentes).
+     * @throws IllegalArgumentException se um mesmo aluno aparecer como presente e ausente.
+     */
+    @Transactional
+    public List<ResultadoChamada> registrarChamada(LocalDateTime dataHora, List<Long> presentes, List<Long> ausentes) {
+        LocalDateTime momento = (dataHora != null) ? dataHora : LocalDateTime.now();
+        Set<Long> idsPresentes = new LinkedHashSet<>(presentes != null ? presentes : List.of());
+        Set<Long> idsAusentes  = new LinkedHashSet<>(ausentes  != null ? ausentes  : List.of());
+
+        for (Long id : idsAusentes) {
+            if (idsPresentes.contains(id)) {
+                throw new IllegalArgumentException("Aluno " + id + " marcado como presente e ausente");
+            }
+        }
+
+        Set<Long> todos = new LinkedHashSet<>(idsPresentes);
+        todos.addAll(idsAusentes);
+        if (todos.isEmpty()) {
+            return List.of();
+        }
+
+        List<Marcacao> marcacoes = new ArrayList<>(todos.size());
+        for (Long id : todos) {
+            marcacoes.add(new Marcacao(id, momento, idsPresentes.contains(id)));
+        }
+        Map<Long, PresencaDTO> gravadas = new HashMap<>();
+        for (PresencaDTO gravada : gravar(marcacoes)) {
+            gravadas.put(gravada.alunoId(), gravada);
+        }
+
+        List<ResultadoChamada> resultados = new ArrayList<>(todos.size());
+        for (Long id : todos) {
+            boolean presente = idsPresentes.contains(id);
+            PresencaDTO gravada = gravadas.get(id);
+            if (gravada != null) {
+                resultados.add(new ResultadoChamada(id, presente,
+                        ResultadoChamada.Status.REGISTRADA, gravada.id()));
+            } else {
+                resultados.add(new ResultadoChamada(id, presente,
+                        ResultadoChamada.Status.ALUNO_NAO_ENCONTRADO, null));
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Grava um lote de marcações de alunos e dias quaisquer numa única transação (usado pela
+     * ingestão assíncrona de check-ins). Marcações de alunos inexistentes são descartadas.
+     *
+     * @param marcacoes As marcações; havendo mais de uma para o mesmo (aluno, dia), vale a última.
+     * @return Os registros gravados.
+     */
+    @Transactional
+    public List<PresencaDTO> registrarMarcacoes(Collection<Marcacao> marcacoes) {
+        return gravar(marcacoes);
+    }
+
+    /**
+     * Caminho único de escrita de presenças (um aluno, a chamada inteira ou um lote de check-ins):
+     * <ol>
+     *     <li>valida os alunos e trava suas linhas (uma consulta), serializando escritas concorrentes do mesmo aluno;</li>
+     *     <li>lê o estado anterior de cada (aluno, dia), necessário para atualizar o resumo mensal;
+     *     dias de períodos já compactados saem de presencas_compactadas e voltam para presencas;</li>
+     *     <li>grava tudo com o upsert em lote;</li>
+     *     <li>aplica ao resumo mensal apenas as variações (presença ↔ falta, registro novo);</li>
+     *     <li>publica {@link PresencasAlteradasEvent} para os ouvintes pós-commit.</li>
+     * </ol>
+     * As consultas dos passos 2 e 3 são feitas por dia; na chamada de uma turma há um só dia.
+     *
+     * @return Os registros gravados; alunos inexistentes ficam de fora.
+     */
+    private List<PresencaDTO> gravar(Collection<Marcacao> marcacoes) {
+        // A última marcação de cada (aluno, dia) vence
+        Map<PresencaDia, Marcacao> porChave = new LinkedHashMap<>();
+        for (Marcacao marcacao : marcacoes) {
+            PresencaDia chave = new PresencaDia(marcacao.alunoId(), marcacao.dataHora().toLocalDate());
+            porChave.remove(chave);
+            porChave.put(chave, marcacao);
+        }
+        Set<Long> alunoIds = new LinkedHashSet<>();
+        porChave.keySet().forEach(chave -> alunoIds.add(chave.alunoId()));
+
+        Set<Long> existentes = new HashSet<>(alunosRepository.travarIdsExistentes(alunoIds)); // travados em ordem de ID
+        porChave.keySet().removeIf(chave -> !existentes.contains(chave.alunoId()));
+        if (porChave.isEmpty()) {
+            return List.of();
+        }
+
+        Map<PresencaDia, PresencaDTO> anteriores = lerPorDia(porChave.keySet());
+        Map<PresencaDia, Boolean> compactadas = presencasCompactadas.retirar(porChave.keySet()); // vazio sem dias antigos
+
+        // Registros atualizados mantêm o ID; os novos o recebem do gerador da entidade, sem reler
+        List<PresencaDTO> gravadas = new ArrayList<>(porChave.size());
+        List<ResumoMensalRepositoryCustom.Delta> deltas = new ArrayList<>();
+        porChave.forEach((chave, marcacao) -> {
+            PresencaDTO anterior = anteriores.get(chave);
+            long presencaId = (anterior != null) ? anterior.id() : presencaRepository.proximoId();
+            gravadas.add(new PresencaDTO(presencaId, chave.alunoId(), marcacao.dataHora(), marcacao.presente()));
+            adicionarDelta(deltas, chave.alunoId(), chave.dia(),
+                    anterior != null ? anterior.presente() : compactadas.get(chave), marcacao.presente());
+        });
+        presencaRepository.upsertEmLote(gravadas);
+        resumoMensalRepository.aplicarDeltas(deltas);
+
+        eventPublisher.publishEvent(new PresencasAlteradasEvent(List.copyOf(gravadas), List.of()));
+        return gravadas;
+    }
+
+    /* Registros existentes das chaves (aluno, dia), com uma consulta por dia */
+    private Map<PresencaDia, PresencaDTO> lerPorDia(Collection<PresencaDia> chaves) {
+        Map<LocalDate, List<Long>> alunosPorDia = new TreeMap<>();
+        for (PresencaDia chave : chaves) {
+            alunosPorDia.computeIfAbsent(chave.dia(), d -> new ArrayList<>()).add(chave.alunoId());
+        }
+        Map<PresencaDia, PresencaDTO> registros = new HashMap<>();
+        alunosPorDia.forEach((dia, ids) -> {
+            for (PresencaDTO registro : presencaRepository.findDTOsPorDia(dia, ids)) {
+                registros.put(new PresencaDia(registro.alunoId(), dia), registro);
+            }
+        });
+        return registros;
+    }
 
-        // Cria um novo registro de presença com a data/hora fornecida
-        Presenca presenca = new Presenca(aluno, dataHora, true);
-        return presencaRepository.save(presenca); // Salva o registro
+    /* Variação do resumo mensal entre o estado anterior e o novo (null = sem registro) */
+    private static void adicionarDelta(List<ResumoMensalRepositoryCustom.Delta> deltas,
+                                       Long alunoId, LocalDate dia, Boolean antes, Boolean depois) {
+        int presentes = (Boolean.TRUE.equals(depois) ? 1 : 0) - (Boolean.TRUE.equals(antes) ? 1 : 0);
+        int ausentes = (Boolean.FALSE.equals(depois) ? 1 : 0) - (Boolean.FALSE.equals(antes) ? 1 : 0);
+        if (presentes != 0 || ausentes != 0) {
+            deltas.add(new ResumoMensalRepositoryCustom.Delta(alunoId, dia.withDayOfMonth(1), presentes, ausentes));
+        }
     }
 
     /**
-     * Busca todos os registros de presença para um aluno específico.
+     * Busca todos os registros de presença para um aluno específico, incluindo os dos períodos
+     * compactados (sem ID e com hora 00:00). Uma única consulta junta presencas,
+     * presencas_compactadas e a verificação de existência do aluno.
      *
      * @param alunoId O ID do aluno.
-     * @return Uma lista de objetos Presenca para o aluno dado.
+     * @return Uma lista de registros de presença para o aluno dado.
      * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
      */
-    public List<Presenca> buscarPresencasPorAluno(Long alunoId) {
-        // Busca o aluno pelo ID
-        Alunos aluno = alunosRepository.findById(alunoId)
-                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId));
-        return presencaRepository.findByAluno(aluno); // Retorna as presenças encontradas
+    @Transactional(readOnly = true)
+    public List<PresencaDTO> buscarPresencasPorAluno(Long alunoId) {
+        List<Object[]> linhas = presencaRepository.findTodasPorAluno(alunoId);
+        if (linhas.isEmpty()) {
+            throw new NoSuchElementException("Aluno não encontrado com ID: " + alunoId);
+        }
+        List<PresencaDTO> presencas = new ArrayList<>();
+        List<PeriodoCompactado> periodos = new ArrayList<>();
+        for (Object[] linha : linhas) {
+            if (linha[0] != null) {
+                presencas.add(new PresencaDTO(((Number) linha[0]).longValue(), alunoId,
+                        dataHora(linha[2]), (Boolean) linha[3]));
+            } else if (linha[4] != null) {
+                periodos.add(PeriodoCompactado.de(alunoId, dia(linha[4]), (byte[]) linha[5], (byte[]) linha[6]));
+            }
+        }
+        presencas.sort(Comparator.comparing(PresencaDTO::dataHora, Comparator.nullsLast(Comparator.naturalOrder())));
+        return comCompactadas(presencas, periodos, null, null);
     }
 
     /**
      * Busca registros de presença para um aluno específico dentro de um intervalo de datas.
+     * Uma única consulta (a existência do aluno é verificada no mesmo SELECT), mais uma em
+     * presencas_compactadas se o intervalo alcança um período que pode ter sido compactado;
+     * esses registros vêm sem ID e com hora 00:00.
      *
      * @param alunoId O ID do aluno.
      * @param startDate A data de início do intervalo (inclusive).
      * @param endDate A data de fim do intervalo (inclusive).
-     * @return Uma lista de objetos Presenca para o aluno no período especificado.
+     * @return Uma lista de registros de presença para o aluno no período especificado.
      * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
      */
-    public List<Presenca> buscarPresencasPorAlunoEPeriodo(Long alunoId, LocalDate startDate, LocalDate endDate) {
-        // Busca o aluno pelo ID
-        Alunos aluno = alunosRepository.findById(alunoId)
-                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId));
-
-        // Converte as datas para LocalDateTime para usar no repositório
-        LocalDateTime startDateTime = startDate.atStartOfDay(); // Início do dia
-        LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX); // Fim do dia
-
-        return presencaRepository.findByAlunoAndDataHoraBetween(aluno, startDateTime, endDateTime);
+    @Transactional(readOnly = true)
+    public List<PresencaDTO> buscarPresencasPorAlunoEPeriodo(Long alunoId, LocalDate startDate, LocalDate endDate) {
+        // Por dia (e não por data/hora): o PostgreSQL lê só as partições mensais do período
+        List<PresencaDTO> presencas = semLinhaVazia(alunoId,
+                presencaRepository.findDTOsPorAlunoEPeriodo(alunoId, startDate, endDate));
+        if (!presencasCompactadas.podeConter(startDate)) {
+            return presencas;
+        }
+        return comCompactadas(presencas, presencasCompactadas.doAluno(alunoId, startDate, endDate), startDate, endDate);
     }
 
     /**
      * Verifica se um aluno esteve presente em uma data específica.
-     * Assume que "presente" significa que há pelo menos um registro de presença para aquele dia.
+     * "Presente" significa que o registro do aluno naquele dia tem presente = true.
      *
      * @param alunoId O ID do aluno.
      * @param date A data a ser verificada.
      * @return True se o aluno esteve presente na data fornecida, false caso contrário.
      * @throws NoSuchElementException se o aluno com o ID fornecido não for encontrado.
      */
+    @Transactional(readOnly = true)
     public boolean verificarPresencaNoDia(Long alunoId, LocalDate date) {
-        // Busca o aluno pelo ID
-        Alunos aluno = alunosRepository.findById(alunoId)
-                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId));
+        // Presença confirmada pelo índice em memória: responde sem ir ao banco. As escritas desta
+        // instância entram no índice na ordem dos commits; as de outras, na próxima reconstrução
+        if (indicePresencas.isPronto() && indicePresencas.presente(alunoId, date)) {
+            return true;
+        }
 
-        // Define o intervalo de data e hora para o dia completo
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
+        // Caso contrário (falta, aluno inexistente ou índice ainda carregando), uma consulta: vazio = aluno inexistente; 0/1 vem do índice (aluno_id, dia, presente)
+        boolean presente = presencaRepository.contarPresencasNoDia(alunoId, date)
+                .orElseThrow(() -> new NoSuchElementException("Aluno não encontrado com ID: " + alunoId)) > 0;
+        if (presente || !presencasCompactadas.podeConter(date)) {
+            return presente;
+        }
+        // Dia de um período encerrado: pode estar compactado
+        return presencasCompactadas.doAluno(alunoId, date, date).stream()
+                .anyMatch(periodo -> Boolean.TRUE.equals(periodo.estado(date)));
+    }
 
-        // Busca presenças dentro do dia e verifica se a lista não está vazia
-        List<Presenca> presencas = presencaRepository.findByAlunoAndDataHoraBetween(aluno, startOfDay, endOfDay);
-        return !presencas.isEmpty();
+    /**
+     * Busca os registros de um grupo de alunos (por exemplo, os de uma turma) num dia,
+     * com uma consulta pelo índice único (aluno_id, dia) e, num dia de período encerrado,
+     * outra em presencas_compactadas.
+     *
+     * @param dia O dia.
+     * @param alunoIds Os alunos.
+     * @return Os registros existentes; alunos sem registro no dia ficam de fora.
+     */
+    @Transactional(readOnly = true)
+    public List<PresencaDTO> buscarPresencasNoDia(LocalDate dia, Collection<Long> alunoIds) {
+        if (alunoIds.isEmpty()) {
+            return List.of();
+        }
+        List<PresencaDTO> presencas = presencaRepository.findDTOsPorDia(dia, alunoIds);
+        if (!presencasCompactadas.podeConter(dia)) {
+            return presencas;
+        }
+        return comCompactadas(presencas, presencasCompactadas.noPeriodo(dia, dia, alunoIds), dia, dia);
+    }
+
+    /**
+     * Monta a matriz de presença alunos × dias letivos de um período com uma única
+     * consulta agrupada, em vez de uma consulta por aluno (mais uma em presencas_compactadas
+     * se o período alcança um período encerrado).
+     *
+     * @param startDate O primeiro dia do período (inclusive).
+     * @param endDate O último dia do período (inclusive).
+     * @param alunoIds Restringe a matriz a esses alunos; null ou vazio para todos os que têm registros,
+     *                 lidos como em {@link #percorrerMatriz}. Alunos pedidos sem nenhum registro
+     *                 aparecem com a linha toda '-'.
+     * @return A matriz de presença.
+     * @throws IllegalArgumentException se o período for inválido (ver {@link #validarPeriodoDaMatriz}).
+     */
+    @Transactional(readOnly = true)
+    public MatrizPresencas buscarMatriz(LocalDate startDate, LocalDate endDate, List<Long> alunoIds) {
+        if (alunoIds == null || alunoIds.isEmpty()) {
+            List<List<LocalDate>> dias = new ArrayList<>(1);
+            List<MatrizPresencas.Linha> alunos = new ArrayList<>();
+            percorrerMatriz(startDate, endDate, dias::add, alunos::add);
+            return new MatrizPresencas(dias.getFirst(), alunos);
+        }
+        validarPeriodoDaMatriz(startDate, endDate, alunoIds);
+        List<Object[]> linhas = lerMatriz(startDate, endDate, alunoIds);
+
+        // Colunas: dias com ao menos um registro no resultado
+        TreeSet<LocalDate> diasLetivos = new TreeSet<>();
+        for (Object[] linha : linhas) {
+            diasLetivos.add((LocalDate) linha[1]);
+        }
+        List<LocalDate> dias = List.copyOf(diasLetivos);
+        List<MatrizPresencas.Linha> alunos = new ArrayList<>(alunoIds.size());
+        montarLinhas(linhas, dias, alunoIds, alunos::add);
+        return new MatrizPresencas(dias, alunos);
+    }
+
+    /**
+     * A matriz de presença de todos os alunos com registros no período, entregue aos poucos,
+     * sem montá-la inteira em memória: primeiro os dias letivos (uma consulta em presencas e,
+     * se o período alcança um período encerrado, uma leitura de presencas_compactadas), depois
+     * as linhas, lidas em lotes de alunos em ordem de ID com a mesma consulta agrupada da
+     * matriz filtrada. Um dia que ganhe o primeiro registro durante a leitura fica de fora.
+     *
+     * @param startDate O primeiro dia do período (inclusive).
+     * @param endDate O último dia do período (inclusive).
+     * @param aoDefinirDias Recebe os dias letivos (as colunas), antes da primeira linha.
+     * @param consumidor Recebe cada linha, em ordem de aluno.
+     * @throws IllegalArgumentException se o período for inválido (ver {@link #validarPeriodoDaMatriz}).
+     */
+    @Transactional(readOnly = true)
+    public void percorrerMatriz(LocalDate startDate, LocalDate endDate, Consumer<List<LocalDate>> aoDefinirDias,
+                                Consumer<MatrizPresencas.Linha> consumidor) {
+        validarPeriodoDaMatriz(startDate, endDate, null);
+        TreeSet<LocalDate> diasLetivos = new TreeSet<>(presencaRepository.findDiasComRegistro(startDate, endDate));
+        if (presencasCompactadas.podeConter(startDate)) {
+            diasLetivos.addAll(presencasCompactadas.diasRegistrados(startDate, endDate));
+        }
+        List<LocalDate> dias = List.copyOf(diasLetivos);
+        aoDefinirDias.accept(dias);
+        if (dias.isEmpty()) {
+            return;
+        }
+
+        long depois = Long.MIN_VALUE;
+        List<Long> lote;
+        do {
+            lote = alunosRepository.findIdsDepois(depois, ALUNOS_POR_LOTE_MATRIZ);
+            if (!lote.isEmpty()) {
+                montarLinhas(lerMatriz(startDate, endDate, lote), dias, List.of(), consumidor);
+                depois = lote.getLast();
+            }
+        } while (lote.size() == ALUNOS_POR_LOTE_MATRIZ);
+    }
+
+    /**
+     * Confere o período da matriz; o controller a chama antes de começar a enviar a resposta.
+     *
+     * @param startDate O primeiro dia do período (inclusive).
+     * @param endDate O último dia do período (inclusive).
+     * @param alunoIds Os alunos pedidos; null ou vazio para todos.
+     * @throws IllegalArgumentException se endDate for anterior a startDate ou se, sem filtro de
+     *         alunos, o período passar de app.matriz.max-dias-sem-filtro dias.
+     */
+    public void validarPeriodoDaMatriz(LocalDate startDate, LocalDate endDate, List<Long> alunoIds) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate anterior a startDate");
+        }
+        boolean filtrado = alunoIds != null && !alunoIds.isEmpty();
+        if (!filtrado && ChronoUnit.DAYS.between(startDate, endDate) >= maxDiasMatrizSemFiltro) {
+            throw new IllegalArgumentException(
+                    "Sem filtro de alunos, a matriz cobre no máximo %d dias".formatted(maxDiasMatrizSemFiltro));
+        }
+    }
+
+    /* Linhas [alunoId, dia, presente (1/0)] dos alunos no período, de presencas e dos períodos compactados */
+    private List<Object[]> lerMatriz(LocalDate startDate, LocalDate endDate, Collection<Long> alunoIds) {
+        List<Object[]> linhas = new ArrayList<>(presencaRepository.findMatriz(startDate, endDate, alunoIds));
+        if (presencasCompactadas.podeConter(startDate)) {
+            for (PeriodoCompactado periodo : presencasCompactadas.noPeriodo(startDate, endDate, alunoIds)) {
+                periodo.paraCada(startDate, endDate,
+                        (dia, presente) -> linhas.add(new Object[]{periodo.alunoId(), dia, presente ? 1 : 0}));
+            }
+        }
+        return linhas;
+    }
+
+    /*
+     * Uma string por aluno, um caractere por dia letivo, em ordem de ID. Os alunos de
+     * semRegistros aparecem mesmo sem linhas; registros em dias fora das colunas são ignorados.
+     */
+    private static void montarLinhas(List<Object[]> linhas, List<LocalDate> dias, Collection<Long> semRegistros,
+                                     Consumer<MatrizPresencas.Linha> consumidor) {
+        Map<LocalDate, Integer> coluna = new HashMap<>();
+        for (int i = 0; i < dias.size(); i++) {
+            coluna.put(dias.get(i), i);
+        }
+        TreeMap<Long, char[]> porAluno = new TreeMap<>();
+        for (Long id : semRegistros) {
+            porAluno.computeIfAbsent(id, k -> semRegistro(dias.size()));
+        }
+        for (Object[] linha : linhas) {
+            Integer indice = coluna.get((LocalDate) linha[1]);
+            if (indice != null) {
+                porAluno.computeIfAbsent((Long) linha[0], k -> semRegistro(dias.size()))[indice] =
+                        ((Number) linha[2]).intValue() == 1 ? MatrizPresencas.PRESENTE : MatrizPresencas.FALTA;
+            }
+        }
+        porAluno.forEach((id, celulas) -> consumidor.accept(new MatrizPresencas.Linha(id, new String(celulas))));
     }
 
     /**
      * Busca todos os registros de presença existentes no sistema.
      *
-     * @return Uma lista de todos os objetos Presenca.
+     * @return Uma lista de todos os registros de presença.
      */
-    public List<Presenca> buscarTodasPresencas() {
-        return presencaRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<PresencaDTO> buscarTodasPresencas() {
+        return presencaRepository.findAllDTOs();
+    }
+
+    /**
+     * Busca uma página de registros de presença por cursor (keyset), sem OFFSET.
+     *
+     * @param depoisDe O último ID já recebido; null ou 0 para a primeira página.
+     * @param limite O tamanho da página (limitado a {@link Pagina#LIMITE_MAXIMO}).
+     * @return A página de registros e o cursor da próxima página.
+     */
+    @Transactional(readOnly = true)
+    public Pagina<PresencaDTO> buscarPresencasPaginadas(Long depoisDe, Integer limite) {
+        int tamanho = Pagina.limitar(limite);
+        List<PresencaDTO> itens = presencaRepository.findPagina(
+                depoisDe != null ? depoisDe : 0L, Limit.of(tamanho));
+        return Pagina.de(itens, tamanho, PresencaDTO::id);
+    }
+
+    /**
+     * Percorre todos os registros de presença em streaming, com memória constante:
+     * as linhas vêm de um cursor do banco e são projetadas em DTOs, que não ficam
+     * no contexto de persistência. Depois dos de presencas vêm os dos períodos compactados,
+     * sem ID e com hora 00:00.
+     *
+     * @param consumidor Recebe cada registro: os de presencas em ordem de ID, depois os compactados.
+     */
+    @Transactional(readOnly = true)
+    public void exportarPresencas(Consumer<PresencaDTO> consumidor) {
+        try (Stream<PresencaDTO> presencas = presencaRepository.streamTodas()) {
+            presencas.forEach(consumidor);
+        }
+        presencasCompactadas.paraCada(periodo -> periodo.registros(null, null).forEach(consumidor));
     }
 
     /**
@@ -141,10 +541,67 @@ public class PresencaService {
      * @param presencaId O ID do registro de presença a ser deletado.
      * @throws NoSuchElementException se o registro de presença com o ID fornecido não for encontrado.
      */
+    @Transactional
     public void deletarPresenca(Long presencaId) {
         // Busca o registro de presença pelo ID, lançando uma exceção se não for encontrado
-        Presenca presenca = presencaRepository.findById(presencaId)
+        PresencaDTO presenca = buscarPresencaPorId(presencaId);
+
+        // Trava o aluno como nas demais escritas e relê o registro, que pode ter mudado nesse meio tempo
+        alunosRepository.travarIdsExistentes(List.of(presenca.alunoId()));
+        presenca = buscarPresencaPorId(presencaId);
+
+        presencaRepository.excluirPorId(presencaId, presenca.dataHora().toLocalDate()); // Deleta o registro sem carregar a entidade
+
+        List<ResumoMensalRepositoryCustom.Delta> deltas = new ArrayList<>(1);
+        adicionarDelta(deltas, presenca.alunoId(), presenca.dataHora().toLocalDate(), presenca.presente(), null);
+        resumoMensalRepository.aplicarDeltas(deltas);
+
+        eventPublisher.publishEvent(new PresencasAlteradasEvent(List.of(), List.of(presenca)));
+    }
+
+    private PresencaDTO buscarPresencaPorId(Long presencaId) {
+        return presencaRepository.findDTOPorId(presencaId)
                 .orElseThrow(() -> new NoSuchElementException("Registro de presença não encontrado com ID: " + presencaId));
-        presencaRepository.delete(presenca); // Deleta o registro
     }
-}
\ No newline at end of file
+
+    /**
+     * Interpreta o resultado das consultas com LEFT JOIN a partir de Alunos:
+     * nenhuma linha significa aluno inexistente; uma linha com id null significa
+     * aluno sem registros.
+     */
+    private static List<PresencaDTO> semLinhaVazia(Long alunoId, List<PresencaDTO> linhas) {
+        if (linhas.isEmpty()) {
+            throw new NoSuchElementException("Aluno não encontrado com ID: " + alunoId);
+        }
+        return linhas.stream().filter(linha -> linha.id() != null).toList();
+    }
+
+    /* Junta os registros compactados em [de, ate] aos de presencas, em ordem de data/hora */
+    private static List<PresencaDTO> comCompactadas(List<PresencaDTO> presencas, List<PeriodoCompactado> periodos,
+                                                    LocalDate de, LocalDate ate) {
+        if (periodos.isEmpty()) {
+            return presencas;
+        }
+        List<PresencaDTO> todas = new ArrayList<>(presencas);
+        for (PeriodoCompactado periodo : periodos) {
+            todas.addAll(periodo.registros(de, ate));
+        }
+        todas.sort(Comparator.comparing(PresencaDTO::dataHora, Comparator.nullsLast(Comparator.naturalOrder())));
+        return todas;
+    }
+
+    /* Colunas de consulta nativa: o driver pode devolver java.sql ou java.time */
+    private static LocalDateTime dataHora(Object valor) {
+        return (valor instanceof Timestamp timestamp) ? timestamp.toLocalDateTime() : (LocalDateTime) valor;
+    }
+
+    private static LocalDate dia(Object valor) {
+        return (valor instanceof Date data) ? data.toLocalDate() : (LocalDate) valor;
+    }
+
+    private static char[] semRegistro(int dias) {
+        char[] celulas = new char[dias];
+        Arrays.fill(celulas, MatrizPresencas.SEM_REGISTRO);
+        return celulas;
+    }
+}
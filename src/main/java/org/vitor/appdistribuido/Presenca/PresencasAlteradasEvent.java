@@ -0,0 +1,27 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publicado pelo PresencaService a cada escrita. Os ouvintes usam
+ * {@code @TransactionalEventListener}, portanto só o recebem depois do commit.
+ *
+ * <p>Os ouvintes pós-commit podem receber os eventos fora da ordem dos commits: a trava dos
+ * alunos já foi liberada quando eles rodam. Por isso cada evento é numerado ao ser criado, e o
+ * PresencaService o cria ainda com os alunos travados: entre eventos do mesmo aluno nesta
+ * instância, a numeração segue a ordem dos commits.</p>
+ *
+ * @param gravadas Os registros inseridos ou atualizados (presença ou falta).
+ * @param removidas Os registros excluídos.
+ * @param sequencia A numeração do evento nesta instância.
+ */
+public record PresencasAlteradasEvent(List<PresencaDTO> gravadas, List<PresencaDTO> removidas, long sequencia) {
+
+    private static final AtomicLong PROXIMA = new AtomicLong();
+
+    /* Numera o evento na criação */
+    public PresencasAlteradasEvent(List<PresencaDTO> gravadas, List<PresencaDTO> removidas) {
+        this(gravadas, removidas, PROXIMA.incrementAndGet());
+    }
+}
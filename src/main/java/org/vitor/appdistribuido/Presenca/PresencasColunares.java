@@ -0,0 +1,98 @@
+package org.vitor.appdistribuido.Presenca;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.vitor.appdistribuido.Common.Colunas;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lista de {@link PresencaDTO} no formato colunar:
+ * <pre>
+ * { "alunos":   [12, 15],          // dicionário: cada aluno uma vez, na ordem em que aparece
+ *   "id":       [1, 2, 3],
+ *   "aluno":    [0, 1, 0],         // posição em "alunos"
+ *   "dia":      [20241, 20241, 20242],   // dia em epoch-day (dias desde 1970-01-01)
+ *   "hora":     [28800000, ...],   // milissegundos desde a meia-noite
+ *   "presente": [1, 0, 1] }        // 1 = presente, 0 = falta
+ * </pre>
+ * Campos nulos são escritos como null na posição correspondente.
+ */
+public class PresencasColunares implements Colunas<PresencaDTO> {
+
+    @Override
+    public void escrever(List<? extends PresencaDTO> presencas, JsonGenerator gerador) throws IOException {
+        int tamanho = presencas.size();
+        List<Long> alunos = new ArrayList<>();
+        Map<Long, Integer> posicoes = new HashMap<>();
+        int[] aluno = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            Long alunoId = presencas.get(i).alunoId();
+            Integer posicao = posicoes.get(alunoId);
+            if (posicao == null) {
+                posicao = alunos.size();
+                posicoes.put(alunoId, posicao);
+                alunos.add(alunoId);
+            }
+            aluno[i] = posicao;
+        }
+
+        gerador.writeStartObject();
+        gerador.writeFieldName("alunos");
+        gerador.writeStartArray(alunos, alunos.size());
+        for (Long alunoId : alunos) {
+            gerador.writeNumber(alunoId);
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("id");
+        gerador.writeStartArray(presencas, tamanho);
+        for (PresencaDTO presenca : presencas) {
+            gerador.writeNumber(presenca.id());
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("aluno");
+        gerador.writeArray(aluno, 0, tamanho);
+
+        gerador.writeFieldName("dia");
+        gerador.writeStartArray(presencas, tamanho);
+        for (PresencaDTO presenca : presencas) {
+            LocalDateTime dataHora = presenca.dataHora();
+            if (dataHora == null) {
+                gerador.writeNull();
+            } else {
+                gerador.writeNumber((int) dataHora.toLocalDate().toEpochDay());
+            }
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("hora");
+        gerador.writeStartArray(presencas, tamanho);
+        for (PresencaDTO presenca : presencas) {
+            LocalDateTime dataHora = presenca.dataHora();
+            if (dataHora == null) {
+                gerador.writeNull();
+            } else {
+                gerador.writeNumber((int) (dataHora.toLocalTime().toNanoOfDay() / 1_000_000));
+            }
+        }
+        gerador.writeEndArray();
+
+        gerador.writeFieldName("presente");
+        gerador.writeStartArray(presencas, tamanho);
+        for (PresencaDTO presenca : presencas) {
+            if (presenca.presente() == null) {
+                gerador.writeNull();
+            } else {
+                gerador.writeNumber(presenca.presente() ? 1 : 0);
+            }
+        }
+        gerador.writeEndArray();
+        gerador.writeEndObject();
+    }
+}
@@ -0,0 +1,303 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.vitor.appdistribuido.Common.Dialeto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * Acesso a presencas_compactadas (migração V5), o armazenamento frio das presenças: uma linha
+ * por aluno e período encerrado ({@link PeriodoCompactado}), preenchida pela
+ * {@link CompactacaoPresencas}. Um (aluno, dia) está em presencas ou aqui, nunca nos dois.
+ *
+ * <p>Os períodos têm app.compactacao.meses-por-periodo meses (semestres por padrão), alinhados
+ * ao início do ano. Só os dias antes do fim do último período compactado podem estar aqui
+ * ({@link #podeConter}): as leituras e escritas de dias posteriores, que são quase todas, não
+ * precisam consultar esta tabela. Esse fim fica no banco (presencas_compactadas_fim, migração
+ * V8), e não é deduzido da configuração, que pode ter mudado desde a compactação. Cada
+ * instância guarda uma cópia, relida a cada app.compactacao.verificacao-fim-ms.</p>
+ */
+@Component
+public class PresencasCompactadas {
+
+    /* Maior período possível: limita a busca pelos períodos que cobrem um dia */
+    private static final int MESES_MAXIMOS = 12;
+
+    private static final String COLUNAS = "SELECT aluno_id, inicio, registrados, presentes FROM presencas_compactadas ";
+
+    private static final String GRAVAR_SQL = """
+            INSERT INTO presencas_compactadas (aluno_id, inicio, registrados, presentes)
+            VALUES (:alunoId, :inicio, :registrados, :presentes)
+            ON CONFLICT (aluno_id, inicio)
+            DO UPDATE SET registrados = EXCLUDED.registrados, presentes = EXCLUDED.presentes
+            """;
+
+    /* O mesmo em MERGE, para o H2 */
+    private static final String GRAVAR_SQL_H2 = """
+            MERGE INTO presencas_compactadas c
+            USING (VALUES (CAST(:alunoId AS BIGINT), CAST(:inicio AS DATE),
+                           CAST(:registrados AS BYTEA), CAST(:presentes AS BYTEA)))
+                  AS v (aluno_id, inicio, registrados, presentes)
+            ON c.aluno_id = v.aluno_id AND c.inicio = v.inicio
+            WHEN MATCHED THEN UPDATE SET registrados = v.registrados, presentes = v.presentes
+            WHEN NOT MATCHED THEN INSERT (aluno_id, inicio, registrados, presentes)
+                 VALUES (v.aluno_id, v.inicio, v.registrados, v.presentes)
+            """;
+
+    private static final RowMapper<PeriodoCompactado> MAPEADOR = (rs, i) -> PeriodoCompactado.de(
+            rs.getLong("aluno_id"), rs.getObject("inicio", LocalDate.class),
+            rs.getBytes("registrados"), rs.getBytes("presentes"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate leituraCompleta; // fetch size próprio, sem alterar o JdbcTemplate compartilhado
+    private final String gravarSql;
+    private final int mesesPorPeriodo;
+    private final int carenciaDias;
+    private volatile LocalDate fim; // null = nada compactado
+
+    /* Lê o fim já na criação: a primeira requisição não paga a consulta */
+    public PresencasCompactadas(NamedParameterJdbcTemplate jdbcTemplate,
+                                @Value("${app.compactacao.meses-por-periodo:6}") int mesesPorPeriodo,
+                                @Value("${app.compactacao.carencia-dias:30}") int carenciaDias) {
+        if (mesesPorPeriodo < 1 || MESES_MAXIMOS % mesesPorPeriodo != 0) {
+            throw new IllegalArgumentException("app.compactacao.meses-por-periodo deve dividir 12: " + mesesPorPeriodo);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate comFetchSize = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        comFetchSize.setFetchSize(5000);
+        this.leituraCompleta = new NamedParameterJdbcTemplate(comFetchSize);
+        this.gravarSql = Dialeto.de(jdbcTemplate.getJdbcTemplate().getDataSource()) == Dialeto.H2
+                ? GRAVAR_SQL_H2
+                : GRAVAR_SQL;
+        this.mesesPorPeriodo = mesesPorPeriodo;
+        this.carenciaDias = carenciaDias;
+        this.fim = lerFim();
+    }
+
+    /* ------------------------------------------------------------------
+     * Períodos
+     * ---------------------------------------------------------------- */
+
+    /**
+     * @param dia Um dia.
+     * @return O primeiro dia do período que contém o dia.
+     */
+    public LocalDate inicioDoPeriodo(LocalDate dia) {
+        int mes = (dia.getMonthValue() - 1) / mesesPorPeriodo * mesesPorPeriodo + 1;
+        return LocalDate.of(dia.getYear(), mes, 1);
+    }
+
+    /**
+     * @param inicio O primeiro dia de um período.
+     * @return O primeiro dia do período seguinte.
+     */
+    public LocalDate fimDoPeriodo(LocalDate inicio) {
+        return inicio.plusMonths(mesesPorPeriodo);
+    }
+
+    /**
+     * @return O início do primeiro período ainda não compactável: os períodos que terminam até
+     * esse dia estão encerrados há ao menos app.compactacao.carencia-dias.
+     */
+    public LocalDate limite() {
+        return inicioDoPeriodo(LocalDate.now().minusDays(carenciaDias));
+    }
+
+    /**
+     * @param dia Um dia.
+     * @return false se o dia com certeza não está compactado (depois do último período compactado).
+     */
+    public boolean podeConter(LocalDate dia) {
+        LocalDate ate = fim;
+        return ate != null && dia.isBefore(ate);
+    }
+
+    /* Compactações feitas por outras instâncias */
+    @Scheduled(fixedDelayString = "${app.compactacao.verificacao-fim-ms:1000}")
+    public void atualizarFim() {
+        fim = lerFim();
+    }
+
+    /**
+     * Eleva o fim do que está compactado (nunca o reduz). Chamado pela compactação antes de
+     * mover as linhas de um período, fora de transação: as leituras passam a procurar aqui
+     * antes de os dias saírem de presencas.
+     * @param novoFim O primeiro dia depois do período a compactar.
+     * @return true se o fim mudou.
+     */
+    boolean elevarFim(LocalDate novoFim) {
+        int alteradas = jdbcTemplate.update(
+                "UPDATE presencas_compactadas_fim SET fim = :fim WHERE id = 1 AND (fim IS NULL OR fim < :fim)",
+                new MapSqlParameterSource("fim", novoFim));
+        atualizarFim();
+        return alteradas > 0;
+    }
+
+    private LocalDate lerFim() {
+        return jdbcTemplate.queryForObject("SELECT fim FROM presencas_compactadas_fim WHERE id = 1",
+                new MapSqlParameterSource(), LocalDate.class);
+    }
+
+    /* ------------------------------------------------------------------
+     * Leitura
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Os períodos compactados de um aluno que cruzam [de, ate].
+     * @param alunoId O ID do aluno.
+     * @param de O primeiro dia (inclusive); null para todos os períodos.
+     * @param ate O último dia (inclusive); null para todos os períodos.
+     * @return Os períodos, em ordem de início.
+     */
+    List<PeriodoCompactado> doAluno(Long alunoId, LocalDate de, LocalDate ate) {
+        return noPeriodo(de, ate, List.of(alunoId));
+    }
+
+    /**
+     * Os períodos compactados que cruzam [de, ate], de todos os alunos ou dos informados.
+     * @param de O primeiro dia (inclusive); null para todos os períodos.
+     * @param ate O último dia (inclusive); null para todos os períodos.
+     * @param alunoIds Os alunos; null para todos.
+     * @return Os períodos, em ordem de aluno e início.
+     */
+    List<PeriodoCompactado> noPeriodo(LocalDate de, LocalDate ate, Collection<Long> alunoIds) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        String sql = COLUNAS + "WHERE 1 = 1" + filtroDePeriodo(de, ate, parametros);
+        if (alunoIds != null) {
+            sql += " AND aluno_id IN (:alunoIds)";
+            parametros.addValue("alunoIds", alunoIds);
+        }
+        return jdbcTemplate.query(sql + " ORDER BY aluno_id, inicio", parametros, MAPEADOR);
+    }
+
+    /**
+     * Percorre toda a tabela com memória constante (montagem do índice em memória, exportação).
+     * No PostgreSQL o cursor só é usado dentro de uma transação.
+     * @param consumidor Recebe cada período compactado.
+     */
+    void paraCada(Consumer<PeriodoCompactado> consumidor) {
+        leituraCompleta.query(COLUNAS, new MapSqlParameterSource(),
+                (RowCallbackHandler) rs -> consumidor.accept(MAPEADOR.mapRow(rs, 0)));
+    }
+
+    /**
+     * Os dias de [de, ate] com algum registro compactado, de qualquer aluno (as colunas da matriz
+     * de presença sem filtro de alunos), lidos com memória constante como em {@link #paraCada}.
+     * @param de O primeiro dia (inclusive).
+     * @param ate O último dia (inclusive).
+     * @return Os dias, em ordem.
+     */
+    Set<LocalDate> diasRegistrados(LocalDate de, LocalDate ate) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        String sql = COLUNAS + "WHERE 1 = 1" + filtroDePeriodo(de, ate, parametros);
+        Set<LocalDate> dias = new TreeSet<>();
+        leituraCompleta.query(sql, parametros, (RowCallbackHandler) rs ->
+                MAPEADOR.mapRow(rs, 0).paraCada(de, ate, (dia, presente) -> dias.add(dia)));
+        return dias;
+    }
+
+    /* Períodos que começam em (de - 12 meses, ate]: os únicos que podem cruzar [de, ate] */
+    private static String filtroDePeriodo(LocalDate de, LocalDate ate, MapSqlParameterSource parametros) {
+        StringBuilder filtro = new StringBuilder();
+        if (de != null) {
+            filtro.append(" AND inicio > :desde");
+            parametros.addValue("desde", de.minusMonths(MESES_MAXIMOS));
+        }
+        if (ate != null) {
+            filtro.append(" AND inicio <= :ate");
+            parametros.addValue("ate", ate);
+        }
+        return filtro.toString();
+    }
+
+    /* ------------------------------------------------------------------
+     * Escrita (sempre com os alunos travados, como as escritas em presencas)
+     * ---------------------------------------------------------------- */
+
+    /**
+     * Grava os períodos (inserindo ou substituindo) e exclui os que ficaram vazios.
+     * @param periodos Os períodos alterados.
+     */
+    void gravar(Collection<PeriodoCompactado> periodos) {
+        List<SqlParameterSource> gravar = new ArrayList<>(periodos.size());
+        List<SqlParameterSource> excluir = new ArrayList<>();
+        for (PeriodoCompactado periodo : periodos) {
+            MapSqlParameterSource parametros = new MapSqlParameterSource()
+                    .addValue("alunoId", periodo.alunoId())
+                    .addValue("inicio", periodo.inicio());
+            if (periodo.isVazio()) {
+                excluir.add(parametros);
+            } else {
+                gravar.add(parametros
+                        .addValue("registrados", periodo.registrados().toByteArray())
+                        .addValue("presentes", periodo.presentes().toByteArray()));
+            }
+        }
+        if (!gravar.isEmpty()) {
+            jdbcTemplate.batchUpdate(gravarSql, gravar.toArray(SqlParameterSource[]::new));
+        }
+        if (!excluir.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM presencas_compactadas WHERE aluno_id = :alunoId AND inicio = :inicio",
+                    excluir.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    /**
+     * Tira dias do armazenamento frio antes de uma escrita neles: o registro passa a viver em
+     * presencas, onde a escrita o grava.
+     * @param chaves Os pares (aluno, dia) a retirar; os de dias que não podem estar compactados são ignorados.
+     * @return O estado anterior de cada par que estava compactado (true presença, false falta).
+     */
+    Map<PresencaDia, Boolean> retirar(Collection<PresencaDia> chaves) {
+        Set<Long> alunoIds = new LinkedHashSet<>();
+        LocalDate primeiro = null;
+        LocalDate ultimo = null;
+        for (PresencaDia chave : chaves) {
+            if (podeConter(chave.dia())) {
+                alunoIds.add(chave.alunoId());
+                primeiro = (primeiro == null || chave.dia().isBefore(primeiro)) ? chave.dia() : primeiro;
+                ultimo = (ultimo == null || chave.dia().isAfter(ultimo)) ? chave.dia() : ultimo;
+            }
+        }
+        if (alunoIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // Procura em todos os períodos do aluno, sem supor que o tamanho do período não mudou desde a compactação
+        Map<Long, List<PeriodoCompactado>> porAluno = new HashMap<>();
+        for (PeriodoCompactado periodo : noPeriodo(primeiro, ultimo, alunoIds)) {
+            porAluno.computeIfAbsent(periodo.alunoId(), id -> new ArrayList<>()).add(periodo);
+        }
+        Map<PresencaDia, Boolean> anteriores = new HashMap<>();
+        Map<PresencaDia, PeriodoCompactado> alterados = new LinkedHashMap<>(); // por (aluno, início)
+        for (PresencaDia chave : chaves) {
+            for (PeriodoCompactado periodo : porAluno.getOrDefault(chave.alunoId(), List.of())) {
+                Boolean anterior = periodo.retirar(chave.dia());
+                if (anterior != null) {
+                    anteriores.put(chave, anterior);
+                    alterados.put(new PresencaDia(periodo.alunoId(), periodo.inicio()), periodo);
+                }
+            }
+        }
+        gravar(alterados.values());
+        return anteriores;
+    }
+}
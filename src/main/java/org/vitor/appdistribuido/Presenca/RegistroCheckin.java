@@ -0,0 +1,19 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDateTime;
+
+/**
+ * Check-in aceito pela ingestão assíncrona: já está no log local e aguarda a gravação em lote.
+ * É também o corpo da resposta 202 Accepted.
+ *
+ * @param sequencia Posição no log (crescente, sem repetição).
+ * @param alunoId O ID do aluno.
+ * @param dataHora A data e hora do check-in.
+ * @param presente true para presença, false para falta.
+ */
+public record RegistroCheckin(long sequencia, Long alunoId, LocalDateTime dataHora, boolean presente) {
+
+    Marcacao marcacao() {
+        return new Marcacao(alunoId, dataHora, presente);
+    }
+}
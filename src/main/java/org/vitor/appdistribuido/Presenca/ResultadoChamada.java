@@ -0,0 +1,17 @@
+package org.vitor.appdistribuido.Presenca;
+
+/**
+ * Resultado da chamada para um aluno, devolvido pelo POST /api/presencas/chamada.
+ *
+ * @param alunoId    O ID do aluno enviado na chamada.
+ * @param presente   Se o aluno foi marcado como presente ou ausente.
+ * @param status     O resultado do registro para esse aluno.
+ * @param presencaId O ID do registro criado, ou null se nada foi gravado.
+ */
+public record ResultadoChamada(Long alunoId, boolean presente, Status status, Long presencaId) {
+
+    public enum Status {
+        REGISTRADA,
+        ALUNO_NAO_ENCONTRADO
+    }
+}
@@ -0,0 +1,45 @@
+package org.vitor.appdistribuido.Presenca;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Resumo (rollup) de presenças por aluno e mês. Mantido de forma incremental pelas escritas
+ * do PresencaService e reconstruível a partir de presencas pelo EstatisticasService.
+ * As estatísticas leem apenas esta tabela.
+ */
+@Entity
+@Table(name = "presencas_resumo_mensal")
+@IdClass(ResumoMensal.Chave.class)
+@Getter
+@NoArgsConstructor
+public class ResumoMensal {
+
+    @Id
+    @Column(name = "aluno_id")
+    private Long alunoId;
+
+    // Primeiro dia do mês
+    @Id
+    private LocalDate mes;
+
+    @Column(nullable = false)
+    private int presentes;
+
+    @Column(nullable = false)
+    private int ausentes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Chave implements Serializable {
+        private Long alunoId;
+        private LocalDate mes;
+    }
+}
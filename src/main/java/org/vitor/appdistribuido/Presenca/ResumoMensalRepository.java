@@ -0,0 +1,85 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositório do resumo mensal de presenças (presencas_resumo_mensal).
+ */
+@Repository
+public interface ResumoMensalRepository extends JpaRepository<ResumoMensal, ResumoMensal.Chave>, ResumoMensalRepositoryCustom {
+
+    /**
+     * Os meses de um aluno no intervalo.
+     * @param alunoId O ID do aluno.
+     * @param inicio O primeiro mês (primeiro dia, inclusive).
+     * @param fim O último mês (primeiro dia, inclusive).
+     * @return Os resumos mensais, em ordem de mês.
+     */
+    @Query("select r from ResumoMensal r where r.alunoId = :alunoId and r.mes between :inicio and :fim order by r.mes")
+    List<ResumoMensal> findPorAluno(@Param("alunoId") Long alunoId,
+                                    @Param("inicio") LocalDate inicio,
+                                    @Param("fim") LocalDate fim);
+
+    /**
+     * Frequência de cada aluno somada no intervalo de meses.
+     * @param inicio O primeiro mês (primeiro dia, inclusive).
+     * @param fim O último mês (primeiro dia, inclusive).
+     * @return Uma linha por aluno com registros no intervalo, em ordem de ID.
+     */
+    @Query("""
+            select new org.vitor.appdistribuido.Presenca.FrequenciaAluno(r.alunoId, sum(r.presentes), sum(r.ausentes))
+            from ResumoMensal r
+            where r.mes between :inicio and :fim
+            group by r.alunoId
+            order by r.alunoId
+            """)
+    List<FrequenciaAluno> findFrequencias(@Param("inicio") LocalDate inicio, @Param("fim") LocalDate fim);
+
+    /**
+     * Alunos com frequência abaixo do limite no intervalo de meses.
+     * @param inicio O primeiro mês (primeiro dia, inclusive).
+     * @param fim O último mês (primeiro dia, inclusive).
+     * @param limite A frequência mínima, entre 0 e 1 (ex.: 0.75).
+     * @return Uma linha por aluno abaixo do limite, da menor para a maior frequência.
+     */
+    @Query("""
+            select new org.vitor.appdistribuido.Presenca.FrequenciaAluno(r.alunoId, sum(r.presentes), sum(r.ausentes))
+            from ResumoMensal r
+            where r.mes between :inicio and :fim
+            group by r.alunoId
+            having sum(r.presentes) * 1.0 / nullif(sum(r.presentes) + sum(r.ausentes), 0) < :limite
+            order by sum(r.presentes) * 1.0 / nullif(sum(r.presentes) + sum(r.ausentes), 0), r.alunoId
+            """)
+    List<FrequenciaAluno> findAbaixoDoLimite(@Param("inicio") LocalDate inicio,
+                                             @Param("fim") LocalDate fim,
+                                             @Param("limite") double limite);
+
+    /* ------------------ Reconstrução (backfill) a partir de presencas, por lote de alunos ------------------ */
+
+    @Modifying
+    @Query(value = "DELETE FROM presencas_resumo_mensal WHERE aluno_id IN (:alunoIds)", nativeQuery = true)
+    int limpar(@Param("alunoIds") Collection<Long> alunoIds);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO presencas_resumo_mensal (aluno_id, mes, presentes, ausentes)
+            SELECT aluno_id, CAST(DATE_TRUNC('MONTH', dia) AS DATE),
+                   SUM(CASE WHEN presente THEN 1 ELSE 0 END),
+                   SUM(CASE WHEN presente THEN 0 ELSE 1 END)
+            FROM presencas
+            WHERE aluno_id IN (:alunoIds)
+            GROUP BY aluno_id, CAST(DATE_TRUNC('MONTH', dia) AS DATE)
+            """, nativeQuery = true)
+    int preencherAPartirDasPresencas(@Param("alunoIds") Collection<Long> alunoIds);
+
+    @Query(value = "SELECT COUNT(*) FROM presencas_resumo_mensal WHERE aluno_id IN (:alunoIds)", nativeQuery = true)
+    int contarDosAlunos(@Param("alunoIds") Collection<Long> alunoIds);
+}
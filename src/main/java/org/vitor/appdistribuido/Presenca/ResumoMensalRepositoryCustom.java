@@ -0,0 +1,26 @@
+package org.vitor.appdistribuido.Presenca;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Operações de ResumoMensalRepository implementadas diretamente sobre JDBC.
+ */
+public interface ResumoMensalRepositoryCustom {
+
+    /**
+     * Soma as variações aos resumos (criando as linhas que faltarem) numa única ida ao banco.
+     * @param deltas As variações por (aluno, mês); as de valor zero devem ser omitidas.
+     */
+    void aplicarDeltas(Collection<Delta> deltas);
+
+    /**
+     * Variação do resumo de um aluno em um mês.
+     * @param alunoId O ID do aluno.
+     * @param mes O primeiro dia do mês.
+     * @param presentes A variação de presenças.
+     * @param ausentes A variação de faltas.
+     */
+    record Delta(Long alunoId, LocalDate mes, int presentes, int ausentes) {
+    }
+}
@@ -0,0 +1,60 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.vitor.appdistribuido.Common.Dialeto;
+
+import java.util.Collection;
+
+/**
+ * Implementação de {@link ResumoMensalRepositoryCustom} (descoberta pelo Spring Data pelo sufixo "Impl").
+ */
+class ResumoMensalRepositoryImpl implements ResumoMensalRepositoryCustom {
+
+    private static final String SOMAR_SQL = """
+            INSERT INTO presencas_resumo_mensal (aluno_id, mes, presentes, ausentes)
+            VALUES (:alunoId, :mes, :presentes, :ausentes)
+            ON CONFLICT (aluno_id, mes)
+            DO UPDATE SET presentes = presencas_resumo_mensal.presentes + EXCLUDED.presentes,
+                          ausentes  = presencas_resumo_mensal.ausentes  + EXCLUDED.ausentes
+            """;
+
+    /* O mesmo em MERGE, para o H2 */
+    private static final String SOMAR_SQL_H2 = """
+            MERGE INTO presencas_resumo_mensal r
+            USING (VALUES (CAST(:alunoId AS BIGINT), CAST(:mes AS DATE),
+                           CAST(:presentes AS INTEGER), CAST(:ausentes AS INTEGER)))
+                  AS v (aluno_id, mes, presentes, ausentes)
+            ON r.aluno_id = v.aluno_id AND r.mes = v.mes
+            WHEN MATCHED THEN UPDATE SET presentes = r.presentes + v.presentes,
+                                         ausentes  = r.ausentes  + v.ausentes
+            WHEN NOT MATCHED THEN INSERT (aluno_id, mes, presentes, ausentes)
+                 VALUES (v.aluno_id, v.mes, v.presentes, v.ausentes)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String somarSql;
+
+    ResumoMensalRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.somarSql = Dialeto.de(jdbcTemplate.getJdbcTemplate().getDataSource()) == Dialeto.H2
+                ? SOMAR_SQL_H2
+                : SOMAR_SQL;
+    }
+
+    @Override
+    public void aplicarDeltas(Collection<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] lote = deltas.stream()
+                .map(delta -> new MapSqlParameterSource()
+                        .addValue("alunoId", delta.alunoId())
+                        .addValue("mes", delta.mes())
+                        .addValue("presentes", delta.presentes())
+                        .addValue("ausentes", delta.ausentes()))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(somarSql, lote);
+    }
+}
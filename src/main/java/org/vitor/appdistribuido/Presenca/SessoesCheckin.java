@@ -0,0 +1,313 @@
+package org.vitor.appdistribuido.Presenca;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sessões de check-in por QR code: o professor abre uma sessão para uma turma e por alguns
+ * minutos; a tela da sala mostra um token que muda a cada app.checkin.sessoes.validade-token-s
+ * segundos, e cada aluno registra a própria presença lendo o código.
+ *
+ * <p>O token é o ID da sessão e o número do período, assinados com HMAC-SHA256 (28 bytes em
+ * Base64 URL). Validar uma leitura não consulta o banco: a assinatura é conferida com a chave
+ * em memória, a lista da turma é lida uma vez na abertura da sessão e as leituras repetidas do
+ * mesmo aluno são descartadas por um conjunto em memória. Cada presença aceita vai uma única
+ * vez para o {@link CheckinAssincrono}, que a grava no log local e depois no banco, em lotes.
+ * Vale o token do período atual e o do anterior, para quem leu o código pouco antes de ele mudar.</p>
+ *
+ * <p>As sessões vivem só nesta instância: com mais de uma, o balanceador precisa mandar as
+ * leituras de uma sessão para a instância que a abriu. Sem app.checkin.sessoes.segredo a chave
+ * é sorteada na subida, e os tokens emitidos antes de um reinício deixam de valer.</p>
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.checkin.assincrono", havingValue = "true")
+public class SessoesCheckin {
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final int BYTES_ASSINATURA = 16;
+    private static final int BYTES_TOKEN = 8 + 4 + BYTES_ASSINATURA;
+
+    private final CheckinAssincrono checkinAssincrono;
+    private final AlunosService alunosService;
+    private final long validadeTokenSegundos;
+    private final Duration duracaoPadrao;
+    private final Duration duracaoMaxima;
+
+    private final ThreadLocal<Mac> macs;
+    private final Map<Long, Sessao> sessoes = new ConcurrentHashMap<>();
+    private final Map<Resultado, Counter> leituras = new EnumMap<>(Resultado.class);
+
+    public SessoesCheckin(CheckinAssincrono checkinAssincrono,
+                          AlunosService alunosService,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.checkin.sessoes.segredo:}") String segredo,
+                          @Value("${app.checkin.sessoes.validade-token-s:30}") long validadeTokenSegundos,
+                          @Value("${app.checkin.sessoes.duracao-padrao-min:15}") long duracaoPadraoMinutos,
+                          @Value("${app.checkin.sessoes.duracao-maxima-min:120}") long duracaoMaximaMinutos) {
+        this.checkinAssincrono = checkinAssincrono;
+        this.alunosService = alunosService;
+        this.validadeTokenSegundos = validadeTokenSegundos;
+        this.duracaoPadrao = Duration.ofMinutes(duracaoPadraoMinutos);
+        this.duracaoMaxima = Duration.ofMinutes(duracaoMaximaMinutos);
+
+        byte[] chave;
+        if (segredo.isBlank()) {
+            chave = new byte[32];
+            new SecureRandom().nextBytes(chave);
+            log.info("app.checkin.sessoes.segredo não definido: tokens de check-in assinados com chave sorteada nesta subida");
+        } else {
+            chave = segredo.getBytes(StandardCharsets.UTF_8);
+        }
+        SecretKeySpec especificacao = new SecretKeySpec(chave, ALGORITMO);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITMO);
+                mac.init(especificacao);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(ALGORITMO + " indisponível", e);
+            }
+        });
+
+        Gauge.builder("app.checkin.sessoes.abertas", sessoes, Map::size)
+                .description("Sessões de check-in por QR code abertas")
+                .register(meterRegistry);
+        for (Resultado resultado : Resultado.values()) {
+            leituras.put(resultado, Counter.builder("app.checkin.sessoes.leituras")
+                    .description("Leituras de QR code de check-in, por resultado")
+                    .tag("resultado", resultado.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Abre uma sessão para os alunos matriculados agora na turma; matrículas posteriores não entram.
+     * @param turmaId O ID da turma.
+     * @param duracao Por quanto tempo aceitar leituras (null = app.checkin.sessoes.duracao-padrao-min).
+     * @return A sessão aberta.
+     * @throws org.springframework.web.server.ResponseStatusException 404 se a turma não existir.
+     * @throws IllegalArgumentException se a duração não for positiva ou passar do máximo.
+     */
+    public SessaoCheckin abrir(Long turmaId, Duration duracao) {
+        Duration validade = (duracao != null) ? duracao : duracaoPadrao;
+        if (validade.isNegative() || validade.isZero() || validade.compareTo(duracaoMaxima) > 0) {
+            throw new IllegalArgumentException("Duração da sessão deve ficar entre 1 e %d minutos"
+                    .formatted(duracaoMaxima.toMinutes()));
+        }
+        RoaringBitmap membros = new RoaringBitmap();
+        for (Alunos aluno : alunosService.getAlunosDaTurma(turmaId)) { // lista em cache
+            membros.add(Math.toIntExact(aluno.getId()));
+        }
+        membros.runOptimize();
+
+        Instant agora = Instant.now();
+        Sessao sessao;
+        do { // ID sorteado (e com até 53 bits, para caber num número do JavaScript)
+            sessao = new Sessao(ThreadLocalRandom.current().nextLong(1, 1L << 53), turmaId, membros,
+                    agora, agora.plus(validade));
+        } while (sessoes.putIfAbsent(sessao.id(), sessao) != null);
+        log.info("Sessão de check-in {} aberta para a turma {} ({} alunos) até {}",
+                sessao.id(), turmaId, membros.getCardinality(), sessao.encerraEm());
+        return sessao.resumo();
+    }
+
+    /**
+     * @param sessaoId O ID da sessão.
+     * @return O token do período atual, ou vazio se a sessão não existir ou já tiver encerrado.
+     */
+    public Optional<TokenCheckin> token(long sessaoId) {
+        return token(sessaoId, Instant.now());
+    }
+
+    Optional<TokenCheckin> token(long sessaoId, Instant agora) {
+        Sessao sessao = sessoes.get(sessaoId);
+        if (sessao == null || !agora.isBefore(sessao.encerraEm())) {
+            return Optional.empty();
+        }
+        long periodo = periodo(agora);
+        ByteBuffer token = ByteBuffer.allocate(BYTES_TOKEN).putLong(sessaoId).putInt((int) periodo);
+        token.put(assinar(token.array()), 0, BYTES_ASSINATURA);
+        return Optional.of(new TokenCheckin(Base64.getUrlEncoder().withoutPadding().encodeToString(token.array()),
+                Instant.ofEpochSecond((periodo + 1) * validadeTokenSegundos)));
+    }
+
+    /**
+     * Encerra a sessão antes do prazo.
+     * @return false se a sessão não existir.
+     */
+    public boolean encerrar(long sessaoId) {
+        return sessoes.remove(sessaoId) != null;
+    }
+
+    /**
+     * Valida uma leitura de QR code e, se for a primeira do aluno na sessão, entrega a presença
+     * à ingestão assíncrona.
+     * @param token O token lido.
+     * @param alunoId O aluno que leu.
+     * @return O resultado e, se aceita, o registro no log de check-ins.
+     * @throws RejectedExecutionException se o buffer da ingestão estiver cheio; a leitura pode ser repetida.
+     */
+    public Leitura registrar(String token, Long alunoId) {
+        return registrar(token, alunoId, Instant.now());
+    }
+
+    Leitura registrar(String token, Long alunoId, Instant agora) {
+        Leitura leitura = validarERegistrar(token, alunoId, agora);
+        leituras.get(leitura.resultado()).increment();
+        return leitura;
+    }
+
+    private Leitura validarERegistrar(String token, Long alunoId, Instant agora) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return new Leitura(Resultado.TOKEN_INVALIDO, null);
+        }
+        if (bytes.length != BYTES_TOKEN || alunoId == null
+                || !MessageDigest.isEqual(Arrays.copyOf(assinar(bytes), BYTES_ASSINATURA),
+                                          Arrays.copyOfRange(bytes, 12, BYTES_TOKEN))) {
+            return new Leitura(Resultado.TOKEN_INVALIDO, null);
+        }
+
+        ByteBuffer conteudo = ByteBuffer.wrap(bytes);
+        long sessaoId = conteudo.getLong();
+        long periodo = Integer.toUnsignedLong(conteudo.getInt());
+        long atual = periodo(agora);
+        if (periodo > atual) {
+            return new Leitura(Resultado.TOKEN_INVALIDO, null);
+        }
+        if (periodo < atual - 1) {
+            return new Leitura(Resultado.TOKEN_EXPIRADO, null);
+        }
+
+        Sessao sessao = sessoes.get(sessaoId);
+        if (sessao == null || !agora.isBefore(sessao.encerraEm())) {
+            return new Leitura(Resultado.SESSAO_ENCERRADA, null);
+        }
+        if (alunoId < 0 || alunoId > Integer.MAX_VALUE || !sessao.membros().contains(alunoId.intValue())) {
+            return new Leitura(Resultado.FORA_DA_TURMA, null);
+        }
+        if (!sessao.presentes().add(alunoId)) {
+            return new Leitura(Resultado.REPETIDO, null);
+        }
+        try {
+            RegistroCheckin registro = checkinAssincrono.registrar(
+                    alunoId, LocalDateTime.ofInstant(agora, ZoneId.systemDefault()), true);
+            return new Leitura(Resultado.ACEITO, registro);
+        } catch (RuntimeException e) {
+            sessao.presentes().remove(alunoId); // não foi aceita: a próxima leitura tenta de novo
+            if (e instanceof NoSuchElementException) {
+                return new Leitura(Resultado.FORA_DA_TURMA, null); // removido do cadastro depois da abertura
+            }
+            throw e;
+        }
+    }
+
+    /* HMAC dos 12 primeiros bytes (sessão e período) */
+    private byte[] assinar(byte[] token) {
+        Mac mac = macs.get();
+        mac.update(token, 0, 12);
+        return mac.doFinal();
+    }
+
+    private long periodo(Instant instante) {
+        return instante.getEpochSecond() / validadeTokenSegundos;
+    }
+
+    /* Descarta as sessões encerradas (o token delas já não valeria) */
+    @Scheduled(fixedDelay = 60_000)
+    public void removerEncerradas() {
+        Instant agora = Instant.now();
+        sessoes.values().removeIf(sessao -> !agora.isBefore(sessao.encerraEm()));
+    }
+
+    /* ------------------------------------------------------------------
+     * Internos e respostas
+     * ---------------------------------------------------------------- */
+
+    /* A lista da turma é imutável depois da abertura; "presentes" só cresce (ou desfaz uma recusa do buffer) */
+    private record Sessao(long id, Long turmaId, RoaringBitmap membros, Instant abertaEm, Instant encerraEm,
+                          Set<Long> presentes) {
+
+        Sessao(long id, Long turmaId, RoaringBitmap membros, Instant abertaEm, Instant encerraEm) {
+            this(id, turmaId, membros, abertaEm, encerraEm, ConcurrentHashMap.newKeySet());
+        }
+
+        SessaoCheckin resumo() {
+            return new SessaoCheckin(id, turmaId, membros.getCardinality(), abertaEm, encerraEm);
+        }
+    }
+
+    public enum Resultado {
+        /** Primeira leitura do aluno: entregue à ingestão assíncrona. */
+        ACEITO,
+        /** O aluno já tinha registrado presença nesta sessão. */
+        REPETIDO,
+        /** Token malformado ou com assinatura inválida. */
+        TOKEN_INVALIDO,
+        /** Token de um período anterior: o código na tela já mudou. */
+        TOKEN_EXPIRADO,
+        /** A sessão já encerrou (ou não existe nesta instância). */
+        SESSAO_ENCERRADA,
+        /** O aluno não está na turma da sessão. */
+        FORA_DA_TURMA
+    }
+
+    /**
+     * @param resultado O resultado da leitura.
+     * @param registro O check-in gravado no log, só quando ACEITO.
+     */
+    public record Leitura(Resultado resultado, RegistroCheckin registro) {
+    }
+
+    /**
+     * @param id O ID da sessão, usado para pedir o token atual.
+     * @param turmaId A turma da sessão.
+     * @param alunos Quantos alunos podem registrar presença.
+     * @param abertaEm Quando a sessão foi aberta.
+     * @param encerraEm A partir de quando as leituras são recusadas.
+     */
+    public record SessaoCheckin(long id, Long turmaId, int alunos, Instant abertaEm, Instant encerraEm) {
+    }
+
+    /**
+     * @param token O conteúdo do QR code.
+     * @param validoAte Quando a tela deve pedir o próximo token (o atual ainda é aceito por mais um período).
+     */
+    public record TokenCheckin(String token, Instant validoAte) {
+    }
+}
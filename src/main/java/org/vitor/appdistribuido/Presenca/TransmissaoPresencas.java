@@ -0,0 +1,295 @@
+package org.vitor.appdistribuido.Presenca;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transmissão ao vivo (Server-Sent Events) das presenças de um dia, opcionalmente restrita a
+ * um grupo de alunos. Substitui o polling de painéis e da página do professor por uma conexão
+ * longa por espectador.
+ *
+ * <p>Recebe os {@link PresencasAlteradasEvent} depois do commit e os entrega a cada assinante
+ * do dia correspondente. Cada assinante tem sua própria thread virtual de envio e um mapa de
+ * pendências por aluno: alterações do mesmo aluno que chegam antes do envio se fundem (vale a
+ * última), e o envio espera app.sse.janela-ms depois da primeira pendência para juntar um lote.
+ * Um cliente lento, portanto, acumula no máximo uma pendência por aluno; passando de
+ * app.sse.max-pendentes ele recebe o evento "recarregar" e a conexão é encerrada. O estado inicial
+ * fica à parte e não conta para esse limite: um dia com mais presenças que o limite ainda é
+ * transmitido.</p>
+ *
+ * <p>Eventos: "presencas" (lista de {@link AtualizacaoPresenca}, o primeiro com o estado atual
+ * do dia), "recarregar" e comentários periódicos de keep-alive.</p>
+ */
+@Slf4j
+@Component
+public class TransmissaoPresencas {
+
+    private final PresencaRepository presencaRepository;
+
+    private final long janelaMs;
+    private final long intervaloPingMs;
+    private final long timeoutMs;
+    private final int maxPendentes;
+    private final int maxAssinantes;
+
+    private final Map<LocalDate, Set<Assinante>> porDia = new ConcurrentHashMap<>();
+    private final AtomicInteger assinantes = new AtomicInteger();
+
+    public TransmissaoPresencas(PresencaRepository presencaRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.sse.janela-ms:100}") long janelaMs,
+                                @Value("${app.sse.intervalo-ping-ms:15000}") long intervaloPingMs,
+                                @Value("${app.sse.timeout-ms:1800000}") long timeoutMs,
+                                @Value("${app.sse.max-pendentes:10000}") int maxPendentes,
+                                @Value("${app.sse.max-assinantes:2000}") int maxAssinantes) {
+        this.presencaRepository = presencaRepository;
+        this.janelaMs = janelaMs;
+        this.intervaloPingMs = intervaloPingMs;
+        this.timeoutMs = timeoutMs;
+        this.maxPendentes = maxPendentes;
+        this.maxAssinantes = maxAssinantes;
+
+        Gauge.builder("app.sse.assinantes", assinantes, AtomicInteger::get)
+                .description("Conexões abertas na transmissão ao vivo de presenças")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Abre uma transmissão das presenças do dia.
+     * @param dia O dia acompanhado.
+     * @param alunoIds Os alunos acompanhados, ou null para todos.
+     * @return O emissor a ser devolvido pelo controller.
+     * @throws RejectedExecutionException se o limite de conexões simultâneas foi atingido.
+     */
+    public SseEmitter assinar(LocalDate dia, Set<Long> alunoIds) {
+        if (assinantes.incrementAndGet() > maxAssinantes) {
+            assinantes.decrementAndGet();
+            throw new RejectedExecutionException("Limite de transmissões simultâneas atingido.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(dia, alunoIds, emitter);
+        // Dentro do compute: o encerrar de outro assinante pode estar removendo o conjunto vazio do dia
+        porDia.compute(dia, (d, doDia) -> {
+            Set<Assinante> conjunto = (doDia != null) ? doDia : ConcurrentHashMap.newKeySet();
+            conjunto.add(assinante);
+            return conjunto;
+        });
+        emitter.onCompletion(assinante::encerrar);
+        emitter.onTimeout(assinante::encerrar);
+        emitter.onError(erro -> assinante.encerrar());
+
+        // Lido depois da inscrição: alterações que chegarem no meio prevalecem sobre a leitura
+        List<PresencaDTO> atuais;
+        try {
+            atuais = (alunoIds == null)
+                    ? presencaRepository.findDTOsDoDia(dia)
+                    : presencaRepository.findDTOsPorDia(dia, alunoIds);
+        } catch (RuntimeException e) {
+            assinante.encerrar();
+            throw e;
+        }
+        assinante.definirInicial(atuais);
+
+        Thread.ofVirtual().name("sse-presencas-" + dia).start(assinante::enviarContinuamente);
+        return emitter;
+    }
+
+    /**
+     * Entrega as escritas confirmadas pelo PresencaService aos assinantes do dia.
+     * @param evento As presenças gravadas e removidas na transação.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aoAlterarPresencas(PresencasAlteradasEvent evento) {
+        if (porDia.isEmpty()) {
+            return;
+        }
+        for (PresencaDTO presenca : evento.gravadas()) {
+            distribuir(presenca, AtualizacaoPresenca.gravada(presenca));
+        }
+        for (PresencaDTO presenca : evento.removidas()) {
+            distribuir(presenca, AtualizacaoPresenca.removida(presenca));
+        }
+    }
+
+    /* Antes do desligamento gracioso do servidor web, que esperaria as conexões abertas terminarem */
+    @EventListener(ContextClosedEvent.class)
+    public void encerrarTodos() {
+        porDia.values().forEach(doDia -> doDia.forEach(assinante -> assinante.emitter.complete()));
+    }
+
+    private void distribuir(PresencaDTO presenca, AtualizacaoPresenca atualizacao) {
+        Set<Assinante> doDia = porDia.get(presenca.dataHora().toLocalDate());
+        if (doDia != null) {
+            for (Assinante assinante : doDia) {
+                assinante.oferecer(atualizacao);
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Assinante
+     * ---------------------------------------------------------------- */
+
+    private final class Assinante {
+
+        private final LocalDate dia;
+        private final Set<Long> alunoIds; // null = todos
+        private final SseEmitter emitter;
+
+        private final ReentrantLock trava = new ReentrantLock();
+        private final Condition novidade = trava.newCondition();
+        private List<AtualizacaoPresenca> inicial; // até o primeiro lote
+        private LinkedHashMap<Long, AtualizacaoPresenca> pendentes = new LinkedHashMap<>(); // por aluno
+        private boolean excedeu;
+        private volatile boolean ativo = true;
+
+        Assinante(LocalDate dia, Set<Long> alunoIds, SseEmitter emitter) {
+            this.dia = dia;
+            this.alunoIds = alunoIds;
+            this.emitter = emitter;
+        }
+
+        /* Antes de a thread de envio começar; vai no primeiro lote, fora do limite de pendências */
+        void definirInicial(List<PresencaDTO> atuais) {
+            List<AtualizacaoPresenca> atualizacoes = new ArrayList<>(atuais.size());
+            for (PresencaDTO presenca : atuais) {
+                atualizacoes.add(AtualizacaoPresenca.gravada(presenca));
+            }
+            trava.lock();
+            try {
+                inicial = atualizacoes;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void oferecer(AtualizacaoPresenca atualizacao) {
+            if (alunoIds != null && !alunoIds.contains(atualizacao.alunoId())) {
+                return;
+            }
+            trava.lock();
+            try {
+                if (!ativo || excedeu) {
+                    return;
+                }
+                pendentes.remove(atualizacao.alunoId()); // reposiciona no fim do lote
+                pendentes.put(atualizacao.alunoId(), atualizacao);
+                if (pendentes.size() > maxPendentes) {
+                    excedeu = true;
+                    pendentes = new LinkedHashMap<>();
+                }
+                novidade.signal();
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void enviarContinuamente() {
+            try {
+                while (ativo) {
+                    List<AtualizacaoPresenca> lote = aguardarLote();
+                    if (!ativo) {
+                        return;
+                    }
+                    if (lote == null) {
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    } else if (!lote.isEmpty()) {
+                        emitter.send(SseEmitter.event().name("presencas").data(lote, MediaType.APPLICATION_JSON));
+                    }
+                    if (excedeu) {
+                        log.warn("Transmissão de {} encerrada: cliente não acompanhou as atualizações", dia);
+                        emitter.send(SseEmitter.event().name("recarregar").data(dia.toString()));
+                        emitter.complete();
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // cliente desconectou ou o emissor já foi concluído
+                log.debug("Transmissão de {} interrompida: {}", dia, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                encerrar();
+            }
+        }
+
+        /* @return O próximo lote, ou null se o intervalo de keep-alive passou sem novidades */
+        private List<AtualizacaoPresenca> aguardarLote() throws InterruptedException {
+            trava.lock();
+            try {
+                long restante = TimeUnit.MILLISECONDS.toNanos(intervaloPingMs);
+                while (inicial == null && pendentes.isEmpty() && !excedeu && ativo) {
+                    if (restante <= 0) {
+                        return null;
+                    }
+                    restante = novidade.awaitNanos(restante);
+                }
+            } finally {
+                trava.unlock();
+            }
+
+            Thread.sleep(janelaMs); // junta o que chegar logo em seguida num único evento
+
+            trava.lock();
+            try {
+                List<AtualizacaoPresenca> lote = new ArrayList<>();
+                if (inicial != null) {
+                    // Uma alteração que chegou durante a leitura prevalece sobre o estado lido
+                    for (AtualizacaoPresenca atual : inicial) {
+                        if (!pendentes.containsKey(atual.alunoId())) {
+                            lote.add(atual);
+                        }
+                    }
+                    inicial = null;
+                }
+                lote.addAll(pendentes.values());
+                pendentes = new LinkedHashMap<>();
+                return lote;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        void encerrar() {
+            trava.lock();
+            try {
+                if (!ativo) {
+                    return;
+                }
+                ativo = false;
+                inicial = null;
+                pendentes = new LinkedHashMap<>();
+                novidade.signal();
+            } finally {
+                trava.unlock();
+            }
+            assinantes.decrementAndGet();
+            porDia.computeIfPresent(dia, (d, doDia) -> {
+                doDia.remove(this);
+                return doDia.isEmpty() ? null : doDia;
+            });
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.vitor.appdistribuido.Turmas;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Objects;
+
+/**
+ * Turma (classe/seção). As matrículas ficam em turmas_alunos, manipuladas direto em SQL pelo
+ * {@link TurmasRepository}: a lista da turma nunca é carregada pela entidade.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "turmas")
+public class Turma {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "turmas_seq")
+    @SequenceGenerator(name = "turmas_seq",
+            sequenceName = "turmas_sequence",
+            allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false)
+    @NotBlank(message = "Nome é obrigatório")
+    private String nome;
+
+    public Turma(String nome) {
+        this.nome = nome;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        Object unwrapped = (o instanceof HibernateProxy proxy) ? proxy.getHibernateLazyInitializer().getImplementation() : o;
+        if (!(unwrapped instanceof Turma other)) return false;
+        return id != null && Objects.equals(id, other.id);
+    }
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
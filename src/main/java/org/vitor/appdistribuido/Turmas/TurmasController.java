@@ -0,0 +1,58 @@
+package org.vitor.appdistribuido.Turmas;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/*
+ * A lista de alunos da turma fica em GET /api/v1/alunos?turmaId=X (com ETag) e as presenças
+ * da turma em /api/presencas/turma/{turmaId}/..., /matriz?turmaId=X e /ao-vivo?turmaId=X.
+ */
+@RestController
+@RequestMapping("api/v1/turmas")
+@RequiredArgsConstructor
+public class TurmasController {
+
+    private final TurmasService turmasService;
+
+    /* ------------------ LISTAR ------------------ */
+    @GetMapping
+    public List<Turma> getTurmas() {
+        return turmasService.getTurmas();
+    }
+
+    @GetMapping("{turmaId}")
+    public Turma getTurmaById(@PathVariable Long turmaId) {
+        return turmasService.getTurmaById(turmaId);
+    }
+
+    /* ------------------ CRIAR ------------------ */
+    @PostMapping
+    public ResponseEntity<Turma> registerNewTurma(@Valid @RequestBody Turma turma) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(turmasService.addNewTurma(turma));
+    }
+
+    /* ------------------ DELETAR ------------------ */
+    @DeleteMapping("{turmaId}")
+    public ResponseEntity<Void> deleteTurma(@PathVariable Long turmaId) {
+        turmasService.deleteTurma(turmaId);
+        return ResponseEntity.ok().build();
+    }
+
+    /* ------------------ MATRÍCULAS ------------------ */
+    /* Corpo: lista de IDs de alunos; responde quantos foram matriculados */
+    @PostMapping("{turmaId}/alunos")
+    public int matricular(@PathVariable Long turmaId, @RequestBody List<Long> alunoIds) {
+        return turmasService.matricular(turmaId, alunoIds);
+    }
+
+    @DeleteMapping("{turmaId}/alunos/{alunoId}")
+    public ResponseEntity<Void> desmatricular(@PathVariable Long turmaId, @PathVariable Long alunoId) {
+        turmasService.desmatricular(turmaId, alunoId);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,33 @@
+package org.vitor.appdistribuido.Turmas;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TurmasRepository extends JpaRepository<Turma, Long> {
+
+    List<Turma> findAllByOrderByNomeAsc();
+
+    /*
+     * Matricula de uma vez os alunos informados; IDs inexistentes e alunos já matriculados
+     * são ignorados. Retorna quantos foram matriculados.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO turmas_alunos (turma_id, aluno_id)
+            SELECT :turmaId, a.id FROM alunos a
+            WHERE a.id IN (:alunoIds)
+              AND NOT EXISTS (SELECT 1 FROM turmas_alunos m WHERE m.turma_id = :turmaId AND m.aluno_id = a.id)
+            """, nativeQuery = true)
+    int matricular(@Param("turmaId") Long turmaId, @Param("alunoIds") Collection<Long> alunoIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM turmas_alunos WHERE turma_id = :turmaId AND aluno_id = :alunoId", nativeQuery = true)
+    int desmatricular(@Param("turmaId") Long turmaId, @Param("alunoId") Long alunoId);
+}
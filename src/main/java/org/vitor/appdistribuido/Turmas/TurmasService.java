@@ -0,0 +1,90 @@
+package org.vitor.appdistribuido.Turmas;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Turmas e matrículas. A lista de alunos da turma é lida por AlunosService.getAlunosDaTurma
+ * (cache "turmaAlunos"); aqui ficam as escritas, que invalidam essa lista e o ETag do cadastro.
+ */
+@Slf4j
+@Service
+@Timed(value = "app.service", description = "Métodos dos serviços")
+@RequiredArgsConstructor
+public class TurmasService {
+
+    private final TurmasRepository turmasRepository;
+    private final AlunosService alunosService;
+
+    public List<Turma> getTurmas() {
+        return turmasRepository.findAllByOrderByNomeAsc();
+    }
+
+    public Turma getTurmaById(Long turmaId) {
+        return turmasRepository.findById(turmaId)
+                .orElseThrow(() -> naoEncontrada(turmaId));
+    }
+
+    @Transactional
+    public Turma addNewTurma(Turma turma) {
+        Turma salva = turmasRepository.save(turma);
+        log.info("Nova turma: {} ({})", salva.getNome(), salva.getId());
+        return salva;
+    }
+
+    /* As matrículas saem junto (ON DELETE CASCADE) */
+    @Transactional
+    @CacheEvict(cacheNames = "turmaAlunos", allEntries = true)
+    public void deleteTurma(Long turmaId) {
+        if (!turmasRepository.existsById(turmaId)) {
+            throw naoEncontrada(turmaId);
+        }
+        turmasRepository.deleteById(turmaId);
+        alunosService.registrarAlteracaoCadastro();
+        log.info("Turma deletada: {}", turmaId);
+    }
+
+    /**
+     * Matricula vários alunos numa única instrução.
+     * @param turmaId A turma.
+     * @param alunoIds Os alunos; inexistentes e já matriculados são ignorados.
+     * @return Quantos alunos foram matriculados.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = "turmaAlunos", allEntries = true)
+    public int matricular(Long turmaId, Collection<Long> alunoIds) {
+        if (!turmasRepository.existsById(turmaId)) {
+            throw naoEncontrada(turmaId);
+        }
+        if (alunoIds == null || alunoIds.isEmpty()) {
+            return 0;
+        }
+        int matriculados = turmasRepository.matricular(turmaId, alunoIds);
+        alunosService.registrarAlteracaoCadastro();
+        return matriculados;
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = "turmaAlunos", allEntries = true)
+    public void desmatricular(Long turmaId, Long alunoId) {
+        if (turmasRepository.desmatricular(turmaId, alunoId) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "Aluno %d não está matriculado na turma %d".formatted(alunoId, turmaId));
+        }
+        alunosService.registrarAlteracaoCadastro();
+    }
+
+    private static ResponseStatusException naoEncontrada(Long turmaId) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Turma com id %d não encontrada".formatted(turmaId));
+    }
+}
@@ -0,0 +1,37 @@
+-- Esquema para o H2 (testes e benchmarks): o mesmo de db/migration/postgresql, sem
+-- particionamento nem INCLUDE, que o H2 não tem.
+
+CREATE SEQUENCE alunos_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE presencas_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE alunos (
+    id     BIGINT       NOT NULL,
+    name   VARCHAR(255) NOT NULL,
+    number INTEGER      NOT NULL,
+    CONSTRAINT pk_alunos PRIMARY KEY (id),
+    CONSTRAINT uk_alunos_number UNIQUE (number)
+);
+
+CREATE TABLE presencas (
+    id        BIGINT       NOT NULL,
+    aluno_id  BIGINT       NOT NULL,
+    data_hora TIMESTAMP(6),
+    presente  BOOLEAN,
+    dia       DATE         NOT NULL,
+    CONSTRAINT pk_presencas PRIMARY KEY (id),
+    CONSTRAINT uk_presencas_aluno_dia UNIQUE (aluno_id, dia),
+    CONSTRAINT fk_presencas_aluno FOREIGN KEY (aluno_id) REFERENCES alunos (id)
+);
+
+CREATE INDEX idx_presencas_aluno_data_hora ON presencas (aluno_id, data_hora);
+CREATE INDEX idx_presencas_dia ON presencas (dia);
+
+CREATE TABLE presencas_resumo_mensal (
+    aluno_id  BIGINT  NOT NULL,
+    mes       DATE    NOT NULL,
+    presentes INTEGER NOT NULL,
+    ausentes  INTEGER NOT NULL,
+    CONSTRAINT pk_presencas_resumo_mensal PRIMARY KEY (aluno_id, mes)
+);
+
+CREATE INDEX idx_presencas_resumo_mensal_mes ON presencas_resumo_mensal (mes);
@@ -0,0 +1,20 @@
+-- Turmas e matrículas. A chave primária (turma_id, aluno_id) atende a lista da turma;
+-- idx_turmas_alunos_aluno, as turmas de um aluno e a remoção em cascata de um aluno.
+
+CREATE SEQUENCE turmas_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE turmas (
+    id   BIGINT       NOT NULL,
+    nome VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_turmas PRIMARY KEY (id)
+);
+
+CREATE TABLE turmas_alunos (
+    turma_id BIGINT NOT NULL,
+    aluno_id BIGINT NOT NULL,
+    CONSTRAINT pk_turmas_alunos PRIMARY KEY (turma_id, aluno_id),
+    CONSTRAINT fk_turmas_alunos_turma FOREIGN KEY (turma_id) REFERENCES turmas (id) ON DELETE CASCADE,
+    CONSTRAINT fk_turmas_alunos_aluno FOREIGN KEY (aluno_id) REFERENCES alunos (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_turmas_alunos_aluno ON turmas_alunos (aluno_id);
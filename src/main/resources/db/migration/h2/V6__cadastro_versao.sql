@@ -0,0 +1,39 @@
+-- Versão do cadastro de alunos: a mesma de db/migration/postgresql. O H2 não tem gatilhos em
+-- SQL; o corpo do gatilho é código Java, compilado pelo H2 ao criá-lo. Em autocommit o H2 não
+-- deixa o gatilho executar comandos: só as escritas dentro de transação (todas as da aplicação)
+-- mudam a versão; as cargas diretas por JDBC dos testes e do JMH não.
+
+CREATE TABLE cadastro_versao (
+    id     INTEGER NOT NULL,
+    versao BIGINT  NOT NULL,
+    CONSTRAINT pk_cadastro_versao PRIMARY KEY (id),
+    CONSTRAINT ck_cadastro_versao_unica CHECK (id = 1)
+);
+
+INSERT INTO cadastro_versao (id, versao) VALUES (1, 0);
+
+CREATE TRIGGER trg_alunos_cadastro_versao
+    AFTER INSERT, UPDATE, DELETE ON alunos
+    FOR EACH STATEMENT AS '
+org.h2.api.Trigger create() {
+    return (conexao, antes, depois) -> {
+        if (!conexao.getAutoCommit()) {
+            try (java.sql.Statement comando = conexao.createStatement()) {
+                comando.executeUpdate("UPDATE cadastro_versao SET versao = versao + 1 WHERE id = 1");
+            }
+        }
+    };
+}';
+
+CREATE TRIGGER trg_turmas_alunos_cadastro_versao
+    AFTER INSERT, UPDATE, DELETE ON turmas_alunos
+    FOR EACH STATEMENT AS '
+org.h2.api.Trigger create() {
+    return (conexao, antes, depois) -> {
+        if (!conexao.getAutoCommit()) {
+            try (java.sql.Statement comando = conexao.createStatement()) {
+                comando.executeUpdate("UPDATE cadastro_versao SET versao = versao + 1 WHERE id = 1");
+            }
+        }
+    };
+}';
@@ -0,0 +1,10 @@
+-- O resumo mensal passa a referenciar o aluno, como presencas e presencas_compactadas: a
+-- reconstrução (Presenca/EstatisticasService) recalcula só os alunos existentes, em lotes, e não
+-- apaga mais a tabela inteira. ON DELETE CASCADE: o resumo é derivado, e um aluno sem presenças
+-- pode ainda ter linhas zeradas dos deltas.
+
+DELETE FROM presencas_resumo_mensal r
+WHERE NOT EXISTS (SELECT 1 FROM alunos a WHERE a.id = r.aluno_id);
+
+ALTER TABLE presencas_resumo_mensal
+    ADD CONSTRAINT fk_presencas_resumo_mensal_aluno FOREIGN KEY (aluno_id) REFERENCES alunos (id) ON DELETE CASCADE;
@@ -0,0 +1,15 @@
+-- Até onde presencas_compactadas pode ter dias (ver Presenca/PresencasCompactadas#podeConter):
+-- o dia seguinte ao fim do último período compactado, ou null se nada foi compactado. Vem do
+-- que foi gravado, e não da configuração: mudar app.compactacao.* não esconde dias já
+-- compactados. Só cresce; a compactação o eleva antes de mover as linhas de um período.
+
+CREATE TABLE presencas_compactadas_fim (
+    id  INTEGER NOT NULL,
+    fim DATE,
+    CONSTRAINT pk_presencas_compactadas_fim PRIMARY KEY (id),
+    CONSTRAINT ck_presencas_compactadas_fim_unica CHECK (id = 1)
+);
+
+-- Para o que já está compactado: o início de cada período mais os dias cobertos pelo bitset
+INSERT INTO presencas_compactadas_fim (id, fim)
+SELECT 1, MAX(DATEADD(DAY, OCTET_LENGTH(registrados) * 8, inicio)) FROM presencas_compactadas;
@@ -0,0 +1,46 @@
+-- Esquema inicial (até aqui gerado pelo Hibernate com ddl-auto: create-drop).
+-- presencas é particionada por mês em "dia" (ver V2): a chave natural (aluno_id, dia), alvo do
+-- ON CONFLICT do upsert, precisa conter a chave de partição, e "dia" é a data de data_hora.
+
+CREATE SEQUENCE alunos_sequence START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE presencas_sequence START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE alunos (
+    id     BIGINT       NOT NULL,
+    name   VARCHAR(255) NOT NULL,
+    number INTEGER      NOT NULL,
+    CONSTRAINT pk_alunos PRIMARY KEY (id),
+    CONSTRAINT uk_alunos_number UNIQUE (number)
+);
+
+CREATE TABLE presencas (
+    id        BIGINT       NOT NULL,
+    aluno_id  BIGINT       NOT NULL,
+    data_hora TIMESTAMP(6),
+    presente  BOOLEAN,
+    dia       DATE         NOT NULL,
+    CONSTRAINT pk_presencas PRIMARY KEY (id, dia),
+    -- INCLUDE: "presente em D?" e a matriz respondem só pelo índice
+    CONSTRAINT uk_presencas_aluno_dia UNIQUE (aluno_id, dia) INCLUDE (presente),
+    CONSTRAINT fk_presencas_aluno FOREIGN KEY (aluno_id) REFERENCES alunos (id)
+) PARTITION BY RANGE (dia);
+
+-- Período e data/hora exata de um aluno (findDTOsPorAlunoEPeriodo, findByAlunoAndDataHora[Between])
+CREATE INDEX idx_presencas_aluno_data_hora ON presencas (aluno_id, data_hora) INCLUDE (presente);
+
+-- Um dia (ou poucos) para todos os alunos: transmissão ao vivo, matriz
+CREATE INDEX idx_presencas_dia ON presencas (dia);
+
+-- Linhas de meses ainda sem partição própria; movidas quando a partição do mês é criada
+CREATE TABLE presencas_padrao PARTITION OF presencas DEFAULT;
+
+CREATE TABLE presencas_resumo_mensal (
+    aluno_id  BIGINT  NOT NULL,
+    mes       DATE    NOT NULL,
+    presentes INTEGER NOT NULL,
+    ausentes  INTEGER NOT NULL,
+    CONSTRAINT pk_presencas_resumo_mensal PRIMARY KEY (aluno_id, mes)
+);
+
+-- Frequências de um mês para todos os alunos (EstatisticasService)
+CREATE INDEX idx_presencas_resumo_mensal_mes ON presencas_resumo_mensal (mes);
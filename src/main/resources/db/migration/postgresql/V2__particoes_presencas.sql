@@ -0,0 +1,41 @@
+-- Manutenção das partições mensais de presencas, chamada pelo job ParticoesPresencas.
+
+CREATE SCHEMA IF NOT EXISTS arquivo;
+
+-- Cria a partição do mês (presencas_AAAA_MM), se ainda não existir. Linhas do mês que tenham
+-- caído na partição padrão são movidas para ela antes do ATTACH, que de outro modo falharia.
+-- Retorna true se a partição foi criada.
+CREATE FUNCTION presencas_criar_particao(mes DATE) RETURNS BOOLEAN
+LANGUAGE plpgsql AS $$
+DECLARE
+    inicio DATE := date_trunc('month', mes)::DATE;
+    fim    DATE := (date_trunc('month', mes) + INTERVAL '1 month')::DATE;
+    nome   TEXT := 'presencas_' || to_char(inicio, 'YYYY_MM');
+BEGIN
+    IF to_regclass(nome) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE presencas INCLUDING DEFAULTS)', nome);
+    EXECUTE format('WITH movidas AS (DELETE FROM presencas_padrao WHERE dia >= %L AND dia < %L RETURNING *) '
+                       || 'INSERT INTO %I SELECT * FROM movidas', inicio, fim, nome);
+    EXECUTE format('ALTER TABLE presencas ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)', nome, inicio, fim);
+    RETURN TRUE;
+END;
+$$;
+
+-- Desanexa a partição do mês e a move para o schema "arquivo": os dados saem das consultas
+-- da aplicação, mas continuam no banco para exportação ou consulta manual.
+-- Retorna true se havia uma partição a arquivar.
+CREATE FUNCTION presencas_arquivar_particao(mes DATE) RETURNS BOOLEAN
+LANGUAGE plpgsql AS $$
+DECLARE
+    nome TEXT := 'presencas_' || to_char(date_trunc('month', mes), 'YYYY_MM');
+BEGIN
+    IF to_regclass(nome) IS NULL THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('ALTER TABLE presencas DETACH PARTITION %I', nome);
+    EXECUTE format('ALTER TABLE %I SET SCHEMA arquivo', nome);
+    RETURN TRUE;
+END;
+$$;
@@ -0,0 +1,4 @@
+-- IDs de alunos reservados em blocos de 50 pelo Hibernate (allocationSize = 50 em Alunos):
+-- uma chamada à sequência a cada 50 inclusões, e não uma por inclusão. O incremento precisa
+-- ser igual ao allocationSize; os IDs já usados ficam abaixo do próximo bloco.
+ALTER SEQUENCE alunos_sequence INCREMENT BY 50;
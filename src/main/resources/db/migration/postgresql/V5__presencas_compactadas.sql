@@ -0,0 +1,17 @@
+-- Presenças de períodos encerrados, compactadas (ver Presenca/CompactacaoPresencas): uma linha
+-- por aluno e período em vez de uma por aluno e dia. Os bitsets cobrem os dias corridos do
+-- período (bit i = inicio + i dias, ordem de BitSet.toByteArray): "registrados" marca os dias
+-- com registro e "presentes" os de presença; registrado e não presente é falta.
+-- Um (aluno, dia) está em presencas ou aqui, nunca nos dois.
+
+CREATE TABLE presencas_compactadas (
+    aluno_id    BIGINT NOT NULL,
+    inicio      DATE   NOT NULL,
+    registrados BYTEA  NOT NULL,
+    presentes   BYTEA  NOT NULL,
+    CONSTRAINT pk_presencas_compactadas PRIMARY KEY (aluno_id, inicio),
+    CONSTRAINT fk_presencas_compactadas_aluno FOREIGN KEY (aluno_id) REFERENCES alunos (id)
+);
+
+-- Um período para todos os alunos (matriz de um período antigo)
+CREATE INDEX idx_presencas_compactadas_inicio ON presencas_compactadas (inicio);
@@ -0,0 +1,29 @@
+-- Versão do cadastro de alunos (ETag das listas de alunos e de turmas, ver Alunos/VersaoCadastro):
+-- uma linha só, incrementada por gatilho a cada comando que altera alunos ou matrículas. Fica no
+-- banco, e não em cada instância, para que todas respondam o mesmo ETag e percebam as escritas
+-- das outras. As escritas continuam com um comando cada: o gatilho roda dentro dele.
+
+CREATE TABLE cadastro_versao (
+    id     INTEGER NOT NULL,
+    versao BIGINT  NOT NULL,
+    CONSTRAINT pk_cadastro_versao PRIMARY KEY (id),
+    CONSTRAINT ck_cadastro_versao_unica CHECK (id = 1)
+);
+
+INSERT INTO cadastro_versao (id, versao) VALUES (1, 0);
+
+CREATE FUNCTION incrementar_cadastro_versao() RETURNS trigger LANGUAGE plpgsql AS $$
+BEGIN
+    UPDATE cadastro_versao SET versao = versao + 1 WHERE id = 1;
+    RETURN NULL;
+END
+$$;
+
+-- Por comando, e não por linha: uma importação em massa incrementa uma vez
+CREATE TRIGGER trg_alunos_cadastro_versao
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON alunos
+    FOR EACH STATEMENT EXECUTE FUNCTION incrementar_cadastro_versao();
+
+CREATE TRIGGER trg_turmas_alunos_cadastro_versao
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON turmas_alunos
+    FOR EACH STATEMENT EXECUTE FUNCTION incrementar_cadastro_versao();
@@ -4,6 +4,7 @@ document.addEventListener('DOMContentLoaded', () => {
      * ---------------------------------------------------------- */
     const API_ALUNOS     = 'http://localhost:8080/api/v1/alunos';
     const API_PRESENCAS  = 'http://localhost:8080/api/presencas';
+    const API_TURMAS     = 'http://localhost:8080/api/v1/turmas';
 
     /* ------------------------------------------------------------
      *  Elementos da página
@@ -20,6 +21,7 @@ document.addEventListener('DOMContentLoaded', () => {
     const listAlunoMessage  = document.getElementById('listAlunoMessage');
 
     // Chamada
+    const attendanceTurmaSelect = document.getElementById('attendanceTurma');
     const attendanceDateInput  = document.getElementById('attendanceDate');
     const startAttendanceBtn   = document.getElementById('startAttendance');
     const attendanceListDiv    = document.getElementById('attendanceList');
@@ -129,6 +131,21 @@ document.addEventListener('DOMContentLoaded', () => {
         }
     });
 
+    /* ------------------------------------------------------------
+     *  Carregar turmas (seletor da chamada)
+     * ---------------------------------------------------------- */
+    async function loadTurmas() {
+        try {
+            const res = await fetch(API_TURMAS);
+            if (!res.ok) throw new Error(await res.text());
+
+            const turmas = await res.json();
+            turmas.forEach(t => attendanceTurmaSelect.add(new Option(t.nome, t.id)));
+        } catch (err) {
+            console.error(err);
+        }
+    }
+
     /* ------------------------------------------------------------
      *  Evento: Listar alunos na chamada
      * ---------------------------------------------------------- */
@@ -145,7 +162,9 @@ document.addEventListener('DOMContentLoaded', () => {
         attendanceMessage.textContent = '';
 
         try {
-            const res = await fetch(API_ALUNOS);
+            // Com turma: só os alunos dela, já ordenados por número pelo servidor
+            const turmaId = attendanceTurmaSelect.value;
+            const res = await fetch(turmaId ? `${API_ALUNOS}?turmaId=${turmaId}` : API_ALUNOS);
             if (!res.ok) throw new Error(await res.text());
 
             const alunos = await res.json();
@@ -156,7 +175,7 @@ document.addEventListener('DOMContentLoaded', () => {
                 return;
             }
 
-            alunos.sort((a, b) => a.number - b.number);
+            if (!turmaId) alunos.sort((a, b) => a.number - b.number);
             alunos.forEach(a => {
                 const row = attendanceTableBody.insertRow();
                 row.insertCell(0).textContent = a.number;
@@ -199,40 +218,31 @@ document.addEventListener('DOMContentLoaded', () => {
             attendanceTableBody.querySelectorAll('input')
         ).map(cb => parseInt(cb.value, 10));
 
-        /* ---------- Salvar via API Presenças ---------- */
+        /* ---------- Salvar via API Presenças (uma única chamada em lote) ---------- */
         try {
             const isToday =
                 dateStr === new Date().toISOString().substring(0, 10); // yyyy-MM-dd
 
-            const requests = allIds.map(id => {
-                const presente = presentIds.includes(id);
-
-                if (!presente) return Promise.resolve(); // ausente -> ignorado
-
-                // Presente: usa /marcar ou /marcar-data
-                if (isToday) {
-                    return fetch(`${API_PRESENCAS}/marcar/${id}`, {
-                        method: 'POST'
-                    });
-                } else {
-                    const body = {
-                        alunoId: id,
-                        dataHora: `${dateStr}T00:00:00`
-                    };
-                    return fetch(`${API_PRESENCAS}/marcar-data`, {
-                        method: 'POST',
-                        headers: { 'Content-Type': 'application/json' },
-                        body: JSON.stringify(body)
-                    });
-                }
+            const body = {
+                // Hoje: deixa o servidor usar o momento atual
+                dataHora: isToday ? null : `${dateStr}T00:00:00`,
+                presentes: presentIds,
+                ausentes: allIds.filter(id => !presentIds.includes(id))
+            };
+
+            const res = await fetch(`${API_PRESENCAS}/chamada`, {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify(body)
             });
+            if (!res.ok) throw new Error(await res.text());
 
-            const results = await Promise.all(requests);
-            const failed  = results.filter(r => r && !r.ok);
+            const resultados = await res.json();
+            const failed = resultados.filter(r => r.status !== 'REGISTRADA');
 
             if (failed.length) {
-                const txt = await failed[0].text();
-                throw new Error(`Falha em ${failed.length} chamadas: ${txt}`);
+                const ids = failed.map(r => r.alunoId).join(', ');
+                throw new Error(`Falha em ${failed.length} alunos (IDs: ${ids})`);
             }
 
             showMessage(attendanceMessage, 'Chamada salva!', 'success');
@@ -251,4 +261,5 @@ document.addEventListener('DOMContentLoaded', () => {
     attendanceDateInput.value = new Date().toISOString().substring(0, 10);
 
     loadAlunos();
+    loadTurmas();
 });
@@ -0,0 +1,96 @@
+package org.vitor.appdistribuido.Admissao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ControleAdmissaoTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limiteCresceComLatenciaEstavelEEncolheQuandoAFilaSeForma() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("escrita", 10, 2, 100, Duration.ZERO, meterRegistry);
+
+        for (int janela = 0; janela < 20; janela++) {
+            ocuparELiberar(limite, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        int depoisDaCargaNormal = limite.limite();
+        assertThat(depoisDaCargaNormal).isGreaterThan(10);
+
+        for (int janela = 0; janela < 20; janela++) {
+            ocuparELiberar(limite, TimeUnit.MILLISECONDS.toNanos(10)); // latência 10x: fila no banco
+        }
+        assertThat(limite.limite()).isLessThan(depoisDaCargaNormal / 2);
+
+        assertThat(meterRegistry.get("app.admissao.limite").tag("classe", "escrita").gauge().value())
+                .isEqualTo(limite.limite());
+    }
+
+    @Test
+    void limiteNaoCresceSemDemanda() {
+        LimiteAdaptativo limite = new LimiteAdaptativo("leitura", 40, 10, 1000, Duration.ZERO, meterRegistry);
+        for (int i = 0; i < 200; i++) {
+            assertThat(limite.tentarAdquirir()).isTrue();
+            limite.liberar(TimeUnit.MILLISECONDS.toNanos(1)); // uma requisição por vez
+        }
+        assertThat(limite.limite()).isEqualTo(40);
+    }
+
+    @Test
+    void excedenteRecebe429ComRetryAfterSemAfetarLeituras() throws Exception {
+        LimiteAdaptativo escritas = new LimiteAdaptativo("escrita", 1, 1, 1, Duration.ZERO, meterRegistry);
+        LimiteAdaptativo leituras = new LimiteAdaptativo("leitura", 1, 1, 1, Duration.ZERO, meterRegistry);
+        ControleAdmissaoFilter filtro = new ControleAdmissaoFilter(escritas, leituras, 2);
+
+        MockHttpServletResponse excedente = new MockHttpServletResponse();
+        MockHttpServletResponse leitura = new MockHttpServletResponse();
+        MockHttpServletResponse transmissao = new MockHttpServletResponse();
+        // A primeira escrita ocupa a única vaga enquanto as demais chegam
+        filtro.doFilter(requisicao("POST", "/api/presencas/marcar/1"), new MockHttpServletResponse(), (req, res) -> {
+            filtro.doFilter(requisicao("POST", "/api/presencas/marcar/2"), excedente, (r, s) -> {
+                throw new AssertionError("não deveria ser admitida");
+            });
+            filtro.doFilter(requisicao("GET", "/api/presencas/aluno/1"), leitura,
+                    (r, s) -> ((MockHttpServletResponse) s).setStatus(200));
+            filtro.doFilter(requisicao("POST", "/api/presencas/csv"), transmissao,
+                    (r, s) -> ((MockHttpServletResponse) s).setStatus(200));
+        });
+
+        assertThat(excedente.getStatus()).isEqualTo(429);
+        assertThat(excedente.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(leitura.getStatus()).isEqualTo(200);
+        assertThat(transmissao.getStatus()).isEqualTo(200);
+        assertThat(escritas.emAndamento()).isZero();
+        assertThat(meterRegistry.get("app.admissao.rejeitadas").tag("classe", "escrita").counter().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("app.admissao.rejeitadas").tag("classe", "leitura").counter().count())
+                .isZero();
+    }
+
+    /* Uma janela com a demanda igual ao limite: ocupa todas as vagas e libera com a latência dada */
+    private static void ocuparELiberar(LimiteAdaptativo limite, long rttNanos) {
+        int vagas = Math.max(limite.limite(), 10);
+        int admitidas = 0;
+        for (int i = 0; i < vagas; i++) {
+            if (limite.tentarAdquirir()) {
+                admitidas++;
+            }
+        }
+        for (int i = 0; i < admitidas; i++) {
+            limite.liberar(rttNanos);
+        }
+    }
+
+    private static MockHttpServletRequest requisicao(String metodo, String uri) {
+        MockHttpServletRequest requisicao = new MockHttpServletRequest(metodo, uri);
+        requisicao.setRequestURI(uri);
+        return requisicao;
+    }
+}
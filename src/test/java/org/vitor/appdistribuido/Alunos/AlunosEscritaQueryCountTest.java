@@ -0,0 +1,108 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.Presenca;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Garante o número exato de comandos SQL de cada escrita do cadastro de alunos: a unicidade do
+ * número e a existência do aluno ficam a cargo do próprio comando, sem consulta antes.
+ */
+@SpringBootTest
+class AlunosEscritaQueryCountTest {
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    private Alunos ana;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        alunosRepository.deleteAll();
+        ana = new Alunos("Ana Silva", 1);
+        alunosService.addNewAluno(ana); // também garante um bloco de IDs já reservado
+    }
+
+    @Test
+    void inclusaoCustaUmInsertEASequenciaUmaVezACadaCinquenta() {
+        // 50 IDs consecutivos atravessam exatamente um limite de bloco, qualquer que seja o ponto de partida
+        int comandos = ContadorSql.medir(() -> {
+            for (int i = 2; i <= 50; i++) {
+                alunosService.addNewAluno(new Alunos("Aluno " + i, i));
+            }
+            assertThatThrownBy(() -> alunosService.addNewAluno(new Alunos("Repetido", 2)))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        });
+
+        assertThat(comandos).isEqualTo(50 + 1);
+        assertThat(alunosRepository.count()).isEqualTo(50);
+    }
+
+    @Test
+    void exclusaoCustaUmDelete() {
+        assertThat(ContadorSql.medir(() -> alunosService.deleteAluno(ana.getId()))).isEqualTo(1);
+        assertThat(alunosRepository.existsById(ana.getId())).isFalse();
+
+        assertThat(ContadorSql.medir(() -> assertStatus(
+                () -> alunosService.deleteAluno(ana.getId()), HttpStatus.NOT_FOUND))).isEqualTo(1);
+    }
+
+    @Test
+    void exclusaoDeAlunoComPresencasCustaUmComandoEResponde409() {
+        presencaRepository.save(new Presenca(ana, LocalDateTime.of(2025, 6, 2, 8, 0), true));
+
+        assertThat(ContadorSql.medir(() -> assertStatus(
+                () -> alunosService.deleteAluno(ana.getId()), HttpStatus.CONFLICT))).isEqualTo(1);
+        assertThat(alunosRepository.existsById(ana.getId())).isTrue();
+    }
+
+    @Test
+    void alteracaoCustaUmUpdateSoDasColunasInformadas() {
+        alunosService.addNewAluno(new Alunos("Bruno Costa", 2));
+
+        assertThat(ContadorSql.medir(() -> alunosService.updateAluno(ana.getId(), "Ana Souza", null))).isEqualTo(1);
+        assertThat(ContadorSql.medir(() -> alunosService.updateAluno(ana.getId(), null, 10))).isEqualTo(1);
+        assertThat(alunosRepository.findById(ana.getId())).get()
+                .satisfies(aluno -> {
+                    assertThat(aluno.getName()).isEqualTo("Ana Souza");
+                    assertThat(aluno.getNumber()).isEqualTo(10);
+                });
+
+        assertThat(ContadorSql.medir(() -> assertStatus(
+                () -> alunosService.updateAluno(ana.getId(), null, 2), HttpStatus.CONFLICT))).isEqualTo(1);
+        assertThat(ContadorSql.medir(() -> assertStatus(
+                () -> alunosService.updateAluno(-1L, "Ninguém", null), HttpStatus.NOT_FOUND))).isEqualTo(1);
+        assertThat(alunosRepository.findById(ana.getId())).get()
+                .extracting(Alunos::getNumber).isEqualTo(10);
+    }
+
+    private static void assertStatus(Runnable escrita, HttpStatus esperado) {
+        assertThatThrownBy(escrita::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(esperado));
+    }
+}
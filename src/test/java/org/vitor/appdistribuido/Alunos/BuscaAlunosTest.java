@@ -0,0 +1,139 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BuscaAlunosTest {
+
+    @Autowired
+    private IndiceBuscaAlunos indiceBuscaAlunos;
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private VersaoCadastro versaoCadastro;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        alunosRepository.deleteAll();
+        alunosRepository.saveAll(List.of(
+                new Alunos("João Silva", 12),
+                new Alunos("Joana Souza", 120),
+                new Alunos("Ana Júlia Conceição", 7),
+                new Alunos("Mariana Silveira", 1203),
+                new Alunos("Silvio Santos", 3)));
+        indiceBuscaAlunos.reconstruir();
+    }
+
+    @Test
+    void buscaPorPrefixoSemAcentosEComErrosDeDigitacao() {
+        assertThat(nomes("joa")).containsExactly("Joana Souza", "João Silva");
+        assertThat(nomes("JOAO sil")).containsExactly("João Silva");
+        assertThat(nomes("conceicao")).containsExactly("Ana Júlia Conceição");
+        // Exato antes de prefixo, prefixo antes de aproximado
+        assertThat(nomes("silva")).containsExactly("João Silva", "Mariana Silveira", "Silvio Santos");
+        // Dentro do nível, primeiro quem começa pelo termo buscado
+        assertThat(nomes("silv")).containsExactly("Silvio Santos", "João Silva", "Mariana Silveira");
+        assertThat(nomes("ana")).containsExactly("Ana Júlia Conceição");
+        assertThat(nomes("jaoo silav")).containsExactly("João Silva");
+        assertThat(nomes("mraiana")).containsExactly("Mariana Silveira");
+        assertThat(nomes("xyz")).isEmpty();
+    }
+
+    @Test
+    void buscaPorPrefixoDoNumero() {
+        assertThat(indiceBuscaAlunos.buscar("12", 10)).extracting(AlunoResumo::number).containsExactly(12, 120, 1203);
+        assertThat(indiceBuscaAlunos.buscar("12", 2)).extracting(AlunoResumo::number).containsExactly(12, 120);
+        assertThat(indiceBuscaAlunos.buscar("7", 10)).extracting(AlunoResumo::name).containsExactly("Ana Júlia Conceição");
+        assertThat(indiceBuscaAlunos.buscar("012", 10)).isEmpty();
+    }
+
+    @Test
+    void respondeSemIrAoBanco() {
+        assertThat(ContadorSql.medir(() -> {
+            indiceBuscaAlunos.buscar("joao silav", 10);
+            indiceBuscaAlunos.buscar("120", 10);
+        })).isZero();
+    }
+
+    @Test
+    void acompanhaAsEscritasDoCadastro() throws InterruptedException {
+        Alunos bruno = new Alunos("Bruno Araújo", 40);
+        alunosService.addNewAluno(bruno);
+        assertThat(nomes("arau")).containsExactly("Bruno Araújo");
+
+        alunosService.updateAluno(bruno.getId(), "Bruno Costa", null);
+        assertThat(nomes("arau")).isEmpty();
+        assertThat(indiceBuscaAlunos.buscar("40", 10)).extracting(AlunoResumo::name).containsExactly("Bruno Costa");
+
+        alunosService.updateAluno(bruno.getId(), null, 41);
+        assertThat(indiceBuscaAlunos.buscar("40", 10)).isEmpty();
+        assertThat(indiceBuscaAlunos.buscar("41", 10)).extracting(AlunoResumo::name).containsExactly("Bruno Costa");
+
+        alunosService.deleteAluno(bruno.getId());
+        assertThat(nomes("bruno")).isEmpty();
+
+        alunosService.importarAlunos(new ByteArrayInputStream(
+                "name,number\nÉrica Nogueira,50\n".getBytes(StandardCharsets.UTF_8)));
+        aguardarBusca("erica"); // a importação remonta o índice fora da requisição
+        assertThat(nomes("erica")).containsExactly("Érica Nogueira");
+        assertThat(indiceBuscaAlunos.estado().alunos()).isEqualTo(6);
+    }
+
+    @Test
+    void verificacaoPeriodicaTrazAsEscritasDeOutraInstancia() {
+        // Outra instância cadastra um aluno: nenhum evento chega a este índice
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO alunos (id, name, number) VALUES (nextval('alunos_sequence'), 'Carla Dias', 60)"));
+        assertThat(nomes("carla")).isEmpty();
+
+        versaoCadastro.verificar();
+        indiceBuscaAlunos.atualizar();
+        assertThat(nomes("carla")).containsExactly("Carla Dias");
+        // Sem mudança na versão, a verificação não vai ao banco de novo
+        assertThat(ContadorSql.medir(indiceBuscaAlunos::atualizar)).isZero();
+    }
+
+    private void aguardarBusca(String consulta) throws InterruptedException {
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (nomes(consulta).isEmpty() && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> nomes(String consulta) {
+        return indiceBuscaAlunos.buscar(consulta, 10).stream().map(AlunoResumo::name).toList();
+    }
+}
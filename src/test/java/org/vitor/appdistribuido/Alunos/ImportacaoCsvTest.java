@@ -0,0 +1,128 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.vitor.appdistribuido.Common.ResultadoImportacao;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.ImportacaoPresencas;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Importação e exportação em CSV: a carga de alunos custa um número fixo de comandos SQL,
+ * independente do tamanho do arquivo, e as recusas saem no relatório com a linha de origem.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ImportacaoCsvTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private ImportacaoPresencas importacaoPresencas;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        alunosRepository.deleteAll();
+    }
+
+    @Test
+    void importaDezMilAlunosEmPoucosComandosERelataAsRecusas() {
+        alunosRepository.save(new Alunos("Já Cadastrado", 5));
+
+        StringBuilder csv = new StringBuilder("name,number\n");
+        for (int i = 1; i <= 10_000; i++) {
+            csv.append("Aluno ").append(i).append(',').append(i).append('\n');
+        }
+        csv.append("\"Silva, Ana\",10001\n");  // linha 10002: vírgula entre aspas
+        csv.append("Repetido,10001\n");        // linha 10003
+        csv.append("Sem Número,abc\n");        // linha 10004
+
+        ResultadoImportacao[] resultado = new ResultadoImportacao[1];
+        int comandos = ContadorSql.medir(() -> resultado[0] = alunosService.importarAlunos(
+                new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(resultado[0].importados()).isEqualTo(10_000); // 1..10000 sem o 5, mais o 10001
+        assertThat(resultado[0].rejeitados()).isEqualTo(3);
+        assertThat(resultado[0].erros()).extracting(ResultadoImportacao.Erro::linha)
+                .containsExactly(6L, 10_003L, 10_004L);
+        assertThat(alunosRepository.count()).isEqualTo(10_001);
+        assertThat(alunosRepository.findByNumber(10_001)).get()
+                .extracting(Alunos::getName).isEqualTo("Silva, Ana");
+        // tabela temporária, 10 lotes de 1000, recusas, INSERT ... SELECT e DROP
+        assertThat(comandos).isLessThanOrEqualTo(16);
+    }
+
+    @Test
+    void exportacaoDeAlunosPodeSerReimportada() throws Exception {
+        alunosRepository.save(new Alunos("Ana \"Aninha\" Silva", 1));
+        alunosRepository.save(new Alunos("Bruno Costa", 2));
+
+        MvcResult inicio = mockMvc.perform(get("/api/v1/alunos/csv")).andReturn();
+        String csv = mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(csv).startsWith("id,name,number\n").contains(",\"Ana \"\"Aninha\"\" Silva\",1\n");
+
+        alunosRepository.deleteAll();
+        mockMvc.perform(post("/api/v1/alunos/csv").contentType("text/csv").content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importados").value(2))
+                .andExpect(jsonPath("$.rejeitados").value(0));
+        assertThat(alunosRepository.findByNumber(1)).get()
+                .extracting(Alunos::getName).isEqualTo("Ana \"Aninha\" Silva");
+    }
+
+    @Test
+    void importaPresencasPeloCaminhoDeEscritaERecusaAlunosInexistentes() throws Exception {
+        Alunos ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        String csv = """
+                alunoId,dataHora,presente
+                %d,2025-06-02T08:00:00,true
+                %d,2025-06-03T08:00:00,false
+                %d,2025-06-03T09:00:00
+                999999,2025-06-02T08:00:00,true
+                %d,ontem,true
+                """.formatted(ana.getId(), ana.getId(), ana.getId(), ana.getId());
+
+        ResultadoImportacao resultado = importacaoPresencas.importar(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(resultado.importados()).isEqualTo(3);
+        assertThat(resultado.erros()).extracting(ResultadoImportacao.Erro::linha).containsExactly(5L, 6L);
+        // as duas linhas de 03/06 são o mesmo (aluno, dia): vale a última
+        assertThat(presencaRepository.count()).isEqualTo(2);
+        assertThat(resumoMensalRepository.findAll()).singleElement()
+                .satisfies(resumo -> assertThat(resumo.getPresentes()).isEqualTo(2));
+    }
+}
@@ -0,0 +1,106 @@
+package org.vitor.appdistribuido.Alunos;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * O ETag do cadastro vem do banco: o mesmo em todas as instâncias, e uma escrita feita por outra
+ * instância (aqui, direto no banco) muda o ETag e esvazia o cache local na verificação seguinte.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class VersaoCadastroTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private VersaoCadastro versaoCadastro;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Alunos ana;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        alunosRepository.deleteAll();
+        ana = new Alunos("Ana Silva", 1);
+        alunosService.addNewAluno(ana);
+    }
+
+    @Test
+    void etagEAVersaoDoBancoEMudaAposUmaEscritaLocal() throws Exception {
+        String etag = etag();
+        assertThat(etag).isEqualTo("\"" + versaoNoBanco() + "-application/json\"");
+        mockMvc.perform(get("/api/v1/alunos").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // A escrita continua com um comando: quem incrementa a versão é o gatilho
+        assertThat(ContadorSql.medir(() -> alunosService.updateAluno(ana.getId(), "Ana Souza", null))).isEqualTo(1);
+
+        assertThat(etag()).isNotEqualTo(etag).isEqualTo("\"" + versaoNoBanco() + "-application/json\"");
+        mockMvc.perform(get("/api/v1/alunos").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Ana Souza"));
+    }
+
+    @Test
+    void escritaDeOutraInstanciaEsvaziaOCacheLocalNaVerificacao() throws Exception {
+        String etag = etag(); // lista em cache
+        mockMvc.perform(get("/api/v1/alunos/{id}", ana.getId())).andExpect(status().isOk());
+
+        // Outra instância altera o aluno: o cache desta não fica sabendo pelo @CacheEvict
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE alunos SET name = 'Ana Souza' WHERE id = ?", ana.getId()));
+        versaoCadastro.verificar();
+
+        assertThat(etag()).isNotEqualTo(etag);
+        mockMvc.perform(get("/api/v1/alunos"))
+                .andExpect(jsonPath("$[0].name").value("Ana Souza"));
+        mockMvc.perform(get("/api/v1/alunos/{id}", ana.getId()))
+                .andExpect(jsonPath("$.name").value("Ana Souza"));
+    }
+
+    private String etag() throws Exception {
+        return mockMvc.perform(get("/api/v1/alunos"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private long versaoNoBanco() {
+        return jdbcTemplate.queryForObject("SELECT versao FROM cadastro_versao", Long.class);
+    }
+}
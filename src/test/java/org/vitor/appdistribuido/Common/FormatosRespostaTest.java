@@ -0,0 +1,151 @@
+package org.vitor.appdistribuido.Common;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.PresencaService;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Negociação de conteúdo: JSON continua o padrão; CBOR e o formato colunar só quando pedidos,
+ * e o colunar em CBOR tem o mesmo conteúdo do colunar em JSON.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class FormatosRespostaTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    private Alunos ana;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        alunosRepository.deleteAll();
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        alunosRepository.save(new Alunos("Bruno Costa", 2));
+        presencaService.marcarPresenca(ana.getId(), DIA.atTime(8, 0, 30), true);
+        presencaService.marcarPresenca(ana.getId(), DIA.plusDays(1).atTime(9, 15), false);
+    }
+
+    @Test
+    void semAcceptContinuaJson() throws Exception {
+        mockMvc.perform(get("/api/v1/alunos").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].name").exists());
+    }
+
+    @Test
+    void cadaFormatoTemOSeuETagEVaryAccept() throws Exception {
+        String json = etag(MediaType.APPLICATION_JSON);
+        String cbor = etag(MediaType.APPLICATION_CBOR);
+        String colunar = etag(ColunarHttpMessageConverter.JSON);
+        assertThat(List.of(json, cbor, colunar)).doesNotHaveDuplicates();
+
+        // O ETag do JSON não vale para o CBOR: 200 com o corpo em CBOR
+        mockMvc.perform(get("/api/v1/alunos").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, cbor));
+        mockMvc.perform(get("/api/v1/alunos").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cbor))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, cbor))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    private String etag(MediaType formato) throws Exception {
+        return mockMvc.perform(get("/api/v1/alunos").accept(formato))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    @Test
+    void colunarEmEndpointSemListaResponde406() throws Exception {
+        mockMvc.perform(get("/api/v1/alunos/{id}", ana.getId()).accept(ColunarHttpMessageConverter.JSON))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/v1/alunos/{id}", ana.getId()).accept(ColunarHttpMessageConverter.CBOR))
+                .andExpect(status().isNotAcceptable());
+        mockMvc.perform(get("/api/v1/alunos/{id}", ana.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void presencasEmColunasReferenciamOAlunoPelaPosicao() throws Exception {
+        String url = "/api/presencas/aluno/" + ana.getId();
+        mockMvc.perform(get(url).accept(ColunarHttpMessageConverter.JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColunarHttpMessageConverter.JSON))
+                .andExpect(jsonPath("$.alunos").value(contains(ana.getId().intValue())))
+                .andExpect(jsonPath("$.aluno").value(contains(0, 0)))
+                .andExpect(jsonPath("$.dia").value(contains((int) DIA.toEpochDay(), (int) DIA.toEpochDay() + 1)))
+                .andExpect(jsonPath("$.hora").value(contains(28_830_000, 33_300_000)))
+                .andExpect(jsonPath("$.presente").value(contains(1, 0)));
+
+        byte[] json = mockMvc.perform(get(url).accept(ColunarHttpMessageConverter.JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] cbor = mockMvc.perform(get(url).accept(ColunarHttpMessageConverter.CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        assertThat(new CBORMapper().readTree(cbor)).isEqualTo(objectMapper.readTree(json));
+        assertThat(cbor.length).isLessThan(json.length);
+    }
+
+    @Test
+    void alunosEmCborEEmColunas() throws Exception {
+        byte[] cbor = mockMvc.perform(get("/api/v1/alunos/sortedByName").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode alunos = new CBORMapper().readTree(cbor);
+        assertThat(alunos.size()).isEqualTo(2);
+        assertThat(alunos.get(0).get("name").asText()).isEqualTo("Ana Silva");
+
+        mockMvc.perform(get("/api/v1/alunos/sortedByName").accept(ColunarHttpMessageConverter.JSON))
+                .andExpect(jsonPath("$.name").value(contains("Ana Silva", "Bruno Costa")))
+                .andExpect(jsonPath("$.number").value(contains(1, 2)));
+    }
+}
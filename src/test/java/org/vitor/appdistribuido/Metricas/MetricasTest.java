@@ -0,0 +1,79 @@
+package org.vitor.appdistribuido.Metricas;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.PresencaService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    private Alunos ana;
+    private Alunos bruno;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+    }
+
+    @Test
+    void contaComandosSqlPorRequisicaoETempoDosServicos() throws Exception {
+        mockMvc.perform(get("/api/presencas/aluno/{id}", ana.getId())).andExpect(status().isOk());
+
+        DistributionSummary porRequisicao = meterRegistry.find("app.sql.por.requisicao")
+                .tag("uri", "/api/presencas/aluno/{alunoId}").summary();
+        assertThat(porRequisicao).isNotNull();
+        assertThat(porRequisicao.max()).isEqualTo(1.0);
+
+        assertThat(meterRegistry.find("app.service")
+                .tag("class", PresencaService.class.getName())
+                .tag("method", "buscarPresencasPorAluno").timer()).isNotNull();
+        assertThat(meterRegistry.find("app.json.serializacao").timer().count()).isPositive();
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+    }
+
+    @Test
+    void contadorIncluiComandosDoJdbcTemplate() {
+        // trava dos alunos + estado anterior + lote de upserts + lote do resumo mensal; os IDs vêm
+        // do bloco de 50 já reservado ou, se ele acabou no meio da chamada, de uma ida à sequência
+        int comandos = ContadorSql.medir(() -> presencaService.registrarChamada(
+                LocalDateTime.of(2025, 6, 2, 8, 0), List.of(ana.getId()), List.of(bruno.getId())));
+
+        assertThat(comandos).isBetween(4, 5);
+        assertThat(meterRegistry.find("app.sql").tag("tipo", "insert").timer().count()).isPositive();
+    }
+}
@@ -0,0 +1,79 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "app.checkin.assincrono=true")
+class CheckinAssincronoTest {
+
+    private static final LocalDateTime AULA = LocalDateTime.of(2025, 6, 2, 8, 0);
+
+    @TempDir
+    static Path diretorioLog;
+
+    @DynamicPropertySource
+    static void propriedades(DynamicPropertyRegistry registry) {
+        registry.add("app.checkin.diretorio-log", diretorioLog::toString);
+    }
+
+    @Autowired
+    private CheckinAssincrono checkinAssincrono;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @BeforeEach
+    void setUp() {
+        resumoMensalRepository.deleteAll();
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+    }
+
+    @Test
+    void aceitaCheckinsEGravaEmLote() throws InterruptedException {
+        Alunos ana = alunosRepository.save(new Alunos("Ana Silva", 1)); // fora do conjunto: confirmado no banco
+        Alunos bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+
+        RegistroCheckin primeiro = checkinAssincrono.registrar(ana.getId(), AULA, true);
+        checkinAssincrono.registrar(bruno.getId(), AULA, true);
+        RegistroCheckin ultimo = checkinAssincrono.registrar(bruno.getId(), AULA.plusHours(1), false); // mesmo dia
+        assertThat(ultimo.sequencia()).isEqualTo(primeiro.sequencia() + 2);
+
+        assertThatThrownBy(() -> checkinAssincrono.registrar(-1L, AULA, true))
+                .isInstanceOf(NoSuchElementException.class);
+
+        aguardarGravacao(ultimo.sequencia());
+        assertThat(presencaRepository.findAll())
+                .extracting(Presenca::getPresente)
+                .containsExactlyInAnyOrder(true, false);
+        assertThat(checkinAssincrono.estado().pendentes()).isZero();
+    }
+
+    private void aguardarGravacao(long sequencia) throws InterruptedException {
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (checkinAssincrono.estado().confirmada() < sequencia && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(checkinAssincrono.estado().confirmada()).isGreaterThanOrEqualTo(sequencia);
+    }
+}
@@ -0,0 +1,170 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+class CompactacaoPresencasTest {
+
+    // Primeiro semestre de 2024: encerrado (semestres, carência de 30 dias)
+    private static final LocalDate SEGUNDA = LocalDate.of(2024, 3, 4);
+    private static final LocalDate TERCA = SEGUNDA.plusDays(1);
+    private static final LocalDate JUNHO = LocalDate.of(2024, 6, 28);
+
+    @Autowired
+    private CompactacaoPresencas compactacaoPresencas;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private EstatisticasService estatisticasService;
+
+    @Autowired
+    private IndicePresencas indicePresencas;
+
+    @Autowired
+    private PresencasCompactadas presencasCompactadas;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Alunos ana;
+    private Alunos bruno;
+    private LocalDateTime hoje;
+
+    @BeforeEach
+    void setUp() {
+        limpar();
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+        hoje = LocalDate.now().atTime(8, 0);
+
+        presencaService.registrarChamada(SEGUNDA.atTime(8, 0), List.of(ana.getId()), List.of(bruno.getId()));
+        presencaService.registrarChamada(TERCA.atTime(8, 0), List.of(bruno.getId()), List.of(ana.getId()));
+        presencaService.marcarPresenca(ana.getId(), JUNHO.atTime(8, 0), true);
+        presencaService.marcarPresenca(ana.getId(), hoje, true); // período aberto: fica em presencas
+    }
+
+    // Os registros compactados impedem excluir os alunos nos outros testes
+    @AfterEach
+    void limpar() {
+        jdbcTemplate.update("DELETE FROM presencas_compactadas");
+        resumoMensalRepository.deleteAll();
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+    }
+
+    @Test
+    void compactaPeriodosEncerradosSemMudarAsConsultas() {
+        List<List<Object>> periodoAntes = dias(presencaService.buscarPresencasPorAlunoEPeriodo(ana.getId(), SEGUNDA, hoje.toLocalDate()));
+        MatrizPresencas matrizAntes = presencaService.buscarMatriz(SEGUNDA, TERCA, null);
+        List<List<Object>> resumoAntes = resumo();
+
+        CompactacaoPresencas.Resultado resultado = compactacaoPresencas.compactar();
+
+        assertThat(resultado.periodos()).containsExactly(LocalDate.of(2024, 1, 1));
+        assertThat(resultado.alunos()).isEqualTo(2);
+        assertThat(resultado.registros()).isEqualTo(5);
+        assertThat(presencaRepository.findAllDTOs()).extracting(PresencaDTO::dataHora).containsExactly(hoje);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM presencas_compactadas", Integer.class)).isEqualTo(2);
+        // Só os dias até o fim do período compactado passam a consultar presencas_compactadas
+        assertThat(presencasCompactadas.podeConter(JUNHO)).isTrue();
+        assertThat(presencasCompactadas.podeConter(LocalDate.of(2024, 7, 1))).isFalse();
+
+        // Consultas por aluno e período, por dia e matriz: os mesmos registros (os compactados sem ID e sem hora)
+        List<PresencaDTO> periodo = presencaService.buscarPresencasPorAlunoEPeriodo(ana.getId(), SEGUNDA, hoje.toLocalDate());
+        assertThat(dias(periodo)).isEqualTo(periodoAntes);
+        assertThat(periodo).extracting(PresencaDTO::id).first().isNull();
+        assertThat(periodo).extracting(PresencaDTO::dataHora).first().isEqualTo(SEGUNDA.atStartOfDay());
+        assertThat(presencaService.buscarPresencasPorAlunoEPeriodo(ana.getId(), TERCA, TERCA))
+                .extracting(PresencaDTO::presente).containsExactly(false);
+        assertThat(presencaService.buscarPresencasPorAluno(ana.getId())).hasSize(4);
+
+        // A exportação leva também os compactados, sem ID
+        List<PresencaDTO> exportadas = new ArrayList<>();
+        presencaService.exportarPresencas(exportadas::add);
+        assertThat(exportadas).hasSize(6).filteredOn(p -> p.id() == null).hasSize(5);
+        assertThat(presencaService.buscarMatriz(SEGUNDA, TERCA, null)).isEqualTo(matrizAntes);
+        assertThat(presencaService.buscarPresencasNoDia(SEGUNDA, List.of(ana.getId(), bruno.getId())))
+                .extracting(PresencaDTO::alunoId, PresencaDTO::presente)
+                .containsExactlyInAnyOrder(tuple(ana.getId(), true), tuple(bruno.getId(), false));
+
+        // "Presente em D?" com o índice remontado e também pelo banco
+        indicePresencas.reconstruir();
+        assertThat(indicePresencas.verificar()).isEmpty();
+        assertThat(presencaService.verificarPresencaNoDia(ana.getId(), SEGUNDA)).isTrue();
+        assertThat(presencaService.verificarPresencaNoDia(ana.getId(), TERCA)).isFalse();
+        assertThat(presencaService.verificarPresencaNoDia(bruno.getId(), TERCA)).isTrue();
+
+        // O resumo mensal não muda, nem quando reconstruído
+        assertThat(resumo()).isEqualTo(resumoAntes);
+        estatisticasService.reconstruir();
+        assertThat(resumo()).isEqualTo(resumoAntes);
+
+        assertThat(compactacaoPresencas.compactar().periodos()).isEmpty();
+    }
+
+    @Test
+    void escritaNumDiaCompactadoOTiraDaCompactacao() {
+        compactacaoPresencas.compactar();
+
+        // Falta de terça vira presença: o dia volta para presencas e o resumo troca uma falta por uma presença
+        PresencaDTO gravada = presencaService.marcarPresenca(ana.getId(), TERCA.atTime(9, 30), true);
+
+        assertThat(gravada.id()).isNotNull();
+        assertThat(presencaService.verificarPresencaNoDia(ana.getId(), TERCA)).isTrue();
+        assertThat(presencaService.buscarPresencasPorAlunoEPeriodo(ana.getId(), SEGUNDA, TERCA))
+                .extracting(PresencaDTO::dataHora, PresencaDTO::presente)
+                .containsExactly(tuple(SEGUNDA.atStartOfDay(), true), tuple(TERCA.atTime(9, 30), true));
+        assertThat(resumo()).contains(List.of(ana.getId(), SEGUNDA.withDayOfMonth(1), 2, 0));
+
+        List<List<Object>> resumo = resumo();
+        estatisticasService.reconstruir();
+        assertThat(resumo()).isEqualTo(resumo);
+
+        // A próxima compactação recolhe o dia de novo
+        CompactacaoPresencas.Resultado resultado = compactacaoPresencas.compactar();
+        assertThat(resultado.registros()).isEqualTo(1);
+        assertThat(presencaService.buscarPresencasPorAlunoEPeriodo(ana.getId(), SEGUNDA, TERCA))
+                .extracting(PresencaDTO::dataHora, PresencaDTO::presente)
+                .containsExactly(tuple(SEGUNDA.atStartOfDay(), true), tuple(TERCA.atStartOfDay(), true));
+    }
+
+    /* (aluno, dia, presente): o que as consultas devolvem, sem ID nem hora */
+    private static List<List<Object>> dias(List<PresencaDTO> presencas) {
+        return presencas.stream()
+                .map(p -> List.<Object>of(p.alunoId(), p.dataHora().toLocalDate(), p.presente()))
+                .toList();
+    }
+
+    private List<List<Object>> resumo() {
+        return resumoMensalRepository.findAll(Sort.by("alunoId", "mes")).stream()
+                .map(r -> List.<Object>of(r.getAlunoId(), r.getMes(), r.getPresentes(), r.getAusentes()))
+                .toList();
+    }
+}
@@ -0,0 +1,106 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class EstatisticasServiceTest {
+
+    private static final YearMonth JUNHO = YearMonth.of(2025, 6);
+    private static final YearMonth JULHO = YearMonth.of(2025, 7);
+
+    @Autowired
+    private EstatisticasService estatisticasService;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    private Alunos ana;
+    private Alunos bruno;
+
+    @BeforeEach
+    void setUp() {
+        resumoMensalRepository.deleteAll();
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+
+        LocalDate junho = JUNHO.atDay(2);
+        LocalDate julho = JULHO.atDay(1);
+        presencaRepository.saveAll(List.of(
+                new Presenca(ana, junho.atTime(8, 0), true),
+                new Presenca(ana, junho.plusDays(1).atTime(8, 0), true),
+                new Presenca(ana, julho.atTime(8, 0), false),
+                new Presenca(bruno, junho.atTime(8, 0), false),
+                new Presenca(bruno, junho.plusDays(1).atTime(8, 0), true),
+                new Presenca(bruno, julho.atTime(8, 0), false)));
+
+        assertThat(estatisticasService.reconstruir()).isEqualTo(4);
+    }
+
+    @Test
+    void reconstroiResumoPorAlunoEMes() {
+        EstatisticasService.FrequenciaPeriodo ana = estatisticasService.buscarFrequenciaDoAluno(this.ana.getId(), JUNHO, JULHO);
+
+        assertThat(ana.meses()).extracting(ResumoMensal::getMes).containsExactly(JUNHO.atDay(1), JULHO.atDay(1));
+        assertThat(ana.meses()).extracting(ResumoMensal::getPresentes).containsExactly(2, 0);
+        assertThat(ana.total()).isEqualTo(new FrequenciaAluno(this.ana.getId(), 2L, 1L));
+
+        assertThat(estatisticasService.buscarFrequenciasDoMes(JULHO))
+                .extracting(FrequenciaAluno::ausentes).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void listaAlunosAbaixoDoLimite() {
+        // Ana: 2/3 ≈ 0,67; Bruno: 1/3 ≈ 0,33
+        assertThat(estatisticasService.buscarAbaixoDoLimite(JUNHO, JULHO, 0.75))
+                .extracting(FrequenciaAluno::alunoId).containsExactly(bruno.getId(), ana.getId());
+        assertThat(estatisticasService.buscarAbaixoDoLimite(JUNHO, JULHO, 0.5))
+                .extracting(FrequenciaAluno::alunoId).containsExactly(bruno.getId());
+        assertThat(estatisticasService.buscarAbaixoDoLimite(JUNHO, JUNHO, 0.5)).isEmpty();
+    }
+
+    @Test
+    void escritasMantemResumoIgualAoReconstruido() {
+        LocalDateTime aula = JULHO.atDay(2).atTime(8, 0);
+        presencaService.marcarPresenca(ana.getId(), aula, true);
+        presencaService.marcarPresenca(ana.getId(), aula.plusHours(1), false); // mesmo dia: vira falta
+        PresencaDTO doBruno = presencaService.marcarPresenca(bruno.getId(), aula, true);
+        presencaService.deletarPresenca(doBruno.id());
+
+        List<List<Object>> incremental = resumo();
+        assertThat(incremental).contains(List.of(ana.getId(), JULHO.atDay(1), 0, 2));
+
+        estatisticasService.reconstruir();
+        assertThat(resumo()).isEqualTo(incremental);
+    }
+
+    private List<List<Object>> resumo() {
+        return resumoMensalRepository.findAll(Sort.by("alunoId", "mes")).stream()
+                .map(r -> List.<Object>of(r.getAlunoId(), r.getMes(), r.getPresentes(), r.getAusentes()))
+                .toList();
+    }
+}
@@ -0,0 +1,90 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IndicePresencasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private IndicePresencas indicePresencas;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    private Alunos ana;
+    private Alunos bruno;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+        presencaRepository.saveAll(List.of(
+                new Presenca(ana, DIA.atTime(8, 0), true),
+                new Presenca(bruno, DIA.atTime(8, 0), false),
+                new Presenca(ana, DIA.plusDays(1).atTime(8, 0), true),
+                new Presenca(bruno, DIA.plusDays(1).atTime(8, 0), true)));
+
+        indicePresencas.reconstruir();
+    }
+
+    @Test
+    void respondeConsultasAPartirDoBanco() {
+        assertThat(indicePresencas.presente(ana.getId(), DIA)).isTrue();
+        assertThat(indicePresencas.presente(bruno.getId(), DIA)).isFalse();
+        assertThat(indicePresencas.presentesNoDia(DIA.plusDays(1))).containsExactly(ana.getId(), bruno.getId());
+        assertThat(indicePresencas.diasPresente(ana.getId(), DIA, DIA.plusDays(30))).isEqualTo(2);
+        assertThat(indicePresencas.diasPresente(bruno.getId(), DIA, DIA)).isZero();
+        assertThat(indicePresencas.estado().registros()).isEqualTo(3);
+        assertThat(indicePresencas.verificar()).isEmpty();
+    }
+
+    @Test
+    void aplicaEscritasEDetectaDivergencias() {
+        indicePresencas.aoAlterarPresencas(new PresencasAlteradasEvent(
+                List.of(new PresencaDTO(10L, bruno.getId(), DIA.atTime(9, 0), true),
+                        new PresencaDTO(11L, ana.getId(), DIA.plusDays(1).atTime(9, 0), false)),
+                List.of(new PresencaDTO(12L, bruno.getId(), DIA.plusDays(1).atTime(8, 0), true))));
+
+        assertThat(indicePresencas.presentesNoDia(DIA)).containsExactly(ana.getId(), bruno.getId());
+        assertThat(indicePresencas.presentesNoDia(DIA.plusDays(1))).isEmpty();
+
+        // O evento acima não foi gravado no banco: os dois dias divergem até a reconstrução
+        assertThat(indicePresencas.verificar()).extracting(IndicePresencas.Divergencia::dia)
+                .containsExactly(DIA, DIA.plusDays(1));
+        indicePresencas.reconstruir();
+        assertThat(indicePresencas.verificar()).isEmpty();
+    }
+
+    @Test
+    void eventoAntigoQueChegaDepoisNaoDesfazOMaisNovo() {
+        PresencasAlteradasEvent presente = new PresencasAlteradasEvent(
+                List.of(new PresencaDTO(10L, bruno.getId(), DIA.atTime(9, 0), true)), List.of());
+        PresencasAlteradasEvent falta = new PresencasAlteradasEvent(
+                List.of(new PresencaDTO(10L, bruno.getId(), DIA.atTime(9, 0), false)), List.of());
+
+        // Commits na ordem presente -> falta, eventos na ordem inversa
+        indicePresencas.aoAlterarPresencas(falta);
+        indicePresencas.aoAlterarPresencas(presente);
+
+        assertThat(indicePresencas.presente(bruno.getId(), DIA)).isFalse();
+        assertThat(indicePresencas.presentesNoDia(DIA)).containsExactly(ana.getId());
+    }
+}
@@ -0,0 +1,96 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogCheckinTest {
+
+    private static final LocalDateTime AULA = LocalDateTime.of(2025, 6, 2, 8, 0, 0, 123_000_000);
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void reabreComOsRegistrosPosterioresAoCheckpoint() throws IOException {
+        List<RegistroCheckin> enfileirados = new ArrayList<>();
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            assertThat(log.abrir()).isEmpty();
+            for (long aluno = 1; aluno <= 4; aluno++) {
+                log.acrescentar(aluno, AULA, aluno % 2 == 0, enfileirados::add);
+            }
+            log.confirmar(2, Long.MAX_VALUE);
+        }
+        assertThat(enfileirados).extracting(RegistroCheckin::sequencia).containsExactly(1L, 2L, 3L, 4L);
+
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            assertThat(log.abrir()).containsExactly(
+                    new RegistroCheckin(3, 3L, AULA, false),
+                    new RegistroCheckin(4, 4L, AULA, true));
+            // A numeração continua de onde parou
+            assertThat(log.acrescentar(5L, AULA, true, r -> { }).sequencia()).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void descartaRegistroIncompletoNoFimETrocaDeSegmento() throws IOException {
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            log.abrir();
+            log.acrescentar(1L, AULA, true, r -> { });
+            log.acrescentar(2L, AULA, true, r -> { });
+            // Segmento passou do limite: o próximo registro vai para um arquivo novo
+            log.confirmar(1, LogCheckin.TAMANHO_REGISTRO);
+            log.acrescentar(3L, AULA, true, r -> { });
+        }
+        List<Path> segmentos = segmentos();
+        assertThat(segmentos).hasSize(2);
+
+        // Queda no meio de uma escrita: meio registro no fim do último segmento
+        try (FileChannel canal = FileChannel.open(segmentos.get(1), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            canal.write(ByteBuffer.wrap(new byte[LogCheckin.TAMANHO_REGISTRO / 2]));
+        }
+
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            assertThat(log.abrir()).extracting(RegistroCheckin::sequencia).containsExactly(2L, 3L);
+            assertThat(Files.size(segmentos.get(1))).isEqualTo(LogCheckin.TAMANHO_REGISTRO);
+
+            // Tudo confirmado: só sobra o segmento em uso
+            log.confirmar(3, Long.MAX_VALUE);
+            assertThat(segmentos()).hasSize(1);
+        }
+    }
+
+    @Test
+    void checkpointIlegivelReenviaTodoOLog() throws IOException {
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            log.abrir();
+            log.acrescentar(1L, AULA, true, r -> { });
+            log.acrescentar(2L, AULA, false, r -> { });
+            log.confirmar(1, Long.MAX_VALUE);
+        }
+        Files.writeString(diretorio.resolve("checkpoint"), ""); // queda com o checkpoint pela metade
+
+        try (LogCheckin log = new LogCheckin(diretorio)) {
+            assertThat(log.abrir()).extracting(RegistroCheckin::sequencia).containsExactly(1L, 2L);
+            assertThat(log.confirmada()).isZero();
+        }
+    }
+
+    private List<Path> segmentos() throws IOException {
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos.filter(arquivo -> arquivo.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+}
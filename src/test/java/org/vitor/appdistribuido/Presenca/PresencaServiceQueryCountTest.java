@@ -0,0 +1,155 @@
+package org.vitor.appdistribuido.Presenca;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Garante que as leituras de presença custam exatamente uma instrução SQL cada,
+ * incluindo a verificação de existência do aluno, e que a escrita não relê os registros novos:
+ * os IDs vêm do mesmo gerador que o JPA usa.
+ */
+@SpringBootTest
+class PresencaServiceQueryCountTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private IndicePresencas indicePresencas;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Alunos aluno;
+    private Alunos alunoSemPresencas;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+
+        aluno = alunosRepository.save(new Alunos("Ana Silva", 1));
+        alunoSemPresencas = alunosRepository.save(new Alunos("Bruno Costa", 2));
+        presencaRepository.saveAll(List.of(
+                new Presenca(aluno, DIA.atTime(8, 0), true),
+                new Presenca(aluno, DIA.plusDays(1).atTime(8, 0), false),
+                new Presenca(aluno, DIA.plusDays(2).atTime(8, 0), true)));
+        indicePresencas.reconstruir();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void buscarPresencasPorAlunoUsaUmaConsulta() {
+        List<PresencaDTO> presencas = presencaService.buscarPresencasPorAluno(aluno.getId());
+
+        assertThat(presencas).hasSize(3)
+                .extracting(PresencaDTO::alunoId).containsOnly(aluno.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void buscarPresencasPorAlunoSemRegistrosUsaUmaConsulta() {
+        assertThat(presencaService.buscarPresencasPorAluno(alunoSemPresencas.getId())).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void buscarPresencasPorAlunoInexistenteUsaUmaConsulta() {
+        assertThatThrownBy(() -> presencaService.buscarPresencasPorAluno(-1L))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void buscarPresencasPorAlunoEPeriodoUsaUmaConsulta() {
+        List<PresencaDTO> presencas = presencaService.buscarPresencasPorAlunoEPeriodo(
+                aluno.getId(), DIA.plusDays(1), DIA.plusDays(2));
+
+        assertThat(presencas).extracting(PresencaDTO::dataHora)
+                .containsExactly(DIA.plusDays(1).atTime(8, 0), DIA.plusDays(2).atTime(8, 0));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void verificarPresencaNoDiaPresenteNaoConsultaOBanco() {
+        assertThat(presencaService.verificarPresencaNoDia(aluno.getId(), DIA)).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void verificarPresencaNoDiaUsaUmaConsulta() {
+        assertThat(presencaService.verificarPresencaNoDia(aluno.getId(), DIA.plusDays(1))).isFalse();
+        assertThat(presencaService.verificarPresencaNoDia(alunoSemPresencas.getId(), DIA)).isFalse();
+        assertThatThrownBy(() -> presencaService.verificarPresencaNoDia(-1L, DIA))
+                .isInstanceOf(NoSuchElementException.class);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void buscarMatrizUsaUmaConsulta() {
+        MatrizPresencas matriz = presencaService.buscarMatriz(
+                DIA, DIA.plusDays(30), List.of(aluno.getId(), alunoSemPresencas.getId()));
+
+        assertThat(matriz.dias()).containsExactly(DIA, DIA.plusDays(1), DIA.plusDays(2));
+        assertThat(matriz.alunos()).containsExactly(
+                new MatrizPresencas.Linha(aluno.getId(), "101"),
+                new MatrizPresencas.Linha(alunoSemPresencas.getId(), "---"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void buscarPresencasPaginadasUsaUmaConsulta() {
+        var pagina = presencaService.buscarPresencasPaginadas(null, 2);
+
+        assertThat(pagina.itens()).hasSize(2);
+        assertThat(pagina.proximoCursor()).isEqualTo(pagina.itens().get(1).id());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void buscarPresencasPorAlunoNaoCarregaEntidades() {
+        presencaService.buscarPresencasPorAluno(aluno.getId());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void upsertUsaOMesmoGeradorDeIdsQueOJpa() {
+        List<PresencaDTO> gravadas = presencaService.registrarMarcacoes(List.of(
+                new Marcacao(alunoSemPresencas.getId(), DIA.atTime(8, 0), true),
+                new Marcacao(alunoSemPresencas.getId(), DIA.plusDays(1).atTime(8, 0), false)));
+        presencaRepository.save(new Presenca(aluno, DIA.plusDays(3).atTime(8, 0), true));
+
+        // IDs contínuos: o upsert e o JPA tiram do mesmo bloco, sem pular 50 a cada registro
+        List<Long> ids = presencaRepository.findAll(Sort.by("id")).stream().map(Presenca::getId).toList();
+        assertThat(ids).hasSize(6);
+        assertThat(ids.getLast() - ids.getFirst()).isEqualTo(5);
+        assertThat(gravadas).extracting(PresencaDTO::id).containsExactly(ids.get(3), ids.get(4));
+    }
+}
@@ -0,0 +1,127 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.SessoesCheckin.Resultado;
+import org.vitor.appdistribuido.Turmas.Turma;
+import org.vitor.appdistribuido.Turmas.TurmasService;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {"app.checkin.assincrono=true", "app.checkin.sessoes.validade-token-s=30"})
+class SessoesCheckinTest {
+
+    @TempDir
+    static Path diretorioLog;
+
+    @DynamicPropertySource
+    static void propriedades(DynamicPropertyRegistry registry) {
+        registry.add("app.checkin.diretorio-log", diretorioLog::toString);
+    }
+
+    @Autowired
+    private SessoesCheckin sessoesCheckin;
+
+    @Autowired
+    private CheckinAssincrono checkinAssincrono;
+
+    @Autowired
+    private TurmasService turmasService;
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    private Alunos ana;
+    private Alunos bruno;
+    private SessoesCheckin.SessaoCheckin sessao;
+
+    @BeforeEach
+    void setUp() {
+        resumoMensalRepository.deleteAll();
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+        // Pelo serviço, para que a ingestão conheça os alunos pelo evento de cadastro
+        ana = new Alunos("Ana Silva", 1);
+        bruno = new Alunos("Bruno Costa", 2); // fora da turma
+        alunosService.addNewAluno(ana);
+        alunosService.addNewAluno(bruno);
+        Turma turma = turmasService.addNewTurma(new Turma("3º A"));
+        turmasService.matricular(turma.getId(), List.of(ana.getId()));
+        sessao = sessoesCheckin.abrir(turma.getId(), Duration.ofMinutes(10));
+    }
+
+    @Test
+    void aceitaUmaVezPorAlunoSemIrAoBancoEGravaEmLote() throws InterruptedException {
+        String token = sessoesCheckin.token(sessao.id()).orElseThrow().token();
+        SessoesCheckin.Leitura[] leituras = new SessoesCheckin.Leitura[3];
+
+        int comandos = ContadorSql.medir(() -> {
+            leituras[0] = sessoesCheckin.registrar(token, ana.getId());
+            leituras[1] = sessoesCheckin.registrar(token, ana.getId());
+            leituras[2] = sessoesCheckin.registrar(token, bruno.getId());
+        });
+
+        assertThat(comandos).isZero();
+        assertThat(leituras).extracting(SessoesCheckin.Leitura::resultado)
+                .containsExactly(Resultado.ACEITO, Resultado.REPETIDO, Resultado.FORA_DA_TURMA);
+
+        aguardarGravacao(leituras[0]);
+        assertThat(presencaRepository.findAll())
+                .extracting(p -> p.getAluno().getId(), Presenca::getPresente)
+                .containsExactly(tuple(ana.getId(), true));
+    }
+
+    @Test
+    void recusaTokensAdulteradosAntigosEDeSessaoEncerrada() throws InterruptedException {
+        Instant agora = Instant.now();
+        String atual = sessoesCheckin.token(sessao.id(), agora).orElseThrow().token();
+        String anterior = sessoesCheckin.token(sessao.id(), agora.minusSeconds(30)).orElseThrow().token();
+        String antigo = sessoesCheckin.token(sessao.id(), agora.minusSeconds(60)).orElseThrow().token();
+        char trocado = atual.charAt(20) == 'A' ? 'B' : 'A';
+        String adulterado = atual.substring(0, 20) + trocado + atual.substring(21);
+
+        assertThat(sessoesCheckin.registrar(adulterado, ana.getId(), agora).resultado()).isEqualTo(Resultado.TOKEN_INVALIDO);
+        assertThat(sessoesCheckin.registrar("nao-e-um-token", ana.getId(), agora).resultado()).isEqualTo(Resultado.TOKEN_INVALIDO);
+        assertThat(sessoesCheckin.registrar(antigo, ana.getId(), agora).resultado()).isEqualTo(Resultado.TOKEN_EXPIRADO);
+        SessoesCheckin.Leitura aceita = sessoesCheckin.registrar(anterior, ana.getId(), agora);
+        assertThat(aceita.resultado()).isEqualTo(Resultado.ACEITO);
+
+        assertThat(sessoesCheckin.encerrar(sessao.id())).isTrue();
+        assertThat(sessoesCheckin.token(sessao.id())).isEmpty();
+        assertThat(sessoesCheckin.registrar(atual, ana.getId(), agora).resultado()).isEqualTo(Resultado.SESSAO_ENCERRADA);
+        aguardarGravacao(aceita);
+    }
+
+    private void aguardarGravacao(SessoesCheckin.Leitura aceita) throws InterruptedException {
+        long sequencia = aceita.registro().sequencia();
+        long limite = System.nanoTime() + 10_000_000_000L;
+        while (checkinAssincrono.estado().confirmada() < sequencia && System.nanoTime() < limite) {
+            Thread.sleep(10);
+        }
+        assertThat(checkinAssincrono.estado().confirmada()).isGreaterThanOrEqualTo(sequencia);
+    }
+}
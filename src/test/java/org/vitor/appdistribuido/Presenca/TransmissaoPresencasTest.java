@@ -0,0 +1,123 @@
+package org.vitor.appdistribuido.Presenca;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Limite baixo de pendências, para que o estado inicial de três alunos passe dele
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.sse.max-pendentes=2")
+class TransmissaoPresencasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 6, 2);
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    private Alunos ana;
+    private Alunos bruno;
+
+    @BeforeEach
+    void setUp() {
+        resumoMensalRepository.deleteAll();
+        presencaRepository.deleteAll();
+        alunosRepository.deleteAll();
+        ana = alunosRepository.save(new Alunos("Ana Silva", 1));
+        bruno = alunosRepository.save(new Alunos("Bruno Costa", 2));
+    }
+
+    @Test
+    void enviaEstadoInicialEAlteracoesDoDia() throws Exception {
+        PresencaDTO daAna = presencaService.marcarPresenca(ana.getId(), DIA.atTime(8, 0), true);
+
+        BlockingQueue<String> eventos = assinar("/api/presencas/ao-vivo?dia=" + DIA);
+        assertThat(proximoDado(eventos)).contains("\"alunoId\":" + ana.getId()).doesNotContain("\"alunoId\":" + bruno.getId());
+
+        presencaService.marcarPresenca(bruno.getId(), DIA.atTime(8, 5), false);
+        presencaService.marcarPresenca(ana.getId(), DIA.plusDays(1).atTime(8, 0), true); // outro dia: não chega
+        presencaService.deletarPresenca(daAna.id());
+
+        // Chegam em um ou mais lotes, conforme a janela de agrupamento; o do outro dia viria antes da remoção
+        String recebidos = dadosAte(eventos, "\"alunoId\":" + bruno.getId(), "\"removida\":true");
+        assertThat(recebidos).doesNotContain("2025-06-03");
+    }
+
+    @Test
+    void estadoInicialNaoContaParaOLimiteDePendencias() throws Exception {
+        Alunos carla = alunosRepository.save(new Alunos("Carla Dias", 3));
+        for (Alunos aluno : new Alunos[] {ana, bruno, carla}) {
+            presencaService.marcarPresenca(aluno.getId(), DIA.atTime(8, 0), true);
+        }
+
+        // Passando do limite, o assinante receberia só o "recarregar", sem nenhuma presença
+        BlockingQueue<String> eventos = assinar("/api/presencas/ao-vivo?dia=" + DIA);
+        dadosAte(eventos, "\"alunoId\":" + ana.getId(), "\"alunoId\":" + bruno.getId(), "\"alunoId\":" + carla.getId());
+    }
+
+    @Test
+    void filtraPelosAlunosInformados() throws Exception {
+        BlockingQueue<String> eventos = assinar("/api/presencas/ao-vivo?dia=" + DIA + "&alunoIds=" + bruno.getId());
+
+        presencaService.marcarPresenca(ana.getId(), DIA.atTime(8, 0), true);
+        presencaService.marcarPresenca(bruno.getId(), DIA.atTime(8, 0), true);
+
+        assertThat(proximoDado(eventos)).contains("\"alunoId\":" + bruno.getId()).doesNotContain("\"alunoId\":" + ana.getId());
+    }
+
+    /* Linhas "data:" recebidas, lidas em segundo plano */
+    private BlockingQueue<String> assinar(String caminho) throws Exception {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + caminho))
+                .header("Accept", "text/event-stream").build();
+        HttpResponse<Stream<String>> resposta = HttpClient.newHttpClient()
+                .send(requisicao, HttpResponse.BodyHandlers.ofLines());
+        assertThat(resposta.statusCode()).isEqualTo(200);
+
+        BlockingQueue<String> dados = new LinkedBlockingQueue<>();
+        Thread.ofVirtual().start(() -> resposta.body()
+                .filter(linha -> linha.startsWith("data:"))
+                .forEach(dados::add));
+        return dados;
+    }
+
+    /* Concatena os dados recebidos até aparecerem todos os trechos esperados, em qualquer lote */
+    private static String dadosAte(BlockingQueue<String> eventos, String... esperados) throws InterruptedException {
+        StringBuilder recebidos = new StringBuilder();
+        while (!Stream.of(esperados).allMatch(recebidos.toString()::contains)) {
+            recebidos.append(proximoDado(eventos)).append('\n');
+        }
+        return recebidos.toString();
+    }
+
+    private static String proximoDado(BlockingQueue<String> eventos) throws InterruptedException {
+        String dado = eventos.poll(10, TimeUnit.SECONDS);
+        assertThat(dado).as("evento recebido").isNotNull();
+        return dado;
+    }
+}
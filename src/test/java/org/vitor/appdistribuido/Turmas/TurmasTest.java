@@ -0,0 +1,155 @@
+package org.vitor.appdistribuido.Turmas;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.Alunos.AlunosService;
+import org.vitor.appdistribuido.Metricas.ContadorSql;
+import org.vitor.appdistribuido.Presenca.PresencaRepository;
+import org.vitor.appdistribuido.Presenca.PresencaService;
+import org.vitor.appdistribuido.Presenca.ResumoMensalRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A lista da chamada e as presenças da turma saem só das matrículas da turma, com a lista em
+ * cache até a próxima alteração de matrícula ou de aluno.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class TurmasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2025, 6, 2);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TurmasService turmasService;
+
+    @Autowired
+    private TurmasRepository turmasRepository;
+
+    @Autowired
+    private AlunosService alunosService;
+
+    @Autowired
+    private AlunosRepository alunosRepository;
+
+    @Autowired
+    private PresencaService presencaService;
+
+    @Autowired
+    private PresencaRepository presencaRepository;
+
+    @Autowired
+    private ResumoMensalRepository resumoMensalRepository;
+
+    private List<Alunos> alunos;
+    private Turma turma;
+
+    @BeforeEach
+    void setUp() {
+        presencaRepository.deleteAll();
+        resumoMensalRepository.deleteAll();
+        turmasRepository.deleteAll();
+        alunosRepository.deleteAll();
+
+        List<Alunos> novos = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            novos.add(new Alunos("Aluno " + i, 100 - i)); // números decrescentes em relação aos IDs
+        }
+        alunos = alunosRepository.saveAll(novos);
+        turma = turmasService.addNewTurma(new Turma("3º A"));
+        turmasService.matricular(turma.getId(), List.of(alunos.get(0).getId(), alunos.get(1).getId(), alunos.get(2).getId()));
+    }
+
+    @Test
+    void listaDaTurmaVemPorNumeroEFicaEmCacheAteMudarUmaMatricula() {
+        int comandos = ContadorSql.medir(() -> assertThat(alunosService.getAlunosDaTurma(turma.getId()))
+                .extracting(Alunos::getNumber).containsExactly(97, 98, 99));
+        assertThat(comandos).isEqualTo(2); // a lista e a versão do cadastro (chave do cache), relida após a matrícula
+        assertThat(ContadorSql.medir(() -> alunosService.getAlunosDaTurma(turma.getId()))).isZero();
+
+        // repetido e inexistente são ignorados
+        assertThat(turmasService.matricular(turma.getId(), List.of(alunos.get(3).getId(), alunos.get(0).getId(), -1L)))
+                .isEqualTo(1);
+        assertThat(alunosService.getAlunosDaTurma(turma.getId())).hasSize(4);
+
+        turmasService.desmatricular(turma.getId(), alunos.get(3).getId());
+        alunosService.deleteAluno(alunos.get(0).getId()); // matrícula sai em cascata
+        assertThat(alunosService.getAlunosDaTurma(turma.getId()))
+                .extracting(Alunos::getNumber).containsExactly(97, 98);
+    }
+
+    @Test
+    void endpointsDaTurmaRespondemSoComAlunosMatriculados() throws Exception {
+        presencaService.registrarChamada(DIA.atTime(8, 0),
+                alunos.stream().map(Alunos::getId).toList(), List.of());
+
+        mockMvc.perform(get("/api/v1/alunos").param("turmaId", turma.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        mockMvc.perform(get("/api/presencas/turma/{turmaId}/dia/{dia}", turma.getId(), DIA))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        mockMvc.perform(get("/api/presencas/matriz").param("turmaId", turma.getId().toString())
+                        .param("startDate", DIA.toString()).param("endDate", DIA.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.alunos.length()").value(3));
+
+        Turma vazia = turmasService.addNewTurma(new Turma("Vazia"));
+        mockMvc.perform(get("/api/presencas/matriz").param("turmaId", vazia.getId().toString())
+                        .param("startDate", DIA.toString()).param("endDate", DIA.toString()))
+                .andExpect(jsonPath("$.alunos.length()").value(0));
+        mockMvc.perform(get("/api/v1/alunos").param("turmaId", "999999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void matrizSemFiltroTemPeriodoLimitadoEVemEmStreaming() throws Exception {
+        presencaService.registrarChamada(DIA.atTime(8, 0),
+                alunos.subList(0, 30).stream().map(Alunos::getId).toList(),
+                alunos.subList(30, 40).stream().map(Alunos::getId).toList());
+        presencaService.marcarPresenca(alunos.get(45).getId(), DIA.plusDays(2).atTime(8, 0), true);
+
+        MvcResult inicio = mockMvc.perform(get("/api/presencas/matriz")
+                        .param("startDate", DIA.toString()).param("endDate", DIA.plusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(inicio))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/json"))
+                .andExpect(jsonPath("$.dias.length()").value(2))
+                .andExpect(jsonPath("$.dias[1]").value(DIA.plusDays(2).toString()))
+                .andExpect(jsonPath("$.alunos.length()").value(41))
+                .andExpect(jsonPath("$.alunos[0].presencas").value("1-"))
+                .andExpect(jsonPath("$.alunos[30].presencas").value("0-"))
+                .andExpect(jsonPath("$.alunos[40].alunoId").value(alunos.get(45).getId()))
+                .andExpect(jsonPath("$.alunos[40].presencas").value("-1"));
+
+        // Sem filtro, no máximo app.matriz.max-dias-sem-filtro dias; com a turma, qualquer período
+        mockMvc.perform(get("/api/presencas/matriz")
+                        .param("startDate", DIA.toString()).param("endDate", DIA.plusDays(366).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/presencas/matriz").param("turmaId", turma.getId().toString())
+                        .param("startDate", DIA.toString()).param("endDate", DIA.plusDays(366).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.alunos.length()").value(3));
+    }
+}
@@ -0,0 +1,37 @@
+package org.vitor.appdistribuido.bench;
+
+import org.springframework.boot.jdbc.DatabaseDriver;
+
+import java.util.Map;
+
+/**
+ * O banco dos benchmarks, configurado num só lugar: {@code bench.url}, {@code bench.usuario} e
+ * {@code bench.senha}. O padrão é um banco próprio, {@code Chamada_bench}, e nunca o do
+ * application.yml: os benchmarks gravam carga sintética e recriam o esquema.
+ *
+ * @param url A URL JDBC.
+ * @param usuario O usuário.
+ * @param senha A senha.
+ */
+record BancoBench(String url, String usuario, String senha) {
+
+    static final String URL_PADRAO = "jdbc:postgresql://localhost:5432/Chamada_bench?reWriteBatchedInserts=true";
+
+    static BancoBench configurado() {
+        return new BancoBench(
+                System.getProperty("bench.url", URL_PADRAO),
+                System.getProperty("bench.usuario", "postgres"),
+                System.getProperty("bench.senha", "postgres"));
+    }
+
+    /**
+     * Aponta a aplicação para este banco.
+     * @param propriedades As propriedades do SpringApplicationBuilder.
+     */
+    void aplicar(Map<String, Object> propriedades) {
+        propriedades.put("spring.datasource.url", url);
+        propriedades.put("spring.datasource.username", usuario);
+        propriedades.put("spring.datasource.password", senha);
+        propriedades.put("spring.datasource.driver-class-name", DatabaseDriver.fromJdbcUrl(url).getDriverClassName());
+    }
+}
@@ -0,0 +1,312 @@
+package org.vitor.appdistribuido.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.vitor.appdistribuido.AppDistribuidoApplication;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gerador de carga para o check-in por QR code: todas as turmas abrem sessão ao mesmo tempo e
+ * os alunos leem o código quase juntos, como na entrada da aula. Cada leitura é um
+ * POST /api/presencas/checkin/qr com o token da sessão da turma.
+ *
+ * <p>Sobe a aplicação neste processo com {@code app.checkin.assincrono=true} (banco do
+ * {@link BancoBench}: Chamada_bench por padrão, ou {@code bench.url}), cadastra {@code bench.turmas} turmas de
+ * {@code bench.alunosPorTurma} alunos pela API (CSV) e dispara as leituras, embaralhadas, com
+ * {@code bench.clientes} clientes em paralelo. Uma fração {@code bench.repetidas} dos alunos lê
+ * o código duas vezes (resposta 200, sem nova gravação). São {@code bench.ondas} ondas, cada
+ * uma com sessões novas; só a última entra no relatório (as anteriores aquecem a JVM). Ao final
+ * espera a ingestão esvaziar e confere no banco uma presença por aluno (uma por dia: as ondas
+ * seguintes atualizam a mesma linha). Uso:</p>
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.classe=org.vitor.appdistribuido.bench.CargaCheckinQr \
+ *     -Dbench.limpar=true -Dbench.turmas=200 -Dbench.alunosPorTurma=40 -Dbench.clientes=400
+ * </pre>
+ * <p>Relatório no console e em {@code target/bench/checkin-qr.csv}; a distribuição completa do
+ * HdrHistogram fica em {@code target/bench/checkin-qr.hgrm}. Termina com código 1 se a vazão
+ * ficar abaixo de {@code bench.alvoLeiturasPorSegundo}.</p>
+ */
+public final class CargaCheckinQr {
+
+    private static final Path SAIDA = Path.of("target", "bench");
+
+    private final int turmas = Integer.getInteger("bench.turmas", 100);
+    private final int alunosPorTurma = Integer.getInteger("bench.alunosPorTurma", 40);
+    private final int clientes = Integer.getInteger("bench.clientes", 200);
+    private final int ondas = Integer.getInteger("bench.ondas", 3);
+    private final double repetidas = Double.parseDouble(System.getProperty("bench.repetidas", "0.1"));
+    private final double alvo = Double.parseDouble(System.getProperty("bench.alvoLeiturasPorSegundo", "2000"));
+    private final long semente = Long.getLong("bench.semente", 42);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Histogram latencias = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> porStatus = new ConcurrentHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        boolean atingiu = new CargaCheckinQr().executar();
+        System.exit(atingiu ? 0 : 1);
+    }
+
+    private boolean executar() throws Exception {
+        ConfigurableApplicationContext contexto = subirAplicacao();
+        String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            System.out.printf("== semeando %d turmas x %d alunos em %s%n", turmas, alunosPorTurma, base);
+            List<TurmaSemeada> turmasSemeadas = semear(http, base);
+
+            Random aleatorio = new Random(semente);
+            long duracao = 0;
+            for (int onda = 1; onda <= ondas; onda++) {
+                List<Leitura> leituras = abrirSessoes(http, base, turmasSemeadas, aleatorio);
+                Collections.shuffle(leituras, aleatorio);
+                latencias.reset();
+                porStatus.clear();
+                duracao = onda(http, executor, base, leituras);
+                System.out.printf(Locale.ROOT, "== onda %d/%d: %d leituras com %d clientes, %.1f leituras/s%n",
+                        onda, ondas, leituras.size(), clientes, leituras.size() / (duracao / 1e9));
+            }
+
+            long esperaInicio = System.nanoTime();
+            aguardarIngestao(http, base);
+            long espera = System.nanoTime() - esperaInicio;
+            Integer gravadas = new JdbcTemplate(contexto.getBean(DataSource.class))
+                    .queryForObject("SELECT COUNT(*) FROM presencas", Integer.class);
+            return relatar(duracao, espera, gravadas == null ? 0 : gravadas);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    /* Uma onda: os clientes consomem a fila de leituras, cada um esperando a resposta anterior */
+    private long onda(HttpClient http, ExecutorService executor, String base, List<Leitura> leituras) throws Exception {
+        AtomicInteger proxima = new AtomicInteger();
+        long inicio = System.nanoTime();
+        List<Future<?>> futuros = new ArrayList<>(clientes);
+        for (int c = 0; c < clientes; c++) {
+            futuros.add(executor.submit(() -> {
+                for (int i; (i = proxima.getAndIncrement()) < leituras.size(); ) {
+                    ler(http, base, leituras.get(i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private void ler(HttpClient http, String base, Leitura leitura) throws Exception {
+        String corpo = "{\"token\":\"%s\",\"alunoId\":%d}".formatted(leitura.token(), leitura.alunoId());
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + "/api/presencas/checkin/qr"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(corpo)).build();
+        long inicio = System.nanoTime();
+        int status;
+        try {
+            status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            status = 0;
+        }
+        latencias.recordValue(Math.max(1, (System.nanoTime() - inicio) / 1000));
+        porStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    private void aguardarIngestao(HttpClient http, String base) throws Exception {
+        HttpRequest estado = HttpRequest.newBuilder(URI.create(base + "/api/presencas/checkin/estado")).GET().build();
+        long limite = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < limite) {
+            JsonNode e = objectMapper.readTree(http.send(estado, HttpResponse.BodyHandlers.ofString()).body());
+            if (e.get("pendentes").asInt() == 0 && e.get("confirmada").asLong() >= e.get("ultimaSequencia").asLong()) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        throw new IllegalStateException("A ingestão não esvaziou em 2 minutos");
+    }
+
+    /* ------------------------------------------------------------------
+     * Preparação
+     * ---------------------------------------------------------------- */
+
+    private ConfigurableApplicationContext subirAplicacao() {
+        BancoBench banco = BancoBench.configurado();
+        EsquemaLimpo.limpar(banco);
+
+        Map<String, Object> propriedades = new HashMap<>();
+        propriedades.put("server.port", 0);
+        banco.aplicar(propriedades);
+        propriedades.put("spring.jpa.show-sql", false);
+        propriedades.put("spring.jpa.properties.hibernate.generate_statistics", false);
+        propriedades.put("app.checkin.assincrono", true);
+        propriedades.put("app.checkin.diretorio-log", SAIDA.resolve("checkin-qr-log").toString());
+        // a carga é uma só rajada de leituras; o controle de admissão fica para CargaRajadasChamada
+        propriedades.put("app.admissao.habilitado", System.getProperty("bench.admissao", "false"));
+        propriedades.put("logging.level.root", "WARN");
+        return new SpringApplicationBuilder(AppDistribuidoApplication.class).properties(propriedades).run();
+    }
+
+    /* Cadastra os alunos (CSV), as turmas e as matrículas; devolve os alunos de cada turma */
+    private List<TurmaSemeada> semear(HttpClient http, String base) throws Exception {
+        StringBuilder csv = new StringBuilder("name,number\n");
+        for (int n = 1; n <= turmas * alunosPorTurma; n++) {
+            csv.append("Aluno QR ").append(n).append(',').append(n).append('\n');
+        }
+        exigir(http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/alunos/csv"))
+                .header("Content-Type", "text/csv")
+                .POST(HttpRequest.BodyPublishers.ofString(csv.toString())).build(),
+                HttpResponse.BodyHandlers.ofString()), "importação dos alunos");
+        Map<Integer, Long> idPorNumero = idsPorNumero(http, base);
+
+        List<TurmaSemeada> resultado = new ArrayList<>(turmas);
+        for (int t = 0; t < turmas; t++) {
+            long turmaId = objectMapper.readTree(exigir(post(http, base + "/api/v1/turmas",
+                    Map.of("nome", "Turma QR " + (t + 1))), "cadastro da turma").body()).get("id").asLong();
+            List<Long> alunos = new ArrayList<>(alunosPorTurma);
+            for (int a = 1; a <= alunosPorTurma; a++) {
+                alunos.add(idPorNumero.get(t * alunosPorTurma + a));
+            }
+            exigir(post(http, base + "/api/v1/turmas/" + turmaId + "/alunos", alunos), "matrícula");
+            resultado.add(new TurmaSemeada(turmaId, alunos));
+        }
+        return resultado;
+    }
+
+    /* Abre uma sessão por turma e monta as leituras com o token de cada uma */
+    private List<Leitura> abrirSessoes(HttpClient http, String base, List<TurmaSemeada> turmasSemeadas,
+                                       Random aleatorio) throws Exception {
+        List<Leitura> leituras = new ArrayList<>();
+        for (TurmaSemeada turma : turmasSemeadas) {
+            long sessaoId = objectMapper.readTree(exigir(post(http, base + "/api/presencas/checkin/sessoes",
+                    Map.of("turmaId", turma.id(), "duracaoMinutos", 30)), "abertura da sessão").body()).get("id").asLong();
+            String token = objectMapper.readTree(exigir(http.send(HttpRequest.newBuilder(
+                            URI.create(base + "/api/presencas/checkin/sessoes/" + sessaoId + "/token")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()), "token da sessão").body()).get("token").asText();
+            for (Long alunoId : turma.alunos()) {
+                leituras.add(new Leitura(token, alunoId));
+                if (aleatorio.nextDouble() < repetidas) {
+                    leituras.add(new Leitura(token, alunoId));
+                }
+            }
+        }
+        return leituras;
+    }
+
+    private Map<Integer, Long> idsPorNumero(HttpClient http, String base) throws Exception {
+        Map<Integer, Long> ids = new HashMap<>();
+        Long depoisDe = null;
+        do {
+            String url = base + "/api/v1/alunos/pagina?limite=1000" + (depoisDe != null ? "&depoisDe=" + depoisDe : "");
+            JsonNode pagina = objectMapper.readTree(http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            for (JsonNode aluno : pagina.get("itens")) {
+                ids.put(aluno.get("number").asInt(), aluno.get("id").asLong());
+            }
+            depoisDe = pagina.get("proximoCursor").isNull() ? null : pagina.get("proximoCursor").asLong();
+        } while (depoisDe != null);
+        return ids;
+    }
+
+    private HttpResponse<String> post(HttpClient http, String url, Object corpo) throws Exception {
+        return http.send(HttpRequest.newBuilder(URI.create(url))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(corpo))).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static HttpResponse<String> exigir(HttpResponse<String> resposta, String etapa) {
+        if (resposta.statusCode() >= 300) {
+            throw new IllegalStateException("%s falhou: HTTP %d %s".formatted(etapa, resposta.statusCode(), resposta.body()));
+        }
+        return resposta;
+    }
+
+    /* ------------------------------------------------------------------
+     * Relatório
+     * ---------------------------------------------------------------- */
+
+    private boolean relatar(long duracaoNanos, long esperaNanos, int gravadas) throws IOException {
+        double segundos = duracaoNanos / 1e9;
+        long total = latencias.getTotalCount();
+        double vazao = total / segundos;
+        long aceitas = contagem(202);
+        long repetidasLidas = contagem(200);
+        long erros = total - aceitas - repetidasLidas;
+        int esperadas = turmas * alunosPorTurma;
+
+        Object[] linha = {total, aceitas, repetidasLidas, erros, vazao,
+                ms(latencias.getValueAtPercentile(50)), ms(latencias.getValueAtPercentile(90)),
+                ms(latencias.getValueAtPercentile(99)), ms(latencias.getValueAtPercentile(99.9)),
+                ms(latencias.getMaxValue()), esperaNanos / 1e6, gravadas};
+        System.out.printf("%n%9s %8s %9s %6s %10s %8s %8s %8s %9s %9s %11s %9s%n", "leituras", "aceitas", "repetidas",
+                "erros", "leituras/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "drenagem ms", "gravadas");
+        System.out.printf("%9d %8d %9d %6d %10.1f %8.2f %8.2f %8.2f %9.2f %9.2f %11.1f %9d%n", linha);
+        if (erros > 0) {
+            System.out.println("Respostas por status: " + porStatus);
+        }
+
+        Files.createDirectories(SAIDA);
+        Files.writeString(SAIDA.resolve("checkin-qr.csv"),
+                "leituras,aceitas,repetidas,erros,vazao_lps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,drenagem_ms,gravadas\n"
+                        + String.format(Locale.ROOT, "%d,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.1f,%d%n", linha));
+        try (PrintStream hgrm = new PrintStream(Files.newOutputStream(SAIDA.resolve("checkin-qr.hgrm")))) {
+            latencias.outputPercentileDistribution(hgrm, 1000.0); // microssegundos -> milissegundos
+        }
+
+        boolean consistente = aceitas == esperadas && gravadas == esperadas;
+        System.out.printf(Locale.ROOT, "%nAlvo: %.0f leituras/s -> %s; presenças no banco: %d de %d%s%n", alvo,
+                vazao >= alvo ? "atingido" : "NÃO atingido", gravadas, esperadas, consistente ? "" : " (DIVERGENTE)");
+        System.out.println("Resultados gravados em " + SAIDA.toAbsolutePath());
+        return vazao >= alvo && consistente;
+    }
+
+    private long contagem(int status) {
+        LongAdder n = porStatus.get(status);
+        return n == null ? 0 : n.sum();
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    private record TurmaSemeada(long id, List<Long> alunos) {
+    }
+
+    private record Leitura(String token, long alunoId) {
+    }
+}
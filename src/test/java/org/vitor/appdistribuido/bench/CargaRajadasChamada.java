@@ -0,0 +1,421 @@
+package org.vitor.appdistribuido.bench;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.vitor.appdistribuido.AppDistribuidoApplication;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Gerador de carga fechada que reproduz o pico do início das aulas: várias turmas fazem a
+ * chamada na mesma janela de tempo, cada uma enviando um POST /api/presencas/marcar/{id} por
+ * aluno e, ao final, recarregando a lista (GET /api/v1/alunos, com If-None-Match como o navegador).
+ *
+ * <p>Cria {@code bench.turmas} turmas de {@code bench.alunosPorTurma} alunos pela própria API e
+ * executa {@code bench.ondas} ondas. Em cada onda, cada turma começa num instante aleatório
+ * (semente fixa) dentro de {@code bench.janelaSegundos} e marca seus alunos com
+ * {@code bench.clientesPorTurma} clientes em paralelo, cada um esperando a resposta anterior.</p>
+ *
+ * <p>Se {@code bench.alvo} for informado (ex.: http://localhost:8080), usa a instância já
+ * rodando (o pool é lido de /actuator/metrics); senão sobe a aplicação neste processo (banco do
+ * {@link BancoBench}: Chamada_bench por padrão, ou {@code bench.url}) e amostra o pool do Hikari direto. Uso:</p>
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.classe=org.vitor.appdistribuido.bench.CargaRajadasChamada \
+ *     -Dbench.limpar=true -Dbench.turmas=200 -Dbench.alunosPorTurma=35 -Dbench.janelaSegundos=60
+ * </pre>
+ * <p>Com o controle de admissão ligado, as recusas (429) aparecem na coluna "recusadas" e ficam
+ * fora das latências, que passam a ser só das requisições admitidas. Para comparar sem ele:
+ * {@code -Dbench.admissao=false} (ou APP_ADMISSAO=false na instância de {@code bench.alvo}).</p>
+ * <p>Relatório no console, em {@code target/bench/rajadas.csv} e, por endpoint, a distribuição
+ * completa do HdrHistogram em {@code target/bench/rajadas-<endpoint>.hgrm}.</p>
+ */
+public final class CargaRajadasChamada {
+
+    private static final Path SAIDA = Path.of("target", "bench");
+
+    private final int turmas = Integer.getInteger("bench.turmas", 100);
+    private final int alunosPorTurma = Integer.getInteger("bench.alunosPorTurma", 30);
+    private final int clientesPorTurma = Integer.getInteger("bench.clientesPorTurma", 1);
+    private final int recargas = Integer.getInteger("bench.recargas", 2);
+    private final int ondas = Integer.getInteger("bench.ondas", 3);
+    private final Duration janela = Duration.ofSeconds(Long.getLong("bench.janelaSegundos", 30));
+    private final Duration intervalo = Duration.ofSeconds(Long.getLong("bench.intervaloSegundos", 5));
+    private final int numeroInicial = Integer.getInteger("bench.numeroInicial", 100_000);
+    private final long semente = Long.getLong("bench.semente", 42);
+    private final String alvo = System.getProperty("bench.alvo");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    public static void main(String[] args) throws Exception {
+        new CargaRajadasChamada().executar();
+        System.exit(0);
+    }
+
+    private CargaRajadasChamada() {
+        endpoints.put("marcar", new Endpoint("marcar"));
+        endpoints.put("listar-alunos", new Endpoint("listar-alunos"));
+    }
+
+    private void executar() throws Exception {
+        ConfigurableApplicationContext contexto = (alvo == null) ? subirAplicacao() : null;
+        String base = (alvo != null) ? alvo : "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientes)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            System.out.printf("== semeando %d turmas x %d alunos em %s%n", turmas, alunosPorTurma, base);
+            List<long[]> turmasSemeadas = semear(http, clientes, base);
+
+            AmostradorPool pool = (contexto != null)
+                    ? AmostradorPool.de(contexto.getBean(DataSource.class))
+                    : AmostradorPool.viaActuator(http, base, objectMapper);
+            Random aleatorio = new Random(semente);
+            long duracaoTotal = 0;
+            for (int onda = 1; onda <= ondas; onda++) {
+                System.out.printf("== onda %d/%d: %d turmas em %ds%n", onda, ondas, turmas, janela.toSeconds());
+                duracaoTotal += onda(http, clientes, base, turmasSemeadas, aleatorio, pool);
+                if (onda < ondas) {
+                    Thread.sleep(intervalo);
+                }
+            }
+            relatar(duracaoTotal, pool);
+        } finally {
+            if (contexto != null) {
+                contexto.close();
+            }
+        }
+    }
+
+    /* Uma onda: cada turma dorme até seu instante de início e faz a chamada inteira */
+    private long onda(HttpClient http, ExecutorService clientes, String base, List<long[]> turmasSemeadas,
+                      Random aleatorio, AmostradorPool pool) throws Exception {
+        long[] atrasos = new long[turmasSemeadas.size()];
+        for (int t = 0; t < atrasos.length; t++) {
+            atrasos[t] = (long) (aleatorio.nextDouble() * janela.toNanos());
+        }
+
+        long inicio = System.nanoTime();
+        if (pool != null) {
+            pool.iniciar();
+        }
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < turmasSemeadas.size(); t++) {
+            long[] alunos = turmasSemeadas.get(t);
+            long atraso = atrasos[t];
+            futuros.add(clientes.submit(() -> {
+                TimeUnit.NANOSECONDS.sleep(atraso);
+                chamada(http, clientes, base, alunos);
+                return null;
+            }));
+        }
+        for (Future<?> futuro : futuros) {
+            futuro.get();
+        }
+        if (pool != null) {
+            pool.parar();
+        }
+        return System.nanoTime() - inicio;
+    }
+
+    private void chamada(HttpClient http, ExecutorService clientes, String base, long[] alunos) throws Exception {
+        List<Future<?>> marcadores = new ArrayList<>(clientesPorTurma);
+        for (int c = 0; c < clientesPorTurma; c++) {
+            int primeiro = c;
+            marcadores.add(clientes.submit(() -> {
+                for (int i = primeiro; i < alunos.length; i += clientesPorTurma) {
+                    enviar(http, endpoints.get("marcar"), HttpRequest.newBuilder(
+                                    URI.create(base + "/api/presencas/marcar/" + alunos[i]))
+                            .POST(HttpRequest.BodyPublishers.noBody()).build());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> marcador : marcadores) {
+            marcador.get();
+        }
+
+        String etag = null;
+        for (int r = 0; r < recargas; r++) {
+            HttpRequest.Builder listar = HttpRequest.newBuilder(URI.create(base + "/api/v1/alunos")).GET();
+            if (etag != null) {
+                listar.header("If-None-Match", etag);
+            }
+            HttpResponse<Void> resposta = enviar(http, endpoints.get("listar-alunos"), listar.build());
+            if (resposta != null) {
+                etag = resposta.headers().firstValue("ETag").orElse(etag);
+            }
+        }
+    }
+
+    private static HttpResponse<Void> enviar(HttpClient http, Endpoint endpoint, HttpRequest requisicao)
+            throws InterruptedException {
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+            endpoint.registrar(System.nanoTime() - inicio, resposta.statusCode());
+            return resposta;
+        } catch (IOException e) {
+            endpoint.registrar(System.nanoTime() - inicio, 0);
+            return null;
+        }
+    }
+
+    /* ------------------------------------------------------------------
+     * Preparação
+     * ---------------------------------------------------------------- */
+
+    private ConfigurableApplicationContext subirAplicacao() {
+        BancoBench banco = BancoBench.configurado();
+        EsquemaLimpo.limpar(banco);
+
+        Map<String, Object> propriedades = new HashMap<>();
+        propriedades.put("server.port", 0);
+        banco.aplicar(propriedades);
+        propriedades.put("spring.datasource.hikari.maximum-pool-size", System.getProperty("bench.pool", "20"));
+        propriedades.put("spring.jpa.show-sql", false);
+        propriedades.put("spring.jpa.properties.hibernate.generate_statistics", false);
+        propriedades.put("app.admissao.habilitado", System.getProperty("bench.admissao", "true"));
+        propriedades.put("logging.level.root", "WARN");
+        return new SpringApplicationBuilder(AppDistribuidoApplication.class).properties(propriedades).run();
+    }
+
+    /* Cadastra os alunos pela API; um número já cadastrado (409) é procurado e reaproveitado */
+    private List<long[]> semear(HttpClient http, ExecutorService clientes, String base) throws Exception {
+        List<Future<long[]>> futuros = new ArrayList<>(turmas);
+        for (int t = 0; t < turmas; t++) {
+            int turma = t;
+            futuros.add(clientes.submit(() -> {
+                long[] ids = new long[alunosPorTurma];
+                for (int a = 0; a < alunosPorTurma; a++) {
+                    int numero = numeroInicial + turma * alunosPorTurma + a;
+                    ids[a] = cadastrar(http, base, "Turma %d Aluno %d".formatted(turma + 1, a + 1), numero);
+                }
+                return ids;
+            }));
+        }
+
+        List<long[]> resultado = new ArrayList<>(turmas);
+        for (Future<long[]> futuro : futuros) {
+            resultado.add(futuro.get());
+        }
+        Collections.shuffle(resultado, new Random(semente));
+        return resultado;
+    }
+
+    private long cadastrar(HttpClient http, String base, String nome, int numero) throws Exception {
+        String corpo = objectMapper.writeValueAsString(Map.of("name", nome, "number", numero));
+        HttpResponse<String> resposta;
+        while ((resposta = http.send(HttpRequest.newBuilder(URI.create(base + "/api/v1/alunos"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(corpo)).build(),
+                HttpResponse.BodyHandlers.ofString())).statusCode() == 429) {
+            // controle de admissão: a semeadura não entra na medição, então espera e tenta de novo
+            Thread.sleep(Duration.ofSeconds(resposta.headers().firstValueAsLong("Retry-After").orElse(1)));
+        }
+        if (resposta.statusCode() == 201) {
+            return objectMapper.readTree(resposta.body()).get("id").asLong();
+        }
+        if (resposta.statusCode() == 409) {
+            return procurarPorNumero(http, base, numero);
+        }
+        throw new IllegalStateException("Cadastro do aluno %d falhou: HTTP %d".formatted(numero, resposta.statusCode()));
+    }
+
+    private long procurarPorNumero(HttpClient http, String base, int numero) throws Exception {
+        Long depoisDe = null;
+        do {
+            String url = base + "/api/v1/alunos/pagina?limite=1000" + (depoisDe != null ? "&depoisDe=" + depoisDe : "");
+            JsonNode pagina = objectMapper.readTree(http.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString()).body());
+            for (JsonNode aluno : pagina.get("itens")) {
+                if (aluno.get("number").asInt() == numero) {
+                    return aluno.get("id").asLong();
+                }
+            }
+            depoisDe = pagina.get("proximoCursor").isNull() ? null : pagina.get("proximoCursor").asLong();
+        } while (depoisDe != null);
+        throw new IllegalStateException("Aluno %d não encontrado".formatted(numero));
+    }
+
+    /* ------------------------------------------------------------------
+     * Relatório
+     * ---------------------------------------------------------------- */
+
+    private void relatar(long duracaoNanos, AmostradorPool pool) throws IOException {
+        double segundos = duracaoNanos / 1e9;
+        Files.createDirectories(SAIDA);
+
+        StringBuilder csv = new StringBuilder("endpoint,requisicoes,recusadas,erros,taxa_erro,vazao_rps,p50_ms,p90_ms,p99_ms,p999_ms,max_ms\n");
+        System.out.printf("%n%-14s %11s %9s %7s %8s %9s %8s %8s %8s %9s %9s%n",
+                "endpoint", "requisicoes", "recusadas", "erros", "erro %", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Endpoint endpoint : endpoints.values()) {
+            Histogram h = endpoint.latencias;
+            long total = h.getTotalCount();
+            double taxaErro = total == 0 ? 0 : (double) endpoint.erros.sum() / total;
+            Object[] linha = {endpoint.nome, total, endpoint.recusadas.sum(), endpoint.erros.sum(), taxaErro * 100, total / segundos,
+                    ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)), ms(h.getValueAtPercentile(99)),
+                    ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue())};
+            System.out.printf("%-14s %11d %9d %7d %8.2f %9.1f %8.2f %8.2f %8.2f %9.2f %9.2f%n", linha);
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%d,%.4f,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f%n", linha));
+
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(SAIDA.resolve("rajadas-" + endpoint.nome + ".hgrm")))) {
+                h.outputPercentileDistribution(hgrm, 1000.0); // microssegundos -> milissegundos
+            }
+        }
+        Files.writeString(SAIDA.resolve("rajadas.csv"), csv);
+
+        System.out.println();
+        System.out.println(pool != null ? pool.resumo() : "Pool do banco: não amostrado (/actuator/metrics indisponível)");
+        System.out.println("Resultados gravados em " + SAIDA.toAbsolutePath());
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+
+    /* Latências em microssegundos, só das requisições admitidas: as recusadas com 429 (controle de admissão) são contadas à parte */
+    private static final class Endpoint {
+        final String nome;
+        final Histogram latencias = new ConcurrentHistogram(3);
+        final LongAdder erros = new LongAdder();
+        final LongAdder recusadas = new LongAdder();
+
+        Endpoint(String nome) {
+            this.nome = nome;
+        }
+
+        /* status 0 = falha de I/O */
+        void registrar(long nanos, int status) {
+            if (status == 429) {
+                recusadas.increment();
+                return;
+            }
+            latencias.recordValue(Math.max(1, nanos / 1000));
+            if (status == 0 || status >= 400) {
+                erros.increment();
+            }
+        }
+    }
+
+    /* Amostra o pool do Hikari enquanto uma onda roda: direto no processo ou pelo actuator */
+    private static final class AmostradorPool {
+        private final IntSupplier ativas;
+        private final IntSupplier esperando;
+        private final int tamanhoMaximo;
+        private final long periodoMs;
+        private final AtomicLong amostras = new AtomicLong();
+        private final AtomicLong amostrasSaturadas = new AtomicLong();
+        private final AtomicLong somaEsperando = new AtomicLong();
+        private final AtomicLong maxEsperando = new AtomicLong();
+        private ScheduledExecutorService agendador;
+
+        private AmostradorPool(IntSupplier ativas, IntSupplier esperando, int tamanhoMaximo, long periodoMs) {
+            this.ativas = ativas;
+            this.esperando = esperando;
+            this.tamanhoMaximo = tamanhoMaximo;
+            this.periodoMs = periodoMs;
+        }
+
+        static AmostradorPool de(DataSource dataSource) {
+            try {
+                HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return new AmostradorPool(pool::getActiveConnections, pool::getThreadsAwaitingConnection,
+                        hikari.getMaximumPoolSize(), 50);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        static AmostradorPool viaActuator(HttpClient http, String base, ObjectMapper objectMapper) {
+            IntSupplier maximo = metrica(http, base, objectMapper, "hikaricp.connections.max");
+            try {
+                return new AmostradorPool(
+                        metrica(http, base, objectMapper, "hikaricp.connections.active"),
+                        metrica(http, base, objectMapper, "hikaricp.connections.pending"),
+                        maximo.getAsInt(), 200);
+            } catch (IllegalStateException e) {
+                return null;
+            }
+        }
+
+        private static IntSupplier metrica(HttpClient http, String base, ObjectMapper objectMapper, String nome) {
+            HttpRequest requisicao = HttpRequest.newBuilder(URI.create(base + "/actuator/metrics/" + nome)).GET().build();
+            return () -> {
+                try {
+                    HttpResponse<String> resposta = http.send(requisicao, HttpResponse.BodyHandlers.ofString());
+                    if (resposta.statusCode() != 200) {
+                        throw new IllegalStateException(nome + ": HTTP " + resposta.statusCode());
+                    }
+                    return objectMapper.readTree(resposta.body()).at("/measurements/0/value").asInt();
+                } catch (IOException e) {
+                    throw new IllegalStateException(nome, e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(nome, e);
+                }
+            };
+        }
+
+        void iniciar() {
+            agendador = Executors.newSingleThreadScheduledExecutor();
+            agendador.scheduleAtFixedRate(() -> {
+                int aguardando = esperando.getAsInt();
+                amostras.incrementAndGet();
+                if (ativas.getAsInt() >= tamanhoMaximo) {
+                    amostrasSaturadas.incrementAndGet();
+                }
+                somaEsperando.addAndGet(aguardando);
+                maxEsperando.accumulateAndGet(aguardando, Math::max);
+            }, 0, periodoMs, TimeUnit.MILLISECONDS);
+        }
+
+        void parar() {
+            agendador.shutdownNow();
+        }
+
+        String resumo() {
+            long n = Math.max(1, amostras.get());
+            return String.format(Locale.ROOT,
+                    "Pool do banco (%d conexões): saturado em %.1f%% das amostras, "
+                            + "threads esperando por conexão: média %.1f, máximo %d",
+                    tamanhoMaximo, 100.0 * amostrasSaturadas.get() / n, (double) somaEsperando.get() / n, maxEsperando.get());
+        }
+    }
+}
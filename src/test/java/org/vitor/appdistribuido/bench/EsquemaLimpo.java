@@ -0,0 +1,31 @@
+package org.vitor.appdistribuido.bench;
+
+import org.flywaydb.core.Flyway;
+
+/**
+ * Apaga o esquema do banco antes de subir a aplicação de um benchmark, para que as migrações
+ * do Flyway o recriem do zero (o equivalente ao antigo ddl-auto: create-drop). Só para
+ * bancos descartáveis: exige {@code -Dbench.limpar=true}, para que um {@code bench.url}
+ * apontado por engano para um banco de verdade não o apague.
+ */
+final class EsquemaLimpo {
+
+    private EsquemaLimpo() {
+    }
+
+    /**
+     * @param banco O banco do benchmark.
+     * @throws IllegalStateException se bench.limpar não for true.
+     */
+    static void limpar(BancoBench banco) {
+        if (!Boolean.getBoolean("bench.limpar")) {
+            throw new IllegalStateException("O benchmark apaga todas as tabelas de " + banco.url()
+                    + "; confirme que o banco é descartável com -Dbench.limpar=true");
+        }
+        Flyway.configure()
+                .dataSource(banco.url(), banco.usuario(), banco.senha())
+                .cleanDisabled(false)
+                .load()
+                .clean();
+    }
+}
@@ -0,0 +1,243 @@
+package org.vitor.appdistribuido.bench;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara as variantes de empacotamento pelo tempo até a primeira requisição bem-sucedida e
+ * pela memória residente (RSS) nesse instante, para escolher o artefato dos nós que sobem no
+ * pico da manhã.
+ *
+ * <p>Cada variante roda como um processo novo, {@code bench.repeticoes} vezes. O relógio começa
+ * antes de criar o processo e para na primeira resposta 200 de GET /api/v1/alunos/pagina, que já
+ * passa pelo Tomcat, pelo Hibernate e pelo banco. Variantes cujos artefatos não existem são puladas:</p>
+ * <ul>
+ *     <li>jar: {@code target/AppDistribuido-0.0.1-SNAPSHOT.jar}, como sai do {@code mvn package};</li>
+ *     <li>extraido: o mesmo jar extraído em {@code target/inicio-rapido}, sem AOT;</li>
+ *     <li>aot: extraído, com o código gerado pelo processamento AOT do Spring;</li>
+ *     <li>aot-cds: aot + o arquivo AppCDS do treino ({@code app.jsa});</li>
+ *     <li>aot-leyden: aot + o cache AOT do JDK ({@code app.aot}, perfil leyden);</li>
+ *     <li>nativo: o executável do GraalVM ({@code target/AppDistribuido}, perfil native).</li>
+ * </ul>
+ *
+ * <p>Os arquivos CDS e AOT só valem para o JDK que os gerou: rode com o mesmo JDK do build
+ * (ou aponte {@code bench.java}). Precisa de um PostgreSQL ({@link BancoBench}: Chamada_bench
+ * por padrão, ou {@code bench.url}). Uso:</p>
+ * <pre>
+ * mvn -Pinicio-rapido package -DskipTests
+ * mvn -Pbench test-compile exec:java -Dbench.classe=org.vitor.appdistribuido.bench.InicioRapidoBenchmark -Dbench.repeticoes=5
+ * </pre>
+ * <p>O resultado vai para o console e para {@code target/bench/inicio-rapido.csv}; a saída de
+ * cada processo, para {@code target/bench/inicio-rapido-<variante>.log}.</p>
+ */
+public final class InicioRapidoBenchmark {
+
+    private static final String JAR = "AppDistribuido-0.0.1-SNAPSHOT.jar";
+
+    private final int repeticoes = Integer.getInteger("bench.repeticoes", 5);
+    private final Duration limite = Duration.ofSeconds(Long.getLong("bench.timeoutSegundos", 120));
+    private final String java = System.getProperty("bench.java",
+            Path.of(System.getProperty("java.home"), "bin", "java").toString());
+    private final BancoBench banco = BancoBench.configurado();
+    private final Set<String> filtro = Set.of(System.getProperty("bench.variantes", "").split(","));
+
+    private final Path alvo = Path.of("target").toAbsolutePath();
+    private final Path extraido = alvo.resolve("inicio-rapido");
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        new InicioRapidoBenchmark().executar();
+        System.exit(0);
+    }
+
+    private void executar() throws Exception {
+        List<Resultado> resultados = new ArrayList<>();
+        for (Variante variante : variantes()) {
+            if (!filtro.contains("") && !filtro.contains(variante.nome())) {
+                continue;
+            }
+            if (!Files.exists(variante.artefato())) {
+                System.out.printf("== %s: pulada, %s não existe%n", variante.nome(), variante.artefato());
+                continue;
+            }
+            resultados.add(medir(variante));
+        }
+
+        StringBuilder csv = new StringBuilder("variante,execucoes,falhas,mediana_ms,min_ms,max_ms,rss_mediana_mb\n");
+        System.out.printf("%n%-11s %9s %7s %11s %9s %9s %9s%n",
+                "variante", "execuções", "falhas", "mediana ms", "min ms", "max ms", "RSS MB");
+        for (Resultado r : resultados) {
+            System.out.printf("%-11s %9d %7d %11.0f %9.0f %9.0f %9.1f%n",
+                    r.variante(), r.execucoes(), r.falhas(), r.mediana(), r.min(), r.max(), r.rss());
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%.1f,%.1f,%.1f,%.1f%n",
+                    r.variante(), r.execucoes(), r.falhas(), r.mediana(), r.min(), r.max(), r.rss()));
+        }
+        Path saida = alvo.resolve(Path.of("bench", "inicio-rapido.csv"));
+        Files.createDirectories(saida.getParent());
+        Files.writeString(saida, csv);
+        System.out.println("\nResultados gravados em " + saida);
+    }
+
+    private List<Variante> variantes() {
+        Path jarExtraido = extraido.resolve(JAR);
+        List<String> aot = List.of("-Dspring.aot.enabled=true");
+        return List.of(
+                new Variante("jar", alvo.resolve(JAR), alvo, jvm(List.of(), alvo.resolve(JAR))),
+                new Variante("extraido", jarExtraido, extraido, jvm(List.of(), jarExtraido)),
+                new Variante("aot", jarExtraido, extraido, jvm(aot, jarExtraido)),
+                new Variante("aot-cds", extraido.resolve("app.jsa"), extraido,
+                        jvm(List.of("-XX:SharedArchiveFile=app.jsa", "-Dspring.aot.enabled=true"), jarExtraido)),
+                new Variante("aot-leyden", extraido.resolve("app.aot"), extraido,
+                        jvm(List.of("-XX:AOTCache=app.aot", "-Dspring.aot.enabled=true"), jarExtraido)),
+                new Variante("nativo", alvo.resolve("AppDistribuido"), alvo,
+                        List.of(alvo.resolve("AppDistribuido").toString())));
+    }
+
+    private List<String> jvm(List<String> opcoes, Path jar) {
+        List<String> comando = new ArrayList<>();
+        comando.add(java);
+        comando.addAll(opcoes);
+        comando.add("-jar");
+        comando.add(jar.toString());
+        return comando;
+    }
+
+    private Resultado medir(Variante variante) throws Exception {
+        Path log = alvo.resolve(Path.of("bench", "inicio-rapido-" + variante.nome() + ".log"));
+        Files.createDirectories(log.getParent());
+        Files.deleteIfExists(log);
+
+        double[] tempos = new double[repeticoes];
+        double[] rss = new double[repeticoes];
+        int medidas = 0;
+        int falhas = 0;
+        for (int i = 1; i <= repeticoes; i++) {
+            int porta = portaLivre();
+            List<String> comando = new ArrayList<>(variante.comando());
+            comando.addAll(List.of(
+                    "--server.port=" + porta,
+                    "--spring.datasource.url=" + banco.url(),
+                    "--spring.datasource.username=" + banco.usuario(),
+                    "--spring.datasource.password=" + banco.senha(),
+                    "--logging.level.root=WARN"));
+            ProcessBuilder construtor = new ProcessBuilder(comando)
+                    .directory(variante.diretorio().toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()));
+
+            long inicio = System.nanoTime();
+            Process processo = construtor.start();
+            try {
+                boolean respondeu = aguardarPrimeiraResposta(processo, porta, inicio);
+                double ms = (System.nanoTime() - inicio) / 1e6;
+                if (respondeu) {
+                    tempos[medidas] = ms;
+                    rss[medidas] = rssMb(processo.pid());
+                    medidas++;
+                    System.out.printf("== %s #%d: %.0f ms, RSS %.1f MB%n", variante.nome(), i, ms, rss[medidas - 1]);
+                } else {
+                    falhas++;
+                    System.out.printf("== %s #%d: sem resposta (ver %s)%n", variante.nome(), i, log);
+                }
+            } finally {
+                encerrar(processo);
+            }
+        }
+
+        double[] ordenados = Arrays.copyOf(tempos, medidas);
+        Arrays.sort(ordenados);
+        double[] rssOrdenados = Arrays.copyOf(rss, medidas);
+        Arrays.sort(rssOrdenados);
+        return new Resultado(variante.nome(), medidas, falhas,
+                mediana(ordenados),
+                medidas == 0 ? 0 : ordenados[0],
+                medidas == 0 ? 0 : ordenados[medidas - 1],
+                mediana(rssOrdenados));
+    }
+
+    /* Tenta a cada 10 ms; conexão recusada significa que o Tomcat ainda não está ouvindo */
+    private boolean aguardarPrimeiraResposta(Process processo, int porta, long inicio) throws InterruptedException {
+        HttpRequest requisicao = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + porta + "/api/v1/alunos/pagina?limite=1"))
+                .timeout(Duration.ofSeconds(5))
+                .GET().build();
+        while (System.nanoTime() - inicio < limite.toNanos()) {
+            if (!processo.isAlive()) {
+                return false;
+            }
+            try {
+                if (http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return true;
+                }
+            } catch (ConnectException | HttpTimeoutException e) {
+                // ainda subindo
+            } catch (IOException e) {
+                // conexão aceita e derrubada durante a subida
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private static void encerrar(Process processo) throws InterruptedException {
+        processo.destroy();
+        if (!processo.waitFor(30, TimeUnit.SECONDS)) {
+            processo.destroyForcibly().waitFor();
+        }
+    }
+
+    /* VmRSS de /proc (Linux); fora dele, 0 */
+    private static double rssMb(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        try {
+            for (String linha : Files.readAllLines(status)) {
+                if (linha.startsWith("VmRSS:")) {
+                    String kb = linha.substring("VmRSS:".length()).trim().split("\\s+")[0];
+                    return Long.parseLong(kb) / 1024.0;
+                }
+            }
+        } catch (IOException e) {
+            // sem /proc
+        }
+        return 0;
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double mediana(double[] ordenados) {
+        if (ordenados.length == 0) {
+            return 0;
+        }
+        int meio = ordenados.length / 2;
+        return ordenados.length % 2 == 1 ? ordenados[meio] : (ordenados[meio - 1] + ordenados[meio]) / 2;
+    }
+
+    private record Variante(String nome, Path artefato, Path diretorio, List<String> comando) {
+    }
+
+    private record Resultado(String variante, int execucoes, int falhas, double mediana,
+                             double min, double max, double rss) {
+    }
+}
@@ -0,0 +1,207 @@
+package org.vitor.appdistribuido.bench;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.vitor.appdistribuido.Alunos.Alunos;
+import org.vitor.appdistribuido.Alunos.AlunosRepository;
+import org.vitor.appdistribuido.AppDistribuidoApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Compara vazão e latência (p50/p99) da API com threads de plataforma e com threads virtuais.
+ *
+ * <p>Sobe a aplicação duas vezes no mesmo banco, uma em cada modo, semeia os alunos e dispara
+ * uma carga fechada: {@code bench.concorrencia} clientes, cada um emitindo uma requisição
+ * assim que a anterior responde (80% consultas de período, 20% marcações de presença).
+ * Cada modo tem um aquecimento descartado antes da medição.</p>
+ *
+ * <p>Precisa de um PostgreSQL ({@link BancoBench}: Chamada_bench por padrão, ou {@code bench.url}),
+ * já que a diferença entre os modos aparece quando as threads ficam bloqueadas em I/O de JDBC. Uso:</p>
+ * <pre>
+ * mvn -Pbench test-compile exec:java -Dbench.limpar=true -Dbench.concorrencia=1000 -Dbench.segundos=30
+ * </pre>
+ * <p>O resultado vai para o console e para {@code target/bench/modo-threads.csv}.</p>
+ */
+public final class ModoThreadsBenchmark {
+
+    private final int alunos = Integer.getInteger("bench.alunos", 2_000);
+    private final int concorrencia = Integer.getInteger("bench.concorrencia", 1_000);
+    private final Duration aquecimento = Duration.ofSeconds(Long.getLong("bench.aquecimentoSegundos", 10));
+    private final Duration medicao = Duration.ofSeconds(Long.getLong("bench.segundos", 30));
+    private final double fracaoEscritas = Double.parseDouble(System.getProperty("bench.fracaoEscritas", "0.2"));
+    private final BancoBench banco = BancoBench.configurado();
+    private final String pool = System.getProperty("bench.pool", "20");
+
+    public static void main(String[] args) throws Exception {
+        new ModoThreadsBenchmark().executar();
+        System.exit(0);
+    }
+
+    private void executar() throws Exception {
+        List<Resultado> resultados = new ArrayList<>();
+        for (boolean virtual : new boolean[]{false, true}) {
+            resultados.add(medir(virtual));
+        }
+
+        StringBuilder csv = new StringBuilder("modo,concorrencia,requisicoes,erros,vazao_rps,p50_ms,p99_ms,max_ms\n");
+        System.out.printf("%n%-10s %8s %12s %8s %10s %9s %9s %9s%n",
+                "modo", "clientes", "requisicoes", "erros", "req/s", "p50 ms", "p99 ms", "max ms");
+        for (Resultado r : resultados) {
+            System.out.printf("%-10s %8d %12d %8d %10.1f %9.2f %9.2f %9.2f%n",
+                    r.modo(), concorrencia, r.requisicoes(), r.erros(), r.vazao(), r.p50(), r.p99(), r.max());
+            csv.append(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.3f,%.3f,%.3f%n",
+                    r.modo(), concorrencia, r.requisicoes(), r.erros(), r.vazao(), r.p50(), r.p99(), r.max()));
+        }
+
+        Path saida = Path.of("target", "bench", "modo-threads.csv");
+        Files.createDirectories(saida.getParent());
+        Files.writeString(saida, csv);
+        System.out.println("\nResultados gravados em " + saida.toAbsolutePath());
+    }
+
+    private Resultado medir(boolean virtual) throws Exception {
+        String modo = virtual ? "virtual" : "plataforma";
+        System.out.printf("== %s: subindo a aplicação%n", modo);
+
+        Map<String, Object> propriedades = new HashMap<>();
+        propriedades.put("server.port", 0);
+        propriedades.put("spring.threads.virtual.enabled", virtual);
+        banco.aplicar(propriedades);
+        propriedades.put("spring.datasource.hikari.maximum-pool-size", pool);
+        propriedades.put("spring.datasource.hikari.minimum-idle", pool);
+        propriedades.put("spring.jpa.show-sql", false);
+        propriedades.put("spring.jpa.properties.hibernate.generate_statistics", false);
+        propriedades.put("logging.level.root", "WARN");
+
+        EsquemaLimpo.limpar(banco);
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(AppDistribuidoApplication.class)
+                .properties(propriedades)
+                .run()) {
+            AlunosRepository alunosRepository = contexto.getBean(AlunosRepository.class);
+            long[] ids = alunosRepository.saveAll(IntStream.rangeClosed(1, alunos)
+                            .mapToObj(i -> new Alunos("Aluno " + i, i))
+                            .toList())
+                    .stream().mapToLong(Alunos::getId).toArray();
+
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+                HttpClient http = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .executor(clientes)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+
+                System.out.printf("== %s: aquecendo por %ds%n", modo, aquecimento.toSeconds());
+                carga(http, clientes, base, ids, aquecimento);
+                System.out.printf("== %s: medindo por %ds com %d clientes%n", modo, medicao.toSeconds(), concorrencia);
+                Amostras amostras = carga(http, clientes, base, ids, medicao);
+                return amostras.resumir(modo, medicao);
+            }
+        }
+    }
+
+    /* Carga fechada: cada cliente só envia a próxima requisição depois da resposta anterior */
+    private Amostras carga(HttpClient http, ExecutorService clientes, String base, long[] ids, Duration duracao)
+            throws Exception {
+        long fim = System.nanoTime() + duracao.toNanos();
+        String hoje = LocalDate.now().toString();
+        String inicioPeriodo = LocalDate.now().minusDays(30).toString();
+
+        List<Future<Amostras>> futuros = new ArrayList<>(concorrencia);
+        for (int c = 0; c < concorrencia; c++) {
+            futuros.add(clientes.submit(() -> {
+                Amostras amostras = new Amostras();
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                while (System.nanoTime() < fim) {
+                    long id = ids[aleatorio.nextInt(ids.length)];
+                    HttpRequest requisicao = aleatorio.nextDouble() < fracaoEscritas
+                            ? HttpRequest.newBuilder(URI.create(base + "/api/presencas/marcar/" + id))
+                                    .POST(HttpRequest.BodyPublishers.noBody()).build()
+                            : HttpRequest.newBuilder(URI.create(base + "/api/presencas/aluno/" + id
+                                    + "/periodo?startDate=" + inicioPeriodo + "&endDate=" + hoje)).GET().build();
+                    long inicio = System.nanoTime();
+                    try {
+                        int status = http.send(requisicao, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        amostras.registrar(System.nanoTime() - inicio, status < 400);
+                    } catch (IOException e) {
+                        amostras.registrar(System.nanoTime() - inicio, false);
+                    }
+                }
+                return amostras;
+            }));
+        }
+
+        Amostras total = new Amostras();
+        for (Future<Amostras> futuro : futuros) {
+            total.juntar(futuro.get());
+        }
+        return total;
+    }
+
+    /* Latências em nanossegundos, sem sincronização: cada cliente tem as suas */
+    private static final class Amostras {
+        private long[] latencias = new long[1024];
+        private int tamanho;
+        private long erros;
+
+        void registrar(long nanos, boolean sucesso) {
+            if (tamanho == latencias.length) {
+                latencias = Arrays.copyOf(latencias, tamanho * 2);
+            }
+            latencias[tamanho++] = nanos;
+            if (!sucesso) {
+                erros++;
+            }
+        }
+
+        void juntar(Amostras outras) {
+            if (tamanho + outras.tamanho > latencias.length) {
+                latencias = Arrays.copyOf(latencias, tamanho + outras.tamanho);
+            }
+            System.arraycopy(outras.latencias, 0, latencias, tamanho, outras.tamanho);
+            tamanho += outras.tamanho;
+            erros += outras.erros;
+        }
+
+        Resultado resumir(String modo, Duration duracao) {
+            long[] ordenadas = Arrays.copyOf(latencias, tamanho);
+            Arrays.sort(ordenadas);
+            return new Resultado(modo, tamanho, erros,
+                    tamanho / (duracao.toNanos() / 1e9),
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.99),
+                    tamanho == 0 ? 0 : ordenadas[tamanho - 1] / 1e6);
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int posicao = (int) Math.ceil(p * ordenadas.length) - 1;
+            return ordenadas[Math.max(posicao, 0)] / 1e6;
+        }
+    }
+
+    private record Resultado(String modo, long requisicoes, long erros, double vazao,
+                             double p50, double p99, double max) {
+    }
+}